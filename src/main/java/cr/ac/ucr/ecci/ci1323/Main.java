@@ -1,17 +1,102 @@
 package cr.ac.ucr.ecci.ci1323;
 
+import cr.ac.ucr.ecci.ci1323.benchmark.AllocationBenchmark;
+import cr.ac.ucr.ecci.ci1323.benchmark.CapacityBenchmark;
+import cr.ac.ucr.ecci.ci1323.benchmark.DispatchBenchmark;
+import cr.ac.ucr.ecci.ci1323.benchmark.PositionLockBenchmark;
+import cr.ac.ucr.ecci.ci1323.commons.SimulationConfiguration;
+import cr.ac.ucr.ecci.ci1323.controller.BatchRunner;
 import cr.ac.ucr.ecci.ci1323.controller.SimulationController;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 /**
- * Creates a new SimulationController and starts the simulation of the MIPS processor.
+ * Creates a new SimulationController and starts the simulation of the MIPS processor, or runs a batch of simulations
+ * if the first argument is "batch", or one of the benchmarks of the simulator if it is "benchmark".
  *
  * @author Josue Leon Sarkis, Elias Calderon, Daniel Montes de Oca
  */
 public class Main {
 
-    public static void main(String[] args) {
-        SimulationController simulationController = new SimulationController();
+    private static final String PARALLELISM_OPTION = "parallelism=";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("batch")) {
+            runBatch(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("benchmark")) {
+            runBenchmark(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        SimulationConfiguration configuration = SimulationConfiguration.fromArguments(args);
+        SimulationController simulationController = new SimulationController(configuration);
         simulationController.runSimulation();
     }
 
+    /**
+     * Runs a batch of simulations. The arguments are the batch file, the results file, and optionally the number of
+     * simulations that run at the same time (parallelism=N) and the options of every simulation.
+     *
+     * @param args the arguments after "batch"
+     * @throws IOException if the batch file can't be read or the results file can't be written
+     */
+    private static void runBatch(String[] args) throws IOException {
+        if (args.length < 2)
+            throw new IllegalArgumentException("Usage: batch <batch file> <results file> [parallelism=N] [key=value ...]");
+
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        List<String> defaultOptions = new ArrayList<>();
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].startsWith(PARALLELISM_OPTION)) {
+                parallelism = Integer.parseInt(args[i].substring(PARALLELISM_OPTION.length()));
+            } else {
+                defaultOptions.add(args[i]);
+            }
+        }
+
+        BatchRunner batchRunner = new BatchRunner(Files.readAllLines(Paths.get(args[0])), defaultOptions, parallelism);
+        System.out.println("Corriendo " + batchRunner.getRuns() + " simulaciones, " + parallelism + " a la vez...");
+        batchRunner.run(Paths.get(args[1]));
+        System.out.println("Resultados escritos en " + args[1]);
+    }
+
+    /**
+     * Runs a benchmark of the simulator. The arguments are the name of the benchmark and its options.
+     *
+     * @param args the arguments after "benchmark"
+     */
+    private static void runBenchmark(String[] args) {
+        if (args.length < 1)
+            throw new IllegalArgumentException("Usage: benchmark capacity|allocation|dispatch|position-lock [key=value ...]");
+
+        List<String> options = Arrays.asList(args).subList(1, args.length);
+        switch (args[0]) {
+            case "capacity":
+                new CapacityBenchmark(options).run();
+                break;
+
+            case "allocation":
+                new AllocationBenchmark(options).run();
+                break;
+
+            case "dispatch":
+                new DispatchBenchmark(options).run();
+                break;
+
+            case "position-lock":
+                new PositionLockBenchmark(options).run();
+                break;
+
+            default:
+                throw new IllegalArgumentException("Unknown benchmark: " + args[0]);
+        }
+    }
+
 }
@@ -0,0 +1,172 @@
+package cr.ac.ucr.ecci.ci1323.benchmark;
+
+import cr.ac.ucr.ecci.ci1323.commons.SimulationConfiguration;
+import cr.ac.ucr.ecci.ci1323.controller.SimulationController;
+import cr.ac.ucr.ecci.ci1323.controller.SimulationResult;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Checks that the steady state of a simulation allocates nothing on the host for each cache miss. It runs programs
+ * that load and store every block of the data memory in a loop, so every access misses, once with a number of
+ * iterations and once with twice as many. The bytes allocated by every thread of the JVM during each run are read from
+ * the ThreadMXBean, and the difference between both runs, divided by the extra misses of the longer one, is the number
+ * of bytes allocated per miss once the simulation is set up. The benchmark fails if it is above 0.
+ *
+ * Both runs have the same setup, like parsing the programs and starting the threads, so it cancels out. The quantum is
+ * larger than the programs, so no context goes back to the context queue in the middle of a run.
+ *
+ * Usage: benchmark allocation [iterations=N] [warmup=N] [key=value ...], where the options are added to the ones of
+ * every simulation, like "benchmark allocation wbuffer=2 dprefetch=stride".
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+public class AllocationBenchmark {
+
+    private static final String ITERATIONS_OPTION = "iterations=";
+    private static final String WARMUP_OPTION = "warmup=";
+
+    /**
+     * The options of every simulation unless they are given: the event clock, which is the one that allocates nothing,
+     * platform threads, whose allocations the ThreadMXBean counts, and a quantum no context reaches.
+     */
+    private static final List<String> DEFAULT_OPTIONS = Arrays.asList("engine=events", "threads=platform",
+            "quantum=100000000");
+
+    /**
+     * The programs of the contexts, which load and store the 24 blocks of the default data memory one after the other
+     * for the number of iterations in register 1.
+     */
+    private static final int CONTEXTS = 4;
+    private static final String PROGRAM = String.join("\n",
+            "8 0 1 %d",     // R1 = iterations
+            "8 0 2 0",      // R2 = 0, the address of the first block
+            "35 2 3 0",     // R3 = M[R2]
+            "43 2 3 0",     // M[R2] = R3
+            "8 2 2 16",     // R2 = R2 + 16, the next block
+            "8 2 4 -384",   // R4 = R2 - 384, 0 after the last block
+            "5 4 0 -5",     // if R4 != 0, load the next block
+            "8 1 1 -1",     // R1 = R1 - 1
+            "5 1 0 -8",     // if R1 != 0, start again from the first block
+            "63 0 0 0");
+
+    private final List<String> simulationOptions;
+    private final int iterations;
+    private final int warmupRuns;
+
+    /**
+     * Constructor which separates the options of the benchmark from the options of the simulations.
+     * @param args the arguments after the name of the benchmark
+     */
+    public AllocationBenchmark(List<String> args) {
+        this.simulationOptions = new ArrayList<>(DEFAULT_OPTIONS);
+        int iterations = 200;
+        int warmupRuns = 5;
+        for (String arg : args) {
+            if (arg.startsWith(ITERATIONS_OPTION)) {
+                iterations = Integer.parseInt(arg.substring(ITERATIONS_OPTION.length()));
+            } else if (arg.startsWith(WARMUP_OPTION)) {
+                warmupRuns = Integer.parseInt(arg.substring(WARMUP_OPTION.length()));
+            } else {
+                this.simulationOptions.add(arg);
+            }
+        }
+
+        if (iterations < 1)
+            throw new IllegalArgumentException("The iterations must be greater than 0: " + iterations);
+
+        this.iterations = iterations;
+        this.warmupRuns = warmupRuns;
+    }
+
+    /**
+     * Runs the simulations and prints the bytes allocated per miss.
+     * @throws IllegalStateException if the steady state allocates memory for the misses
+     */
+    public void run() {
+        System.out.println("Opciones: " + String.join(" ", this.simulationOptions));
+
+        Path shortPrograms = createPrograms(this.iterations);
+        Path longPrograms = createPrograms(2 * this.iterations);
+        try {
+            for (int i = 0; i < this.warmupRuns; i++) {
+                this.measure(shortPrograms);
+                this.measure(longPrograms);
+            }
+
+            long[] shortRun = this.measure(shortPrograms);
+            long[] longRun = this.measure(longPrograms);
+            long extraBytes = longRun[0] - shortRun[0];
+            long extraMisses = longRun[1] - shortRun[1];
+            if (extraMisses <= 0)
+                throw new IllegalStateException("The longer simulation didn't miss more: " + extraMisses);
+
+            long bytesPerMiss = Math.max(0, extraBytes) / extraMisses;
+            System.out.println("Fallos = " + shortRun[1] + " y " + longRun[1] + ", bytes = " + shortRun[0] + " y " +
+                    longRun[0] + ", bytes por fallo = " + bytesPerMiss);
+
+            if (bytesPerMiss > 0)
+                throw new IllegalStateException("The simulation allocates " + bytesPerMiss + " bytes per miss.");
+        } finally {
+            deletePrograms(shortPrograms);
+            deletePrograms(longPrograms);
+        }
+    }
+
+    /**
+     * Runs a simulation of the programs of a directory.
+     * @param programsDirectory the directory of the programs
+     * @return the bytes allocated by the JVM during the simulation and the misses of its caches
+     */
+    private long[] measure(Path programsDirectory) {
+        SimulationConfiguration configuration = new SimulationConfiguration();
+        this.simulationOptions.forEach(configuration::setOption);
+        configuration.setProgramsDirectory(programsDirectory.toString());
+
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        SimulationController simulationController = new SimulationController(configuration);
+
+        long allocatedBytes = threadMXBean.getTotalThreadAllocatedBytes();
+        SimulationResult result = simulationController.runBatchSimulation();
+        allocatedBytes = threadMXBean.getTotalThreadAllocatedBytes() - allocatedBytes;
+
+        return new long[]{allocatedBytes, result.getMisses()};
+    }
+
+    /**
+     * Writes the programs of the contexts to a new directory.
+     * @param iterations the iterations of the loop of the programs
+     * @return the directory
+     */
+    private static Path createPrograms(int iterations) {
+        try {
+            Path programsDirectory = Files.createTempDirectory("allocation-benchmark");
+            for (int i = 0; i < CONTEXTS; i++) {
+                Files.write(programsDirectory.resolve(i + ".txt"),
+                        String.format(PROGRAM, iterations).getBytes());
+            }
+            return programsDirectory;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void deletePrograms(Path programsDirectory) {
+        try {
+            for (int i = 0; i < CONTEXTS; i++) {
+                Files.deleteIfExists(programsDirectory.resolve(i + ".txt"));
+            }
+            Files.deleteIfExists(programsDirectory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
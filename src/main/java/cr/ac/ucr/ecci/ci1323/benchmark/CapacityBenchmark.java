@@ -0,0 +1,144 @@
+package cr.ac.ucr.ecci.ci1323.benchmark;
+
+import cr.ac.ucr.ecci.ci1323.commons.SimulationConfiguration;
+import cr.ac.ucr.ecci.ci1323.controller.SimulationController;
+import cr.ac.ucr.ecci.ci1323.core.ThreadBackend;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Measures how many simulations one JVM can run at the same time with the kind of threads selected with the "threads"
+ * option. It runs rounds of 1, 2, 4, ... simulations that start together, each one with its own controller thread of
+ * that kind, until a round can't create its threads, doesn't finish in time or reaches the maximum. For each round it
+ * prints the time it took and the most operating system threads that were alive.
+ *
+ * Usage: benchmark capacity [max=N] [timeout=seconds] [key=value ...], where the options of every simulation must
+ * have a quantum, like "benchmark capacity threads=virtual cores=64 quantum=10 engine=events".
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+public class CapacityBenchmark {
+
+    private static final String MAX_OPTION = "max=";
+    private static final String TIMEOUT_OPTION = "timeout=";
+
+    private final List<String> simulationOptions;
+    private final ThreadBackend threadBackend;
+    private final int maxSimulations;
+    private final long timeoutSeconds;
+
+    /**
+     * Constructor which separates the options of the benchmark from the options of the simulations.
+     * @param args the arguments after the name of the benchmark
+     */
+    public CapacityBenchmark(List<String> args) {
+        this.simulationOptions = new ArrayList<>();
+        int maxSimulations = 4096;
+        long timeoutSeconds = 120;
+        for (String arg : args) {
+            if (arg.startsWith(MAX_OPTION)) {
+                maxSimulations = Integer.parseInt(arg.substring(MAX_OPTION.length()));
+            } else if (arg.startsWith(TIMEOUT_OPTION)) {
+                timeoutSeconds = Long.parseLong(arg.substring(TIMEOUT_OPTION.length()));
+            } else {
+                this.simulationOptions.add(arg);
+            }
+        }
+
+        SimulationConfiguration configuration = this.createConfiguration();
+        if (configuration.getQuantum() < 1)
+            throw new IllegalArgumentException("The simulations of the capacity benchmark need a quantum.");
+
+        this.threadBackend = configuration.getThreadBackend();
+        this.maxSimulations = maxSimulations;
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    /**
+     * Runs rounds with twice as many simulations as the previous one until one fails or the maximum is reached, and
+     * prints the largest number of simulations that ran at the same time.
+     */
+    public void run() {
+        System.out.println("Hilos " + this.threadBackend.name().toLowerCase() + ", opciones: " +
+                String.join(" ", this.simulationOptions));
+
+        int hostedSimulations = 0;
+        for (int simulations = 1; simulations <= this.maxSimulations; simulations *= 2) {
+            if (!this.runRound(simulations)) {
+                break;
+            }
+            hostedSimulations = simulations;
+        }
+
+        System.out.println("Maximo de simulaciones a la vez con hilos " + this.threadBackend.name().toLowerCase() +
+                ": " + hostedSimulations);
+    }
+
+    /**
+     * Runs several simulations at the same time, each one in its own controller thread.
+     * @param simulations the number of simulations
+     * @return true if every simulation finished in time
+     */
+    private boolean runRound(int simulations) {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        threadMXBean.resetPeakThreadCount();
+
+        CountDownLatch startSignal = new CountDownLatch(1);
+        CountDownLatch finishedSimulations = new CountDownLatch(simulations);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread.Builder threadBuilder = this.threadBackend == ThreadBackend.VIRTUAL ? Thread.ofVirtual() :
+                Thread.ofPlatform().daemon(true);
+
+        long startTime = System.nanoTime();
+        try {
+            for (int i = 0; i < simulations; i++) {
+                SimulationConfiguration configuration = this.createConfiguration();
+                threadBuilder.start(() -> {
+                    try {
+                        startSignal.await();
+                        new SimulationController(configuration).runBatchSimulation();
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        finishedSimulations.countDown();
+                    }
+                });
+            }
+            startSignal.countDown();
+
+            if (!finishedSimulations.await(this.timeoutSeconds, TimeUnit.SECONDS)) {
+                System.out.println("Simulaciones = " + simulations + ": no terminaron en " + this.timeoutSeconds +
+                        " segundos");
+                return false;
+            }
+        } catch (OutOfMemoryError | InterruptedException e) {
+            failure.compareAndSet(null, e);
+            startSignal.countDown();
+        }
+
+        if (failure.get() != null) {
+            System.out.println("Simulaciones = " + simulations + ": fallaron con " + failure.get());
+            return false;
+        }
+
+        System.out.println("Simulaciones = " + simulations + ": tiempo = " +
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + " ms, hilos del sistema = " +
+                threadMXBean.getPeakThreadCount());
+        return true;
+    }
+
+    /**
+     * @return a new configuration with the options of the simulations.
+     */
+    private SimulationConfiguration createConfiguration() {
+        SimulationConfiguration configuration = new SimulationConfiguration();
+        this.simulationOptions.forEach(configuration::setOption);
+        return configuration;
+    }
+}
@@ -0,0 +1,108 @@
+package cr.ac.ucr.ecci.ci1323.benchmark;
+
+import java.util.List;
+
+/**
+ * Base of the benchmarks that time a hot path of the simulator against the implementation it replaced. The replaced
+ * implementation is kept as a copy inside the benchmark, since the simulator no longer has it. Both are run for the
+ * same number of operations in several rounds, one after the other, and the fastest round of each one is reported,
+ * since the first rounds include the warmup of the JIT compiler.
+ *
+ * Usage: benchmark NAME [operations=N] [rounds=N].
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+abstract class ComparisonBenchmark {
+
+    private static final String OPERATIONS_OPTION = "operations=";
+    private static final String ROUNDS_OPTION = "rounds=";
+
+    private final int operations;
+    private final int rounds;
+
+    /**
+     * Results of the operations, kept so the JIT compiler can't drop the work of a round.
+     */
+    private volatile long sink;
+
+    /**
+     * Constructor which reads the options of the benchmark.
+     * @param args the arguments after the name of the benchmark
+     */
+    ComparisonBenchmark(List<String> args) {
+        int operations = 5_000_000;
+        int rounds = 10;
+        for (String arg : args) {
+            if (arg.startsWith(OPERATIONS_OPTION)) {
+                operations = Integer.parseInt(arg.substring(OPERATIONS_OPTION.length()));
+            } else if (arg.startsWith(ROUNDS_OPTION)) {
+                rounds = Integer.parseInt(arg.substring(ROUNDS_OPTION.length()));
+            } else {
+                throw new IllegalArgumentException("Unknown benchmark option: " + arg);
+            }
+        }
+
+        if (operations < 1 || rounds < 1)
+            throw new IllegalArgumentException("The operations and rounds must be greater than 0: " + operations +
+                    ", " + rounds);
+
+        this.operations = operations;
+        this.rounds = rounds;
+    }
+
+    /**
+     * @return the name of the replaced implementation, as it is printed.
+     */
+    protected abstract String getLegacyName();
+
+    /**
+     * @return the name of the current implementation, as it is printed.
+     */
+    protected abstract String getCurrentName();
+
+    /**
+     * Runs the hot path with the replaced implementation.
+     * @param operations the number of times the hot path runs
+     * @return a value that depends on every operation
+     */
+    protected abstract long runLegacy(int operations);
+
+    /**
+     * Runs the hot path with the current implementation.
+     * @param operations the number of times the hot path runs
+     * @return a value that depends on every operation
+     */
+    protected abstract long runCurrent(int operations);
+
+    /**
+     * Runs the rounds and prints the nanoseconds per operation of both implementations.
+     */
+    public void run() {
+        double bestLegacy = Double.MAX_VALUE;
+        double bestCurrent = Double.MAX_VALUE;
+        for (int round = 1; round <= this.rounds; round++) {
+            double legacy = this.time(true);
+            double current = this.time(false);
+            bestLegacy = Math.min(bestLegacy, legacy);
+            bestCurrent = Math.min(bestCurrent, current);
+            System.out.printf("Ronda %d: %s = %.1f ns/op, %s = %.1f ns/op%n", round, this.getLegacyName(), legacy,
+                    this.getCurrentName(), current);
+        }
+
+        System.out.printf("Mejor ronda: %s = %.1f ns/op, %s = %.1f ns/op%n", this.getLegacyName(), bestLegacy,
+                this.getCurrentName(), bestCurrent);
+    }
+
+    /**
+     * Times one round of an implementation.
+     * @param legacy true to run the replaced implementation, false to run the current one
+     * @return the nanoseconds per operation
+     */
+    private double time(boolean legacy) {
+        long start = System.nanoTime();
+        long result = legacy ? this.runLegacy(this.operations) : this.runCurrent(this.operations);
+        long elapsed = System.nanoTime() - start;
+        this.sink += result;
+        return (double) elapsed / this.operations;
+    }
+}
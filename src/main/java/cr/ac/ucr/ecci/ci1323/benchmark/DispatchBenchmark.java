@@ -0,0 +1,167 @@
+package cr.ac.ucr.ecci.ci1323.benchmark;
+
+import cr.ac.ucr.ecci.ci1323.memory.Instruction;
+
+import java.util.List;
+
+/**
+ * Times the dispatch of the instructions of a core: the instructions decoded when they are parsed, with final fields,
+ * and executed with a switch on their operation, like the cores do, against the instructions that kept their fields
+ * in a volatile array and were executed with a switch on their operation code. Both execute the same arithmetic and
+ * branch instructions on the same registers, so only the decoding differs.
+ *
+ * Usage: benchmark dispatch [operations=N] [rounds=N], where each operation is one executed instruction.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+public class DispatchBenchmark extends ComparisonBenchmark {
+
+    /**
+     * The instructions executed in a loop, with their operation code followed by their three fields.
+     */
+    private static final int[][] PROGRAM = {
+            {8, 1, 1, 1},       // R1 = R1 + 1
+            {32, 1, 2, 3},      // R3 = R1 + R2
+            {34, 3, 1, 2},      // R2 = R3 - R1
+            {12, 2, 1, 4},      // R4 = R2 * R1
+            {5, 1, 0, 0}        // if R1 != 0, branch to the next instruction
+    };
+
+    /**
+     * An instruction as it was before it was decoded when parsed.
+     */
+    private static class LegacyInstruction {
+
+        private volatile int[] instructionFields;
+
+        LegacyInstruction(int[] instructionFields) {
+            this.instructionFields = instructionFields;
+        }
+
+        int getField(int fieldNumber) {
+            return this.instructionFields[fieldNumber];
+        }
+
+        int getOperationCode() {
+            return this.instructionFields[0];
+        }
+    }
+
+    private final LegacyInstruction[] legacyInstructions;
+    private final Instruction[] instructions;
+
+    private final int[] registers;
+    private int pc;
+
+    /**
+     * Constructor which reads the options of the benchmark.
+     * @param args the arguments after the name of the benchmark
+     */
+    public DispatchBenchmark(List<String> args) {
+        super(args);
+        this.legacyInstructions = new LegacyInstruction[PROGRAM.length];
+        this.instructions = new Instruction[PROGRAM.length];
+        for (int i = 0; i < PROGRAM.length; i++) {
+            this.legacyInstructions[i] = new LegacyInstruction(PROGRAM[i].clone());
+            this.instructions[i] = new Instruction(PROGRAM[i].clone());
+        }
+
+        this.registers = new int[32];
+    }
+
+    @Override
+    protected String getLegacyName() {
+        return "codigo de operacion";
+    }
+
+    @Override
+    protected String getCurrentName() {
+        return "operacion decodificada";
+    }
+
+    @Override
+    protected long runLegacy(int operations) {
+        for (int i = 0; i < operations; i++) {
+            LegacyInstruction instruction = this.legacyInstructions[i % this.legacyInstructions.length];
+            switch (instruction.getOperationCode()) {
+                case 8:
+                    this.registers[instruction.getField(2)] = this.registers[instruction.getField(1)] +
+                            instruction.getField(3);
+                    break;
+                case 32:
+                    this.registers[instruction.getField(3)] = this.registers[instruction.getField(1)] +
+                            this.registers[instruction.getField(2)];
+                    break;
+                case 34:
+                    this.registers[instruction.getField(3)] = this.registers[instruction.getField(1)] -
+                            this.registers[instruction.getField(2)];
+                    break;
+                case 12:
+                    this.registers[instruction.getField(3)] = this.registers[instruction.getField(1)] *
+                            this.registers[instruction.getField(2)];
+                    break;
+                case 5:
+                    if (this.registers[instruction.getField(1)] != 0) {
+                        this.pc += 4 * instruction.getField(3);
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid operation code: " + instruction.getOperationCode());
+            }
+        }
+        return this.registers[4] + this.pc;
+    }
+
+    @Override
+    protected long runCurrent(int operations) {
+        for (int i = 0; i < operations; i++) {
+            Instruction instruction = this.instructions[i % this.instructions.length];
+            switch (instruction.getOperation()) {
+                case DADDI:
+                    this.executeDADDI(instruction);
+                    break;
+                case DADD:
+                    this.executeDADD(instruction);
+                    break;
+                case DSUB:
+                    this.executeDSUB(instruction);
+                    break;
+                case DMUL:
+                    this.executeDMUL(instruction);
+                    break;
+                case BNEZ:
+                    this.executeBNEZ(instruction);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid operation: " + instruction.getOperation());
+            }
+        }
+        return this.registers[4] + this.pc;
+    }
+
+    private void executeDADDI(Instruction instruction) {
+        this.registers[instruction.getSecondField()] = this.registers[instruction.getFirstField()] +
+                instruction.getThirdField();
+    }
+
+    private void executeDADD(Instruction instruction) {
+        this.registers[instruction.getThirdField()] = this.registers[instruction.getFirstField()] +
+                this.registers[instruction.getSecondField()];
+    }
+
+    private void executeDSUB(Instruction instruction) {
+        this.registers[instruction.getThirdField()] = this.registers[instruction.getFirstField()] -
+                this.registers[instruction.getSecondField()];
+    }
+
+    private void executeDMUL(Instruction instruction) {
+        this.registers[instruction.getThirdField()] = this.registers[instruction.getFirstField()] *
+                this.registers[instruction.getSecondField()];
+    }
+
+    private void executeBNEZ(Instruction instruction) {
+        if (this.registers[instruction.getFirstField()] != 0) {
+            this.pc += 4 * instruction.getThirdField();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package cr.ac.ucr.ecci.ci1323.benchmark;
+
+import cr.ac.ucr.ecci.ci1323.cache.CachePositionState;
+import cr.ac.ucr.ecci.ci1323.cache.DataCacheLayout;
+import cr.ac.ucr.ecci.ci1323.cache.DataCachePositions;
+import cr.ac.ucr.ecci.ci1323.commons.SimulationConstants;
+import cr.ac.ucr.ecci.ci1323.exceptions.TryLockException;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Times the hit path of a load in a data cache position: taking the lock of the position, checking its tag and
+ * state, reading a word and releasing the lock. The position word, which packs the lock, tag and state in one atomic
+ * long, is timed against the position that had a ReentrantLock and synchronized methods.
+ *
+ * Usage: benchmark position-lock [operations=N] [rounds=N], where each operation is one load that hits.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+public class PositionLockBenchmark extends ComparisonBenchmark {
+
+    private static final int TAG = 7;
+    private static final int OFFSET = 2;
+
+    /**
+     * A data cache position as it was before the lock, tag and state were packed in one word.
+     */
+    private static class LegacyDataCachePosition {
+
+        private volatile int tag;
+        private volatile int[] words;
+        private volatile ReentrantLock cachePositionLock;
+        private volatile CachePositionState cachePositionState;
+
+        LegacyDataCachePosition(int tag, int[] words, CachePositionState cachePositionState) {
+            this.tag = tag;
+            this.words = words;
+            this.cachePositionState = cachePositionState;
+            this.cachePositionLock = new ReentrantLock();
+        }
+
+        synchronized boolean tryLock() {
+            if (this.cachePositionLock.isHeldByCurrentThread())
+                throw new TryLockException("The current thread already holds the data cache position queue lock.");
+
+            return this.cachePositionLock.tryLock();
+        }
+
+        synchronized void unlock() {
+            if (!this.cachePositionLock.isHeldByCurrentThread())
+                throw new TryLockException("The current thread cannot unlock the data cache position without holding the lock.");
+
+            this.cachePositionLock.unlock();
+        }
+
+        int getTag() {
+            return tag;
+        }
+
+        CachePositionState getState() {
+            return cachePositionState;
+        }
+
+        int getWord(int offset) {
+            return this.words[offset];
+        }
+    }
+
+    private final LegacyDataCachePosition legacyPosition;
+    private final DataCachePositions positions;
+
+    /**
+     * Constructor which reads the options of the benchmark and loads the same block in both positions.
+     * @param args the arguments after the name of the benchmark
+     */
+    public PositionLockBenchmark(List<String> args) {
+        super(args);
+        int[] words = new int[SimulationConstants.WORDS_PER_DATA_BLOCK];
+        this.positions = DataCacheLayout.OBJECTS.createPositions(1);
+        this.positions.setTag(0, TAG);
+        this.positions.setState(0, CachePositionState.SHARED);
+        for (int i = 0; i < words.length; i++) {
+            words[i] = i + 1;
+            this.positions.setWord(0, i, words[i]);
+        }
+        this.legacyPosition = new LegacyDataCachePosition(TAG, words, CachePositionState.SHARED);
+    }
+
+    @Override
+    protected String getLegacyName() {
+        return "ReentrantLock";
+    }
+
+    @Override
+    protected String getCurrentName() {
+        return "palabra atomica";
+    }
+
+    @Override
+    protected long runLegacy(int operations) {
+        long result = 0;
+        for (int i = 0; i < operations; i++) {
+            if (!this.legacyPosition.tryLock())
+                throw new IllegalStateException("The position is locked by another thread.");
+
+            if (this.legacyPosition.getTag() == TAG && this.legacyPosition.getState() != CachePositionState.INVALID) {
+                result += this.legacyPosition.getWord(OFFSET);
+            }
+            this.legacyPosition.unlock();
+        }
+        return result;
+    }
+
+    @Override
+    protected long runCurrent(int operations) {
+        long result = 0;
+        for (int i = 0; i < operations; i++) {
+            if (!this.positions.tryLock(0))
+                throw new IllegalStateException("The position is locked by another thread.");
+
+            if (this.positions.getTag(0) == TAG && this.positions.getState(0) != CachePositionState.INVALID) {
+                result += this.positions.getWord(0, OFFSET);
+            }
+            this.positions.unlock(0);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,90 @@
+package cr.ac.ucr.ecci.ci1323.cache;
+
+import cr.ac.ucr.ecci.ci1323.commons.SimulationConstants;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * The positions of a data cache stored in two arrays indexed by the number of the position: the position words of
+ * every position in one array of longs and the words of every block in one contiguous array of ints. There is no
+ * object per position, so a lookup reads the arrays directly.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+class ArrayDataCachePositions extends DataCachePositions {
+
+    private static final VarHandle POSITION_WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /**
+     * The position words of every position.
+     */
+    private final long[] positionWords;
+
+    /**
+     * The words of every block, one block after the other.
+     */
+    private final int[] words;
+
+    /**
+     * Class constructor, with every position empty.
+     * @param cacheSize the number of positions
+     */
+    ArrayDataCachePositions(int cacheSize) {
+        this.positionWords = new long[cacheSize];
+        this.words = new int[cacheSize * SimulationConstants.WORDS_PER_DATA_BLOCK];
+        Arrays.fill(this.positionWords, EMPTY_POSITION_WORD);
+        VarHandle.releaseFence(); // The threads that get the positions see them empty.
+    }
+
+    @Override
+    public int size() {
+        return this.positionWords.length;
+    }
+
+    @Override
+    protected long getPositionWord(int positionNumber) {
+        return (long) POSITION_WORDS.getVolatile(this.positionWords, positionNumber);
+    }
+
+    @Override
+    protected boolean compareAndSetPositionWord(int positionNumber, long expectedPositionWord, long newPositionWord) {
+        return POSITION_WORDS.compareAndSet(this.positionWords, positionNumber, expectedPositionWord, newPositionWord);
+    }
+
+    @Override
+    public int getWord(int positionNumber, int offset) {
+        return this.words[positionNumber * SimulationConstants.WORDS_PER_DATA_BLOCK + offset];
+    }
+
+    @Override
+    public void setWord(int positionNumber, int offset, int value) {
+        this.words[positionNumber * SimulationConstants.WORDS_PER_DATA_BLOCK + offset] = value;
+    }
+
+    @Override
+    public void copyWordsTo(int positionNumber, int[] destination, int destinationOffset) {
+        System.arraycopy(this.words, positionNumber * SimulationConstants.WORDS_PER_DATA_BLOCK, destination,
+                destinationOffset, SimulationConstants.WORDS_PER_DATA_BLOCK);
+    }
+
+    @Override
+    public void copyWordsTo(int positionNumber, IntBuffer destination, int destinationIndex) {
+        destination.put(destinationIndex, this.words, positionNumber * SimulationConstants.WORDS_PER_DATA_BLOCK,
+                SimulationConstants.WORDS_PER_DATA_BLOCK);
+    }
+
+    @Override
+    public void copyWordsFrom(int positionNumber, IntBuffer source, int sourceIndex) {
+        source.get(sourceIndex, this.words, positionNumber * SimulationConstants.WORDS_PER_DATA_BLOCK,
+                SimulationConstants.WORDS_PER_DATA_BLOCK);
+    }
+
+    @Override
+    public void copyWordsFrom(int positionNumber, DataCachePositions dataCachePositions, int sourcePositionNumber) {
+        dataCachePositions.copyWordsTo(sourcePositionNumber, this.words,
+                positionNumber * SimulationConstants.WORDS_PER_DATA_BLOCK);
+    }
+}
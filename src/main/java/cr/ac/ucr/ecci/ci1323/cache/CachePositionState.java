@@ -1,12 +1,24 @@
 package cr.ac.ucr.ecci.ci1323.cache;
 
 /**
- * Possible states for a data cache position block.
+ * Possible states for a data cache position block. Each coherence protocol uses some of them: MSI uses SHARED,
+ * MODIFIED and INVALID, MESI adds EXCLUSIVE and MOESI adds OWNED too.
  *
  * @author Josué León Sarkis, Elías Calderón, Daniel Montes de Oca
  */
 public enum CachePositionState {
     SHARED,
     MODIFIED,
-    INVALID
+    INVALID,
+
+    /**
+     * The only copy of the block, with the same words as memory. It can be written without using the bus.
+     */
+    EXCLUSIVE,
+
+    /**
+     * A copy of the block that other caches share, with words that memory doesn't have yet. The cache that owns the
+     * block gives it to the others and writes it to memory when it is replaced.
+     */
+    OWNED
 }
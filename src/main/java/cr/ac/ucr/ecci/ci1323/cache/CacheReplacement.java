@@ -0,0 +1,36 @@
+package cr.ac.ucr.ecci.ci1323.cache;
+
+/**
+ * The state a replacement policy keeps for the sets of a cache. The core and the miss handler update it without any
+ * lock: an update lost to a race only changes which block is replaced, never the contents of the cache.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+abstract class CacheReplacement {
+
+    protected final int ways;
+
+    /**
+     * Class constructor
+     * @param ways the number of ways of each set
+     */
+    CacheReplacement(int ways) {
+        this.ways = ways;
+    }
+
+    /**
+     * Chooses the way of a set that is replaced by the next block brought to the set. It doesn't change the state, so
+     * it chooses the same way until the set is accessed again.
+     * @param set the number of the set
+     * @return the way to replace
+     */
+    abstract int getVictim(int set);
+
+    /**
+     * Records an access to a way of a set, either a hit or a block brought to the way.
+     * @param set the number of the set
+     * @param way the way accessed
+     */
+    abstract void access(int set, int way);
+
+}
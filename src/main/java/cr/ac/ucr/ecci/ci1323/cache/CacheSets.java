@@ -0,0 +1,61 @@
+package cr.ac.ucr.ecci.ci1323.cache;
+
+/**
+ * The organization of the positions of a cache in sets. The ways of a set are consecutive positions, and a block can
+ * only be in the set of its block number modulo the number of sets. With one way per set the cache is direct mapped.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+class CacheSets {
+
+    private final int sets;
+    private final int ways;
+    private final CacheReplacement replacement;
+
+    /**
+     * Class constructor
+     * @param cacheSize the number of positions of the cache
+     * @param ways the number of ways of each set
+     * @param replacementPolicy the policy that chooses the block replaced in a set
+     */
+    CacheSets(int cacheSize, int ways, ReplacementPolicy replacementPolicy) {
+        if (ways < 1 || cacheSize % ways != 0)
+            throw new IllegalArgumentException("A cache of " + cacheSize + " positions can't have sets of " + ways
+                    + " ways.");
+
+        this.sets = cacheSize / ways;
+        this.ways = ways;
+        this.replacement = replacementPolicy.createReplacement(this.sets, ways);
+    }
+
+    /**
+     * Gets the first position of the set of a block.
+     * @param blockNumber the number of the block
+     * @return the position of the first way of the set
+     */
+    int getFirstPosition(int blockNumber) {
+        return (blockNumber % this.sets) * this.ways;
+    }
+
+    /**
+     * Gets the position the replacement policy would replace in the set of a block.
+     * @param blockNumber the number of the block
+     * @return the position to replace
+     */
+    int getVictimPosition(int blockNumber) {
+        int set = blockNumber % this.sets;
+        return set * this.ways + this.replacement.getVictim(set);
+    }
+
+    /**
+     * Records an access to a position for the replacement policy.
+     * @param position the position accessed
+     */
+    void access(int position) {
+        this.replacement.access(position / this.ways, position % this.ways);
+    }
+
+    int getWays() {
+        return ways;
+    }
+}
@@ -0,0 +1,42 @@
+package cr.ac.ucr.ecci.ci1323.cache;
+
+/**
+ * Protocols that keep the copies of a block in the data caches coherent.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+public enum CoherenceProtocol {
+
+    /**
+     * Modified, shared and invalid blocks.
+     */
+    MSI,
+
+    /**
+     * MSI with exclusive blocks, which are stored to without using the bus.
+     */
+    MESI,
+
+    /**
+     * MESI with owned blocks, which are shared without writing them to memory.
+     */
+    MOESI;
+
+    /**
+     * Creates the state machine of this protocol.
+     * @return the state machine
+     */
+    public CoherenceStateMachine createStateMachine() {
+        switch (this) {
+            case MESI:
+                return new MesiStateMachine();
+
+            case MOESI:
+                return new MoesiStateMachine();
+
+            default:
+                return new MsiStateMachine();
+        }
+    }
+
+}
@@ -0,0 +1,54 @@
+package cr.ac.ucr.ecci.ci1323.cache;
+
+/**
+ * The transitions of a coherence protocol. The cores run the bus transactions, holding the data bus and the positions
+ * of the block in every cache, and ask the state machine which state each copy of the block goes to and where the
+ * block comes from. A store always leaves the copy of the core that stores MODIFIED and invalidates the other ones.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+public interface CoherenceStateMachine {
+
+    /**
+     * Indicates if memory doesn't have the words of a block in a state, so it must be written to memory when it is
+     * replaced.
+     * @param state the state of the block
+     * @return true if the block must be written back, false if not
+     */
+    boolean isDirty(CachePositionState state);
+
+    /**
+     * Indicates if a core can store to a block in a state without using the bus, because no other cache has it.
+     * @param state the state of the block
+     * @return true if the store doesn't need the bus, false if the other copies must be invalidated first
+     */
+    boolean isWritable(CachePositionState state);
+
+    /**
+     * Gets the state of a block loaded by a core.
+     * @param otherCopies true if other caches have the block, false if the core has the only copy
+     * @return the state of the loaded block
+     */
+    CachePositionState getLoadedState(boolean otherCopies);
+
+    /**
+     * Indicates if another cache that has a block in a state gives it to a core that misses, instead of memory.
+     * @param state the state of the block in the other cache
+     * @return true if the other cache gives the block, false if it comes from memory
+     */
+    boolean suppliesBlock(CachePositionState state);
+
+    /**
+     * Indicates if a block in a state must be written to memory when its cache gives it to another one.
+     * @param state the state of the block in the cache that gives it
+     * @return true if it is written back, false if it keeps its words out of memory
+     */
+    boolean writesBackSuppliedBlock(CachePositionState state);
+
+    /**
+     * Gets the state of a copy of a block after another core loaded it.
+     * @param state the state of the copy before the load, it is never INVALID
+     * @return the state of the copy after the load
+     */
+    CachePositionState getSnoopedLoadState(CachePositionState state);
+}
@@ -1,8 +1,13 @@
 package cr.ac.ucr.ecci.ci1323.cache;
 
+import cr.ac.ucr.ecci.ci1323.commons.SimulationConstants;
 import cr.ac.ucr.ecci.ci1323.core.AbstractThread;
+import cr.ac.ucr.ecci.ci1323.core.DataPrefetcher;
+import cr.ac.ucr.ecci.ci1323.core.WriteBuffer;
 import cr.ac.ucr.ecci.ci1323.memory.DataBus;
 
+import java.nio.IntBuffer;
+
 /**
  * Represents the position of a data cache, with its respective block and tag.
  *
@@ -10,9 +15,60 @@ import cr.ac.ucr.ecci.ci1323.memory.DataBus;
  */
 public class DataCache {
 
-    private volatile DataCachePosition[] dataCachePositions;
+    /**
+     * The positions of the cache, followed by the positions of its victim cache and then by the positions of its
+     * write buffer, so every position of the core has a number of its own.
+     */
+    private final DataCachePositions dataCachePositions;
     private volatile DataBus dataBus;
 
+    /**
+     * The number of positions of the cache, which is also the number of the first position of the victim cache.
+     */
+    private final int cacheSize;
+
+    /**
+     * The number of the first position of the write buffer.
+     */
+    private final int firstWriteBufferPosition;
+
+    /**
+     * The second level cache between the cache and the memory, null if the cache goes straight to memory.
+     */
+    private volatile SecondLevelCache secondLevelCache;
+
+    /**
+     * The prefetcher that brings the blocks the core is about to need, null if the cache doesn't prefetch.
+     */
+    private volatile DataPrefetcher dataPrefetcher;
+
+    /**
+     * The cache that keeps the blocks this cache replaces, null if the replaced blocks leave the core.
+     */
+    private final VictimCache victimCache;
+
+    /**
+     * The buffer that writes back the dirty blocks this cache replaces, null if the core writes them by itself.
+     */
+    private volatile WriteBuffer writeBuffer;
+
+    /**
+     * The sets of the positions and the state of their replacement policy.
+     */
+    private final CacheSets cacheSets;
+
+    /**
+     * The accesses of the core that found their block in the cache and the ones that didn't. Only the core that owns
+     * the cache counts them.
+     */
+    private volatile int hits;
+    private volatile int misses;
+
+    /**
+     * The valid blocks replaced by another block. They are counted while holding the data bus.
+     */
+    private volatile int evictions;
+
     /**
      * Class constructor, initializes the cache with the respective amount of positions and sets their states
      * to invalid.
@@ -20,71 +76,488 @@ public class DataCache {
      * @param cacheSize
      */
     public DataCache(DataBus dataBus, int cacheSize) {
-        this.dataCachePositions = new DataCachePosition[cacheSize];
+        this(dataBus, cacheSize, DataCacheLayout.OBJECTS);
+    }
 
-        for (int i = 0; i < this.dataCachePositions.length; i++) {
-            this.dataCachePositions[i] = new DataCachePosition(-1, null, CachePositionState.INVALID);
-        }
+    /**
+     * Class constructor, initializes the cache with the respective amount of positions stored with the given layout
+     * and sets their states to invalid.
+     * @param dataBus
+     * @param cacheSize
+     * @param dataCacheLayout
+     */
+    public DataCache(DataBus dataBus, int cacheSize, DataCacheLayout dataCacheLayout) {
+        this(dataBus, cacheSize, dataCacheLayout, 1, ReplacementPolicy.LRU);
+    }
+
+    /**
+     * Class constructor, initializes the cache with the respective amount of positions stored with the given layout,
+     * grouped in sets of the given ways, and sets their states to invalid.
+     * @param dataBus
+     * @param cacheSize
+     * @param dataCacheLayout
+     * @param ways the number of ways of each set, 1 for a direct mapped cache
+     * @param replacementPolicy the policy that chooses the block replaced in a set
+     */
+    public DataCache(DataBus dataBus, int cacheSize, DataCacheLayout dataCacheLayout, int ways,
+                     ReplacementPolicy replacementPolicy) {
+        this(dataBus, cacheSize, dataCacheLayout, ways, replacementPolicy, 0, 0);
+    }
 
+    /**
+     * Class constructor, initializes the cache with the respective amount of positions stored with the given layout,
+     * grouped in sets of the given ways, with the positions of its victim cache and write buffer stored after them,
+     * and sets their states to invalid.
+     * @param dataBus
+     * @param cacheSize
+     * @param dataCacheLayout
+     * @param ways the number of ways of each set, 1 for a direct mapped cache
+     * @param replacementPolicy the policy that chooses the block replaced in a set
+     * @param victimCacheSize the number of positions of the victim cache, 0 for a cache without one
+     * @param writeBufferSize the number of positions of the write buffer, 0 for a cache without one
+     */
+    public DataCache(DataBus dataBus, int cacheSize, DataCacheLayout dataCacheLayout, int ways,
+                     ReplacementPolicy replacementPolicy, int victimCacheSize, int writeBufferSize) {
+        this.dataCachePositions = dataCacheLayout.createPositions(cacheSize + victimCacheSize + writeBufferSize);
         this.dataBus = dataBus;
+        this.cacheSize = cacheSize;
+        this.firstWriteBufferPosition = cacheSize + victimCacheSize;
+        this.cacheSets = new CacheSets(cacheSize, ways, replacementPolicy);
+        this.victimCache = victimCacheSize > 0 ?
+                new VictimCache(this.dataCachePositions, cacheSize, victimCacheSize) : null;
+    }
+
+    /**
+     * Finds the position of a block: the way of its set that has the block, even if it is invalid, or else an invalid
+     * way, or else the way the replacement policy would replace. It doesn't change the cache, so it gives the same
+     * position until the set changes.
+     * @param blockNumber the number of the block
+     * @return the number of the position of the block
+     */
+    public int findPosition(int blockNumber) {
+        int firstPosition = this.cacheSets.getFirstPosition(blockNumber);
+        int invalidPosition = -1;
+        for (int i = firstPosition; i < firstPosition + this.cacheSets.getWays(); i++) {
+            if (this.dataCachePositions.getTag(i) == blockNumber) {
+                return i;
+            }
+            if (invalidPosition == -1 && this.dataCachePositions.getState(i) == CachePositionState.INVALID) {
+                invalidPosition = i;
+            }
+        }
+
+        return invalidPosition != -1 ? invalidPosition : this.cacheSets.getVictimPosition(blockNumber);
     }
 
     /**
-     * Writes a data block to memory, includes the wait for the 40 clock ticks
-     * @param dataCachePosition the data cache position that has the block
+     * Finds the position that has the valid copy of a block in the core, in this cache, in the victim cache or in the
+     * write buffer. If the core doesn't have it, it gives the position of the block in this cache, like the find
+     * position method.
+     * @param blockNumber the number of the block
+     * @return the number of the position
+     */
+    public int findCopyPosition(int blockNumber) {
+        int dataPositionNumber = this.findPosition(blockNumber);
+        if (this.dataCachePositions.getTag(dataPositionNumber) == blockNumber &&
+                this.dataCachePositions.getState(dataPositionNumber) != CachePositionState.INVALID) {
+            return dataPositionNumber;
+        }
+
+        int copyPosition = -1;
+        if (this.victimCache != null) {
+            copyPosition = this.victimCache.findBlock(blockNumber);
+        }
+        if (copyPosition == -1 && this.writeBuffer != null) {
+            copyPosition = this.writeBuffer.findBlock(blockNumber);
+        }
+        return copyPosition != -1 ? copyPosition : dataPositionNumber;
+    }
+
+    /**
+     * Records a finished access to a position for the replacement policy.
+     * @param dataPositionNumber the number of the position accessed
+     */
+    public void access(int dataPositionNumber) {
+        this.cacheSets.access(dataPositionNumber);
+    }
+
+    /**
+     * Counts the eviction of the block in a position if a different block is about to replace it.
+     * @param dataPositionNumber the number of the position that receives the block
+     * @param dataBlockNumber the number of the block it receives
+     */
+    private void countEviction(int dataPositionNumber, int dataBlockNumber) {
+        if (this.dataCachePositions.getTag(dataPositionNumber) != dataBlockNumber &&
+                this.dataCachePositions.getState(dataPositionNumber) != CachePositionState.INVALID) {
+            this.evictions++;
+        }
+    }
+
+    /**
+     * Counts the eviction of a block that left its position before the block that replaces it arrived.
+     */
+    public void countEviction() {
+        this.evictions++;
+    }
+
+    /**
+     * Writes a data block to memory, includes the wait for the 40 clock ticks, or to the second level cache
+     * @param dataPositionNumber the number of the data cache position that has the block
      * @param callingThread the thread that is calling this method
      */
-    public void writeBlockToMemory (DataCachePosition dataCachePosition, AbstractThread callingThread) {
+    public void writeBlockToMemory (int dataPositionNumber, AbstractThread callingThread) {
+        this.writeBlockToMemory(this, dataPositionNumber, callingThread);
+    }
 
-        // Advances 40 clock cycles
-        for (int i = 0; i < 40; i++) {
-            callingThread.advanceClockCycle();
+    /**
+     * Writes a data block of this cache or of the cache of another core to memory, includes the wait for the 40 clock
+     * ticks, or to the second level cache of this cache
+     * @param dataCache the data cache that has the block
+     * @param dataPositionNumber the number of the data cache position that has the block
+     * @param callingThread the thread that is calling this method
+     */
+    public void writeBlockToMemory (DataCache dataCache, int dataPositionNumber, AbstractThread callingThread) {
+
+        if (this.secondLevelCache != null) {
+            this.secondLevelCache.writeDataBlock(dataCache, dataPositionNumber, false, callingThread);
+        } else {
+            // Advances 40 clock cycles
+            callingThread.advanceClockCycles(SimulationConstants.MEMORY_ACCESS_CYCLES);
+
+            this.getDataBus().writeBlockToMemory(dataCache, dataPositionNumber);
+        }
+        dataCache.setState(dataPositionNumber, CachePositionState.SHARED);
+
+    }
+
+    /**
+     * Gives up the block of a position that another block is about to replace: a modified block is written to memory
+     * or to the second level cache, and a clean block is given to an exclusive second level cache.
+     * @param dataPositionNumber the number of the data cache position that has the block
+     * @param dirty true if memory doesn't have the words of the block
+     * @param callingThread the thread that is calling this method
+     */
+    public void replaceBlock(int dataPositionNumber, boolean dirty, AbstractThread callingThread) {
+        if (this.secondLevelCache == null) {
+            if (dirty) {
+                this.writeBlockToMemory(dataPositionNumber, callingThread);
+            }
+        } else if (dirty) {
+            this.secondLevelCache.writeDataBlock(this, dataPositionNumber, true, callingThread);
+            this.dataCachePositions.setState(dataPositionNumber, CachePositionState.SHARED);
+        } else {
+            this.secondLevelCache.insertDataBlock(this, dataPositionNumber, callingThread);
+        }
+    }
+
+    /**
+     * Moves the block of a position that another block is about to replace to the victim cache, which keeps it for the
+     * core instead of giving it up.
+     * @param victimPositionNumber the number of the position of the victim cache that gets the block, which doesn't
+     *                             have a valid block
+     * @param dataPositionNumber the number of the data cache position that has the block
+     */
+    public void moveToVictimCache(int victimPositionNumber, int dataPositionNumber) {
+        this.countEviction();
+        this.victimCache.keepBlock(victimPositionNumber, dataPositionNumber);
+    }
+
+    /**
+     * Brings a block from the victim cache to a data cache position for a miss of the core, in a clock cycle, and
+     * leaves the block of the position in the victim cache. The caller holds the position and the data bus.
+     * @param dataBlockNumber the number of the block
+     * @param dataPositionNumber the number of the data cache position that receives the block
+     * @param callingThread the thread that is calling this method
+     * @return true if the position got the block, false if the victim cache didn't have it
+     */
+    public boolean swapWithVictimCache(int dataBlockNumber, int dataPositionNumber, AbstractThread callingThread) {
+        if (this.victimCache == null) {
+            return false;
+        }
+        int victimPositionNumber = this.victimCache.findBlock(dataBlockNumber);
+        if (victimPositionNumber == -1) {
+            return false;
         }
 
-        this.getDataBus().writeBlockToMemory(dataCachePosition.getDataBlock(), dataCachePosition.getTag());
-        dataCachePosition.setState(CachePositionState.SHARED);
+        callingThread.advanceClockCycle();
+        this.countEviction(dataPositionNumber, dataBlockNumber);
+        this.victimCache.swapBlock(victimPositionNumber, dataPositionNumber);
+        return true;
+    }
+
+    /**
+     * Gives the dirty block of a position that another block is about to replace to the write buffer, which writes it
+     * back later, and leaves the position invalid. The caller holds the data bus.
+     * @param dataPositionNumber the number of the position that has the block
+     * @return true if the buffer took the block, false if there is no buffer or it was full
+     */
+    public boolean moveToWriteBuffer(int dataPositionNumber) {
+        return this.writeBuffer != null && this.writeBuffer.keepBlock(dataPositionNumber);
+    }
+
+    /**
+     * Brings a block that is waiting in the write buffer back to a data cache position for a miss of the core, in a
+     * clock cycle, with the state it had. The caller holds the position, whose block was already given up, and the
+     * data bus.
+     * @param dataBlockNumber the number of the block
+     * @param dataPositionNumber the number of the data cache position that receives the block
+     * @param callingThread the thread that is calling this method
+     * @return true if the position got the block, false if the buffer didn't have it
+     */
+    public boolean takeFromWriteBuffer(int dataBlockNumber, int dataPositionNumber, AbstractThread callingThread) {
+        if (this.writeBuffer == null) {
+            return false;
+        }
+        int writeBufferPositionNumber = this.writeBuffer.findBlock(dataBlockNumber);
+        if (writeBufferPositionNumber == -1) {
+            return false;
+        }
 
+        callingThread.advanceClockCycle();
+        this.countEviction(dataPositionNumber, dataBlockNumber);
+        this.dataCachePositions.moveBlock(writeBufferPositionNumber, dataPositionNumber);
+        return true;
     }
 
     /**
-     * Gets a block from memory, includes the wait for the 40 clock ticks
+     * Gets a block from memory, includes the wait for the 40 clock ticks, or from the second level cache, or from the
+     * prefetch buffer if the prefetcher already brought it
      * @param dataBlockNumber the number of the memory block that will be retrieved
      * @param dataPositionNumber the number of data cache position that will hold the retrieved block
      * @param callingThread the thread that is calling this method
      */
     public void getBlockFromMemory(int dataBlockNumber, int dataPositionNumber, AbstractThread callingThread) {
+        this.countEviction(dataPositionNumber, dataBlockNumber);
 
-        // Advances 40 clock cycles
-        for (int i = 0; i < 40; i++) {
+        if (this.dataPrefetcher != null && this.dataPrefetcher.takeBlock(dataBlockNumber, dataPositionNumber)) {
+            // The block moves from the buffer next to the cache in a clock cycle.
             callingThread.advanceClockCycle();
+            this.dataCachePositions.setState(dataPositionNumber, CachePositionState.SHARED);
+            this.dataCachePositions.setTag(dataPositionNumber, dataBlockNumber);
+            if (this.secondLevelCache != null) {
+                this.secondLevelCache.fillDataBlock(this, dataPositionNumber, callingThread);
+            }
+            return;
+        }
+
+        if (this.secondLevelCache != null) {
+            this.secondLevelCache.readDataBlock(dataBlockNumber, this, dataPositionNumber, callingThread);
+            this.dataCachePositions.setState(dataPositionNumber, CachePositionState.SHARED);
+            this.dataCachePositions.setTag(dataPositionNumber, dataBlockNumber);
+            return;
         }
 
-        this.dataCachePositions[dataPositionNumber].setDataBlock(this.dataBus.getMemoryBlock(dataBlockNumber).clone());
-        this.dataCachePositions[dataPositionNumber].setState(CachePositionState.SHARED);
-        this.dataCachePositions[dataPositionNumber].setTag(dataBlockNumber);
+        // Advances 40 clock cycles
+        callingThread.advanceClockCycles(SimulationConstants.MEMORY_ACCESS_CYCLES);
+
+        this.dataBus.readBlockFromMemory(dataBlockNumber, this, dataPositionNumber);
+        this.dataCachePositions.setState(dataPositionNumber, CachePositionState.SHARED);
+        this.dataCachePositions.setTag(dataPositionNumber, dataBlockNumber);
+    }
+
+    /**
+     * Brings a block for the prefetcher, from the second level cache or from memory, without putting it in the cache,
+     * and advances the clock cycles it takes. The caller holds the data bus.
+     * @param dataBlockNumber the number of the block
+     * @param destination the buffer that receives the words
+     * @param destinationIndex the index where the first word is copied
+     * @param callingThread the thread that is calling this method
+     */
+    public void prefetchDataBlock(int dataBlockNumber, IntBuffer destination, int destinationIndex,
+                                  AbstractThread callingThread) {
+        if (this.secondLevelCache != null) {
+            this.secondLevelCache.prefetchDataBlock(dataBlockNumber, destination, destinationIndex, callingThread);
+            return;
+        }
+
+        // Advances 40 clock cycles
+        callingThread.advanceClockCycles(SimulationConstants.MEMORY_ACCESS_CYCLES);
+
+        this.dataBus.readBlockFromMemory(dataBlockNumber, destination, destinationIndex);
+    }
+
+    /**
+     * Drops the prefetched copy of a block that was written, if the prefetcher has it. The caller holds the data bus.
+     * @param dataBlockNumber the number of the block
+     */
+    public void invalidatePrefetchedBlock(int dataBlockNumber) {
+        if (this.dataPrefetcher != null) {
+            this.dataPrefetcher.invalidateBlock(dataBlockNumber);
+        }
+    }
+
+    /**
+     * Tells if the cache or its victim cache has a valid copy of a block, without locking its position.
+     * @param dataBlockNumber the number of the block
+     * @return true if the cache has the block, false if not
+     */
+    public boolean hasBlock(int dataBlockNumber) {
+        int dataPositionNumber = this.findCopyPosition(dataBlockNumber);
+        return this.dataCachePositions.getTag(dataPositionNumber) == dataBlockNumber &&
+                this.dataCachePositions.getState(dataPositionNumber) != CachePositionState.INVALID;
     }
 
     /**
      * Gets a cache position from the cache of the other core
-     * @param dataCachePosition the data cache position of the current core, its data block will be overwritten
-     * @param otherDataCachePosition the data cache position of the other core
+     * @param dataPositionNumber the number of the data cache position of the current core, its data block will be
+     *                           overwritten
+     * @param otherDataCache the data cache of the other core
+     * @param otherDataPositionNumber the number of the data cache position of the other core
+     * @param callingThread the thread that is calling this method
+     */
+    public void setPositionFromAnother(int dataPositionNumber, DataCache otherDataCache, int otherDataPositionNumber,
+                                       AbstractThread callingThread) {
+        int otherTag = otherDataCache.getTag(otherDataPositionNumber);
+        this.countEviction(dataPositionNumber, otherTag);
+        this.dataCachePositions.copyWordsFrom(dataPositionNumber, otherDataCache.dataCachePositions,
+                otherDataPositionNumber);
+        this.dataCachePositions.setState(dataPositionNumber, CachePositionState.SHARED);
+        this.dataCachePositions.setTag(dataPositionNumber, otherTag);
+        if (this.secondLevelCache != null) {
+            this.secondLevelCache.fillDataBlock(this, dataPositionNumber, callingThread);
+        }
+    }
+
+    /**
+     * Used for trying to get the lock of a position, throws an exception if the current thread already had it
+     * @param dataPositionNumber the number of the position
+     * @return true if it did, false if not
+     */
+    public boolean tryLock(int dataPositionNumber) {
+        return this.dataCachePositions.tryLock(dataPositionNumber);
+    }
+
+    /**
+     * Unlocks the lock of a position
+     * @param dataPositionNumber the number of the position
+     */
+    public void unlock(int dataPositionNumber) {
+        this.dataCachePositions.unlock(dataPositionNumber);
+    }
+
+    /**
+     * @param dataPositionNumber the number of the position
+     * @return true if the current thread holds the lock of the position, false if not.
+     */
+    public boolean isHeldByCurrentThread(int dataPositionNumber) {
+        return this.dataCachePositions.isHeldByCurrentThread(dataPositionNumber);
+    }
+
+    public int getTag(int dataPositionNumber) {
+        return this.dataCachePositions.getTag(dataPositionNumber);
+    }
+
+    public void setTag(int dataPositionNumber, int tag) {
+        this.dataCachePositions.setTag(dataPositionNumber, tag);
+    }
+
+    public CachePositionState getState(int dataPositionNumber) {
+        return this.dataCachePositions.getState(dataPositionNumber);
+    }
+
+    public void setState(int dataPositionNumber, CachePositionState cachePositionState) {
+        this.dataCachePositions.setState(dataPositionNumber, cachePositionState);
+    }
+
+    public int getWord(int dataPositionNumber, int offset) {
+        return this.dataCachePositions.getWord(dataPositionNumber, offset);
+    }
+
+    public void setWord(int dataPositionNumber, int offset, int value) {
+        this.dataCachePositions.setWord(dataPositionNumber, offset, value);
+    }
+
+    /**
+     * Copies the words of the block in a position to a buffer, without changing the position of the buffer.
+     * @param dataPositionNumber the number of the position
+     * @param destination the buffer that receives the words
+     * @param destinationIndex the index where the first word is copied
+     */
+    public void copyWordsTo(int dataPositionNumber, IntBuffer destination, int destinationIndex) {
+        this.dataCachePositions.copyWordsTo(dataPositionNumber, destination, destinationIndex);
+    }
+
+    /**
+     * Replaces the block in a position with words copied from a buffer, without changing the position of the buffer.
+     * @param dataPositionNumber the number of the position
+     * @param source the buffer that has the words
+     * @param sourceIndex the index of the first word
      */
-    public void setPositionFromAnother(DataCachePosition dataCachePosition, DataCachePosition otherDataCachePosition) {
-        dataCachePosition.setDataBlock(otherDataCachePosition.getDataBlock().clone());
-        dataCachePosition.setState(CachePositionState.SHARED);
-        dataCachePosition.setTag(otherDataCachePosition.getTag());
+    public void copyWordsFrom(int dataPositionNumber, IntBuffer source, int sourceIndex) {
+        this.dataCachePositions.copyWordsFrom(dataPositionNumber, source, sourceIndex);
+    }
+
+    /**
+     * Moves the block of a position to another one, with its tag and state, and invalidates the position it left.
+     * @param dataPositionNumber the number of the position that has the block
+     * @param destinationPositionNumber the number of the position that gets it
+     */
+    public void moveBlock(int dataPositionNumber, int destinationPositionNumber) {
+        this.dataCachePositions.moveBlock(dataPositionNumber, destinationPositionNumber);
+    }
+
+    /**
+     * Prints the information of a position
+     * @param dataPositionNumber the number of the position
+     */
+    public void printPosition(int dataPositionNumber) {
+        this.dataCachePositions.print(dataPositionNumber);
+    }
+
+    /**
+     * Prints the positions of the cache.
+     */
+    public void print() {
+        for (int i = 0; i < this.cacheSize; i++) {
+            System.out.print("Posicion #" + i + ": ");
+            this.dataCachePositions.print(i);
+        }
+    }
+
+    /**
+     * Counts an access of the core to the cache.
+     * @param hit true if the block was in the cache, false if it was a miss
+     */
+    public void countAccess(boolean hit) {
+        if (hit) {
+            this.hits++;
+        } else {
+            this.misses++;
+        }
     }
 
-    public DataCachePosition[] getDataCachePositions() {
-        return dataCachePositions;
+    public int getHits() {
+        return hits;
     }
 
-    public void setDataCachePositions(DataCachePosition[] dataCachePositions) {
-        this.dataCachePositions = dataCachePositions;
+    public int getMisses() {
+        return misses;
     }
 
-    public DataCachePosition getDataCachePosition(int position) {
-        return this.dataCachePositions[position];
+    public int getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return the fraction of the accesses that were hits, 0 if there weren't any accesses.
+     */
+    public double getHitRate() {
+        int accesses = this.hits + this.misses;
+        return accesses == 0 ? 0 : (double) this.hits / accesses;
+    }
+
+    /**
+     * @return the number of positions of the cache, without its victim cache and write buffer.
+     */
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * @return the number of the first position of the write buffer.
+     */
+    public int getFirstWriteBufferPosition() {
+        return firstWriteBufferPosition;
     }
 
     public DataBus getDataBus() {
@@ -94,4 +567,32 @@ public class DataCache {
     public void setDataBus(DataBus dataBus) {
         this.dataBus = dataBus;
     }
+
+    public SecondLevelCache getSecondLevelCache() {
+        return secondLevelCache;
+    }
+
+    public void setSecondLevelCache(SecondLevelCache secondLevelCache) {
+        this.secondLevelCache = secondLevelCache;
+    }
+
+    public DataPrefetcher getDataPrefetcher() {
+        return dataPrefetcher;
+    }
+
+    public void setDataPrefetcher(DataPrefetcher dataPrefetcher) {
+        this.dataPrefetcher = dataPrefetcher;
+    }
+
+    public VictimCache getVictimCache() {
+        return victimCache;
+    }
+
+    public WriteBuffer getWriteBuffer() {
+        return writeBuffer;
+    }
+
+    public void setWriteBuffer(WriteBuffer writeBuffer) {
+        this.writeBuffer = writeBuffer;
+    }
 }
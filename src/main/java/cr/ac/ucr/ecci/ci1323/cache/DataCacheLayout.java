@@ -0,0 +1,37 @@
+package cr.ac.ucr.ecci.ci1323.cache;
+
+/**
+ * Ways of storing the positions of a data cache on the host.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+public enum DataCacheLayout {
+
+    /**
+     * Each position is an object with its own data block.
+     */
+    OBJECTS,
+
+    /**
+     * The tags, states and locks of every position are in one array and the words of every block in another one,
+     * indexed by the number of the position with no object per position, so large caches take less memory and their
+     * lookups stay in fewer host cache lines.
+     */
+    ARRAYS;
+
+    /**
+     * Creates the positions of an empty data cache with this layout.
+     * @param cacheSize the number of positions of the cache
+     * @return the positions, all of them invalid
+     */
+    public DataCachePositions createPositions(int cacheSize) {
+        switch (this) {
+            case ARRAYS:
+                return new ArrayDataCachePositions(cacheSize);
+
+            default:
+                return new ObjectDataCachePositions(cacheSize);
+        }
+    }
+
+}
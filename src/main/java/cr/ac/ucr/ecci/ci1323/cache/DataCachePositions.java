@@ -0,0 +1,236 @@
+package cr.ac.ucr.ecci.ci1323.cache;
+
+import cr.ac.ucr.ecci.ci1323.commons.SimulationConstants;
+import cr.ac.ucr.ecci.ci1323.exceptions.TryLockException;
+
+import java.nio.IntBuffer;
+
+/**
+ * The positions of a data cache, with their respective words and tag, addressed by their number.
+ *
+ * The thread that holds the lock of a position, its tag and its state are packed in a single word that is updated
+ * atomically, so taking the lock and reading the tag and state of a hit doesn't need any host lock. From the lowest
+ * bit, the word has the tag in 32 bits, the state in 3 bits and the id of the thread that holds the lock in 29 bits,
+ * which is 0 while the position is unlocked. Where the words and the data blocks are stored depends on the layout of
+ * the cache.
+ *
+ * @author Josué León Sarkis, Elías Calderón, Daniel Montes de Oca
+ */
+public abstract class DataCachePositions {
+
+    private static final long TAG_MASK = 0xFFFFFFFFL;
+    private static final int STATE_SHIFT = 32;
+    private static final long STATE_MASK = 0x7L << STATE_SHIFT;
+    private static final int OWNER_SHIFT = 35;
+    private static final long OWNER_MASK = ~(TAG_MASK | STATE_MASK);
+    private static final long MAXIMUM_OWNER = OWNER_MASK >>> OWNER_SHIFT;
+
+    private static final CachePositionState[] STATES = CachePositionState.values();
+
+    /**
+     * The position word of an empty position: unlocked, invalid and with the initial tag.
+     */
+    protected static final long EMPTY_POSITION_WORD = packPositionWord(-1, CachePositionState.INVALID);
+
+    /**
+     * Packs the tag and state of an unlocked position in a position word.
+     * @param tag the tag of the cache position
+     * @param cachePositionState the state of the cache position
+     * @return the position word
+     */
+    private static long packPositionWord(int tag, CachePositionState cachePositionState) {
+        return ((long) cachePositionState.ordinal() << STATE_SHIFT) | (tag & TAG_MASK);
+    }
+
+    /**
+     * @return the number of positions.
+     */
+    public abstract int size();
+
+    /**
+     * @param positionNumber the number of the position
+     * @return the current value of its position word, read with volatile semantics.
+     */
+    protected abstract long getPositionWord(int positionNumber);
+
+    /**
+     * Atomically sets the position word of a position if it still has the expected value.
+     * @param positionNumber the number of the position
+     * @param expectedPositionWord the value the word must have
+     * @param newPositionWord the new value of the word
+     * @return true if the word was set, false if it had another value
+     */
+    protected abstract boolean compareAndSetPositionWord(int positionNumber, long expectedPositionWord,
+                                                         long newPositionWord);
+
+    /**
+     * Gets the id that identifies the current thread as the owner of a lock.
+     * @return the id of the current thread, which is never 0
+     */
+    private static long currentOwner() {
+        long owner = Thread.currentThread().threadId();
+        if (owner < 1 || owner > MAXIMUM_OWNER)
+            throw new IllegalStateException("The thread id " + owner + " doesn't fit in a data cache position.");
+
+        return owner;
+    }
+
+    /**
+     * Used for trying to get the lock of a cache position throws an exception if it already had it
+     * @param positionNumber the number of the position
+     * @return true if it did, false if not
+     */
+    public boolean tryLock(int positionNumber) {
+        long owner = currentOwner();
+        while (true) {
+            long positionWord = this.getPositionWord(positionNumber);
+            long lockOwner = positionWord >>> OWNER_SHIFT;
+            if (lockOwner == owner)
+                throw new TryLockException("The current thread already holds the data cache position queue lock.");
+
+            if (lockOwner != 0) {
+                return false;
+            }
+
+            if (this.compareAndSetPositionWord(positionNumber, positionWord, positionWord | (owner << OWNER_SHIFT))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Unlocks the lock of a data cache position
+     * @param positionNumber the number of the position
+     */
+    public void unlock(int positionNumber) {
+        long owner = currentOwner();
+        while (true) {
+            long positionWord = this.getPositionWord(positionNumber);
+            if (positionWord >>> OWNER_SHIFT != owner)
+                throw new TryLockException("The current thread cannot unlock the data cache position without holding the lock.");
+
+            if (this.compareAndSetPositionWord(positionNumber, positionWord, positionWord & ~OWNER_MASK)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param positionNumber the number of the position
+     * @return true if the current thread holds the lock of the position, false if not.
+     */
+    public boolean isHeldByCurrentThread(int positionNumber) {
+        return this.getPositionWord(positionNumber) >>> OWNER_SHIFT == currentOwner();
+    }
+
+    /**
+     * Replaces some of the bits of a position word, keeping the others.
+     * @param positionNumber the number of the position
+     * @param mask the bits to replace
+     * @param bits the new value of the bits
+     */
+    private void updatePositionWord(int positionNumber, long mask, long bits) {
+        while (true) {
+            long positionWord = this.getPositionWord(positionNumber);
+            if (this.compareAndSetPositionWord(positionNumber, positionWord, (positionWord & ~mask) | bits)) {
+                return;
+            }
+        }
+    }
+
+    public int getTag(int positionNumber) {
+        return (int) this.getPositionWord(positionNumber);
+    }
+
+    public void setTag(int positionNumber, int tag) {
+        this.updatePositionWord(positionNumber, TAG_MASK, tag & TAG_MASK);
+    }
+
+    public CachePositionState getState(int positionNumber) {
+        return STATES[(int) ((this.getPositionWord(positionNumber) & STATE_MASK) >>> STATE_SHIFT)];
+    }
+
+    public void setState(int positionNumber, CachePositionState cachePositionState) {
+        this.updatePositionWord(positionNumber, STATE_MASK, (long) cachePositionState.ordinal() << STATE_SHIFT);
+    }
+
+    /**
+     * Gets a word of the block in a position.
+     * @param positionNumber the number of the position
+     * @param offset the offset of the word in the block
+     * @return the word
+     */
+    public abstract int getWord(int positionNumber, int offset);
+
+    /**
+     * Sets a word of the block in a position.
+     * @param positionNumber the number of the position
+     * @param offset the offset of the word in the block
+     * @param value the new value of the word
+     */
+    public abstract void setWord(int positionNumber, int offset, int value);
+
+    /**
+     * Copies the words of the block in a position to an array.
+     * @param positionNumber the number of the position
+     * @param destination the array that receives the words
+     * @param destinationOffset the index where the first word is copied
+     */
+    public abstract void copyWordsTo(int positionNumber, int[] destination, int destinationOffset);
+
+    /**
+     * Copies the words of the block in a position to a buffer, without changing the position of the buffer.
+     * @param positionNumber the number of the position
+     * @param destination the buffer that receives the words
+     * @param destinationIndex the index where the first word is copied
+     */
+    public abstract void copyWordsTo(int positionNumber, IntBuffer destination, int destinationIndex);
+
+    /**
+     * Replaces the block in a position with words copied from a buffer, overwriting the words of the position in
+     * place and without changing the position of the buffer.
+     * @param positionNumber the number of the position
+     * @param source the buffer that has the words
+     * @param sourceIndex the index of the first word
+     */
+    public abstract void copyWordsFrom(int positionNumber, IntBuffer source, int sourceIndex);
+
+    /**
+     * Replaces the block in a position with a copy of the block in a position of these or other positions.
+     * @param positionNumber the number of the position
+     * @param dataCachePositions the positions that have the block
+     * @param sourcePositionNumber the number of the position that has the block
+     */
+    public abstract void copyWordsFrom(int positionNumber, DataCachePositions dataCachePositions,
+                                       int sourcePositionNumber);
+
+    /**
+     * Moves the block of a position to another one, with its tag and state, and invalidates the position it left.
+     * @param positionNumber the number of the position that has the block
+     * @param destinationPositionNumber the number of the position that gets it
+     */
+    public void moveBlock(int positionNumber, int destinationPositionNumber) {
+        this.copyWordsFrom(destinationPositionNumber, this, positionNumber);
+        this.setTag(destinationPositionNumber, this.getTag(positionNumber));
+        this.setState(destinationPositionNumber, this.getState(positionNumber));
+        this.setState(positionNumber, CachePositionState.INVALID);
+    }
+
+    /**
+     * Prints the information of a data cache position
+     * @param positionNumber the number of the position
+     */
+    public void print(int positionNumber) {
+        System.out.print("Etiqueta " + this.getTag(positionNumber) + ", Estado: " + this.getState(positionNumber) +
+                ", Bloque de Datos: { ");
+
+        if (this.getTag(positionNumber) == -1) { // A block always gets its tag when it is loaded.
+            System.out.print("Vacio");
+        } else {
+            for (int i = 0; i < SimulationConstants.WORDS_PER_DATA_BLOCK; i++) {
+                System.out.print(this.getWord(positionNumber, i) + "\t");
+            }
+        }
+        System.out.println(" }");
+    }
+}
@@ -0,0 +1,29 @@
+package cr.ac.ucr.ecci.ci1323.cache;
+
+/**
+ * Policies for the blocks a second level cache keeps with respect to the first level caches above it.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+public enum InclusionPolicy {
+
+    /**
+     * Every block of the first level caches is also in the second level cache: a block brought from memory is kept in
+     * both, and a block the second level cache replaces is invalidated in the first level caches.
+     */
+    INCLUSIVE,
+
+    /**
+     * A block is either in the first level caches or in the second level cache: a block brought from memory only goes
+     * to the first level cache, the second level cache keeps the blocks the first level caches replace, and a block it
+     * gives to a first level cache leaves it.
+     */
+    EXCLUSIVE,
+
+    /**
+     * Non inclusive, non exclusive: a block brought from memory is kept in both, but the second level cache replaces
+     * its blocks without touching the first level caches.
+     */
+    NINE
+
+}
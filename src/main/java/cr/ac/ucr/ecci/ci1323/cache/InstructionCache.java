@@ -1,11 +1,14 @@
 package cr.ac.ucr.ecci.ci1323.cache;
 
+import cr.ac.ucr.ecci.ci1323.commons.SimulationConstants;
 import cr.ac.ucr.ecci.ci1323.core.AbstractCore;
 import cr.ac.ucr.ecci.ci1323.core.AbstractThread;
 import cr.ac.ucr.ecci.ci1323.core.CoreZero;
+import cr.ac.ucr.ecci.ci1323.core.InstructionPrefetcher;
 import cr.ac.ucr.ecci.ci1323.core.MissHandler;
 import cr.ac.ucr.ecci.ci1323.memory.Bus;
 import cr.ac.ucr.ecci.ci1323.memory.Instruction;
+import cr.ac.ucr.ecci.ci1323.memory.InstructionBlock;
 import cr.ac.ucr.ecci.ci1323.memory.InstructionBus;
 
 /**
@@ -19,12 +22,51 @@ public class InstructionCache {
     private volatile InstructionCachePosition[] instructionCachePositions;
     private volatile InstructionBus instructionBus;
 
+    /**
+     * The second level cache between the cache and the memory, null if the cache goes straight to memory.
+     */
+    private volatile SecondLevelCache secondLevelCache;
+
+    /**
+     * The prefetcher that brings the blocks the core is about to need, null if the cache doesn't prefetch.
+     */
+    private volatile InstructionPrefetcher instructionPrefetcher;
+
+    /**
+     * The sets of the positions and the state of their replacement policy.
+     */
+    private final CacheSets cacheSets;
+
+    /**
+     * The accesses of the core that found their block in the cache and the ones that didn't. Only the core that owns
+     * the cache counts them.
+     */
+    private volatile int hits;
+    private volatile int misses;
+
+    /**
+     * The blocks replaced by another block. They are counted by the thread that fills the position.
+     */
+    private volatile int evictions;
+
     /**
      * Class constructor
      * @param instructionBus the instruction bus of the simulation
      * @param cacheSize the size of the instruction cache
      */
     public InstructionCache(InstructionBus instructionBus, int cacheSize) {
+        this(instructionBus, cacheSize, 1, ReplacementPolicy.LRU);
+    }
+
+    /**
+     * Class constructor
+     * @param instructionBus the instruction bus of the simulation
+     * @param cacheSize the size of the instruction cache
+     * @param ways the number of ways of each set, 1 for a direct mapped cache
+     * @param replacementPolicy the policy that chooses the block replaced in a set
+     */
+    public InstructionCache(InstructionBus instructionBus, int cacheSize, int ways,
+                            ReplacementPolicy replacementPolicy) {
         this.instructionBus = instructionBus;
 
         this.instructionCachePositions = new InstructionCachePosition[cacheSize];
@@ -32,6 +74,89 @@ public class InstructionCache {
         for (int i = 0; i < this.instructionCachePositions.length; i++) {
             this.instructionCachePositions[i] = new InstructionCachePosition(-1, null);
         }
+
+        this.cacheSets = new CacheSets(cacheSize, ways, replacementPolicy);
+    }
+
+    /**
+     * Finds the position of a block: the way of its set that has the block, or else an empty way, or else the way the
+     * replacement policy would replace. It doesn't change the cache, so it gives the same position until the set
+     * changes.
+     * @param instructionBlockNumber the number of the instruction block
+     * @return the number of the position of the block
+     */
+    public int findPosition(int instructionBlockNumber) {
+        int firstPosition = this.cacheSets.getFirstPosition(instructionBlockNumber);
+        int emptyPosition = -1;
+        for (int i = firstPosition; i < firstPosition + this.cacheSets.getWays(); i++) {
+            int tag = this.instructionCachePositions[i].getTag();
+            if (tag == instructionBlockNumber) {
+                return i;
+            }
+            if (emptyPosition == -1 && tag == -1) {
+                emptyPosition = i;
+            }
+        }
+
+        return emptyPosition != -1 ? emptyPosition : this.cacheSets.getVictimPosition(instructionBlockNumber);
+    }
+
+    /**
+     * @param instructionBlockNumber the number of the instruction block
+     * @return true if the cache has the block, false if not
+     */
+    public boolean hasBlock(int instructionBlockNumber) {
+        return this.instructionCachePositions[this.findPosition(instructionBlockNumber)].getTag() ==
+                instructionBlockNumber;
+    }
+
+    /**
+     * Records a finished access to a position for the replacement policy.
+     * @param instructionPositionNumber the number of the position accessed
+     */
+    public void access(int instructionPositionNumber) {
+        this.cacheSets.access(instructionPositionNumber);
+    }
+
+    /**
+     * Counts an access of the core to the cache.
+     * @param hit true if the block was in the cache, false if it was a miss
+     */
+    public void countAccess(boolean hit) {
+        if (hit) {
+            this.hits++;
+        } else {
+            this.misses++;
+        }
+    }
+
+    public int getHits() {
+        return hits;
+    }
+
+    public int getMisses() {
+        return misses;
+    }
+
+    public int getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return the fraction of the accesses that were hits, 0 if there weren't any accesses.
+     */
+    public double getHitRate() {
+        int accesses = this.hits + this.misses;
+        return accesses == 0 ? 0 : (double) this.hits / accesses;
+    }
+
+    /**
+     * Counts several accesses of the core that found their block in the cache, like the instructions of a translated
+     * run after the first one, which are in the same block.
+     * @param hits the number of hits
+     */
+    public void countHits(int hits) {
+        this.hits += hits;
     }
 
     public InstructionCachePosition[] getInstructionCachePositions() {
@@ -54,29 +179,159 @@ public class InstructionCache {
         this.instructionBus = instructionBus;
     }
 
+    public SecondLevelCache getSecondLevelCache() {
+        return secondLevelCache;
+    }
+
+    public void setSecondLevelCache(SecondLevelCache secondLevelCache) {
+        this.secondLevelCache = secondLevelCache;
+    }
+
+    public InstructionPrefetcher getInstructionPrefetcher() {
+        return instructionPrefetcher;
+    }
+
+    public void setInstructionPrefetcher(InstructionPrefetcher instructionPrefetcher) {
+        this.instructionPrefetcher = instructionPrefetcher;
+    }
+
+    /**
+     * Drops the copy of a block the second level cache replaced, so the cache doesn't have blocks the second level
+     * cache doesn't have. The instructions of the position are kept for a core that is still executing them.
+     * @param instructionBlockNumber the number of the instruction block
+     * @return true if the cache had the block, false if not
+     */
+    public boolean invalidateBlock(int instructionBlockNumber) {
+        InstructionCachePosition instructionCachePosition = this.instructionCachePositions[
+                this.findPosition(instructionBlockNumber)];
+        if (instructionCachePosition.getTag() != instructionBlockNumber) {
+            return false;
+        }
+
+        instructionCachePosition.setTag(-1);
+        return true;
+    }
+
     /**
-     * Gets an instruction block from memory into an instruction cache position
+     * Gets an instruction block from memory into an instruction cache position, or from the prefetch buffer if the
+     * prefetcher has it, and prefetches the blocks that follow it.
      * @param nextInstructionBlockNumber the number of the instruction block that will be retrieved
      * @param nextInstructionPositionNumber the number of the instruction block that will get the instruction block
      * @param callingThread the thread calling the method
      */
     public void getInstructionBlockFromMemory(int nextInstructionBlockNumber, int nextInstructionPositionNumber,
                                               AbstractThread callingThread) {
-        while (!this.instructionBus.tryLock()) {
-            callingThread.advanceClockCycle();
+        if (this.instructionPrefetcher != null) {
+            InstructionBlock instructionBlock = this.instructionPrefetcher.takeBlock(nextInstructionBlockNumber,
+                    callingThread);
+            if (instructionBlock != null) {
+                // The block moves from the buffer next to the cache in a clock cycle, without the instruction bus.
+                callingThread.advanceClockCycle();
+                this.fillPosition(nextInstructionBlockNumber, nextInstructionPositionNumber, instructionBlock,
+                        this.instructionCachePositions[nextInstructionPositionNumber].getTag());
+                this.instructionPrefetcher.prefetch(nextInstructionBlockNumber, false);
+                return;
+            }
+        }
+
+        if (!this.instructionBus.tryLock()) {
+            this.instructionBus.addWaitingFetch();
+            do {
+                callingThread.advanceIdleClockCycle();
+            } while (!this.instructionBus.tryLock());
+            this.instructionBus.removeWaitingFetch();
         }
         callingThread.advanceClockCycle();
 
-        // Advances 40 clock cycles
-        for (int i = 0; i < 40; i++) {
-            callingThread.advanceClockCycle();
+        int evictedTag = this.instructionCachePositions[nextInstructionPositionNumber].getTag();
+        this.readInstructionBlock(nextInstructionBlockNumber, evictedTag, callingThread);
+        this.fillPosition(nextInstructionBlockNumber, nextInstructionPositionNumber,
+                this.instructionBus.getInstructionBlock(nextInstructionBlockNumber), evictedTag);
+
+        this.instructionBus.unlock();
+
+        if (this.instructionPrefetcher != null) {
+            this.instructionPrefetcher.prefetch(nextInstructionBlockNumber, true);
+        }
+    }
+
+    /**
+     * Brings an instruction block for the prefetcher, from the second level cache or from memory, without putting it
+     * in the cache. The fetches of the cores go first: the prefetcher only takes the instruction bus in a clock cycle
+     * in which no fetch waits for it, and gives it up in the middle of the read as soon as one does.
+     * @param instructionBlockNumber the number of the instruction block
+     * @param instructionPrefetcher the prefetcher that brings the block
+     * @return the instructions of the block, null if the prefetcher gave up the bus to a fetch
+     */
+    public InstructionBlock prefetchInstructionBlock(int instructionBlockNumber,
+                                                     InstructionPrefetcher instructionPrefetcher) {
+        while (instructionPrefetcher.mustGiveUpBus() || !this.instructionBus.tryLock()) {
+            instructionPrefetcher.advanceIdleClockCycle();
         }
+        instructionPrefetcher.advanceClockCycle();
 
-        this.instructionCachePositions[nextInstructionPositionNumber].setInstructionBlock(
-                this.instructionBus.getInstructionBlock(nextInstructionBlockNumber));
-        this.instructionCachePositions[nextInstructionPositionNumber].setTag(nextInstructionBlockNumber);
+        boolean read;
+        if (this.secondLevelCache != null) {
+            read = this.secondLevelCache.readInstructionBlock(instructionBlockNumber, -1, instructionPrefetcher,
+                    instructionPrefetcher);
+        } else {
+            read = advancePrefetchClockCycles(SimulationConstants.MEMORY_ACCESS_CYCLES, instructionPrefetcher);
+        }
+        InstructionBlock instructionBlock = read ? this.instructionBus.getInstructionBlock(instructionBlockNumber) :
+                null;
 
         this.instructionBus.unlock();
+        return instructionBlock;
+    }
+
+    /**
+     * Advances the clock cycles of a prefetch that holds the instruction bus, one by one, until the prefetcher must
+     * give up the bus to a fetch of a core.
+     * @param clockCycles the clock cycles of the prefetch
+     * @param instructionPrefetcher the prefetcher
+     * @return true if all the clock cycles were advanced, false if the prefetch must give up the bus
+     */
+    static boolean advancePrefetchClockCycles(int clockCycles, InstructionPrefetcher instructionPrefetcher) {
+        for (int i = 0; i < clockCycles; i++) {
+            if (instructionPrefetcher.mustGiveUpBus()) {
+                return false;
+            }
+            instructionPrefetcher.advanceClockCycle();
+        }
+        return true;
+    }
+
+    /**
+     * Advances the clock cycles of reading an instruction block from the second level cache or from memory. The
+     * caller holds the instruction bus.
+     * @param instructionBlockNumber the number of the instruction block
+     * @param evictedTag the block the cache replaces, -1 if it doesn't replace any
+     * @param callingThread the thread calling the method
+     */
+    private void readInstructionBlock(int instructionBlockNumber, int evictedTag, AbstractThread callingThread) {
+        if (this.secondLevelCache != null) {
+            this.secondLevelCache.readInstructionBlock(instructionBlockNumber, evictedTag, callingThread, null);
+        } else {
+            // Advances 40 clock cycles
+            callingThread.advanceClockCycles(SimulationConstants.MEMORY_ACCESS_CYCLES);
+        }
+    }
+
+    /**
+     * Puts an instruction block in a position of the cache.
+     * @param instructionBlockNumber the number of the instruction block
+     * @param instructionPositionNumber the number of the position
+     * @param instructionBlock the instructions of the block
+     * @param evictedTag the block the position had
+     */
+    private void fillPosition(int instructionBlockNumber, int instructionPositionNumber,
+                              InstructionBlock instructionBlock, int evictedTag) {
+        if (evictedTag != -1 && evictedTag != instructionBlockNumber) {
+            this.evictions++;
+        }
+
+        this.instructionCachePositions[instructionPositionNumber].setInstructionBlock(instructionBlock);
+        this.instructionCachePositions[instructionPositionNumber].setTag(instructionBlockNumber);
     }
 
 }
@@ -0,0 +1,45 @@
+package cr.ac.ucr.ecci.ci1323.cache;
+
+/**
+ * Least recently used replacement: each way keeps the number of the last access to it, and the way with the oldest
+ * access is replaced.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+class LruReplacement extends CacheReplacement {
+
+    /**
+     * The number of the last access to each way, indexed by set and then by way.
+     */
+    private final long[] lastAccesses;
+
+    private long accesses;
+
+    /**
+     * Class constructor
+     * @param sets the number of sets of the cache
+     * @param ways the number of ways of each set
+     */
+    LruReplacement(int sets, int ways) {
+        super(ways);
+        this.lastAccesses = new long[sets * ways];
+        this.accesses = 0;
+    }
+
+    @Override
+    int getVictim(int set) {
+        int firstWay = set * this.ways;
+        int victim = 0;
+        for (int way = 1; way < this.ways; way++) {
+            if (this.lastAccesses[firstWay + way] < this.lastAccesses[firstWay + victim]) {
+                victim = way;
+            }
+        }
+        return victim;
+    }
+
+    @Override
+    void access(int set, int way) {
+        this.lastAccesses[set * this.ways + way] = ++this.accesses;
+    }
+}
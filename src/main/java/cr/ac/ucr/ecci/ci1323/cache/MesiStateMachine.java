@@ -0,0 +1,20 @@
+package cr.ac.ucr.ecci.ci1323.cache;
+
+/**
+ * MESI: a block loaded when no other cache has it is exclusive, and the first store to it makes it modified without
+ * using the bus. Another core that loads it makes it shared.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+class MesiStateMachine extends MsiStateMachine {
+
+    @Override
+    public boolean isWritable(CachePositionState state) {
+        return state == CachePositionState.MODIFIED || state == CachePositionState.EXCLUSIVE;
+    }
+
+    @Override
+    public CachePositionState getLoadedState(boolean otherCopies) {
+        return otherCopies ? CachePositionState.SHARED : CachePositionState.EXCLUSIVE;
+    }
+}
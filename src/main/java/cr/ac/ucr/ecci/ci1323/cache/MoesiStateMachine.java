@@ -0,0 +1,30 @@
+package cr.ac.ucr.ecci.ci1323.cache;
+
+/**
+ * MOESI: a modified block that another core loads isn't written to memory, its cache keeps it as owned and gives it to
+ * the cores that miss it until it is replaced or invalidated.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+class MoesiStateMachine extends MesiStateMachine {
+
+    @Override
+    public boolean isDirty(CachePositionState state) {
+        return state == CachePositionState.MODIFIED || state == CachePositionState.OWNED;
+    }
+
+    @Override
+    public boolean suppliesBlock(CachePositionState state) {
+        return state == CachePositionState.MODIFIED || state == CachePositionState.OWNED;
+    }
+
+    @Override
+    public boolean writesBackSuppliedBlock(CachePositionState state) {
+        return false;
+    }
+
+    @Override
+    public CachePositionState getSnoopedLoadState(CachePositionState state) {
+        return this.isDirty(state) ? CachePositionState.OWNED : CachePositionState.SHARED;
+    }
+}
@@ -0,0 +1,45 @@
+package cr.ac.ucr.ecci.ci1323.cache;
+
+/**
+ * MSI: a block is modified by one cache or shared by any of them. A modified block is written to memory whenever
+ * another core needs it.
+ *
+ * A store to a shared block invalidates the copies of every other cache. The first version of the simulator only
+ * invalidated the copy of the other core if it wasn't shared, so it could end with a block modified in one core and
+ * shared with its old words in the other. Its final caches, and the clock cycles of the runs that load the stale
+ * copy again, differ from the ones of this machine only where that happens.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+class MsiStateMachine implements CoherenceStateMachine {
+
+    @Override
+    public boolean isDirty(CachePositionState state) {
+        return state == CachePositionState.MODIFIED;
+    }
+
+    @Override
+    public boolean isWritable(CachePositionState state) {
+        return state == CachePositionState.MODIFIED;
+    }
+
+    @Override
+    public CachePositionState getLoadedState(boolean otherCopies) {
+        return CachePositionState.SHARED;
+    }
+
+    @Override
+    public boolean suppliesBlock(CachePositionState state) {
+        return state == CachePositionState.MODIFIED;
+    }
+
+    @Override
+    public boolean writesBackSuppliedBlock(CachePositionState state) {
+        return true;
+    }
+
+    @Override
+    public CachePositionState getSnoopedLoadState(CachePositionState state) {
+        return CachePositionState.SHARED;
+    }
+}
@@ -0,0 +1,108 @@
+package cr.ac.ucr.ecci.ci1323.cache;
+
+import cr.ac.ucr.ecci.ci1323.commons.SimulationConstants;
+import cr.ac.ucr.ecci.ci1323.memory.DataBlock;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.IntBuffer;
+
+/**
+ * The positions of a data cache stored as objects of their own, each one with its position word in a field and its
+ * words in a data block. The data block is allocated with the position and the blocks loaded later are copied into it,
+ * so filling a position allocates nothing.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+class ObjectDataCachePositions extends DataCachePositions {
+
+    /**
+     * A position of the cache.
+     */
+    private static class Position {
+
+        private static final VarHandle POSITION_WORD;
+
+        static {
+            try {
+                POSITION_WORD = MethodHandles.lookup().findVarHandle(Position.class, "positionWord", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        /**
+         * The lock owner, state and tag of the position.
+         */
+        private volatile long positionWord;
+
+        private final DataBlock dataBlock;
+
+        Position() {
+            this.positionWord = EMPTY_POSITION_WORD;
+            this.dataBlock = new DataBlock(new int[SimulationConstants.WORDS_PER_DATA_BLOCK]);
+        }
+    }
+
+    private final Position[] positions;
+
+    /**
+     * Class constructor, with every position empty.
+     * @param cacheSize the number of positions
+     */
+    ObjectDataCachePositions(int cacheSize) {
+        this.positions = new Position[cacheSize];
+        for (int i = 0; i < cacheSize; i++) {
+            this.positions[i] = new Position();
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.positions.length;
+    }
+
+    @Override
+    protected long getPositionWord(int positionNumber) {
+        return this.positions[positionNumber].positionWord;
+    }
+
+    @Override
+    protected boolean compareAndSetPositionWord(int positionNumber, long expectedPositionWord, long newPositionWord) {
+        return Position.POSITION_WORD.compareAndSet(this.positions[positionNumber], expectedPositionWord,
+                newPositionWord);
+    }
+
+    @Override
+    public int getWord(int positionNumber, int offset) {
+        return this.positions[positionNumber].dataBlock.getWord(offset);
+    }
+
+    @Override
+    public void setWord(int positionNumber, int offset, int value) {
+        this.positions[positionNumber].dataBlock.getWords()[offset] = value;
+    }
+
+    @Override
+    public void copyWordsTo(int positionNumber, int[] destination, int destinationOffset) {
+        System.arraycopy(this.positions[positionNumber].dataBlock.getWords(), 0, destination, destinationOffset,
+                SimulationConstants.WORDS_PER_DATA_BLOCK);
+    }
+
+    @Override
+    public void copyWordsTo(int positionNumber, IntBuffer destination, int destinationIndex) {
+        destination.put(destinationIndex, this.positions[positionNumber].dataBlock.getWords(), 0,
+                SimulationConstants.WORDS_PER_DATA_BLOCK);
+    }
+
+    @Override
+    public void copyWordsFrom(int positionNumber, IntBuffer source, int sourceIndex) {
+        source.get(sourceIndex, this.positions[positionNumber].dataBlock.getWords(), 0,
+                SimulationConstants.WORDS_PER_DATA_BLOCK);
+    }
+
+    @Override
+    public void copyWordsFrom(int positionNumber, DataCachePositions dataCachePositions, int sourcePositionNumber) {
+        dataCachePositions.copyWordsTo(sourcePositionNumber, this.positions[positionNumber].dataBlock.getWords(), 0);
+    }
+}
@@ -0,0 +1,26 @@
+package cr.ac.ucr.ecci.ci1323.cache;
+
+/**
+ * Ways of choosing the blocks a prefetcher brings before they are needed.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+public enum PrefetchPolicy {
+
+    /**
+     * Nothing is prefetched.
+     */
+    NONE,
+
+    /**
+     * The blocks right after the block that was fetched.
+     */
+    NEXT_LINE,
+
+    /**
+     * The blocks that follow the distance between the last two misses when it repeats, and else the blocks right after
+     * the block that was fetched.
+     */
+    STRIDE
+
+}
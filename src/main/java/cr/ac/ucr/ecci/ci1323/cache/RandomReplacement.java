@@ -0,0 +1,46 @@
+package cr.ac.ucr.ecci.ci1323.cache;
+
+/**
+ * Random replacement. Each set keeps the way it will replace, which is chosen again with a xorshift generator every
+ * time the set is accessed.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+class RandomReplacement extends CacheReplacement {
+
+    private static final int SEED = 0x9E3779B9;
+
+    /**
+     * The way each set will replace.
+     */
+    private final int[] victims;
+
+    private int randomState;
+
+    /**
+     * Class constructor
+     * @param sets the number of sets of the cache
+     * @param ways the number of ways of each set
+     */
+    RandomReplacement(int sets, int ways) {
+        super(ways);
+        this.victims = new int[sets];
+        this.randomState = SEED;
+    }
+
+    @Override
+    int getVictim(int set) {
+        return this.victims[set];
+    }
+
+    @Override
+    void access(int set, int way) {
+        int randomState = this.randomState;
+        randomState ^= randomState << 13;
+        randomState ^= randomState >>> 17;
+        randomState ^= randomState << 5;
+        this.randomState = randomState;
+
+        this.victims[set] = Integer.remainderUnsigned(randomState, this.ways);
+    }
+}
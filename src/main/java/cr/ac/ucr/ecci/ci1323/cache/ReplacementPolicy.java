@@ -0,0 +1,45 @@
+package cr.ac.ucr.ecci.ci1323.cache;
+
+/**
+ * Policies for choosing the block of a set that is replaced when a cache brings a new block to the set.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+public enum ReplacementPolicy {
+
+    /**
+     * Replaces the least recently used block of the set.
+     */
+    LRU,
+
+    /**
+     * Tree pseudo LRU: a binary tree of bits per set points to the half of the set that was used less recently, so only
+     * one bit per way is kept. Needs a power of two of ways.
+     */
+    PLRU,
+
+    /**
+     * Replaces a block chosen at random, with a fixed seed so every run of the same simulation replaces the same blocks.
+     */
+    RANDOM;
+
+    /**
+     * Creates the replacement state of a cache with this policy.
+     * @param sets the number of sets of the cache
+     * @param ways the number of ways of each set
+     * @return the replacement state, with every set unused
+     */
+    CacheReplacement createReplacement(int sets, int ways) {
+        switch (this) {
+            case PLRU:
+                return new TreePlruReplacement(sets, ways);
+
+            case RANDOM:
+                return new RandomReplacement(sets, ways);
+
+            default:
+                return new LruReplacement(sets, ways);
+        }
+    }
+
+}
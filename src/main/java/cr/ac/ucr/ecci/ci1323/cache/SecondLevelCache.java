@@ -0,0 +1,556 @@
+package cr.ac.ucr.ecci.ci1323.cache;
+
+import cr.ac.ucr.ecci.ci1323.commons.SimulationConstants;
+import cr.ac.ucr.ecci.ci1323.core.AbstractThread;
+import cr.ac.ucr.ecci.ci1323.core.InstructionPrefetcher;
+import cr.ac.ucr.ecci.ci1323.memory.DataBus;
+import cr.ac.ucr.ecci.ci1323.memory.InstructionBlock;
+import cr.ac.ucr.ecci.ci1323.memory.InstructionBus;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+
+/**
+ * A second level cache between the first level caches of the cores and the memories. It holds both data and
+ * instruction blocks, which are told apart by their numbers because the instruction memory starts right after the data
+ * memory, and keeps the blocks of the first level caches above it as its inclusion policy says.
+ *
+ * A shared cache is below the coherence of the data caches: it is one more level of the memory, so it keeps the
+ * blocks written to it and writes them to memory when it replaces them. A private cache writes every block through to
+ * memory and updates its copy of a block another core writes to memory, so its blocks have the words of memory whenever
+ * no data cache has a modified copy.
+ *
+ * Its blocks are guarded by its monitor, which is never held while the clock advances: an access moves the words and
+ * changes the blocks first, and then the calling thread advances the clock cycles the access takes.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+public class SecondLevelCache {
+
+    private final InstructionBus instructionBus;
+    private final DataBus dataBus;
+    private final CacheSets cacheSets;
+    private final InclusionPolicy inclusionPolicy;
+
+    /**
+     * The clock cycles it takes to find out if a block is in the cache and to move it.
+     */
+    private final int latency;
+
+    /**
+     * True if the blocks written to the cache are written to memory when they are replaced, false if they are written
+     * through to memory at once.
+     */
+    private final boolean writeBack;
+
+    /**
+     * The block of each position, -1 if it is empty, and if it has words that memory doesn't have.
+     */
+    private final int[] tags;
+    private final boolean[] dirty;
+
+    /**
+     * The words of the data block of every position, one block after the other.
+     */
+    private final IntBuffer words;
+
+    /**
+     * The instruction block of every position, null if it has a data block.
+     */
+    private final InstructionBlock[] instructionBlocks;
+
+    /**
+     * The cores whose first level caches are above this cache, and their caches.
+     */
+    private final ArrayList<Integer> upperCores;
+    private final ArrayList<InstructionCache> upperInstructionCaches;
+    private final ArrayList<DataCache> upperDataCaches;
+
+    private volatile int hits;
+    private volatile int misses;
+    private volatile int evictions;
+    private volatile int writeBacks;
+    private volatile int backInvalidations;
+
+    /**
+     * Class constructor, initializes the cache with every position empty.
+     * @param instructionBus the instruction bus of the simulation
+     * @param dataBus the data bus of the simulation
+     * @param cacheSize the number of positions of the cache
+     * @param ways the number of ways of each set, 1 for a direct mapped cache
+     * @param replacementPolicy the policy that chooses the block replaced in a set
+     * @param inclusionPolicy the blocks of the first level caches it keeps
+     * @param latency the clock cycles of an access
+     * @param writeBack true for a cache that keeps the blocks written to it, false for a write through cache
+     */
+    public SecondLevelCache(InstructionBus instructionBus, DataBus dataBus, int cacheSize, int ways,
+                            ReplacementPolicy replacementPolicy, InclusionPolicy inclusionPolicy, int latency,
+                            boolean writeBack) {
+        this.instructionBus = instructionBus;
+        this.dataBus = dataBus;
+        this.cacheSets = new CacheSets(cacheSize, ways, replacementPolicy);
+        this.inclusionPolicy = inclusionPolicy;
+        this.latency = latency;
+        this.writeBack = writeBack;
+
+        this.tags = new int[cacheSize];
+        this.dirty = new boolean[cacheSize];
+        this.words = IntBuffer.allocate(cacheSize * SimulationConstants.WORDS_PER_DATA_BLOCK);
+        this.instructionBlocks = new InstructionBlock[cacheSize];
+        for (int i = 0; i < cacheSize; i++) {
+            this.tags[i] = -1;
+        }
+
+        this.upperCores = new ArrayList<>();
+        this.upperInstructionCaches = new ArrayList<>();
+        this.upperDataCaches = new ArrayList<>();
+    }
+
+    /**
+     * Adds the first level caches of a core above this cache. It is called before the cores start.
+     * @param coreNumber the number of the core
+     * @param instructionCache the instruction cache of the core
+     * @param dataCache the data cache of the core
+     */
+    public void addUpperCaches(int coreNumber, InstructionCache instructionCache, DataCache dataCache) {
+        this.upperCores.add(coreNumber);
+        this.upperInstructionCaches.add(instructionCache);
+        this.upperDataCaches.add(dataCache);
+    }
+
+    /**
+     * Copies a data block to a data cache position, from this cache if it has the block or else from memory, and
+     * advances the clock cycles it takes. The caller holds the position and the data bus.
+     * @param blockNumber the number of the block
+     * @param dataCache the data cache that receives the block
+     * @param dataPositionNumber the number of the data cache position that receives the block
+     * @param callingThread the thread that advances the clock cycles
+     */
+    public void readDataBlock(int blockNumber, DataCache dataCache, int dataPositionNumber,
+                              AbstractThread callingThread) {
+        int clockCycles = this.latency;
+        int replacedBlockNumber = -1;
+
+        synchronized (this) {
+            int position = this.lookUp(blockNumber);
+            if (position != -1) {
+                this.hits++;
+                dataCache.copyWordsFrom(dataPositionNumber, this.words,
+                        position * SimulationConstants.WORDS_PER_DATA_BLOCK);
+                if (this.inclusionPolicy == InclusionPolicy.EXCLUSIVE) {
+                    clockCycles += this.empty(position); // The block moves up to the first level cache.
+                } else {
+                    this.cacheSets.access(position);
+                }
+
+            } else {
+                this.misses++;
+                clockCycles += SimulationConstants.MEMORY_ACCESS_CYCLES;
+                this.dataBus.readBlockFromMemory(blockNumber, dataCache, dataPositionNumber);
+                if (this.inclusionPolicy != InclusionPolicy.EXCLUSIVE) {
+                    position = this.findPosition(blockNumber);
+                    replacedBlockNumber = this.tags[position];
+                    clockCycles += this.replace(position, blockNumber);
+                    dataCache.copyWordsTo(dataPositionNumber, this.words,
+                            position * SimulationConstants.WORDS_PER_DATA_BLOCK);
+                }
+            }
+        }
+
+        callingThread.advanceClockCycles(clockCycles);
+        this.invalidateUpperDataCopies(replacedBlockNumber, callingThread);
+    }
+
+    /**
+     * Copies a data block to a prefetch buffer, from this cache if it has the block or else from memory, and advances
+     * the clock cycles it takes. The block isn't used yet, so the cache doesn't count the access nor keep the block.
+     * The caller holds the data bus.
+     * @param blockNumber the number of the block
+     * @param destination the buffer that receives the words
+     * @param destinationIndex the index where the first word is copied
+     * @param callingThread the thread that advances the clock cycles
+     */
+    public void prefetchDataBlock(int blockNumber, IntBuffer destination, int destinationIndex,
+                                  AbstractThread callingThread) {
+        int clockCycles = this.latency;
+        synchronized (this) {
+            int position = this.lookUp(blockNumber);
+            if (position != -1) {
+                destination.put(destinationIndex, this.words, position * SimulationConstants.WORDS_PER_DATA_BLOCK,
+                        SimulationConstants.WORDS_PER_DATA_BLOCK);
+            } else {
+                clockCycles += SimulationConstants.MEMORY_ACCESS_CYCLES;
+                this.dataBus.readBlockFromMemory(blockNumber, destination, destinationIndex);
+            }
+        }
+        callingThread.advanceClockCycles(clockCycles);
+    }
+
+    /**
+     * Writes the block of a data cache position to this cache, or through it to memory, and advances the clock cycles
+     * it takes. The caller holds the position and the data bus.
+     * @param dataCache the data cache that has the block
+     * @param dataPositionNumber the number of the data cache position that has the block
+     * @param leavesUpperCache true if the position is about to get another block, false if it keeps this one
+     * @param callingThread the thread that advances the clock cycles
+     */
+    public void writeDataBlock(DataCache dataCache, int dataPositionNumber, boolean leavesUpperCache,
+                               AbstractThread callingThread) {
+        int blockNumber = dataCache.getTag(dataPositionNumber);
+        int clockCycles = this.latency;
+        int replacedBlockNumber = -1;
+
+        synchronized (this) {
+            int position = this.lookUp(blockNumber);
+            if (position == -1 && this.inclusionPolicy == InclusionPolicy.EXCLUSIVE && !leavesUpperCache) {
+                // The block stays in the first level cache, so an exclusive cache doesn't take it.
+                this.dataBus.writeBlockToMemory(dataCache, dataPositionNumber);
+                clockCycles += SimulationConstants.MEMORY_ACCESS_CYCLES;
+
+            } else {
+                if (position == -1) {
+                    position = this.findPosition(blockNumber);
+                    replacedBlockNumber = this.tags[position];
+                    clockCycles += this.replace(position, blockNumber);
+                }
+                dataCache.copyWordsTo(dataPositionNumber, this.words,
+                        position * SimulationConstants.WORDS_PER_DATA_BLOCK);
+                if (this.writeBack) {
+                    this.dirty[position] = true;
+                    this.dataBus.invalidatePrefetchedBlock(blockNumber);
+                } else {
+                    this.dataBus.writeBlockToMemory(dataCache, dataPositionNumber);
+                    clockCycles += SimulationConstants.MEMORY_ACCESS_CYCLES;
+                }
+            }
+        }
+
+        callingThread.advanceClockCycles(clockCycles);
+        if (!this.writeBack) {
+            this.updateOtherCaches(dataCache, dataPositionNumber);
+        }
+        this.invalidateUpperDataCopies(replacedBlockNumber, callingThread);
+    }
+
+    /**
+     * Keeps a data block another data cache gave to a data cache position above an inclusive cache, and advances the
+     * clock cycles it takes. The caller holds the position and the data bus.
+     * @param dataCache the data cache that has the block
+     * @param dataPositionNumber the number of the data cache position that has the block
+     * @param callingThread the thread that advances the clock cycles
+     */
+    public void fillDataBlock(DataCache dataCache, int dataPositionNumber, AbstractThread callingThread) {
+        if (this.inclusionPolicy != InclusionPolicy.INCLUSIVE) {
+            return;
+        }
+
+        int blockNumber = dataCache.getTag(dataPositionNumber);
+        int clockCycles = this.latency;
+        int replacedBlockNumber = -1;
+        synchronized (this) {
+            int position = this.lookUp(blockNumber);
+            if (position == -1) {
+                position = this.findPosition(blockNumber);
+                replacedBlockNumber = this.tags[position];
+                clockCycles += this.replace(position, blockNumber);
+                dataCache.copyWordsTo(dataPositionNumber, this.words,
+                        position * SimulationConstants.WORDS_PER_DATA_BLOCK);
+            } else {
+                this.cacheSets.access(position);
+            }
+        }
+
+        callingThread.advanceClockCycles(clockCycles);
+        this.invalidateUpperDataCopies(replacedBlockNumber, callingThread);
+    }
+
+    /**
+     * Gives this cache a clean data block a first level cache is replacing, if it is an exclusive cache, and advances
+     * the clock cycles it takes. The caller holds the position and the data bus.
+     * @param dataCache the data cache that has the block
+     * @param dataPositionNumber the number of the data cache position that has the block
+     * @param callingThread the thread that advances the clock cycles
+     */
+    public void insertDataBlock(DataCache dataCache, int dataPositionNumber, AbstractThread callingThread) {
+        if (this.inclusionPolicy != InclusionPolicy.EXCLUSIVE) {
+            return;
+        }
+
+        int blockNumber = dataCache.getTag(dataPositionNumber);
+        int clockCycles = this.latency;
+        synchronized (this) {
+            if (this.lookUp(blockNumber) == -1) {
+                int position = this.findPosition(blockNumber);
+                clockCycles += this.replace(position, blockNumber);
+                dataCache.copyWordsTo(dataPositionNumber, this.words,
+                        position * SimulationConstants.WORDS_PER_DATA_BLOCK);
+            }
+        }
+        callingThread.advanceClockCycles(clockCycles);
+    }
+
+    /**
+     * Finds an instruction block in this cache or else in memory, and advances the clock cycles it takes. An exclusive
+     * cache also takes the instruction block the first level cache replaces. The caller holds the instruction bus and
+     * copies the block from memory afterwards. A prefetch stops advancing the clock cycles as soon as the prefetcher
+     * must give up the instruction bus to a fetch of a core, and the block stays in this cache, which already took it.
+     * @param blockNumber the number of the instruction block
+     * @param replacedBlockNumber the block the first level cache replaces, -1 if it doesn't replace any
+     * @param callingThread the thread that advances the clock cycles
+     * @param instructionPrefetcher the prefetcher that reads the block, null if a core fetches it
+     * @return true if the read finished, false if the prefetch must give up the instruction bus
+     */
+    public boolean readInstructionBlock(int blockNumber, int replacedBlockNumber, AbstractThread callingThread,
+                                        InstructionPrefetcher instructionPrefetcher) {
+        int clockCycles = this.latency;
+        int replacedDataBlockNumber = -1;
+
+        synchronized (this) {
+            if (this.inclusionPolicy == InclusionPolicy.EXCLUSIVE && replacedBlockNumber != -1 &&
+                    replacedBlockNumber != blockNumber && this.lookUp(replacedBlockNumber) == -1) {
+                int position = this.findPosition(replacedBlockNumber);
+                clockCycles += this.replace(position, replacedBlockNumber);
+                this.instructionBlocks[position] = this.instructionBus.getInstructionBlock(replacedBlockNumber);
+            }
+
+            int position = this.lookUp(blockNumber);
+            if (position != -1) {
+                this.hits++;
+                if (this.inclusionPolicy == InclusionPolicy.EXCLUSIVE) {
+                    this.empty(position);
+                } else {
+                    this.cacheSets.access(position);
+                }
+
+            } else {
+                this.misses++;
+                clockCycles += SimulationConstants.MEMORY_ACCESS_CYCLES;
+                if (this.inclusionPolicy != InclusionPolicy.EXCLUSIVE) {
+                    position = this.findPosition(blockNumber);
+                    replacedDataBlockNumber = this.tags[position];
+                    clockCycles += this.replace(position, blockNumber);
+                    this.instructionBlocks[position] = this.instructionBus.getInstructionBlock(blockNumber);
+                }
+            }
+        }
+
+        boolean finished = true;
+        if (instructionPrefetcher != null) {
+            finished = InstructionCache.advancePrefetchClockCycles(clockCycles, instructionPrefetcher);
+        } else {
+            callingThread.advanceClockCycles(clockCycles);
+        }
+
+        if (this.inclusionPolicy == InclusionPolicy.INCLUSIVE && this.isDataBlock(replacedDataBlockNumber)) {
+            // The data caches are only changed while holding the data bus.
+            while (!this.dataBus.tryLock()) {
+                callingThread.advanceIdleClockCycle();
+            }
+            callingThread.advanceClockCycle();
+            this.invalidateUpperDataCopies(replacedDataBlockNumber, callingThread);
+            this.dataBus.unlock();
+        }
+        return finished;
+    }
+
+    /**
+     * Updates the copy of a block another core wrote to memory, so a private cache keeps the words of memory.
+     * @param dataCache the data cache that has the block
+     * @param dataPositionNumber the number of the data cache position that has the block
+     */
+    public synchronized void updateDataBlock(DataCache dataCache, int dataPositionNumber) {
+        int position = this.lookUp(dataCache.getTag(dataPositionNumber));
+        if (position != -1) {
+            dataCache.copyWordsTo(dataPositionNumber, this.words, position * SimulationConstants.WORDS_PER_DATA_BLOCK);
+        }
+    }
+
+    /**
+     * Finds the position of a block.
+     * @param blockNumber the number of the block
+     * @return the number of its position, -1 if the cache doesn't have it
+     */
+    private int lookUp(int blockNumber) {
+        int firstPosition = this.cacheSets.getFirstPosition(blockNumber);
+        for (int i = firstPosition; i < firstPosition + this.cacheSets.getWays(); i++) {
+            if (this.tags[i] == blockNumber) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the position that gets a block: an empty way of its set, or else the way the replacement policy replaces.
+     * @param blockNumber the number of the block
+     * @return the number of the position
+     */
+    private int findPosition(int blockNumber) {
+        int firstPosition = this.cacheSets.getFirstPosition(blockNumber);
+        for (int i = firstPosition; i < firstPosition + this.cacheSets.getWays(); i++) {
+            if (this.tags[i] == -1) {
+                return i;
+            }
+        }
+        return this.cacheSets.getVictimPosition(blockNumber);
+    }
+
+    /**
+     * Puts a block in a position, replacing the block it had. Only the tag of the new block is set, the caller copies
+     * its words or its instructions.
+     * @param position the number of the position
+     * @param blockNumber the number of the new block
+     * @return the clock cycles of writing the replaced block to memory, 0 if it wasn't written
+     */
+    private int replace(int position, int blockNumber) {
+        int replacedBlockNumber = this.tags[position];
+        int clockCycles = 0;
+        if (replacedBlockNumber != -1) {
+            this.evictions++;
+            clockCycles = this.empty(position);
+            if (this.inclusionPolicy == InclusionPolicy.INCLUSIVE && !this.isDataBlock(replacedBlockNumber)) {
+                // The instruction caches are never written, so their copies are dropped right away.
+                for (InstructionCache instructionCache : this.upperInstructionCaches) {
+                    if (instructionCache.invalidateBlock(replacedBlockNumber)) {
+                        this.backInvalidations++;
+                    }
+                }
+            }
+        }
+
+        this.tags[position] = blockNumber;
+        this.cacheSets.access(position);
+        return clockCycles;
+    }
+
+    /**
+     * Takes the block out of a position, writing it to memory if memory doesn't have its words.
+     * @param position the number of the position
+     * @return the clock cycles of writing the block to memory, 0 if it wasn't written
+     */
+    private int empty(int position) {
+        int clockCycles = 0;
+        if (this.dirty[position]) {
+            this.dataBus.writeBlockToMemory(this.tags[position], this.words,
+                    position * SimulationConstants.WORDS_PER_DATA_BLOCK);
+            this.writeBacks++;
+            clockCycles = SimulationConstants.MEMORY_ACCESS_CYCLES;
+        }
+
+        this.tags[position] = -1;
+        this.dirty[position] = false;
+        this.instructionBlocks[position] = null;
+        return clockCycles;
+    }
+
+    /**
+     * Invalidates the copies of a data block in the data caches above an inclusive cache that replaced it, writing the
+     * modified ones to memory. The caller holds the data bus, and the positions it already holds are changed without
+     * locking them again.
+     * @param blockNumber the number of the replaced block, -1 if no block was replaced
+     * @param callingThread the thread that advances the clock cycles
+     */
+    private void invalidateUpperDataCopies(int blockNumber, AbstractThread callingThread) {
+        if (this.inclusionPolicy != InclusionPolicy.INCLUSIVE || !this.isDataBlock(blockNumber)) {
+            return;
+        }
+
+        CoherenceStateMachine coherenceStateMachine = this.dataBus.getCoherenceStateMachine();
+        for (int i = 0; i < this.upperDataCaches.size(); i++) {
+            DataCache dataCache = this.upperDataCaches.get(i);
+            int dataPositionNumber = dataCache.findCopyPosition(blockNumber);
+            if (dataCache.getTag(dataPositionNumber) != blockNumber ||
+                    dataCache.getState(dataPositionNumber) == CachePositionState.INVALID) {
+                continue;
+            }
+
+            boolean heldPosition = dataCache.isHeldByCurrentThread(dataPositionNumber);
+            if (!heldPosition) {
+                while (!dataCache.tryLock(dataPositionNumber)) {
+                    callingThread.advanceIdleClockCycle();
+                }
+            }
+            callingThread.advanceClockCycle();
+
+            CachePositionState state = dataCache.getState(dataPositionNumber);
+            if (dataCache.getTag(dataPositionNumber) == blockNumber && state != CachePositionState.INVALID) {
+                if (coherenceStateMachine.isDirty(state)) {
+                    this.dataBus.writeBlockToMemory(dataCache, dataPositionNumber);
+                    callingThread.advanceClockCycles(SimulationConstants.MEMORY_ACCESS_CYCLES);
+                    this.updateOtherCaches(dataCache, dataPositionNumber);
+                }
+                dataCache.setState(dataPositionNumber, CachePositionState.INVALID);
+                this.dataBus.removeSharer(blockNumber, this.upperCores.get(i));
+                this.backInvalidations++;
+            }
+
+            if (!heldPosition) {
+                dataCache.unlock(dataPositionNumber);
+            }
+        }
+    }
+
+    /**
+     * Updates the copies of a block written to memory in the second level caches of the other cores.
+     * @param dataCache the data cache that has the block
+     * @param dataPositionNumber the number of the data cache position that has the block
+     */
+    private void updateOtherCaches(DataCache dataCache, int dataPositionNumber) {
+        for (int i = 0; i < this.dataBus.getCores(); i++) {
+            SecondLevelCache secondLevelCache = this.dataBus.getDataCache(i).getSecondLevelCache();
+            if (secondLevelCache != this) {
+                secondLevelCache.updateDataBlock(dataCache, dataPositionNumber);
+            }
+        }
+    }
+
+    /**
+     * @param blockNumber the number of a block, -1 for no block
+     * @return true if it is a block of the data memory, false if it is an instruction block or no block
+     */
+    private boolean isDataBlock(int blockNumber) {
+        return blockNumber != -1 && blockNumber < this.dataBus.getTotalBlocks();
+    }
+
+    /**
+     * Prints the blocks of the cache.
+     */
+    public synchronized void print() {
+        for (int i = 0; i < this.tags.length; i++) {
+            System.out.print("Posicion #" + i + ": Etiqueta " + this.tags[i]);
+            if (this.tags[i] == -1) {
+                System.out.println(", Vacio");
+            } else if (this.instructionBlocks[i] != null) {
+                System.out.print(", Bloque de Instrucciones: { ");
+                this.instructionBlocks[i].printBlock();
+                System.out.println(" }");
+            } else {
+                System.out.print(", Modificado: " + (this.dirty[i] ? "Si" : "No") + ", Bloque de Datos: { ");
+                for (int j = 0; j < SimulationConstants.WORDS_PER_DATA_BLOCK; j++) {
+                    System.out.print(this.words.get(i * SimulationConstants.WORDS_PER_DATA_BLOCK + j) + "\t");
+                }
+                System.out.println(" }");
+            }
+        }
+    }
+
+    public int getHits() {
+        return hits;
+    }
+
+    public int getMisses() {
+        return misses;
+    }
+
+    public int getEvictions() {
+        return evictions;
+    }
+
+    public int getWriteBacks() {
+        return writeBacks;
+    }
+
+    public int getBackInvalidations() {
+        return backInvalidations;
+    }
+}
@@ -0,0 +1,27 @@
+package cr.ac.ucr.ecci.ci1323.cache;
+
+/**
+ * Ways of placing a second level cache between the first level caches of the cores and the memories.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+public enum SecondLevelCacheMode {
+
+    /**
+     * The first level caches go straight to the memories.
+     */
+    NONE,
+
+    /**
+     * One second level cache for every core. It is below the coherence of the data caches, so it writes the blocks
+     * back to memory only when it replaces them.
+     */
+    SHARED,
+
+    /**
+     * A second level cache for each core. It writes every block through to memory and updates its copy of a block
+     * another core writes to memory, so the transactions of the data bus never contact it.
+     */
+    PRIVATE
+
+}
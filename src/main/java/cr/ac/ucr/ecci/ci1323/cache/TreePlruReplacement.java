@@ -0,0 +1,61 @@
+package cr.ac.ucr.ecci.ci1323.cache;
+
+/**
+ * Tree pseudo LRU replacement. The ways of a set are the leaves of a binary tree, and each inner node has a bit that
+ * points to the child that was used less recently: 0 for the left one and 1 for the right one. An access sets the bits
+ * on its path to point away from it, and the victim is found by following the bits from the root.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+class TreePlruReplacement extends CacheReplacement {
+
+    /**
+     * The ways of a set have at most one bit per inner node in a long.
+     */
+    private static final int MAXIMUM_WAYS = Long.SIZE;
+
+    /**
+     * The bits of the inner nodes of each set, the node i has its children in the nodes 2i + 1 and 2i + 2.
+     */
+    private final long[] treeBits;
+
+    /**
+     * Class constructor
+     * @param sets the number of sets of the cache
+     * @param ways the number of ways of each set, a power of two
+     */
+    TreePlruReplacement(int sets, int ways) {
+        super(ways);
+        if (Integer.bitCount(ways) != 1 || ways > MAXIMUM_WAYS)
+            throw new IllegalArgumentException("The tree pseudo LRU replacement needs a power of two of ways up to "
+                    + MAXIMUM_WAYS + ", not " + ways + ".");
+
+        this.treeBits = new long[sets];
+    }
+
+    @Override
+    int getVictim(int set) {
+        long bits = this.treeBits[set];
+        int node = 0;
+        while (node < this.ways - 1) {
+            node = 2 * node + 1 + (int) ((bits >>> node) & 1);
+        }
+        return node - (this.ways - 1);
+    }
+
+    @Override
+    void access(int set, int way) {
+        long bits = this.treeBits[set];
+        int node = way + this.ways - 1;
+        while (node > 0) {
+            int parent = (node - 1) / 2;
+            if (node == 2 * parent + 1) { // Accessed through the left child, point to the right one.
+                bits |= 1L << parent;
+            } else {
+                bits &= ~(1L << parent);
+            }
+            node = parent;
+        }
+        this.treeBits[set] = bits;
+    }
+}
@@ -0,0 +1,146 @@
+package cr.ac.ucr.ecci.ci1323.cache;
+
+import cr.ac.ucr.ecci.ci1323.commons.SimulationConstants;
+
+import java.nio.IntBuffer;
+
+/**
+ * A small fully associative cache next to a data cache that keeps the blocks the data cache replaces, so a block
+ * replaced by another block of its set comes back in a clock cycle instead of from memory.
+ *
+ * Its blocks keep their coherence state and the data bus transactions find them like the blocks of the data cache, so
+ * the core stays a sharer of a block while it is in the victim cache, and it has a valid copy of a block either in its
+ * data cache or in its victim cache, never in both. The victim cache is only changed while holding the data bus.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+public class VictimCache {
+
+    /**
+     * The positions of the data cache, which has the positions of the victim cache after its own.
+     */
+    private final DataCachePositions dataCachePositions;
+
+    /**
+     * The number of the first position of the victim cache and the number of its positions.
+     */
+    private final int firstPosition;
+    private final int cacheSize;
+
+    /**
+     * A single set with every position, to replace the least recently used block.
+     */
+    private final CacheSets cacheSets;
+
+    /**
+     * The words of the block of a data cache position while it swaps places with a block of the victim cache.
+     */
+    private final IntBuffer swappedWords;
+
+    /**
+     * The misses of the data cache that found their block here, and the blocks replaced here, which left the core.
+     */
+    private volatile int hits;
+    private volatile int evictions;
+
+    /**
+     * Class constructor, initializes the cache on positions of its data cache, which are invalid.
+     * @param dataCachePositions the positions of the data cache
+     * @param firstPosition the number of the first position of the victim cache
+     * @param cacheSize the number of positions of the cache
+     */
+    VictimCache(DataCachePositions dataCachePositions, int firstPosition, int cacheSize) {
+        this.dataCachePositions = dataCachePositions;
+        this.firstPosition = firstPosition;
+        this.cacheSize = cacheSize;
+        this.cacheSets = new CacheSets(cacheSize, cacheSize, ReplacementPolicy.LRU);
+        this.swappedWords = IntBuffer.allocate(SimulationConstants.WORDS_PER_DATA_BLOCK);
+    }
+
+    /**
+     * Finds the valid copy of a block.
+     * @param blockNumber the number of the block
+     * @return the number of the position that has it, -1 if the cache doesn't have a valid copy
+     */
+    public int findBlock(int blockNumber) {
+        for (int i = this.firstPosition; i < this.firstPosition + this.cacheSize; i++) {
+            if (this.dataCachePositions.getTag(i) == blockNumber &&
+                    this.dataCachePositions.getState(i) != CachePositionState.INVALID) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the position that gets the next block the data cache replaces: an invalid one, or else the least recently
+     * used one, whose block the caller takes out of the core first.
+     * @return the number of the position
+     */
+    public int findReplacedPosition() {
+        for (int i = this.firstPosition; i < this.firstPosition + this.cacheSize; i++) {
+            if (this.dataCachePositions.getState(i) == CachePositionState.INVALID) {
+                return i;
+            }
+        }
+        return this.firstPosition + this.cacheSets.getVictimPosition(0);
+    }
+
+    /**
+     * Puts the block of a data cache position in a position of the victim cache and invalidates the data cache
+     * position, which is about to get another block.
+     * @param victimPositionNumber the number of the position that gets the block, which doesn't have a valid block
+     * @param dataPositionNumber the number of the data cache position that has the block
+     */
+    void keepBlock(int victimPositionNumber, int dataPositionNumber) {
+        this.dataCachePositions.moveBlock(dataPositionNumber, victimPositionNumber);
+        this.cacheSets.access(victimPositionNumber - this.firstPosition);
+    }
+
+    /**
+     * Swaps the block of a position of the victim cache with the block of a data cache position, so the data cache
+     * gets the block it missed and the victim cache keeps the block it replaces, if it is valid.
+     * @param victimPositionNumber the number of the position that has the missed block
+     * @param dataPositionNumber the number of the data cache position that gets it
+     */
+    void swapBlock(int victimPositionNumber, int dataPositionNumber) {
+        int replacedTag = this.dataCachePositions.getTag(dataPositionNumber);
+        CachePositionState replacedState = this.dataCachePositions.getState(dataPositionNumber);
+        this.dataCachePositions.copyWordsTo(dataPositionNumber, this.swappedWords, 0);
+
+        this.dataCachePositions.copyWordsFrom(dataPositionNumber, this.dataCachePositions, victimPositionNumber);
+        this.dataCachePositions.setTag(dataPositionNumber, this.dataCachePositions.getTag(victimPositionNumber));
+        this.dataCachePositions.setState(dataPositionNumber, this.dataCachePositions.getState(victimPositionNumber));
+
+        this.dataCachePositions.copyWordsFrom(victimPositionNumber, this.swappedWords, 0);
+        this.dataCachePositions.setTag(victimPositionNumber, replacedTag);
+        this.dataCachePositions.setState(victimPositionNumber, replacedState);
+        this.cacheSets.access(victimPositionNumber - this.firstPosition);
+        this.hits++;
+    }
+
+    /**
+     * Counts a block replaced in the victim cache, which left the core.
+     */
+    public void countEviction() {
+        this.evictions++;
+    }
+
+    /**
+     * Prints the blocks of the cache.
+     */
+    public void print() {
+        for (int i = 0; i < this.cacheSize; i++) {
+            System.out.print("Posicion #" + i + ": ");
+            this.dataCachePositions.print(this.firstPosition + i);
+        }
+    }
+
+    public int getHits() {
+        return hits;
+    }
+
+    public int getEvictions() {
+        return evictions;
+    }
+}
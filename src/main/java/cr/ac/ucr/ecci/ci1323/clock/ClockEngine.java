@@ -0,0 +1,41 @@
+package cr.ac.ucr.ecci.ci1323.clock;
+
+/**
+ * Clock implementations that can be selected to run the simulation.
+ */
+public enum ClockEngine {
+
+    /**
+     * Every phase is a rendezvous of all the parties in a Phaser.
+     */
+    PHASER,
+
+    /**
+     * A priority queue of timestamped events resumes the parties.
+     */
+    EVENTS,
+
+    /**
+     * Like EVENTS, but the parties take turns to run one at a time in a fixed order, which makes the simulation
+     * deterministic. Each party still has its own thread, which parks while it isn't its turn.
+     */
+    DETERMINISTIC;
+
+    /**
+     * Creates a new clock of this kind.
+     * @return the new clock
+     */
+    public SimulationClock createClock() {
+        switch (this) {
+            case EVENTS:
+                return new EventDrivenClock(false);
+
+            case DETERMINISTIC:
+                return new EventDrivenClock(true);
+
+            default:
+                return new PhaserClock();
+        }
+    }
+
+}
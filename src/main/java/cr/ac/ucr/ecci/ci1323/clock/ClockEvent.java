@@ -0,0 +1,115 @@
+package cr.ac.ucr.ecci.ci1323.clock;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A party of the event driven clock waiting to be resumed at a given phase. Each thread keeps the same event every time
+ * it is registered, and schedules it again every time it arrives.
+ */
+class ClockEvent implements Comparable<ClockEvent> {
+
+    private long phase;
+    private long partyRank;
+    private final Thread party;
+    private boolean idle;
+    private boolean busy;
+    private volatile boolean released;
+
+    /**
+     * True if the party was registered by another party and hasn't started running yet.
+     */
+    private boolean waitingTurn;
+
+    /**
+     * Class constructor
+     * @param party the thread that waits for the event
+     */
+    ClockEvent(Thread party) {
+        this.party = party;
+    }
+
+    /**
+     * Prepares the event for a new registration of its party. The event must be out of the pending events, which it
+     * is while the party isn't registered.
+     * @param phase the phase in which the party starts
+     * @param partyRank the registration order of the party, used to break ties between events of the same phase
+     * @param waitingTurn true if the party must wait for the event to start running
+     */
+    void register(long phase, long partyRank, boolean waitingTurn) {
+        this.phase = phase;
+        this.partyRank = partyRank;
+        this.idle = false;
+        this.busy = false;
+        this.released = false;
+        this.waitingTurn = waitingTurn;
+    }
+
+    /**
+     * Schedules the event again for a later phase. The event must be out of the pending events, which it is after
+     * being released.
+     * @param phase the phase in which the party must be resumed
+     * @param idle true if the party only waited for other parties in the phase it arrived from
+     * @param busy true if the party keeps working in the phases before it is resumed
+     */
+    void schedule(long phase, boolean idle, boolean busy) {
+        this.phase = phase;
+        this.idle = idle;
+        this.busy = busy;
+        this.released = false;
+    }
+
+    /**
+     * Parks the calling thread until the event is released.
+     */
+    void await() {
+        while (!this.released) {
+            LockSupport.park(this);
+        }
+    }
+
+    /**
+     * Resumes the party waiting for the event.
+     */
+    void release() {
+        this.released = true;
+        LockSupport.unpark(this.party);
+    }
+
+    @Override
+    public int compareTo(ClockEvent other) {
+        if (this.phase != other.phase) {
+            return Long.compare(this.phase, other.phase);
+        }
+        return Long.compare(this.partyRank, other.partyRank);
+    }
+
+    long getPhase() {
+        return phase;
+    }
+
+    /**
+     * Moves the event to a later phase. The event must be out of the pending events while its phase changes.
+     * @param phase the new phase of the event
+     */
+    void setPhase(long phase) {
+        this.phase = phase;
+    }
+
+    boolean isIdle() {
+        return idle;
+    }
+
+    boolean isBusy() {
+        return busy;
+    }
+
+    /**
+     * Marks the party as started if it was waiting for its turn to start running.
+     * @return true if it was waiting for it
+     */
+    boolean takeTurn() {
+        boolean waitingTurn = this.waitingTurn;
+        this.waitingTurn = false;
+        return waitingTurn;
+    }
+}
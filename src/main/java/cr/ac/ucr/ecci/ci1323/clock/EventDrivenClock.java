@@ -0,0 +1,245 @@
+package cr.ac.ucr.ecci.ci1323.clock;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Discrete event clock. Each party that arrives schedules the event of the phase in which it must be resumed, and
+ * parks until then. When the last running party arrives, the clock jumps to the phase of the earliest pending event
+ * and resumes only the parties waiting for that phase, instead of waking up every party on every phase.
+ *
+ * A party that only waited for others in the execution phase of a clock cycle can arrive as idle. When every party
+ * of the phase arrived as idle, the following clock cycles would repeat exactly the same waits, so the clock moves
+ * the idle parties forward to the phase of the next party that is sleeping through several phases. A party that
+ * sleeps while it is still working, like a core executing a translated run, is busy in every one of those clock
+ * cycles, so nothing is skipped until it is resumed.
+ *
+ * In deterministic mode the parties waiting for the same phase are resumed one at a time, in the order in which they
+ * were registered, so only one thread runs simulation code at any moment and every run of the same simulation
+ * produces the same results. Every party keeps its own thread, and the turn is handed from one to the next by
+ * unparking it, so it costs a thread switch per party and phase like the other modes.
+ */
+public class EventDrivenClock implements SimulationClock {
+
+    /**
+     * The phase the clock is currently in. Each clock cycle has two phases.
+     */
+    private long currentPhase;
+
+    private int registeredParties;
+
+    /**
+     * Parties executing the current phase that haven't arrived to the clock yet.
+     */
+    private int runningParties;
+
+    private final boolean deterministic;
+
+    /**
+     * The event of each thread that was ever registered, which keeps the position of the party in the order of
+     * registration to break the ties between events of the same phase. The same event is scheduled every time the
+     * party arrives, and it is kept when the party leaves the clock for the next time the thread is registered, so
+     * neither advancing the clock nor registering a party again allocates anything.
+     */
+    private final Map<Thread, ClockEvent> partyEvents;
+
+    private long nextPartyRank;
+
+    private final PriorityQueue<ClockEvent> pendingEvents;
+
+    /**
+     * The events moved forward when idle clock cycles are skipped, kept to reuse the list.
+     */
+    private final List<ClockEvent> idleEvents;
+
+    /**
+     * Indicates if every party that arrived in the current phase arrived as idle.
+     */
+    private boolean idlePhase;
+
+    /**
+     * Class constructor
+     * @param deterministic true if the parties must run one at a time, in a fixed order
+     */
+    public EventDrivenClock(boolean deterministic) {
+        this.currentPhase = 0;
+        this.registeredParties = 0;
+        this.runningParties = 0;
+        this.deterministic = deterministic;
+        this.partyEvents = new HashMap<>();
+        this.nextPartyRank = 0;
+        this.pendingEvents = new PriorityQueue<>();
+        this.idleEvents = new ArrayList<>();
+        this.idlePhase = true;
+    }
+
+    /**
+     * Registers the party. In deterministic mode, a party registered by another one is scheduled to start after the
+     * parties already waiting for the current phase.
+     * @param party the thread that runs the party.
+     */
+    @Override
+    public synchronized void register(Thread party) {
+        ClockEvent partyEvent = this.partyEvents.get(party);
+        if (partyEvent == null) {
+            partyEvent = new ClockEvent(party);
+            this.partyEvents.put(party, partyEvent);
+        }
+
+        boolean waitingTurn = this.deterministic && party != Thread.currentThread();
+        partyEvent.register(this.currentPhase, this.nextPartyRank++, waitingTurn);
+        this.registeredParties++;
+        this.idlePhase = false;
+
+        if (waitingTurn) {
+            this.pendingEvents.add(partyEvent);
+        } else {
+            this.runningParties++;
+        }
+    }
+
+    @Override
+    public void awaitTurn() {
+        ClockEvent startEvent;
+        synchronized (this) {
+            startEvent = this.partyEvents.get(Thread.currentThread());
+            if (startEvent == null || !startEvent.takeTurn()) {
+                return;
+            }
+        }
+
+        startEvent.await();
+    }
+
+    @Override
+    public void arriveAndAwaitAdvance() {
+        this.arriveAndAwaitAdvance(1);
+    }
+
+    /**
+     * Schedules a single event for the phase in which the party must be resumed, so the phases in between cost
+     * nothing to the party.
+     * @param phases the number of phases to wait, at least one.
+     */
+    @Override
+    public void arriveAndAwaitAdvance(int phases) {
+        this.arriveAndAwaitAdvance(phases, false);
+    }
+
+    @Override
+    public void arriveBusyAndAwaitAdvance(int phases) {
+        this.arriveAndAwaitAdvance(phases, true);
+    }
+
+    /**
+     * Schedules the event of the calling party for the phase in which it must be resumed and waits for it.
+     * @param phases the number of phases to wait, at least one.
+     * @param busy true if the party is working in the phases in between, so they can't be skipped.
+     */
+    private void arriveAndAwaitAdvance(int phases, boolean busy) {
+        ClockEvent wakeUpEvent;
+        synchronized (this) {
+            wakeUpEvent = this.partyEvents.get(Thread.currentThread());
+            wakeUpEvent.schedule(this.currentPhase + phases, false, busy);
+            this.pendingEvents.add(wakeUpEvent);
+            this.idlePhase = false;
+            this.arrive();
+        }
+        wakeUpEvent.await();
+    }
+
+    @Override
+    public int arriveIdleAndAwaitAdvance() {
+        ClockEvent wakeUpEvent;
+        long nextPhase;
+        synchronized (this) {
+            nextPhase = this.currentPhase + 1;
+            wakeUpEvent = this.partyEvents.get(Thread.currentThread());
+            wakeUpEvent.schedule(nextPhase, true, false);
+            this.pendingEvents.add(wakeUpEvent);
+            this.arrive();
+        }
+        wakeUpEvent.await();
+        return (int) ((wakeUpEvent.getPhase() - nextPhase) / 2);
+    }
+
+    @Override
+    public synchronized void arriveAndDeregister() {
+        this.registeredParties--;
+        this.idlePhase = false;
+        this.arrive();
+    }
+
+    @Override
+    public synchronized int getRegisteredParties() {
+        return this.registeredParties;
+    }
+
+    /**
+     * Marks the calling party as arrived. If it was the last running party, it advances the clock to the phase of the
+     * next pending event and releases the parties scheduled for that phase, or only the first one of them in
+     * deterministic mode. Must be called holding the clock's lock.
+     */
+    private void arrive() {
+        this.runningParties--;
+        if (this.runningParties > 0 || this.pendingEvents.isEmpty()) {
+            return;
+        }
+
+        if (this.pendingEvents.peek().getPhase() > this.currentPhase) { // Every party finished the current phase
+            if (this.idlePhase && this.currentPhase % 2 == 0) {
+                this.skipIdleClockCycles();
+            }
+            this.idlePhase = true;
+        }
+
+        this.currentPhase = this.pendingEvents.peek().getPhase();
+        do {
+            this.runningParties++;
+            this.pendingEvents.poll().release();
+        } while (!this.deterministic && !this.pendingEvents.isEmpty()
+                && this.pendingEvents.peek().getPhase() == this.currentPhase);
+    }
+
+    /**
+     * Called when every party arrived as idle from the execution phase of a clock cycle. Moves the idle parties to the
+     * "zero time" phase in which the first sleeping party is resumed, or the one right before it, so the idle parties
+     * finish the clock cycle together with it. Must be called holding the clock's lock.
+     */
+    private void skipIdleClockCycles() {
+        long nextPhase = this.currentPhase + 1;
+        long wakeUpPhase = Long.MAX_VALUE;
+        for (ClockEvent event : this.pendingEvents) {
+            if (event.isBusy()) { // A party is working through the clock cycles, so none of them is idle.
+                return;
+            } else if (event.getPhase() > nextPhase) {
+                wakeUpPhase = Math.min(wakeUpPhase, event.getPhase());
+            } else if (!event.isIdle()) { // A sleeping party is resumed in the next phase.
+                return;
+            }
+        }
+
+        if (wakeUpPhase == Long.MAX_VALUE) { // Nobody is sleeping, so the idle parties would wait forever.
+            return;
+        }
+
+        long skipPhase = wakeUpPhase % 2 == 1 ? wakeUpPhase : wakeUpPhase - 1;
+        if (skipPhase <= nextPhase) {
+            return;
+        }
+
+        while (!this.pendingEvents.isEmpty() && this.pendingEvents.peek().getPhase() == nextPhase) {
+            this.idleEvents.add(this.pendingEvents.poll());
+        }
+        for (int i = 0; i < this.idleEvents.size(); i++) {
+            ClockEvent idleEvent = this.idleEvents.get(i);
+            idleEvent.setPhase(skipPhase);
+            this.pendingEvents.add(idleEvent);
+        }
+        this.idleEvents.clear();
+    }
+
+}
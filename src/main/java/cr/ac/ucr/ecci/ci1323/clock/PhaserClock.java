@@ -0,0 +1,70 @@
+package cr.ac.ucr.ecci.ci1323.clock;
+
+import java.util.concurrent.Phaser;
+
+/**
+ * Clock in which every phase is a rendezvous of all the parties in a Phaser barrier.
+ */
+public class PhaserClock implements SimulationClock {
+
+    private volatile Phaser simulationBarrier;
+
+    public PhaserClock() {
+        this.simulationBarrier = new Phaser();
+    }
+
+    @Override
+    public void register(Thread party) {
+        this.simulationBarrier.register();
+    }
+
+    /**
+     * Every party runs as soon as it starts, so there is nothing to wait for.
+     */
+    @Override
+    public void awaitTurn() {
+    }
+
+    @Override
+    public void arriveAndAwaitAdvance() {
+        this.simulationBarrier.arriveAndAwaitAdvance();
+    }
+
+    /**
+     * A Phaser can't let a party miss a phase, so the party arrives once per phase.
+     */
+    @Override
+    public void arriveAndAwaitAdvance(int phases) {
+        for (int i = 0; i < phases; i++) {
+            this.simulationBarrier.arriveAndAwaitAdvance();
+        }
+    }
+
+    /**
+     * A Phaser never skips clock cycles, so a busy party waits like any other.
+     */
+    @Override
+    public void arriveBusyAndAwaitAdvance(int phases) {
+        this.arriveAndAwaitAdvance(phases);
+    }
+
+    /**
+     * A Phaser doesn't know what the parties are waiting for, so it never skips clock cycles.
+     */
+    @Override
+    public int arriveIdleAndAwaitAdvance() {
+        this.simulationBarrier.arriveAndAwaitAdvance();
+        return 0;
+    }
+
+    @Override
+    public void arriveAndDeregister() {
+        this.simulationBarrier.arriveAndDeregister();
+    }
+
+    @Override
+    public int getRegisteredParties() {
+        return this.simulationBarrier.getRegisteredParties();
+    }
+
+}
@@ -0,0 +1,63 @@
+package cr.ac.ucr.ecci.ci1323.clock;
+
+/**
+ * Synchronization point shared by the simulation controller, the cores and the miss handlers. Every clock cycle is
+ * made of two phases: the execution phase, in which each party does the work of the cycle, and the "zero time" phase,
+ * in which the clock cycles are counted and the context changes are made. A party moves from one phase to the next
+ * one by arriving to the clock.
+ */
+public interface SimulationClock {
+
+    /**
+     * Adds a party to the clock. The party takes part of the phase in which the clock currently is. A party can be
+     * registered by its own thread, or by a running party before starting the party's thread.
+     * @param party the thread that runs the party.
+     */
+    void register(Thread party);
+
+    /**
+     * Called by a party when its thread starts, before touching any shared state. It blocks until the clock lets the
+     * party run.
+     */
+    void awaitTurn();
+
+    /**
+     * Arrives to the clock and waits until every other party has finished the current phase.
+     */
+    void arriveAndAwaitAdvance();
+
+    /**
+     * Arrives to the clock and waits until it has advanced the given number of phases. The party doesn't take part of
+     * the phases in between, so it must not touch any shared state until it is resumed.
+     * @param phases the number of phases to wait, at least one.
+     */
+    void arriveAndAwaitAdvance(int phases);
+
+    /**
+     * Arrives to the clock and waits until it has advanced the given number of phases, like
+     * {@link #arriveAndAwaitAdvance(int)}, for a party that is still working in the phases in between, for example a
+     * core that executed several register only instructions at once. The clock doesn't skip idle clock cycles while the
+     * party sleeps, since it would have arrived busy to each of them.
+     * @param phases the number of phases to wait, at least one.
+     */
+    void arriveBusyAndAwaitAdvance(int phases);
+
+    /**
+     * Arrives to the clock from the execution phase of a clock cycle in which the party only waited for another party,
+     * for example by failing to take a lock. If every party arrives like this, nothing can change until the next party
+     * that sleeps through several phases is resumed, so the clock may skip the clock cycles in between.
+     * @return the number of whole clock cycles that were skipped, which the party must account as waited.
+     */
+    int arriveIdleAndAwaitAdvance();
+
+    /**
+     * Arrives to the clock and removes the calling party from it, without waiting for the other parties.
+     */
+    void arriveAndDeregister();
+
+    /**
+     * @return the number of parties registered in the clock.
+     */
+    int getRegisteredParties();
+
+}
@@ -0,0 +1,629 @@
+package cr.ac.ucr.ecci.ci1323.commons;
+
+import cr.ac.ucr.ecci.ci1323.cache.CoherenceProtocol;
+import cr.ac.ucr.ecci.ci1323.cache.DataCacheLayout;
+import cr.ac.ucr.ecci.ci1323.cache.InclusionPolicy;
+import cr.ac.ucr.ecci.ci1323.cache.PrefetchPolicy;
+import cr.ac.ucr.ecci.ci1323.cache.ReplacementPolicy;
+import cr.ac.ucr.ecci.ci1323.cache.SecondLevelCacheMode;
+import cr.ac.ucr.ecci.ci1323.clock.ClockEngine;
+import cr.ac.ucr.ecci.ci1323.core.ThreadBackend;
+import cr.ac.ucr.ecci.ci1323.memory.CoherenceMode;
+import cr.ac.ucr.ecci.ci1323.memory.DataMemoryStorage;
+
+/**
+ * Options selected at startup for a simulation. Each option is given as a "key=value" argument, and the ones that are
+ * not given keep their default value.
+ *
+ * Options:
+ * engine=phaser|events|deterministic -> the clock implementation that runs the simulation.
+ * translation=true|false -> if the cores translate the hot runs of register only instructions.
+ * threads=platform|virtual -> the kind of Java threads that run the cores and the miss handler.
+ * quantum=N -> the maximum quantum of the contexts, asked to the user if it isn't given.
+ * programs=directory -> a directory with the context files 0.txt, 1.txt, ... to run instead of the bundled ones.
+ * cores=N -> the number of cores of the processor, from 1 to 64.
+ * cacheN=N -> the number of positions of the instruction and data caches of core N, 8 for core 0 and 4 for the others.
+ * waysN=N -> the associativity of the caches of core N, 1 for direct mapped caches.
+ * policyN=lru|plru|random -> the replacement policy of the caches of core N.
+ * handlerN=true|false -> if core N has a miss handler thread that runs a second context during its misses, like core 0
+ *                        does by default.
+ * l2=none|shared|private -> if there is a second level cache for every core, one for each core or none.
+ * l2size=N, l2ways=N -> the number of positions of the second level caches and the ways of each set.
+ * l2policy=lru|plru|random -> the replacement policy of the second level caches.
+ * l2latency=N -> the clock cycles of an access to a second level cache.
+ * l2inclusion=inclusive|exclusive|nine -> the blocks of the first level caches the second level caches keep.
+ * iprefetch=none|next-line|stride -> the blocks the instruction prefetcher of each core brings before they are needed.
+ * iprefetchdegree=N -> the number of blocks the instruction prefetchers bring after each fetched block.
+ * dprefetch=none|next-line|stride -> the blocks the data prefetcher of each core brings before they are needed.
+ * dprefetchdegree=N -> the number of blocks the data prefetchers bring after each load or store that triggers them.
+ * victim=N -> the number of positions of the victim cache of each data cache, 0 for none.
+ * wbuffer=N -> the number of dirty blocks the write buffer of each data cache holds, 0 for none.
+ * protocol=msi|mesi|moesi -> the protocol that keeps the data caches coherent.
+ * coherence=snooping|directory -> if a data bus transaction contacts every other cache or only the ones that have its block.
+ * layout=objects|arrays -> how the positions of the data caches are stored on the host.
+ * memory=N -> the number of blocks of the shared data memory.
+ * instructions=N -> the number of blocks of the instruction memory, which starts right after the data memory.
+ * storage=heap|mapped -> if the shared data memory is an array on the heap or an image file mapped to memory.
+ * image=file -> the image file of a mapped data memory.
+ */
+public class SimulationConfiguration {
+
+    private ClockEngine clockEngine;
+    private boolean translationEnabled;
+    private ThreadBackend threadBackend;
+    private int quantum;
+    private String programsDirectory;
+    private int cores;
+    private final int[] cachePositions;
+    private final int[] cacheWays;
+    private final ReplacementPolicy[] replacementPolicies;
+    private final boolean[] missHandlers;
+    private SecondLevelCacheMode secondLevelCacheMode;
+    private int secondLevelCachePositions;
+    private int secondLevelCacheWays;
+    private ReplacementPolicy secondLevelReplacementPolicy;
+    private int secondLevelCacheLatency;
+    private InclusionPolicy inclusionPolicy;
+    private PrefetchPolicy instructionPrefetchPolicy;
+    private int instructionPrefetchDegree;
+    private PrefetchPolicy dataPrefetchPolicy;
+    private int dataPrefetchDegree;
+    private int victimCachePositions;
+    private int writeBufferPositions;
+    private CoherenceProtocol coherenceProtocol;
+    private CoherenceMode coherenceMode;
+    private DataCacheLayout dataCacheLayout;
+    private int dataMemoryBlocks;
+    private int instructionMemoryBlocks;
+    private DataMemoryStorage dataMemoryStorage;
+    private String dataMemoryImage;
+
+    /**
+     * Constructor which sets every option to its default value.
+     */
+    public SimulationConfiguration() {
+        this.clockEngine = ClockEngine.PHASER;
+        this.translationEnabled = true;
+        this.threadBackend = ThreadBackend.PLATFORM;
+        this.quantum = 0;
+        this.programsDirectory = null;
+        this.cores = SimulationConstants.TOTAL_CORES;
+        this.cachePositions = new int[SimulationConstants.MAXIMUM_CORES];
+        this.cacheWays = new int[SimulationConstants.MAXIMUM_CORES];
+        this.replacementPolicies = new ReplacementPolicy[SimulationConstants.MAXIMUM_CORES];
+        this.missHandlers = new boolean[SimulationConstants.MAXIMUM_CORES];
+        for (int i = 0; i < SimulationConstants.MAXIMUM_CORES; i++) {
+            // Only core zero has the larger caches and the miss handler, the other cores are like core one.
+            this.cachePositions[i] = i == 0 ? SimulationConstants.TOTAL_CORE_ZERO_CACHE_POSITIONS :
+                    SimulationConstants.TOTAL_FIRST_CORE_CACHE_POSITIONS;
+            this.cacheWays[i] = 1;
+            this.replacementPolicies[i] = ReplacementPolicy.LRU;
+            this.missHandlers[i] = i == 0;
+        }
+        this.secondLevelCacheMode = SecondLevelCacheMode.NONE;
+        this.secondLevelCachePositions = SimulationConstants.SECOND_LEVEL_CACHE_POSITIONS;
+        this.secondLevelCacheWays = SimulationConstants.SECOND_LEVEL_CACHE_WAYS;
+        this.secondLevelReplacementPolicy = ReplacementPolicy.LRU;
+        this.secondLevelCacheLatency = SimulationConstants.SECOND_LEVEL_CACHE_LATENCY;
+        this.inclusionPolicy = InclusionPolicy.INCLUSIVE;
+        this.instructionPrefetchPolicy = PrefetchPolicy.NONE;
+        this.instructionPrefetchDegree = SimulationConstants.PREFETCH_DEGREE;
+        this.dataPrefetchPolicy = PrefetchPolicy.NONE;
+        this.dataPrefetchDegree = SimulationConstants.PREFETCH_DEGREE;
+        this.victimCachePositions = 0;
+        this.writeBufferPositions = 0;
+        this.coherenceProtocol = CoherenceProtocol.MSI;
+        this.coherenceMode = CoherenceMode.SNOOPING;
+        this.dataCacheLayout = DataCacheLayout.OBJECTS;
+        this.dataMemoryBlocks = SimulationConstants.TOTAL_DATA_BLOCKS;
+        this.instructionMemoryBlocks = SimulationConstants.TOTAL_INSTRUCTION_BLOCKS;
+        this.dataMemoryStorage = DataMemoryStorage.HEAP;
+        this.dataMemoryImage = null;
+    }
+
+    /**
+     * Creates a configuration from the program arguments.
+     * @param arguments the "key=value" options
+     * @return the configuration with the given options
+     */
+    public static SimulationConfiguration fromArguments(String[] arguments) {
+        SimulationConfiguration configuration = new SimulationConfiguration();
+        for (String argument : arguments) {
+            configuration.setOption(argument);
+        }
+        return configuration;
+    }
+
+    /**
+     * Sets one option from its "key=value" representation.
+     * @param option the option to set
+     */
+    public void setOption(String option) {
+        String[] keyValue = option.split("=", 2);
+        if (keyValue.length != 2)
+            throw new IllegalArgumentException("Invalid option, expected key=value: " + option);
+
+        String key = keyValue[0].trim();
+        String value = keyValue[1].trim();
+        switch (key) {
+            case "engine":
+                this.clockEngine = ClockEngine.valueOf(value.toUpperCase());
+                break;
+
+            case "translation":
+                this.translationEnabled = parseBoolean(key, value);
+                break;
+
+            case "threads":
+                this.threadBackend = ThreadBackend.valueOf(value.toUpperCase());
+                break;
+
+            case "quantum":
+                this.quantum = parsePositiveInteger(key, value);
+                break;
+
+            case "programs":
+                this.programsDirectory = value;
+                break;
+
+            case "cores":
+                int cores = parsePositiveInteger(key, value);
+                if (cores > SimulationConstants.MAXIMUM_CORES)
+                    throw new IllegalArgumentException("Invalid value for " + key + ", the processor can't have more " +
+                            "than " + SimulationConstants.MAXIMUM_CORES + " cores: " + value);
+                this.cores = cores;
+                break;
+
+            case "l2":
+                this.secondLevelCacheMode = SecondLevelCacheMode.valueOf(value.toUpperCase());
+                break;
+
+            case "l2size":
+                this.secondLevelCachePositions = parsePositiveInteger(key, value);
+                break;
+
+            case "l2ways":
+                this.secondLevelCacheWays = parsePositiveInteger(key, value);
+                break;
+
+            case "l2policy":
+                this.secondLevelReplacementPolicy = ReplacementPolicy.valueOf(value.toUpperCase());
+                break;
+
+            case "l2latency":
+                this.secondLevelCacheLatency = parsePositiveInteger(key, value);
+                break;
+
+            case "l2inclusion":
+                this.inclusionPolicy = InclusionPolicy.valueOf(value.toUpperCase());
+                break;
+
+            case "iprefetch":
+                this.instructionPrefetchPolicy = PrefetchPolicy.valueOf(value.toUpperCase().replace('-', '_'));
+                break;
+
+            case "iprefetchdegree":
+                this.instructionPrefetchDegree = parsePositiveInteger(key, value);
+                break;
+
+            case "dprefetch":
+                this.dataPrefetchPolicy = PrefetchPolicy.valueOf(value.toUpperCase().replace('-', '_'));
+                break;
+
+            case "dprefetchdegree":
+                this.dataPrefetchDegree = parsePositiveInteger(key, value);
+                break;
+
+            case "victim":
+                this.victimCachePositions = value.equals("0") ? 0 : parsePositiveInteger(key, value);
+                break;
+
+            case "wbuffer":
+                this.writeBufferPositions = value.equals("0") ? 0 : parsePositiveInteger(key, value);
+                break;
+
+            case "protocol":
+                this.coherenceProtocol = CoherenceProtocol.valueOf(value.toUpperCase());
+                break;
+
+            case "coherence":
+                this.coherenceMode = CoherenceMode.valueOf(value.toUpperCase());
+                break;
+
+            case "layout":
+                this.dataCacheLayout = DataCacheLayout.valueOf(value.toUpperCase());
+                break;
+
+            case "memory":
+                this.dataMemoryBlocks = parsePositiveInteger(key, value);
+                this.checkAddressSpace();
+                break;
+
+            case "instructions":
+                this.instructionMemoryBlocks = parsePositiveInteger(key, value);
+                this.checkAddressSpace();
+                break;
+
+            case "storage":
+                this.dataMemoryStorage = DataMemoryStorage.valueOf(value.toUpperCase());
+                break;
+
+            case "image":
+                this.dataMemoryImage = value;
+                break;
+
+            default:
+                if (!this.setCoreOption(key, value))
+                    throw new IllegalArgumentException("Unknown option: " + key);
+        }
+    }
+
+    /**
+     * Sets an option of a single core, whose key is the name of the option followed by the number of the core.
+     * @param key the key of the option, like cache2
+     * @param value the value of the option
+     * @return true if the key is the one of a core option, false if not
+     */
+    private boolean setCoreOption(String key, String value) {
+        int numberStart = key.length();
+        while (numberStart > 0 && Character.isDigit(key.charAt(numberStart - 1))) {
+            numberStart--;
+        }
+        if (numberStart == 0 || numberStart == key.length())
+            return false;
+
+        String name = key.substring(0, numberStart);
+        if (!name.equals("cache") && !name.equals("ways") && !name.equals("policy") && !name.equals("handler"))
+            return false;
+
+        int coreNumber;
+        try {
+            coreNumber = Integer.parseInt(key.substring(numberStart));
+        } catch (NumberFormatException e) {
+            coreNumber = SimulationConstants.MAXIMUM_CORES;
+        }
+        if (coreNumber >= SimulationConstants.MAXIMUM_CORES)
+            throw new IllegalArgumentException("Invalid option " + key + ", the cores are numbered from 0 to " +
+                    (SimulationConstants.MAXIMUM_CORES - 1));
+
+        switch (name) {
+            case "cache":
+                this.cachePositions[coreNumber] = parsePositiveInteger(key, value);
+                break;
+
+            case "ways":
+                this.cacheWays[coreNumber] = parsePositiveInteger(key, value);
+                break;
+
+            case "policy":
+                this.replacementPolicies[coreNumber] = ReplacementPolicy.valueOf(value.toUpperCase());
+                break;
+
+            default:
+                this.missHandlers[coreNumber] = parseBoolean(key, value);
+        }
+        return true;
+    }
+
+    /**
+     * Checks that every address of the data and instruction memories fits in the registers of the simulated cores.
+     */
+    private void checkAddressSpace() {
+        long totalBlocks = (long) this.dataMemoryBlocks + this.instructionMemoryBlocks;
+        if (totalBlocks * SimulationConstants.BLOCK_SIZE > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("The data and instruction memories can't have more than "
+                    + (Integer.MAX_VALUE / SimulationConstants.BLOCK_SIZE) + " blocks together.");
+    }
+
+    /**
+     * Parses the value of a boolean option.
+     * @param key the key of the option
+     * @param value "true" or "false"
+     * @return the value of the option
+     */
+    private static boolean parseBoolean(String key, String value) {
+        if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false"))
+            throw new IllegalArgumentException("Invalid value for " + key + ", expected true or false: " + value);
+
+        return Boolean.parseBoolean(value);
+    }
+
+    /**
+     * Parses the value of an option that must be a positive integer.
+     * @param key the key of the option
+     * @param value the number
+     * @return the value of the option
+     */
+    private static int parsePositiveInteger(String key, String value) {
+        int number;
+        try {
+            number = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + key + ", expected a number: " + value);
+        }
+
+        if (number < 1)
+            throw new IllegalArgumentException("Invalid value for " + key + ", expected a number greater than 0: " + value);
+
+        return number;
+    }
+
+    public ClockEngine getClockEngine() {
+        return clockEngine;
+    }
+
+    public void setClockEngine(ClockEngine clockEngine) {
+        this.clockEngine = clockEngine;
+    }
+
+    public boolean isTranslationEnabled() {
+        return translationEnabled;
+    }
+
+    public void setTranslationEnabled(boolean translationEnabled) {
+        this.translationEnabled = translationEnabled;
+    }
+
+    public ThreadBackend getThreadBackend() {
+        return threadBackend;
+    }
+
+    public void setThreadBackend(ThreadBackend threadBackend) {
+        this.threadBackend = threadBackend;
+    }
+
+    /**
+     * @return the maximum quantum of the contexts, 0 if it must be asked to the user.
+     */
+    public int getQuantum() {
+        return quantum;
+    }
+
+    public void setQuantum(int quantum) {
+        this.quantum = quantum;
+    }
+
+    /**
+     * @return the directory with the context files to run, null to run the ones bundled with the simulator.
+     */
+    public String getProgramsDirectory() {
+        return programsDirectory;
+    }
+
+    public void setProgramsDirectory(String programsDirectory) {
+        this.programsDirectory = programsDirectory;
+    }
+
+    /**
+     * @return the number of cores of the processor.
+     */
+    public int getCores() {
+        return cores;
+    }
+
+    public void setCores(int cores) {
+        this.cores = cores;
+    }
+
+    public SecondLevelCacheMode getSecondLevelCacheMode() {
+        return secondLevelCacheMode;
+    }
+
+    public void setSecondLevelCacheMode(SecondLevelCacheMode secondLevelCacheMode) {
+        this.secondLevelCacheMode = secondLevelCacheMode;
+    }
+
+    public int getSecondLevelCachePositions() {
+        return secondLevelCachePositions;
+    }
+
+    public void setSecondLevelCachePositions(int secondLevelCachePositions) {
+        this.secondLevelCachePositions = secondLevelCachePositions;
+    }
+
+    public int getSecondLevelCacheWays() {
+        return secondLevelCacheWays;
+    }
+
+    public void setSecondLevelCacheWays(int secondLevelCacheWays) {
+        this.secondLevelCacheWays = secondLevelCacheWays;
+    }
+
+    public ReplacementPolicy getSecondLevelReplacementPolicy() {
+        return secondLevelReplacementPolicy;
+    }
+
+    public void setSecondLevelReplacementPolicy(ReplacementPolicy secondLevelReplacementPolicy) {
+        this.secondLevelReplacementPolicy = secondLevelReplacementPolicy;
+    }
+
+    /**
+     * @return the clock cycles of an access to a second level cache.
+     */
+    public int getSecondLevelCacheLatency() {
+        return secondLevelCacheLatency;
+    }
+
+    public void setSecondLevelCacheLatency(int secondLevelCacheLatency) {
+        this.secondLevelCacheLatency = secondLevelCacheLatency;
+    }
+
+    public InclusionPolicy getInclusionPolicy() {
+        return inclusionPolicy;
+    }
+
+    public void setInclusionPolicy(InclusionPolicy inclusionPolicy) {
+        this.inclusionPolicy = inclusionPolicy;
+    }
+
+    public PrefetchPolicy getInstructionPrefetchPolicy() {
+        return instructionPrefetchPolicy;
+    }
+
+    public void setInstructionPrefetchPolicy(PrefetchPolicy instructionPrefetchPolicy) {
+        this.instructionPrefetchPolicy = instructionPrefetchPolicy;
+    }
+
+    /**
+     * @return the number of blocks the instruction prefetchers bring after each fetched block.
+     */
+    public int getInstructionPrefetchDegree() {
+        return instructionPrefetchDegree;
+    }
+
+    public void setInstructionPrefetchDegree(int instructionPrefetchDegree) {
+        this.instructionPrefetchDegree = instructionPrefetchDegree;
+    }
+
+    public PrefetchPolicy getDataPrefetchPolicy() {
+        return dataPrefetchPolicy;
+    }
+
+    public void setDataPrefetchPolicy(PrefetchPolicy dataPrefetchPolicy) {
+        this.dataPrefetchPolicy = dataPrefetchPolicy;
+    }
+
+    /**
+     * @return the number of blocks the data prefetchers bring after each load or store that triggers them.
+     */
+    public int getDataPrefetchDegree() {
+        return dataPrefetchDegree;
+    }
+
+    public void setDataPrefetchDegree(int dataPrefetchDegree) {
+        this.dataPrefetchDegree = dataPrefetchDegree;
+    }
+
+    /**
+     * @return the number of positions of the victim cache of each data cache, 0 if the data caches don't have one.
+     */
+    public int getVictimCachePositions() {
+        return victimCachePositions;
+    }
+
+    public void setVictimCachePositions(int victimCachePositions) {
+        this.victimCachePositions = victimCachePositions;
+    }
+
+    /**
+     * @return the number of dirty blocks the write buffer of each data cache holds, 0 if the data caches don't have one.
+     */
+    public int getWriteBufferPositions() {
+        return writeBufferPositions;
+    }
+
+    public void setWriteBufferPositions(int writeBufferPositions) {
+        this.writeBufferPositions = writeBufferPositions;
+    }
+
+    public CoherenceProtocol getCoherenceProtocol() {
+        return coherenceProtocol;
+    }
+
+    public void setCoherenceProtocol(CoherenceProtocol coherenceProtocol) {
+        this.coherenceProtocol = coherenceProtocol;
+    }
+
+    public CoherenceMode getCoherenceMode() {
+        return coherenceMode;
+    }
+
+    public void setCoherenceMode(CoherenceMode coherenceMode) {
+        this.coherenceMode = coherenceMode;
+    }
+
+    public DataCacheLayout getDataCacheLayout() {
+        return dataCacheLayout;
+    }
+
+    public void setDataCacheLayout(DataCacheLayout dataCacheLayout) {
+        this.dataCacheLayout = dataCacheLayout;
+    }
+
+    public int getDataMemoryBlocks() {
+        return dataMemoryBlocks;
+    }
+
+    public void setDataMemoryBlocks(int dataMemoryBlocks) {
+        this.dataMemoryBlocks = dataMemoryBlocks;
+    }
+
+    public int getInstructionMemoryBlocks() {
+        return instructionMemoryBlocks;
+    }
+
+    public void setInstructionMemoryBlocks(int instructionMemoryBlocks) {
+        this.instructionMemoryBlocks = instructionMemoryBlocks;
+    }
+
+    public DataMemoryStorage getDataMemoryStorage() {
+        return dataMemoryStorage;
+    }
+
+    public void setDataMemoryStorage(DataMemoryStorage dataMemoryStorage) {
+        this.dataMemoryStorage = dataMemoryStorage;
+    }
+
+    /**
+     * @return the image file of a mapped data memory, null if it wasn't given.
+     */
+    public String getDataMemoryImage() {
+        return dataMemoryImage;
+    }
+
+    public void setDataMemoryImage(String dataMemoryImage) {
+        this.dataMemoryImage = dataMemoryImage;
+    }
+
+    /**
+     * Gets the number of positions of the caches of a core.
+     * @param coreNumber the number of the core
+     * @return the number of positions of its instruction and data caches
+     */
+    public int getCachePositions(int coreNumber) {
+        return this.cachePositions[coreNumber];
+    }
+
+    public void setCachePositions(int coreNumber, int cachePositions) {
+        this.cachePositions[coreNumber] = cachePositions;
+    }
+
+    /**
+     * Gets the number of ways of the caches of a core.
+     * @param coreNumber the number of the core
+     * @return the number of ways of each set of its instruction and data caches
+     */
+    public int getCacheWays(int coreNumber) {
+        return this.cacheWays[coreNumber];
+    }
+
+    public void setCacheWays(int coreNumber, int cacheWays) {
+        this.cacheWays[coreNumber] = cacheWays;
+    }
+
+    /**
+     * Gets the replacement policy of the caches of a core.
+     * @param coreNumber the number of the core
+     * @return the policy that chooses the victims of its instruction and data caches
+     */
+    public ReplacementPolicy getReplacementPolicy(int coreNumber) {
+        return this.replacementPolicies[coreNumber];
+    }
+
+    public void setReplacementPolicy(int coreNumber, ReplacementPolicy replacementPolicy) {
+        this.replacementPolicies[coreNumber] = replacementPolicy;
+    }
+
+    /**
+     * Checks if a core has a miss handler thread, so it runs another context while the handler solves a miss.
+     * @param coreNumber the number of the core
+     * @return true if the core has a miss handler, false if it stalls on its misses
+     */
+    public boolean hasMissHandler(int coreNumber) {
+        return this.missHandlers[coreNumber];
+    }
+
+    public void setMissHandler(int coreNumber, boolean missHandler) {
+        this.missHandlers[coreNumber] = missHandler;
+    }
+}
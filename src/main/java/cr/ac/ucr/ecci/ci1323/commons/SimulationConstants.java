@@ -9,7 +9,6 @@ public class SimulationConstants {
 
     public static final int TOTAL_REGISTERS = 32;
     public static final int INITIAL_TICKS = 0;
-    public static final int INSTRUCTIONS_START = 384;
     public static final int TOTAL_DATA_BLOCKS = 24;
     public static final int TOTAL_INSTRUCTION_BLOCKS = 40;
     public static final int TOTAL_INSTRUCTION_FIELDS = 4;
@@ -21,5 +20,15 @@ public class SimulationConstants {
     public static final int WORDS_PER_DATA_BLOCK = 4;
     public static final int TOTAL_CORE_ZERO_CACHE_POSITIONS = 8;
     public static final int TOTAL_FIRST_CORE_CACHE_POSITIONS = 4;
+    public static final int MEMORY_ACCESS_CYCLES = 40;
+    public static final int SECOND_LEVEL_CACHE_POSITIONS = 32;
+    public static final int SECOND_LEVEL_CACHE_WAYS = 4;
+    public static final int SECOND_LEVEL_CACHE_LATENCY = 10;
+    public static final int PREFETCH_DEGREE = 2;
+    public static final int PREFETCH_STREAMS = 4;
+    public static final int PREFETCH_THROTTLE_WINDOW = 16;
+    public static final int PREFETCH_PROBE_INTERVAL = 8;
+    public static final int TOTAL_CORES = 2;
+    public static final int MAXIMUM_CORES = 64;
 
 }
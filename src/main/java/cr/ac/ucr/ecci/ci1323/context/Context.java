@@ -40,6 +40,21 @@ public class Context {
 
     private volatile int finishingCore;
 
+    /**
+     * The loads and stores of the context that missed the data cache, and the misses that found in the data prefetch
+     * buffer a block prefetched for the context. They are used for the coverage of the data prefetcher. A miss is
+     * counted for the context that requested its block, like the block is counted as useful for it, so the coverage
+     * and the accuracy of a context describe the same prefetches even if another context of the core used the block.
+     */
+    private volatile int dataMisses;
+    private volatile int prefetchedDataMisses;
+
+    /**
+     * The data blocks prefetched for the accesses of the context, and the ones a miss used. They are used for the
+     * accuracy of the data prefetcher.
+     */
+    private volatile int dataPrefetches;
+    private volatile int usefulDataPrefetches;
 
     /**
      * Constructor that sets the PC, initializes the registers and sets the tics to 0.
@@ -73,14 +88,53 @@ public class Context {
         this.executionTics++;
     }
 
+    public synchronized void incrementClockCycles(int clockCycles) {
+        this.executionTics += clockCycles;
+    }
+
     public synchronized void incrementPC() {
         this.programCounter += SimulationConstants.WORD_SIZE;
     }
 
+    public synchronized void incrementPC(int instructions) {
+        this.programCounter += instructions * SimulationConstants.WORD_SIZE;
+    }
+
     public synchronized void decrementPC() {
         this.programCounter -= SimulationConstants.WORD_SIZE;
     }
 
+    public synchronized void incrementDataMisses() {
+        this.dataMisses++;
+    }
+
+    public synchronized void incrementPrefetchedDataMisses() {
+        this.prefetchedDataMisses++;
+    }
+
+    public synchronized void incrementDataPrefetches() {
+        this.dataPrefetches++;
+    }
+
+    public synchronized void incrementUsefulDataPrefetches() {
+        this.usefulDataPrefetches++;
+    }
+
+    /**
+     * @return the data misses covered by blocks prefetched for the context, as a fraction of the data misses of the
+     * context, 0 if there weren't any misses.
+     */
+    public double getDataPrefetchCoverage() {
+        return this.dataMisses == 0 ? 0 : (double) this.prefetchedDataMisses / this.dataMisses;
+    }
+
+    /**
+     * @return the fraction of the blocks prefetched for the context that a miss used, 0 if none were prefetched.
+     */
+    public double getDataPrefetchAccuracy() {
+        return this.dataPrefetches == 0 ? 0 : (double) this.usefulDataPrefetches / this.dataPrefetches;
+    }
+
     //----------------------------------------------------------------------------------------
     // Setters and Getters
     //----------------------------------------------------------------------------------------
@@ -140,4 +194,20 @@ public class Context {
         this.contextNumber = contextNumber;
     }
 
+    public int getDataMisses() {
+        return dataMisses;
+    }
+
+    public int getPrefetchedDataMisses() {
+        return prefetchedDataMisses;
+    }
+
+    public int getDataPrefetches() {
+        return dataPrefetches;
+    }
+
+    public int getUsefulDataPrefetches() {
+        return usefulDataPrefetches;
+    }
+
 }
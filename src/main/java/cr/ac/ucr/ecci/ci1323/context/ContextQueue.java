@@ -2,62 +2,65 @@ package cr.ac.ucr.ecci.ci1323.context;
 
 import cr.ac.ucr.ecci.ci1323.exceptions.TryLockException;
 
-import java.util.LinkedList;
 import java.util.Queue;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Queue of contexts that the cores will use for getting the next context to execute.
  *
+ * The lock of the queue is the lock of the simulated processor: a core must take it before using the queue, and the
+ * clock cycles it waits for it are advanced by the core. On the host, both the lock and the queue are lock free, so
+ * no thread ever blocks on them and many cores can push and take contexts at the same time.
+ *
  * @author Elias Calderon
  */
 public class ContextQueue {
 
     /**
-     * Lock for the context queue.
+     * The thread that holds the simulated lock of the context queue, or null if it is free.
      */
-    private volatile ReentrantLock contextQueueLock;
+    private final AtomicReference<Thread> lockOwner;
 
     /**
      * The queue of contexts.
      */
-    private volatile Queue<Context> contextQueue;
+    private final Queue<Context> contextQueue;
 
     /**
      * Constructor that initializes the lock and the context queue
      */
     public ContextQueue() {
-        this.contextQueueLock = new ReentrantLock();
-        this.contextQueue = new LinkedList<Context>();
+        this.lockOwner = new AtomicReference<>();
+        this.contextQueue = new ConcurrentLinkedQueue<>();
     }
 
     /**
-     * Synchronized method for trying to lock the context queue
+     * Tries to lock the context queue, it never waits for the thread that holds it.
      * @return false if not locked, true if locked
      */
-    public synchronized boolean tryLock() {
-        if (this.contextQueueLock.isHeldByCurrentThread()) // If the thread already holds the context queue return true
+    public boolean tryLock() {
+        Thread currentThread = Thread.currentThread();
+        if (this.lockOwner.get() == currentThread) // If the thread already holds the context queue return true
             return true;
 
-        return this.contextQueueLock.tryLock();
+        return this.lockOwner.compareAndSet(null, currentThread);
     }
 
     /**
-     * Synchronized method for trying to unlock the context queue
+     * Unlocks the context queue
      */
-    public synchronized void unlock() {
-        if (!this.contextQueueLock.isHeldByCurrentThread())
+    public void unlock() {
+        if (!this.lockOwner.compareAndSet(Thread.currentThread(), null))
             throw new TryLockException("The current thread cannot unlock the queue without holding the lock.");
-
-        this.contextQueueLock.unlock();
     }
 
     /**
-     * Synchronized method for getting the next context in the queue
+     * Gets the next context in the queue
      * @return the next context in the context queue
      */
-    public synchronized Context getNextContext() {
-        if (!this.contextQueueLock.isHeldByCurrentThread())
+    public Context getNextContext() {
+        if (this.lockOwner.get() != Thread.currentThread())
             throw new TryLockException("The current thread tried to get a new context without locking the queue");
 
         return this.contextQueue.poll();
@@ -0,0 +1,210 @@
+package cr.ac.ucr.ecci.ci1323.controller;
+
+import cr.ac.ucr.ecci.ci1323.commons.SimulationConfiguration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Runs a batch of independent simulations in parallel on a fork join pool, each one with its own controller, and
+ * writes one row of statistics per simulation to a single results file.
+ *
+ * The batch file has one line per group of simulations with their "key=value" options, which are added to the default
+ * options of the batch. An option can have several values separated by commas, and the line runs a simulation for
+ * every combination of them, so "quantum=10,20 cache0=4,8" runs four simulations. Empty lines and lines that start
+ * with # are ignored. Every simulation must have a quantum.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+public class BatchRunner {
+
+    private static final String RESULTS_HEADER = "run,options,total_cycles,skipped_cycles,context_cycles," +
+            "instruction_hit_rate,data_hit_rate,core_hit_rates,core_evictions,directory_lookups,invalidations," +
+            "messages_per_miss,l2_hit_rate,l2_back_invalidations,iprefetch_useful,iprefetch_late,iprefetch_useless," +
+            "dprefetch_coverage,dprefetch_accuracy,context_dprefetch,victim_hits,wbuffer_blocks,wbuffer_peak," +
+            "wbuffer_full_stalls";
+
+    /**
+     * The options of each simulation, as given in the batch file.
+     */
+    private final List<String> runOptions;
+
+    /**
+     * The configuration of each simulation, with the default options and the ones of the batch file.
+     */
+    private final List<SimulationConfiguration> configurations;
+
+    private final int parallelism;
+
+    /**
+     * Constructor which expands the lines of the batch file to the simulations they describe, and checks that every
+     * simulation has valid options.
+     * @param batchLines the lines of the batch file
+     * @param defaultOptions the "key=value" options of every simulation
+     * @param parallelism the number of simulations that run at the same time
+     */
+    public BatchRunner(List<String> batchLines, List<String> defaultOptions, int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("The parallelism must be greater than 0: " + parallelism);
+
+        this.runOptions = new ArrayList<>();
+        this.configurations = new ArrayList<>();
+        this.parallelism = parallelism;
+
+        for (String batchLine : batchLines) {
+            String line = batchLine.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            for (List<String> options : expandOptions(Arrays.asList(line.split("\\s+")))) {
+                SimulationConfiguration configuration = new SimulationConfiguration();
+                defaultOptions.forEach(configuration::setOption);
+                options.forEach(configuration::setOption);
+
+                if (configuration.getQuantum() < 1)
+                    throw new IllegalArgumentException("Every simulation of the batch needs a quantum: " + line);
+
+                this.runOptions.add(String.join(" ", options));
+                this.configurations.add(configuration);
+            }
+        }
+    }
+
+    /**
+     * Expands options with several values separated by commas to every combination of single values.
+     * @param options the "key=value" options of a line
+     * @return the options of each simulation of the line
+     */
+    private static List<List<String>> expandOptions(List<String> options) {
+        List<List<String>> combinations = new ArrayList<>();
+        combinations.add(new ArrayList<>());
+
+        for (String option : options) {
+            String[] keyValues = option.split("=", 2);
+            if (keyValues.length != 2)
+                throw new IllegalArgumentException("Invalid option, expected key=value: " + option);
+
+            List<List<String>> expandedCombinations = new ArrayList<>();
+            for (List<String> combination : combinations) {
+                for (String value : keyValues[1].split(",")) {
+                    List<String> expandedCombination = new ArrayList<>(combination);
+                    expandedCombination.add(keyValues[0] + "=" + value);
+                    expandedCombinations.add(expandedCombination);
+                }
+            }
+            combinations = expandedCombinations;
+        }
+
+        return combinations;
+    }
+
+    /**
+     * Runs every simulation of the batch and writes their statistics, in the order of the batch file.
+     * @param resultsFile the file where the results are written
+     * @throws IOException if the results file can't be written
+     */
+    public void run(Path resultsFile) throws IOException {
+        List<SimulationResult> results = new ArrayList<>();
+
+        ForkJoinPool forkJoinPool = new ForkJoinPool(this.parallelism);
+        try {
+            List<ForkJoinTask<SimulationResult>> simulations = new ArrayList<>();
+            for (SimulationConfiguration configuration : this.configurations) {
+                simulations.add(forkJoinPool.submit(() ->
+                        new SimulationController(configuration).runBatchSimulation()));
+            }
+
+            for (ForkJoinTask<SimulationResult> simulation : simulations) {
+                results.add(simulation.join());
+            }
+        } finally {
+            forkJoinPool.shutdown();
+        }
+
+        List<String> rows = new ArrayList<>();
+        rows.add(RESULTS_HEADER);
+        for (int i = 0; i < results.size(); i++) {
+            rows.add(toRow(i + 1, this.runOptions.get(i), results.get(i)));
+        }
+        Files.write(resultsFile, rows);
+    }
+
+    /**
+     * Formats the statistics of a simulation as a row of the results file. The clock cycles of the contexts, the hit
+     * rates of the cores and the data prefetch coverage and accuracy of the contexts are given as "number:value" pairs
+     * separated by spaces.
+     * @param run the number of the simulation in the batch
+     * @param options the options of the simulation
+     * @param result the statistics of the simulation
+     * @return the row
+     */
+    private static String toRow(int run, String options, SimulationResult result) {
+        StringBuilder contextCycles = new StringBuilder();
+        for (int i = 0; i < result.getContexts(); i++) {
+            contextCycles.append(i == 0 ? "" : " ").append(i).append(':').append(result.getContextClockCycles(i));
+        }
+
+        StringBuilder coreHitRates = new StringBuilder();
+        for (int i = 0; i < result.getCores(); i++) {
+            coreHitRates.append(i == 0 ? "" : " ").append(i).append(":I=")
+                    .append(formatRate(result.getInstructionHitRate(i))).append("/D=")
+                    .append(formatRate(result.getDataHitRate(i)));
+        }
+
+        StringBuilder coreEvictions = new StringBuilder();
+        for (int i = 0; i < result.getCores(); i++) {
+            coreEvictions.append(i == 0 ? "" : " ").append(i).append(":I=")
+                    .append(result.getInstructionEvictions(i)).append("/D=").append(result.getDataEvictions(i));
+        }
+
+        StringBuilder contextDataPrefetches = new StringBuilder();
+        for (int i = 0; i < result.getContexts(); i++) {
+            contextDataPrefetches.append(i == 0 ? "" : " ").append(i).append(":C=")
+                    .append(formatRate(result.getDataPrefetchCoverage(i))).append("/A=")
+                    .append(formatRate(result.getDataPrefetchAccuracy(i)));
+        }
+
+        return run + "," + quote(options) + "," + result.getTotalClockCycles() + "," +
+                result.getSkippedClockCycles() + "," + contextCycles + "," +
+                formatRate(result.getInstructionHitRate()) + "," + formatRate(result.getDataHitRate()) + "," +
+                coreHitRates + "," + coreEvictions + "," + result.getDirectoryLookups() + "," +
+                result.getInvalidations() + "," + formatRate(result.getMessagesPerTransaction()) + "," +
+                formatRate(result.getSecondLevelHitRate()) + "," + result.getBackInvalidations() + "," +
+                result.getUsefulInstructionPrefetches() + "," + result.getLateInstructionPrefetches() + "," +
+                result.getUselessInstructionPrefetches() + "," + formatRate(result.getDataPrefetchCoverage()) + "," +
+                formatRate(result.getDataPrefetchAccuracy()) + "," + contextDataPrefetches + "," +
+                result.getVictimCacheHits() + "," + result.getWriteBufferBlocks() + "," +
+                result.getWriteBufferPeakOccupancy() + "," + result.getFullWriteBufferStalls();
+    }
+
+    private static String formatRate(double rate) {
+        return String.format(Locale.ROOT, "%.4f", rate);
+    }
+
+    /**
+     * Quotes a value of the results file if it has a comma or quotes.
+     * @param value the value
+     * @return the value ready to be written
+     */
+    private static String quote(String value) {
+        if (value.contains(",") || value.contains("\"")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    /**
+     * @return the number of simulations of the batch.
+     */
+    public int getRuns() {
+        return configurations.size();
+    }
+}
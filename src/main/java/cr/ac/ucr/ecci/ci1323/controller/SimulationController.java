@@ -1,25 +1,31 @@
 package cr.ac.ucr.ecci.ci1323.controller;
 
-import cr.ac.ucr.ecci.ci1323.commons.SimulationConstants;
+import cr.ac.ucr.ecci.ci1323.cache.PrefetchPolicy;
+import cr.ac.ucr.ecci.ci1323.cache.SecondLevelCache;
+import cr.ac.ucr.ecci.ci1323.cache.SecondLevelCacheMode;
+import cr.ac.ucr.ecci.ci1323.cache.VictimCache;
+import cr.ac.ucr.ecci.ci1323.clock.SimulationClock;
+import cr.ac.ucr.ecci.ci1323.commons.SimulationConfiguration;
 import cr.ac.ucr.ecci.ci1323.context.Context;
 import cr.ac.ucr.ecci.ci1323.context.ContextQueue;
 import cr.ac.ucr.ecci.ci1323.controller.parser.FileParser;
+import cr.ac.ucr.ecci.ci1323.core.AbstractCore;
 import cr.ac.ucr.ecci.ci1323.core.CoreOne;
 import cr.ac.ucr.ecci.ci1323.core.CoreZero;
+import cr.ac.ucr.ecci.ci1323.core.DataPrefetcher;
+import cr.ac.ucr.ecci.ci1323.core.InstructionPrefetcher;
+import cr.ac.ucr.ecci.ci1323.core.WriteBuffer;
 import cr.ac.ucr.ecci.ci1323.exceptions.NoContextFilesException;
-import cr.ac.ucr.ecci.ci1323.memory.DataBlock;
 import cr.ac.ucr.ecci.ci1323.memory.DataBus;
 import cr.ac.ucr.ecci.ci1323.memory.InstructionBlock;
 import cr.ac.ucr.ecci.ci1323.memory.InstructionBus;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Scanner;
-import java.util.concurrent.Phaser;
 
 /**
  * Main thread which controls the simulation and initializes everything needed to start the execution of threads in
- * both cores.
+ * every core.
  *
  * @author Josué León Sarkis, Elías Calderón, Daniel Montes de Oca
  */
@@ -30,9 +36,15 @@ public class SimulationController {
     private volatile ArrayList<Context> finishedContexts;
     private volatile InstructionBus instructionBus;
     private volatile DataBus dataBus;
-    private volatile CoreZero coreZero;
-    private volatile CoreOne coreOne;
+
+    /**
+     * The second level cache of each core, the same one for every core if it is shared, or null if there is none.
+     */
+    private volatile SecondLevelCache[] secondLevelCaches;
+    private volatile AbstractCore[] cores;
     private volatile int simulationTicks;
+    private volatile int skippedTicks;
+    private volatile SimulationConfiguration configuration;
 
     /**
      * Constructor which initializes the main elements, including shared data memory with 1's.
@@ -40,38 +52,63 @@ public class SimulationController {
      * @param maxQuantum
      */
     public SimulationController(int maxQuantum) {
+        this.configuration = new SimulationConfiguration();
         this.contextQueue = new ContextQueue();
         this.finishedContexts = new ArrayList<>();
-        this.instructionBus = new InstructionBus(new InstructionBlock[SimulationConstants.TOTAL_INSTRUCTION_BLOCKS]);
-
-        // Fill the shared data memory with 1
-        DataBlock[] dataBlocks = new DataBlock[SimulationConstants.TOTAL_DATA_BLOCKS];
-        for (int i = 0; i < dataBlocks.length; i++) {
-            int[] words = new int[SimulationConstants.WORDS_PER_DATA_BLOCK];
-            Arrays.fill(words, 1);
-            dataBlocks[i] = new DataBlock(words);
-        }
-        this.dataBus = new DataBus(dataBlocks);
+        this.createMemory();
 
         this.simulationTicks = 0;
+        this.skippedTicks = 0;
         this.maxQuantum = maxQuantum;
     }
 
     public SimulationController() {
+        this(new SimulationConfiguration());
+    }
+
+    /**
+     * Constructor which initializes the main elements with the options selected at startup, including shared data
+     * memory with 1's.
+     *
+     * @param configuration
+     */
+    public SimulationController(SimulationConfiguration configuration) {
+        this.configuration = configuration;
         this.contextQueue = new ContextQueue();
         this.finishedContexts = new ArrayList<>();
-        this.instructionBus = new InstructionBus(new InstructionBlock[SimulationConstants.TOTAL_INSTRUCTION_BLOCKS]);
-
-        // Fill the shared data memory with 1
-        DataBlock[] dataBlocks = new DataBlock[SimulationConstants.TOTAL_DATA_BLOCKS];
-        for (int i = 0; i < dataBlocks.length; i++) {
-            int[] words = new int[SimulationConstants.WORDS_PER_DATA_BLOCK];
-            Arrays.fill(words, 1);
-            dataBlocks[i] = new DataBlock(words);
-        }
-        this.dataBus = new DataBus(dataBlocks);
+        this.createMemory();
 
         this.simulationTicks = 0;
+        this.skippedTicks = 0;
+    }
+
+    /**
+     * Creates the instruction memory and the shared data memory with the sizes and storage of the configuration, and
+     * the second level caches between them and the cores. The data memory isn't filled, since it is all zeros when it
+     * is created and the data bus keeps its words XORed with their initial value.
+     */
+    private void createMemory() {
+        int dataBlocks = this.configuration.getDataMemoryBlocks();
+        this.instructionBus = new InstructionBus(
+                new InstructionBlock[this.configuration.getInstructionMemoryBlocks()], dataBlocks);
+
+        this.dataBus = new DataBus(this.configuration.getDataMemoryStorage().createDataMemory(dataBlocks,
+                this.configuration.getDataMemoryImage()), this.configuration.getCores(),
+                this.configuration.getCoherenceProtocol(), this.configuration.getCoherenceMode());
+
+        SecondLevelCacheMode secondLevelCacheMode = this.configuration.getSecondLevelCacheMode();
+        this.secondLevelCaches = new SecondLevelCache[this.configuration.getCores()];
+        for (int i = 0; i < this.secondLevelCaches.length && secondLevelCacheMode != SecondLevelCacheMode.NONE; i++) {
+            if (i == 0 || secondLevelCacheMode == SecondLevelCacheMode.PRIVATE) {
+                this.secondLevelCaches[i] = new SecondLevelCache(this.instructionBus, this.dataBus,
+                        this.configuration.getSecondLevelCachePositions(), this.configuration.getSecondLevelCacheWays(),
+                        this.configuration.getSecondLevelReplacementPolicy(), this.configuration.getInclusionPolicy(),
+                        this.configuration.getSecondLevelCacheLatency(),
+                        secondLevelCacheMode == SecondLevelCacheMode.SHARED);
+            } else {
+                this.secondLevelCaches[i] = this.secondLevelCaches[0];
+            }
+        }
     }
 
     /**
@@ -79,34 +116,39 @@ public class SimulationController {
      * the instructions.
      */
     private void parseContextFile() {
-        FileParser fileParser = new FileParser(this.contextQueue, this.instructionBus);
+        FileParser fileParser = new FileParser(this.contextQueue, this.instructionBus,
+                this.configuration.getProgramsDirectory());
         fileParser.prepareSimulation();
     }
 
     /**
-     * It starts the simulation, by requesting the user to input the quantum, and the execution mode (slow or fast). It
-     * then creates the simulation barrier, prints the initial state of the context queue and creates both threads
-     * of each core and begins their execution. While the execution is not finished, it prints the clock's cycle and
-     * the contexts running on each core for each cycle. When finished, it prints the final state of the shared data
-     * memory, the state of the data caches and the registers of each finished context.
+     * It starts the simulation, by requesting the user to input the quantum, unless the configuration has one, and the
+     * execution mode (slow or fast). It then creates the simulation clock selected in the configuration, prints the
+     * initial state of the context queue and creates both threads of each core and begins their execution. While the
+     * execution is not finished, it prints the clock's cycle and the contexts running on each core for each cycle. When
+     * finished, it prints the final state of the shared data memory, the state of the data caches and the registers
+     * of each finished context.
      */
     public void runSimulation() {
         this.parseContextFile();
 
         Scanner scanner = new Scanner(System.in);
-        System.out.print("Ingrese el Quantum maximo: ");
 
-        int maxQuantum = -1;
-        if (scanner.hasNextInt()) {
-            maxQuantum = scanner.nextInt();
-        }
-        while (maxQuantum < 1) {
-            System.out.println("Ingrese el Quantum maximo (Debe ser un numero entero mayor o igual a 1: ");
-            while (!scanner.hasNextInt()) {
+        int maxQuantum = this.configuration.getQuantum();
+        if (maxQuantum < 1) {
+            System.out.print("Ingrese el Quantum maximo: ");
+
+            if (scanner.hasNextInt()) {
+                maxQuantum = scanner.nextInt();
+            }
+            while (maxQuantum < 1) {
                 System.out.println("Ingrese el Quantum maximo (Debe ser un numero entero mayor o igual a 1: ");
-                scanner.next();
+                while (!scanner.hasNextInt()) {
+                    System.out.println("Ingrese el Quantum maximo (Debe ser un numero entero mayor o igual a 1: ");
+                    scanner.next();
+                }
+                maxQuantum = scanner.nextInt();
             }
-            maxQuantum = scanner.nextInt();
         }
 
         scanner = new Scanner(System.in);
@@ -125,99 +167,344 @@ public class SimulationController {
             slowMode = scanner.nextInt();
         }
 
-        Phaser simulationBarrier = new Phaser();
-        simulationBarrier.register();
+        SimulationClock simulationBarrier = this.startCores(maxQuantum, true);
 
-        this.contextQueue.tryLock();
-        if (this.contextQueue.size() < 2) {
-            throw new NoContextFilesException("The simulation requires at least 2 context files to execute.");
-        } else {
-            contextQueue.print();
-
-            Context nextContext = this.contextQueue.getNextContext();
-            nextContext.setOldContext(true);
-            this.coreZero = new CoreZero(simulationBarrier, maxQuantum, nextContext, this,
-                    this.instructionBus, this.dataBus, 0);
+        if (slowMode == 1) {
+            String continueSimulation = "";
+            char continueSim = 'x';
+            while (simulationBarrier.getRegisteredParties() > 1) {
+                scanner = new Scanner(System.in);
+                System.out.print("Oprima la tecla 'c' para avanzar 20 ciclos de reloj ");
 
-            nextContext = this.contextQueue.getNextContext();
-            nextContext.setOldContext(false);
-            this.coreOne = new CoreOne(simulationBarrier, maxQuantum, nextContext, this,
-                    this.instructionBus, this.dataBus, 1);
-
-            this.contextQueue.unlock();
-
-            this.dataBus.setCoreZeroCache(this.coreZero.getDataCache());
-            this.dataBus.setCoreOneCache(this.coreOne.getDataCache());
-
-            this.coreZero.start();
-            this.coreOne.start();
+                continueSimulation = scanner.next();
+                if (continueSimulation.length() == 1) {
+                    continueSim = continueSimulation.charAt(0);
+                }
 
-            if (slowMode == 1) {
-                String continueSimulation = "";
-                char continueSim = 'x';
-                while (simulationBarrier.getRegisteredParties() > 1) {
-                    scanner = new Scanner(System.in);
+                while (continueSim != 'c') {
                     System.out.print("Oprima la tecla 'c' para avanzar 20 ciclos de reloj ");
-
                     continueSimulation = scanner.next();
-                    if (continueSimulation.length() == 1) {
+                    if (continueSimulation.length() == 1)
                         continueSim = continueSimulation.charAt(0);
-                    }
-
-                    while (continueSim != 'c') {
-                        System.out.print("Oprima la tecla 'c' para avanzar 20 ciclos de reloj ");
-                        continueSimulation = scanner.next();
-                        if (continueSimulation.length() == 1)
-                            continueSim = continueSimulation.charAt(0);
-                    }
-                    continueSim = 'x';
-                    for (int i = 0; i < 20; i++) {
-                        System.out.println("Ciclo de reloj #" + this.simulationTicks);
-                        this.coreZero.printContext();
-                        this.coreOne.printContext();
-                        System.out.println();
-
-                        simulationBarrier.arriveAndAwaitAdvance();
-                        this.simulationTicks++;
-                        simulationBarrier.arriveAndAwaitAdvance();
-                    }
                 }
-            } else {
-                while (simulationBarrier.getRegisteredParties() > 1) {
+                continueSim = 'x';
+                for (int i = 0; i < 20; i++) {
                     System.out.println("Ciclo de reloj #" + this.simulationTicks);
-                    this.coreZero.printContext();
-                    this.coreOne.printContext();
-                    System.out.println();
+                    this.printContexts();
 
                     simulationBarrier.arriveAndAwaitAdvance();
-                    this.simulationTicks += 1;
+                    this.simulationTicks++;
                     simulationBarrier.arriveAndAwaitAdvance();
                 }
             }
+        } else {
+            this.awaitCores(simulationBarrier, true);
+        }
 
-            simulationBarrier.arriveAndDeregister();
+        simulationBarrier.arriveAndDeregister();
 
-            System.out.println("La simulacion ha terminado!");
-            System.out.println();
+        System.out.println("La simulacion ha terminado!");
+        System.out.println();
 
-            System.out.println("Memoria compartida de datos:");
-            this.dataBus.printMemory();
+        System.out.println("Memoria compartida de datos:");
+        this.dataBus.printMemory();
+        System.out.println();
+
+        System.out.println("Contenido de la cache de datos:");
+        for (AbstractCore core : this.cores) {
+            core.printCaches();
             System.out.println();
+        }
 
-            System.out.println("Contenido de la cache de datos:");
-            this.coreZero.printCaches();
+        if (this.configuration.getSecondLevelCacheMode() == SecondLevelCacheMode.SHARED) {
+            System.out.println("Cache L2 compartida:");
+            this.secondLevelCaches[0].print();
             System.out.println();
-            this.coreOne.printCaches();
+        } else if (this.configuration.getSecondLevelCacheMode() == SecondLevelCacheMode.PRIVATE) {
+            for (int i = 0; i < this.secondLevelCaches.length; i++) {
+                System.out.println("Cache L2 del Nucleo #" + i + ":");
+                this.secondLevelCaches[i].print();
+                System.out.println();
+            }
+        }
+
+        System.out.println("Contextos que finalizaron:");
+        for (Context context : this.finishedContexts) {
+
+            context.print();
             System.out.println();
+        }
+
+        System.out.println("Ciclos de reloj totales: " + this.simulationTicks + ", ciclos saltados con todos los " +
+                "nucleos detenidos: " + this.skippedTicks);
+        for (AbstractCore core : this.cores) {
+            this.printTranslationStatistics(core);
+        }
+        if (this.configuration.getSecondLevelCacheMode() != SecondLevelCacheMode.NONE) {
+            int[] secondLevelStatistics = this.getSecondLevelStatistics();
+            System.out.println("Cache L2: aciertos = " + secondLevelStatistics[0] + ", fallos = " +
+                    secondLevelStatistics[1] + ", reemplazos = " + secondLevelStatistics[2] +
+                    ", escrituras a memoria = " + secondLevelStatistics[3] + ", invalidaciones en L1 = " +
+                    secondLevelStatistics[4]);
+        }
+        if (this.configuration.getInstructionPrefetchPolicy() != PrefetchPolicy.NONE) {
+            for (AbstractCore core : this.cores) {
+                InstructionPrefetcher instructionPrefetcher = core.getInstructionCache().getInstructionPrefetcher();
+                System.out.println("Nucleo #" + core.getCoreNumber() + ": prebusquedas de instrucciones utiles = " +
+                        instructionPrefetcher.getUsefulPrefetches() + ", tardias = " +
+                        instructionPrefetcher.getLatePrefetches() + ", inutiles = " +
+                        instructionPrefetcher.getUselessPrefetches());
+            }
+        }
+        if (this.configuration.getDataPrefetchPolicy() != PrefetchPolicy.NONE) {
+            this.printDataPrefetchStatistics();
+        }
+        if (this.configuration.getVictimCachePositions() > 0) {
+            for (AbstractCore core : this.cores) {
+                VictimCache victimCache = core.getDataCache().getVictimCache();
+                System.out.println("Nucleo #" + core.getCoreNumber() + ": aciertos en la cache de victimas = " +
+                        victimCache.getHits() + ", bloques desalojados = " + victimCache.getEvictions());
+            }
+        }
+        if (this.configuration.getWriteBufferPositions() > 0) {
+            for (AbstractCore core : this.cores) {
+                WriteBuffer writeBuffer = core.getDataCache().getWriteBuffer();
+                System.out.println("Nucleo #" + core.getCoreNumber() + ": bloques en el buffer de escritura = " +
+                        writeBuffer.getBufferedBlocks() + ", ocupacion maxima = " + writeBuffer.getPeakOccupancy() +
+                        ", esperas por buffer lleno = " + writeBuffer.getFullBufferStalls());
+            }
+        }
+    }
 
-            System.out.println("Contextos que finalizaron:");
-            for (Context context : this.finishedContexts) {
+    /**
+     * Runs the simulation without asking or printing anything, with the quantum of the configuration, so several
+     * simulations can run at the same time in the same program.
+     *
+     * @return the statistics of the finished simulation.
+     */
+    public SimulationResult runBatchSimulation() {
+        if (this.configuration.getQuantum() < 1)
+            throw new IllegalArgumentException("The quantum is required to run a simulation without asking the user.");
 
-                context.print();
-                System.out.println();
+        this.parseContextFile();
+
+        SimulationClock simulationBarrier = this.startCores(this.configuration.getQuantum(), false);
+        this.awaitCores(simulationBarrier, false);
+        simulationBarrier.arriveAndDeregister();
+
+        int[] contextClockCycles = new int[this.finishedContexts.size()];
+        for (Context context : this.finishedContexts) {
+            contextClockCycles[context.getContextNumber()] = context.getExecutionTics();
+        }
+
+        AbstractCore[] cores = this.cores;
+        int[] instructionHits = new int[cores.length];
+        int[] instructionMisses = new int[cores.length];
+        int[] dataHits = new int[cores.length];
+        int[] dataMisses = new int[cores.length];
+        int[] instructionEvictions = new int[cores.length];
+        int[] dataEvictions = new int[cores.length];
+        int[] victimCacheHits = new int[cores.length];
+        int[] writeBufferBlocks = new int[cores.length];
+        int[] writeBufferPeakOccupancies = new int[cores.length];
+        int[] fullWriteBufferStalls = new int[cores.length];
+        for (AbstractCore core : cores) {
+            instructionHits[core.getCoreNumber()] = core.getInstructionCache().getHits();
+            instructionMisses[core.getCoreNumber()] = core.getInstructionCache().getMisses();
+            dataHits[core.getCoreNumber()] = core.getDataCache().getHits();
+            dataMisses[core.getCoreNumber()] = core.getDataCache().getMisses();
+            instructionEvictions[core.getCoreNumber()] = core.getInstructionCache().getEvictions();
+            dataEvictions[core.getCoreNumber()] = core.getDataCache().getEvictions();
+            VictimCache victimCache = core.getDataCache().getVictimCache();
+            victimCacheHits[core.getCoreNumber()] = victimCache == null ? 0 : victimCache.getHits();
+            WriteBuffer writeBuffer = core.getDataCache().getWriteBuffer();
+            if (writeBuffer != null) {
+                writeBufferBlocks[core.getCoreNumber()] = writeBuffer.getBufferedBlocks();
+                writeBufferPeakOccupancies[core.getCoreNumber()] = writeBuffer.getPeakOccupancy();
+                fullWriteBufferStalls[core.getCoreNumber()] = writeBuffer.getFullBufferStalls();
             }
         }
 
+        int[] contextDataMisses = new int[this.finishedContexts.size()];
+        int[] contextPrefetchedDataMisses = new int[this.finishedContexts.size()];
+        int[] contextDataPrefetches = new int[this.finishedContexts.size()];
+        int[] contextUsefulDataPrefetches = new int[this.finishedContexts.size()];
+        for (Context context : this.finishedContexts) {
+            contextDataMisses[context.getContextNumber()] = context.getDataMisses();
+            contextPrefetchedDataMisses[context.getContextNumber()] = context.getPrefetchedDataMisses();
+            contextDataPrefetches[context.getContextNumber()] = context.getDataPrefetches();
+            contextUsefulDataPrefetches[context.getContextNumber()] = context.getUsefulDataPrefetches();
+        }
+
+        int[] secondLevelStatistics = this.getSecondLevelStatistics();
+        int[] prefetchStatistics = this.getInstructionPrefetchStatistics();
+        return new SimulationResult(this.simulationTicks, this.skippedTicks, contextClockCycles, instructionHits,
+                instructionMisses, dataHits, dataMisses, instructionEvictions, dataEvictions,
+                this.dataBus.getTransactions(), this.dataBus.getMessages(), this.dataBus.getInvalidations(),
+                this.dataBus.getDirectoryLookups(), secondLevelStatistics[0], secondLevelStatistics[1],
+                secondLevelStatistics[4], prefetchStatistics[0], prefetchStatistics[1], prefetchStatistics[2],
+                contextDataMisses, contextPrefetchedDataMisses, contextDataPrefetches, contextUsefulDataPrefetches,
+                victimCacheHits, writeBufferBlocks, writeBufferPeakOccupancies, fullWriteBufferStalls);
+    }
+
+    /**
+     * Creates the simulation clock selected in the configuration and registers the calling thread to it. Then it
+     * creates the cores of the configuration, each one with the next context of the queue, and starts their threads.
+     * The cores with a miss handler are like core zero and the others like core one. If there are more cores than
+     * contexts, the last cores get no context and finish right away.
+     *
+     * @param maxQuantum the maximum quantum of the contexts.
+     * @param printQueue if the initial state of the context queue is printed.
+     * @return the simulation clock, in which the calling thread is a party.
+     */
+    private SimulationClock startCores(int maxQuantum, boolean printQueue) {
+        SimulationClock simulationBarrier = this.configuration.getClockEngine().createClock();
+        simulationBarrier.register(Thread.currentThread());
+
+        this.contextQueue.tryLock();
+        if (this.contextQueue.size() < 1) {
+            throw new NoContextFilesException("The simulation requires at least 1 context file to execute.");
+        }
+
+        if (printQueue) {
+            contextQueue.print();
+        }
+
+        this.cores = new AbstractCore[this.configuration.getCores()];
+        for (int i = 0; i < this.cores.length; i++) {
+            Context nextContext = this.contextQueue.getNextContext();
+            if (this.configuration.hasMissHandler(i)) {
+                if (nextContext != null)
+                    nextContext.setOldContext(true);
+                this.cores[i] = new CoreZero(simulationBarrier, maxQuantum, nextContext, this,
+                        this.instructionBus, this.dataBus, i);
+            } else {
+                if (nextContext != null)
+                    nextContext.setOldContext(false);
+                this.cores[i] = new CoreOne(simulationBarrier, maxQuantum, nextContext, this,
+                        this.instructionBus, this.dataBus, i);
+            }
+        }
+
+        this.contextQueue.unlock();
+
+        for (AbstractCore core : this.cores) {
+            this.dataBus.setDataCache(core.getCoreNumber(), core.getDataCache());
+        }
+
+        for (AbstractCore core : this.cores) {
+            core.start();
+        }
+
+        return simulationBarrier;
+    }
+
+    /**
+     * Advances the clock until every core finishes, counting the clock cycles of the simulation.
+     *
+     * @param simulationBarrier the simulation clock.
+     * @param printCycles if the clock's cycle and the contexts running on each core are printed for each cycle.
+     */
+    private void awaitCores(SimulationClock simulationBarrier, boolean printCycles) {
+        while (simulationBarrier.getRegisteredParties() > 1) {
+            if (printCycles) {
+                System.out.println("Ciclo de reloj #" + this.simulationTicks);
+                this.printContexts();
+            }
+
+            // The controller only watches the cores, so the clock can skip the cycles in which every core is stalled.
+            int skippedTicks = simulationBarrier.arriveIdleAndAwaitAdvance();
+            this.simulationTicks += 1 + skippedTicks;
+            this.skippedTicks += skippedTicks;
+            simulationBarrier.arriveAndAwaitAdvance();
+        }
+    }
+
+    /**
+     * Adds up the statistics of the second level caches, counting a shared cache once.
+     *
+     * @return the hits, misses, replaced blocks, blocks written to memory and first level copies invalidated, in
+     * that order.
+     */
+    private int[] getSecondLevelStatistics() {
+        int[] statistics = new int[5];
+        for (int i = 0; i < this.secondLevelCaches.length; i++) {
+            SecondLevelCache secondLevelCache = this.secondLevelCaches[i];
+            if (secondLevelCache == null || (i > 0 && secondLevelCache == this.secondLevelCaches[0])) {
+                continue;
+            }
+            statistics[0] += secondLevelCache.getHits();
+            statistics[1] += secondLevelCache.getMisses();
+            statistics[2] += secondLevelCache.getEvictions();
+            statistics[3] += secondLevelCache.getWriteBacks();
+            statistics[4] += secondLevelCache.getBackInvalidations();
+        }
+        return statistics;
+    }
+
+    /**
+     * Adds up the statistics of the instruction prefetchers of every core.
+     *
+     * @return the useful, late and useless prefetches, in that order.
+     */
+    private int[] getInstructionPrefetchStatistics() {
+        int[] statistics = new int[3];
+        for (AbstractCore core : this.cores) {
+            InstructionPrefetcher instructionPrefetcher = core.getInstructionCache().getInstructionPrefetcher();
+            if (instructionPrefetcher == null) {
+                continue;
+            }
+            statistics[0] += instructionPrefetcher.getUsefulPrefetches();
+            statistics[1] += instructionPrefetcher.getLatePrefetches();
+            statistics[2] += instructionPrefetcher.getUselessPrefetches();
+        }
+        return statistics;
+    }
+
+    /**
+     * Prints the blocks brought by the data prefetcher of each core, and for each finished context the fraction of its
+     * data misses that found their block in a prefetch buffer and the fraction of the blocks prefetched for it that a
+     * miss used.
+     */
+    private void printDataPrefetchStatistics() {
+        for (AbstractCore core : this.cores) {
+            DataPrefetcher dataPrefetcher = core.getDataCache().getDataPrefetcher();
+            System.out.println("Nucleo #" + core.getCoreNumber() + ": prebusquedas de datos utiles = " +
+                    dataPrefetcher.getUsefulPrefetches() + ", tardias = " + dataPrefetcher.getLatePrefetches() +
+                    ", inutiles = " + dataPrefetcher.getUselessPrefetches());
+        }
+        for (Context context : this.finishedContexts) {
+            System.out.println("Contexto #" + context.getContextNumber() + ": fallos de datos = " +
+                    context.getDataMisses() + ", cubiertos por sus prebusquedas = " + context.getPrefetchedDataMisses() +
+                    String.format(" (cobertura %.2f%%)", 100 * context.getDataPrefetchCoverage()) +
+                    ", bloques prebuscados = " + context.getDataPrefetches() + ", usados = " +
+                    context.getUsefulDataPrefetches() +
+                    String.format(" (precision %.2f%%)", 100 * context.getDataPrefetchAccuracy()));
+        }
+    }
+
+    /**
+     * Prints the context running on each core.
+     */
+    private void printContexts() {
+        for (AbstractCore core : this.cores) {
+            core.printContext();
+        }
+        System.out.println();
+    }
+
+    /**
+     * Prints how many runs of instructions a core translated and the fraction of the simulation's clock cycles it
+     * spent executing them.
+     *
+     * @param core
+     */
+    private void printTranslationStatistics(AbstractCore core) {
+        double translatedFraction = this.simulationTicks == 0 ? 0 :
+                100.0 * core.getTranslatedClockCycles() / this.simulationTicks;
+        System.out.println("Nucleo #" + core.getCoreNumber() + ": bloques traducidos = " + core.getTranslatedBlocks() +
+                ", ciclos en codigo traducido = " + core.getTranslatedClockCycles() +
+                String.format(" (%.2f%%)", translatedFraction));
     }
 
     /**
@@ -229,6 +516,20 @@ public class SimulationController {
         this.finishedContexts.add(context);
     }
 
+    /**
+     * Gets the second level cache between the first level caches of a core and the memories.
+     *
+     * @param coreNumber the number of the core
+     * @return the second level cache, null if there is none
+     */
+    public SecondLevelCache getSecondLevelCache(int coreNumber) {
+        return this.secondLevelCaches[coreNumber];
+    }
+
+    public SimulationConfiguration getConfiguration() {
+        return configuration;
+    }
+
     public ContextQueue getContextQueue() {
         return contextQueue;
     }
@@ -0,0 +1,308 @@
+package cr.ac.ucr.ecci.ci1323.controller;
+
+/**
+ * The statistics of a finished simulation: its clock cycles, the clock cycles consumed by each context and the hits and
+ * misses and evictions of the caches of each core, the coherence traffic of the data bus, the accesses to the second
+ * level caches, the blocks brought by the instruction prefetchers, the coverage and accuracy of the data prefetchers
+ * for each context, the misses solved by the victim caches and the use of the write buffers.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+public class SimulationResult {
+
+    private final int totalClockCycles;
+    private final int skippedClockCycles;
+    private final int[] contextClockCycles;
+    private final int[] instructionHits;
+    private final int[] instructionMisses;
+    private final int[] dataHits;
+    private final int[] dataMisses;
+    private final int[] instructionEvictions;
+    private final int[] dataEvictions;
+    private final int busTransactions;
+    private final int coherenceMessages;
+    private final int invalidations;
+    private final int directoryLookups;
+    private final int secondLevelHits;
+    private final int secondLevelMisses;
+    private final int backInvalidations;
+    private final int usefulInstructionPrefetches;
+    private final int lateInstructionPrefetches;
+    private final int uselessInstructionPrefetches;
+    private final int[] contextDataMisses;
+    private final int[] contextPrefetchedDataMisses;
+    private final int[] contextDataPrefetches;
+    private final int[] contextUsefulDataPrefetches;
+    private final int[] victimCacheHits;
+    private final int[] writeBufferBlocks;
+    private final int[] writeBufferPeakOccupancies;
+    private final int[] fullWriteBufferStalls;
+
+    /**
+     * Class constructor
+     * @param totalClockCycles the clock cycles of the whole simulation
+     * @param skippedClockCycles the clock cycles skipped because every core was stalled
+     * @param contextClockCycles the clock cycles consumed by each context, indexed by context number
+     * @param instructionHits the instruction cache hits of each core, indexed by core number
+     * @param instructionMisses the instruction cache misses of each core, indexed by core number
+     * @param dataHits the data cache hits of each core, indexed by core number
+     * @param dataMisses the data cache misses of each core, indexed by core number
+     * @param instructionEvictions the instruction blocks replaced in the cache of each core, indexed by core number
+     * @param dataEvictions the valid data blocks replaced in the cache of each core, indexed by core number
+     * @param busTransactions the misses and stores to shared blocks that used the data bus
+     * @param coherenceMessages the messages the transactions sent to the caches of other cores
+     * @param invalidations the copies of blocks the transactions invalidated
+     * @param directoryLookups the times the transactions looked up the sharers of a block in the directory
+     * @param secondLevelHits the blocks the first level caches found in the second level caches
+     * @param secondLevelMisses the blocks the first level caches didn't find in the second level caches
+     * @param backInvalidations the copies of the first level caches invalidated because an inclusive second level cache
+     *                          replaced their block
+     * @param usefulInstructionPrefetches the prefetched instruction blocks the cores used after they were brought
+     * @param lateInstructionPrefetches the prefetched instruction blocks the cores needed while they were being brought
+     * @param uselessInstructionPrefetches the prefetched instruction blocks the cores never used
+     * @param contextDataMisses the data cache misses of each context, indexed by context number
+     * @param contextPrefetchedDataMisses the data cache misses covered by the blocks prefetched for each context,
+     *                                    indexed by context number
+     * @param contextDataPrefetches the data blocks prefetched for each context, indexed by context number
+     * @param contextUsefulDataPrefetches the data blocks prefetched for each context that a miss used, indexed by
+     *                                    context number
+     * @param victimCacheHits the data cache misses of each core that found their block in its victim cache, indexed by
+     *                        core number
+     * @param writeBufferBlocks the dirty blocks that went through the write buffer of each core, indexed by core number
+     * @param writeBufferPeakOccupancies the most blocks the write buffer of each core had at once, indexed by core
+     *                                   number
+     * @param fullWriteBufferStalls the dirty blocks each core wrote by itself because its write buffer was full,
+     *                              indexed by core number
+     */
+    SimulationResult(int totalClockCycles, int skippedClockCycles, int[] contextClockCycles, int[] instructionHits,
+                     int[] instructionMisses, int[] dataHits, int[] dataMisses, int[] instructionEvictions,
+                     int[] dataEvictions, int busTransactions, int coherenceMessages, int invalidations,
+                     int directoryLookups, int secondLevelHits, int secondLevelMisses, int backInvalidations,
+                     int usefulInstructionPrefetches, int lateInstructionPrefetches,
+                     int uselessInstructionPrefetches, int[] contextDataMisses,
+                     int[] contextPrefetchedDataMisses, int[] contextDataPrefetches,
+                     int[] contextUsefulDataPrefetches, int[] victimCacheHits, int[] writeBufferBlocks,
+                     int[] writeBufferPeakOccupancies, int[] fullWriteBufferStalls) {
+        this.totalClockCycles = totalClockCycles;
+        this.skippedClockCycles = skippedClockCycles;
+        this.contextClockCycles = contextClockCycles;
+        this.instructionHits = instructionHits;
+        this.instructionMisses = instructionMisses;
+        this.dataHits = dataHits;
+        this.dataMisses = dataMisses;
+        this.instructionEvictions = instructionEvictions;
+        this.dataEvictions = dataEvictions;
+        this.busTransactions = busTransactions;
+        this.coherenceMessages = coherenceMessages;
+        this.invalidations = invalidations;
+        this.directoryLookups = directoryLookups;
+        this.secondLevelHits = secondLevelHits;
+        this.secondLevelMisses = secondLevelMisses;
+        this.backInvalidations = backInvalidations;
+        this.usefulInstructionPrefetches = usefulInstructionPrefetches;
+        this.lateInstructionPrefetches = lateInstructionPrefetches;
+        this.uselessInstructionPrefetches = uselessInstructionPrefetches;
+        this.contextDataMisses = contextDataMisses;
+        this.contextPrefetchedDataMisses = contextPrefetchedDataMisses;
+        this.contextDataPrefetches = contextDataPrefetches;
+        this.contextUsefulDataPrefetches = contextUsefulDataPrefetches;
+        this.victimCacheHits = victimCacheHits;
+        this.writeBufferBlocks = writeBufferBlocks;
+        this.writeBufferPeakOccupancies = writeBufferPeakOccupancies;
+        this.fullWriteBufferStalls = fullWriteBufferStalls;
+    }
+
+    /**
+     * Calculates a hit rate.
+     * @param hits the hits
+     * @param misses the misses
+     * @return the fraction of the accesses that were hits, 0 if there weren't any accesses
+     */
+    private static double hitRate(int hits, int misses) {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+    /**
+     * Calculates a fraction of a total.
+     * @param part the part of the total
+     * @param total the total
+     * @return the fraction, 0 if the total is 0
+     */
+    private static double fraction(int part, int total) {
+        return total == 0 ? 0 : (double) part / total;
+    }
+
+    private static int sum(int[] values) {
+        int sum = 0;
+        for (int value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    public int getTotalClockCycles() {
+        return totalClockCycles;
+    }
+
+    public int getSkippedClockCycles() {
+        return skippedClockCycles;
+    }
+
+    public int getContexts() {
+        return contextClockCycles.length;
+    }
+
+    public int getContextClockCycles(int contextNumber) {
+        return contextClockCycles[contextNumber];
+    }
+
+    public int getCores() {
+        return instructionHits.length;
+    }
+
+    public double getInstructionHitRate(int coreNumber) {
+        return hitRate(this.instructionHits[coreNumber], this.instructionMisses[coreNumber]);
+    }
+
+    public double getDataHitRate(int coreNumber) {
+        return hitRate(this.dataHits[coreNumber], this.dataMisses[coreNumber]);
+    }
+
+    public int getInstructionEvictions(int coreNumber) {
+        return instructionEvictions[coreNumber];
+    }
+
+    public int getDataEvictions(int coreNumber) {
+        return dataEvictions[coreNumber];
+    }
+
+    public int getBusTransactions() {
+        return busTransactions;
+    }
+
+    public int getCoherenceMessages() {
+        return coherenceMessages;
+    }
+
+    public int getInvalidations() {
+        return invalidations;
+    }
+
+    public int getDirectoryLookups() {
+        return directoryLookups;
+    }
+
+    public int getBackInvalidations() {
+        return backInvalidations;
+    }
+
+    public int getUsefulInstructionPrefetches() {
+        return usefulInstructionPrefetches;
+    }
+
+    public int getLateInstructionPrefetches() {
+        return lateInstructionPrefetches;
+    }
+
+    public int getUselessInstructionPrefetches() {
+        return uselessInstructionPrefetches;
+    }
+
+    /**
+     * @param contextNumber the number of a context
+     * @return the data misses covered by blocks prefetched for the context, as a fraction of the data misses of the
+     * context.
+     */
+    public double getDataPrefetchCoverage(int contextNumber) {
+        return fraction(this.contextPrefetchedDataMisses[contextNumber], this.contextDataMisses[contextNumber]);
+    }
+
+    /**
+     * @param contextNumber the number of a context
+     * @return the fraction of the data blocks prefetched for the context that a miss used.
+     */
+    public double getDataPrefetchAccuracy(int contextNumber) {
+        return fraction(this.contextUsefulDataPrefetches[contextNumber], this.contextDataPrefetches[contextNumber]);
+    }
+
+    /**
+     * @return the fraction of the data misses of every context that found their block in a prefetch buffer.
+     */
+    public double getDataPrefetchCoverage() {
+        return fraction(sum(this.contextPrefetchedDataMisses), sum(this.contextDataMisses));
+    }
+
+    /**
+     * @return the fraction of the data blocks prefetched for every context that a miss used.
+     */
+    public double getDataPrefetchAccuracy() {
+        return fraction(sum(this.contextUsefulDataPrefetches), sum(this.contextDataPrefetches));
+    }
+
+    /**
+     * @return the data cache misses of every core that found their block in its victim cache.
+     */
+    public int getVictimCacheHits() {
+        return sum(this.victimCacheHits);
+    }
+
+    /**
+     * @return the dirty blocks that went through the write buffers of every core.
+     */
+    public int getWriteBufferBlocks() {
+        return sum(this.writeBufferBlocks);
+    }
+
+    /**
+     * @return the most blocks the write buffer of any core had at once.
+     */
+    public int getWriteBufferPeakOccupancy() {
+        int peakOccupancy = 0;
+        for (int occupancy : this.writeBufferPeakOccupancies) {
+            peakOccupancy = Math.max(peakOccupancy, occupancy);
+        }
+        return peakOccupancy;
+    }
+
+    /**
+     * @return the dirty blocks the cores wrote by themselves because their write buffers were full.
+     */
+    public int getFullWriteBufferStalls() {
+        return sum(this.fullWriteBufferStalls);
+    }
+
+    /**
+     * @return the hit rate of the second level caches, 0 if there are none.
+     */
+    public double getSecondLevelHitRate() {
+        return hitRate(this.secondLevelHits, this.secondLevelMisses);
+    }
+
+    /**
+     * @return the messages sent to the caches of other cores per data bus transaction, 0 if there weren't any.
+     */
+    public double getMessagesPerTransaction() {
+        return this.busTransactions == 0 ? 0 : (double) this.coherenceMessages / this.busTransactions;
+    }
+
+    /**
+     * @return the hit rate of the instruction caches of every core together.
+     */
+    public double getInstructionHitRate() {
+        return hitRate(sum(this.instructionHits), sum(this.instructionMisses));
+    }
+
+    /**
+     * @return the hit rate of the data caches of every core together.
+     */
+    public double getDataHitRate() {
+        return hitRate(sum(this.dataHits), sum(this.dataMisses));
+    }
+
+    /**
+     * @return the misses of the instruction and data caches of every core together.
+     */
+    public int getMisses() {
+        return sum(this.instructionMisses) + sum(this.dataMisses);
+    }
+}
@@ -7,11 +7,13 @@ import cr.ac.ucr.ecci.ci1323.memory.Instruction;
 import cr.ac.ucr.ecci.ci1323.memory.InstructionBlock;
 import cr.ac.ucr.ecci.ci1323.memory.InstructionBus;
 import cr.ac.ucr.ecci.ci1323.exceptions.InvalidInstructionException;
+import cr.ac.ucr.ecci.ci1323.exceptions.NoContextFilesException;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -35,17 +37,42 @@ public class FileParser {
      * @param instructionBus
      */
     public FileParser(ContextQueue contextQueue, InstructionBus instructionBus) {
+        this(contextQueue, instructionBus, null);
+    }
+
+    /**
+     * Constructor which checks how many contexts there are in the given directory, or bundled with the simulator if
+     * there is no directory, to add them to the files list and then parse each one of them later.
+     * @param contextQueue
+     * @param instructionBus
+     * @param programsDirectory the directory with the context files 0.txt, 1.txt, ..., or null for the bundled ones
+     */
+    public FileParser(ContextQueue contextQueue, InstructionBus instructionBus, String programsDirectory) {
         this.contextQueue = contextQueue;
         this.instructionBus = instructionBus;
         boolean fileExists = true;
         this.files = new ArrayList<>();
         for (int i = 0; fileExists; i++) {
-            ClassLoader classLoader = getClass().getClassLoader();
-            fileExists = (classLoader.getResource(i + ".txt") != null);
-
-            if (fileExists) {
-                InputStream file = classLoader.getResourceAsStream(i + ".txt");
-                this.files.add(file);
+            if (programsDirectory == null) {
+                ClassLoader classLoader = getClass().getClassLoader();
+                fileExists = (classLoader.getResource(i + ".txt") != null);
+
+                if (fileExists) {
+                    InputStream file = classLoader.getResourceAsStream(i + ".txt");
+                    this.files.add(file);
+                }
+
+            } else {
+                File file = new File(programsDirectory, i + ".txt");
+                fileExists = file.isFile();
+
+                if (fileExists) {
+                    try {
+                        this.files.add(new FileInputStream(file));
+                    } catch (FileNotFoundException e) {
+                        throw new NoContextFilesException("Unable to open the context file " + file.getPath(), e);
+                    }
+                }
             }
         }
     }
@@ -86,14 +113,14 @@ public class FileParser {
     /**
      * For each context file, it reads its lines of instructions and creates a new context with its respective
      * initial program counter based on where the last instruction of the previous context finished, or from the
-     * memory direction in which instructions start (384) for the first one. It then pushes each context to the
+     * memory direction in which instructions start, right after the data memory, for the first one. It then pushes each context to the
      * context queue.
      * @return all the lines of instructions from all contexts
      */
     private List<String> readFiles() {
         List<String> lines = new LinkedList<>();
 
-        int programCounterIndex = SimulationConstants.INSTRUCTIONS_START;
+        int programCounterIndex = this.instructionBus.getInstructionsStart();
         int contextNumber = 0;
         for (InputStream file: files) {
             Context context = new Context(programCounterIndex, contextNumber);
@@ -112,6 +139,7 @@ public class FileParser {
      * @param file
      * @return the instructions of a context file
      */
+    @SuppressWarnings("unchecked") // The IOUtils of commons-io 1.3.2 return raw lists
     private List<String> getLinesFromFile(InputStream file) {
         List<String> fileLines = new LinkedList<>();
 
@@ -119,6 +147,8 @@ public class FileParser {
             fileLines = IOUtils.readLines(file);
         } catch (IOException e) {
             e.printStackTrace();
+        } finally {
+            IOUtils.closeQuietly(file);
         }
 
         return fileLines;
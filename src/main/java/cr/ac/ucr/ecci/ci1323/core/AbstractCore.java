@@ -1,17 +1,17 @@
 package cr.ac.ucr.ecci.ci1323.core;
 
 import cr.ac.ucr.ecci.ci1323.cache.*;
+import cr.ac.ucr.ecci.ci1323.clock.SimulationClock;
+import cr.ac.ucr.ecci.ci1323.commons.SimulationConfiguration;
 import cr.ac.ucr.ecci.ci1323.commons.SimulationConstants;
 import cr.ac.ucr.ecci.ci1323.context.Context;
 import cr.ac.ucr.ecci.ci1323.context.ContextQueue;
 import cr.ac.ucr.ecci.ci1323.controller.SimulationController;
-import cr.ac.ucr.ecci.ci1323.exceptions.ContextChangeException;
 import cr.ac.ucr.ecci.ci1323.memory.DataBus;
 import cr.ac.ucr.ecci.ci1323.memory.Instruction;
 import cr.ac.ucr.ecci.ci1323.memory.InstructionBlock;
 import cr.ac.ucr.ecci.ci1323.memory.InstructionBus;
-
-import java.util.concurrent.Phaser;
+import cr.ac.ucr.ecci.ci1323.memory.Operation;
 
 /**
  * Abstract core which contains the shared properties of both cores and inherits them the methods for
@@ -25,6 +25,35 @@ public abstract class AbstractCore extends AbstractThread {
 
     protected volatile InstructionCache instructionCache;
 
+    /**
+     * The prefetcher of the instruction cache, null if the core doesn't prefetch instructions.
+     */
+    private final InstructionPrefetcher instructionPrefetcher;
+
+    /**
+     * The prefetcher of the data cache, null if the core doesn't prefetch data.
+     */
+    private final DataPrefetcher dataPrefetcher;
+
+    /**
+     * The buffer that writes back the dirty blocks of the data cache, null if the core writes them by itself.
+     */
+    private final WriteBuffer writeBuffer;
+
+    /**
+     * The transitions of the coherence protocol of the data bus.
+     */
+    protected final CoherenceStateMachine coherenceStateMachine;
+
+    /**
+     * The cores, caches, positions and states of the copies a data bus transaction of the core has locked. Only the
+     * thread that holds the data bus uses them, so the core and its miss handler share them.
+     */
+    private final int[] sharerCores;
+    private final DataCache[] sharerCaches;
+    private final int[] sharerPositions;
+    private final CachePositionState[] sharerStates;
+
     protected volatile SimulationController simulationController;
 
     protected volatile int maxQuantum;
@@ -40,7 +69,23 @@ public abstract class AbstractCore extends AbstractThread {
     protected volatile boolean instructionFinished;
 
     /**
-     * Registers the core to the Phaser barrier, and sets the provided references. It also initializes the
+     * Indicates that the change context method brought another context to execution, so the core must stop what it
+     * was doing for the previous context and go back to the start of its loop.
+     */
+    protected volatile boolean contextChanged;
+
+    /**
+     * Translates the hot runs of register only instructions, null if translation is disabled.
+     */
+    private final BlockTranslator blockTranslator;
+
+    /**
+     * The clock cycles spent executing translated runs instead of interpreting them.
+     */
+    private volatile int translatedClockCycles;
+
+    /**
+     * Registers the core to the simulation clock, and sets the provided references. It also initializes the
      * instruction and data caches for the core.
      * @param simulationBarrier
      * @param maxQuantum
@@ -51,35 +96,84 @@ public abstract class AbstractCore extends AbstractThread {
      * @param dataBus
      * @param coreNumber
      */
-    protected AbstractCore(Phaser simulationBarrier, int maxQuantum, Context startingContext,
+    protected AbstractCore(SimulationClock simulationBarrier, int maxQuantum, Context startingContext,
                            SimulationController simulationController, int totalCachePositions,
                            InstructionBus instructionBus, DataBus dataBus, int coreNumber) {
 
-        super(simulationBarrier, startingContext);
+        super(simulationBarrier, startingContext, simulationController.getConfiguration().getThreadBackend());
 
-        this.simulationBarrier.register();
+        this.simulationBarrier.register(this.thread);
         this.maxQuantum = maxQuantum;
         this.simulationController = simulationController;
 
-        this.instructionCache = new InstructionCache(instructionBus, totalCachePositions);
-        this.dataCache = new DataCache(dataBus, totalCachePositions);
+        SimulationConfiguration configuration = simulationController.getConfiguration();
+        this.instructionCache = new InstructionCache(instructionBus, totalCachePositions,
+                configuration.getCacheWays(coreNumber), configuration.getReplacementPolicy(coreNumber));
+        this.dataCache = new DataCache(dataBus, totalCachePositions, configuration.getDataCacheLayout(),
+                configuration.getCacheWays(coreNumber), configuration.getReplacementPolicy(coreNumber),
+                configuration.getVictimCachePositions(), configuration.getWriteBufferPositions());
+        this.coherenceStateMachine = dataBus.getCoherenceStateMachine();
+
+        SecondLevelCache secondLevelCache = simulationController.getSecondLevelCache(coreNumber);
+        if (secondLevelCache != null) {
+            this.instructionCache.setSecondLevelCache(secondLevelCache);
+            this.dataCache.setSecondLevelCache(secondLevelCache);
+            secondLevelCache.addUpperCaches(coreNumber, this.instructionCache, this.dataCache);
+        }
+        if (configuration.getInstructionPrefetchPolicy() == PrefetchPolicy.NONE) {
+            this.instructionPrefetcher = null;
+        } else {
+            this.instructionPrefetcher = new InstructionPrefetcher(this.instructionCache, instructionBus,
+                    configuration.getInstructionPrefetchPolicy(), configuration.getInstructionPrefetchDegree(),
+                    simulationBarrier, configuration.getThreadBackend());
+            this.instructionCache.setInstructionPrefetcher(this.instructionPrefetcher);
+        }
+        if (configuration.getDataPrefetchPolicy() == PrefetchPolicy.NONE) {
+            this.dataPrefetcher = null;
+        } else {
+            this.dataPrefetcher = new DataPrefetcher(this.dataCache, configuration.getDataPrefetchPolicy(),
+                    configuration.getDataPrefetchDegree(), simulationBarrier, configuration.getThreadBackend());
+            this.dataCache.setDataPrefetcher(this.dataPrefetcher);
+        }
+        if (configuration.getWriteBufferPositions() > 0) {
+            this.writeBuffer = new WriteBuffer(this.dataCache, coreNumber, configuration.getWriteBufferPositions(),
+                    simulationBarrier, configuration.getThreadBackend());
+            this.dataCache.setWriteBuffer(this.writeBuffer);
+        } else {
+            this.writeBuffer = null;
+        }
+        this.sharerCores = new int[dataBus.getCores()];
+        this.sharerCaches = new DataCache[dataBus.getCores()];
+        this.sharerPositions = new int[dataBus.getCores()];
+        this.sharerStates = new CachePositionState[dataBus.getCores()];
 
-        this.executionFinished = false;
+        this.executionFinished = startingContext == null; // A core without a context has nothing to execute.
         this.coreNumber = coreNumber;
 
         this.changeContext = ContextChange.NONE;
         this.nextContext = null;
 
         this.instructionFinished = true;
+        this.contextChanged = false;
+
+        this.blockTranslator = simulationController.getConfiguration().isTranslationEnabled() ?
+                new BlockTranslator() : null;
+        this.translatedClockCycles = 0;
     }
 
-    protected abstract boolean handleLoadMiss(int blockNumber, DataCachePosition dataCachePosition, int positionOffset, int dataCachePositionNumber, int finalRegister);
+    protected abstract boolean handleLoadMiss(int blockNumber, int positionOffset, int dataCachePositionNumber, int finalRegister);
 
-    protected abstract boolean handleStoreHit(int blockNumber, DataCachePosition dataCachePosition, int dataCachePositionNumber, int positionOffset, int value);
+    protected abstract boolean handleStoreHit(int blockNumber, int dataCachePositionNumber, int positionOffset, int value);
 
-    protected abstract boolean handleStoreMiss(int blockNumber, DataCachePosition dataCachePosition, int positionOffset, int value);
+    protected abstract boolean handleStoreMiss(int blockNumber, int positionOffset, int dataCachePositionNumber, int value);
 
-    protected abstract void lockDataCachePosition(int dataCachePositionNumber);
+    /**
+     * Locks a data cache position, advancing clock cycles while it can't be locked.
+     *
+     * @param dataCachePositionNumber the number of the data cache position to lock.
+     * @return true if locked, false if the context changed while waiting.
+     */
+    protected abstract boolean lockDataCachePosition(int dataCachePositionNumber);
 
     protected abstract void changeContext();
 
@@ -94,38 +188,47 @@ public abstract class AbstractCore extends AbstractThread {
      * the instruction block, it gets the one to execute according to the offset and then increments the PC and
      * executes the instruction. When the instruction is executed, it increments the context's quantum and finally it
      * checks if its quantum expired to call the respective method if needed. After executed, it advances the
-     * clock cycle.
+     * clock cycle. If the context changes at any point, it goes back to the start of the loop with the new context.
      */
     protected void executeCore() {
 
+        if (this.instructionPrefetcher != null) {
+            this.instructionPrefetcher.start();
+        }
+        if (this.dataPrefetcher != null) {
+            this.dataPrefetcher.start();
+        }
+        if (this.writeBuffer != null) {
+            this.writeBuffer.start();
+        }
+        this.simulationBarrier.awaitTurn();
+
         while (!this.executionFinished) {
 
             int nextInstructionBlockNumber = this.calculateInstructionBlockNumber();
-            int nextInstructionCachePosition = this.calculateCachePosition(nextInstructionBlockNumber, this.coreNumber);
+            int nextInstructionCachePosition = this.instructionCache.findPosition(nextInstructionBlockNumber);
             int nextInstructionCachePositionOffset = this.calculateInstructionOffset();
 
-            try {
-                InstructionBlock instructionBlock = this.getInstructionBlockFromCache(nextInstructionBlockNumber,
-                        nextInstructionCachePosition);
-
-                Instruction instructionToExecute = instructionBlock.getInstruction(nextInstructionCachePositionOffset);
-                this.lastInstruction = instructionToExecute;
-                this.currentContext.incrementPC();
-                this.setInstructionFinished(false);
-                this.executeInstruction(instructionToExecute);
-                this.setInstructionFinished(true);
+            this.instructionCache.countAccess(this.instructionCache.getInstructionCachePosition(
+                    nextInstructionCachePosition).getTag() == nextInstructionBlockNumber);
 
-                this.currentContext.incrementQuantum();
+            InstructionBlock instructionBlock = this.getInstructionBlockFromCache(nextInstructionBlockNumber,
+                    nextInstructionCachePosition);
 
-                if (instructionToExecute.getOperationCode() != 63 &&
-                        this.currentContext.getCurrentQuantum() >= this.maxQuantum) {
-                    this.quantumExpired();
+            if (instructionBlock != null) { // If it is null, the context changed while getting the block.
+                this.instructionCache.access(this.instructionCache.findPosition(nextInstructionBlockNumber));
+                TranslatedBlock translatedBlock = this.getTranslatedBlock(instructionBlock,
+                        nextInstructionCachePositionOffset);
+                if (translatedBlock != null) {
+                    this.executeTranslatedBlock(translatedBlock);
+                } else {
+                    this.executeNextInstruction(instructionBlock.getInstruction(nextInstructionCachePositionOffset));
                 }
+            }
 
-                this.advanceClockCycle();
-
-            } catch (ContextChangeException e) {
+            if (this.contextChanged) {
                 // If the context changed then check if the quantum passed for the new context
+                this.setContextChanged(false);
                 if (this.currentContext.getCurrentQuantum() >= this.maxQuantum)
                     this.quantumExpired();
             }
@@ -133,55 +236,131 @@ public abstract class AbstractCore extends AbstractThread {
         }
 
         this.simulationBarrier.arriveAndDeregister();
+        if (this.instructionPrefetcher != null) {
+            this.instructionPrefetcher.shutdown();
+        }
+        if (this.dataPrefetcher != null) {
+            this.dataPrefetcher.shutdown();
+        }
+        if (this.writeBuffer != null) {
+            this.writeBuffer.shutdown();
+        }
 
     }
 
     /**
-     * Executes the instruction received, depending on the operation code. If no operation code is matched, it
-     * throws an exception.
+     * Executes the next instruction of the current context. If the context changes while the instruction executes, it
+     * returns right away: the instruction is finished by the miss handler or repeated when the context comes back.
+     *
+     * @param instructionToExecute the instruction to execute.
+     */
+    private void executeNextInstruction(Instruction instructionToExecute) {
+        this.lastInstruction = instructionToExecute;
+        this.currentContext.incrementPC();
+        this.setInstructionFinished(false);
+        this.executeInstruction(instructionToExecute);
+        if (this.contextChanged) {
+            return;
+        }
+        this.setInstructionFinished(true);
+
+        this.currentContext.incrementQuantum();
+
+        if (instructionToExecute.getOperation() != Operation.FIN &&
+                this.currentContext.getCurrentQuantum() >= this.maxQuantum) {
+            this.quantumExpired();
+        }
+
+        this.advanceClockCycle();
+    }
+
+    /**
+     * Gets the translated run that starts in the next instruction, if it can be executed at once. That requires that
+     * the core can skip clock cycles and that the quantum doesn't expire in the middle of the run, so that executing
+     * it gives the same results and clock cycles as interpreting its instructions one by one.
+     *
+     * @param instructionBlock the block of the next instruction.
+     * @param offset the offset of the next instruction in the block.
+     * @return the translated run, or null if the next instruction must be interpreted.
+     */
+    private TranslatedBlock getTranslatedBlock(InstructionBlock instructionBlock, int offset) {
+        if (this.blockTranslator == null || !this.canSkipClockCycles()) {
+            return null;
+        }
+
+        TranslatedBlock translatedBlock = this.blockTranslator.getTranslatedBlock(instructionBlock, offset);
+        if (translatedBlock == null ||
+                this.currentContext.getCurrentQuantum() + translatedBlock.getLength() >= this.maxQuantum) {
+            return null;
+        }
+        return translatedBlock;
+    }
+
+    /**
+     * Executes a translated run, and then advances one clock cycle per instruction of the run. The core is busy in
+     * every one of them, so the clock can't skip them as idle, like it wouldn't if the instructions were interpreted.
+     *
+     * @param translatedBlock the run to execute.
+     */
+    private void executeTranslatedBlock(TranslatedBlock translatedBlock) {
+        int length = translatedBlock.getLength();
+
+        this.lastInstruction = translatedBlock.getLastInstruction();
+        this.currentContext.incrementPC(translatedBlock.execute(this.getRegisters()));
+        this.currentContext.setCurrentQuantum(this.currentContext.getCurrentQuantum() + length);
+        this.translatedClockCycles += length;
+        this.instructionCache.countHits(length - 1); // The rest of the run was fetched with its first instruction.
+
+        this.simulationBarrier.arriveBusyAndAwaitAdvance(2 * length - 1);
+        this.currentContext.incrementClockCycles(length);
+        this.changeContext();
+    }
+
+    /**
+     * Executes the instruction received with a switch on its operation, which was decoded when the instruction was
+     * parsed.
      * @param instruction
      */
     protected void executeInstruction(Instruction instruction) {
-        int operationCode = instruction.getOperationCode();
-        switch (operationCode) {
-            case 2:
+        switch (instruction.getOperation()) {
+            case JR:
                 this.executeJR(instruction);
                 break;
-            case 3:
+            case JAL:
                 this.executeJAL(instruction);
                 break;
-            case 4:
+            case BEQZ:
                 this.executeBEQZ(instruction);
                 break;
-            case 5:
+            case BNEZ:
                 this.executeBNEZ(instruction);
                 break;
-            case 8:
+            case DADDI:
                 this.executeDADDI(instruction);
                 break;
-            case 12:
+            case DMUL:
                 this.executeDMUL(instruction);
                 break;
-            case 14:
+            case DDIV:
                 this.executeDDIV(instruction);
                 break;
-            case 32:
+            case DADD:
                 this.executeDADD(instruction);
                 break;
-            case 34:
+            case DSUB:
                 this.executeDSUB(instruction);
                 break;
-            case 35:
+            case LW:
                 this.executeLW(instruction);
                 break;
-            case 43:
+            case SW:
                 this.executeSW(instruction);
                 break;
-            case 63:
+            case FIN:
                 this.executeFIN();
                 break;
             default:
-                throw new IllegalArgumentException("Invalid instruction operation code");
+                throw new IllegalArgumentException("Invalid instruction operation: " + instruction.getOperation());
         }
     }
 
@@ -197,6 +376,50 @@ public abstract class AbstractCore extends AbstractThread {
         this.changeContext();
     }
 
+    /**
+     * Advances a clock cycle in which the core only waited for another party, charging the context for the clock cycles
+     * skipped by the clock, and then calls the change context method like a regular clock cycle.
+     */
+    @Override
+    public void advanceIdleClockCycle() {
+        int skippedClockCycles = this.simulationBarrier.arriveIdleAndAwaitAdvance();
+        this.currentContext.incrementClockCycles(1 + skippedClockCycles);
+        this.changeContext();
+    }
+
+    /**
+     * Advances several clock cycles at once, ending with the change context method like a single clock cycle. If a
+     * context change could be requested by someone else in the cycles in between, they are advanced one by one.
+     *
+     * @param clockCycles the number of clock cycles to advance.
+     */
+    @Override
+    public void advanceClockCycles(int clockCycles) {
+        if (clockCycles <= 0) {
+            return;
+        }
+
+        if (!this.canSkipClockCycles()) {
+            for (int i = 0; i < clockCycles && !this.contextChanged; i++) {
+                this.advanceClockCycle();
+            }
+            return;
+        }
+
+        this.simulationBarrier.arriveAndAwaitAdvance(2 * clockCycles - 1);
+        this.currentContext.incrementClockCycles(clockCycles);
+        this.changeContext();
+    }
+
+    /**
+     * Indicates if the core can sleep through several clock cycles, which is true when no context change is pending.
+     *
+     * @return true if the clock cycles can be skipped, false if not.
+     */
+    protected boolean canSkipClockCycles() {
+        return this.changeContext == ContextChange.NONE;
+    }
+
     /**
      * Executes a FIN instruction, by first calling the modifiable FIN, which is different for core zero. It then
      * sets the finishing core of the context, for statistical purposes, and adds it to the finished contexts list,
@@ -219,7 +442,7 @@ public abstract class AbstractCore extends AbstractThread {
 
         // Tries to lock the context queue
         while (!contextQueue.tryLock()) {
-            this.advanceBarriers();
+            this.advanceIdleBarriers();
         }
 
         this.setNextContext(contextQueue.getNextContext());
@@ -244,7 +467,7 @@ public abstract class AbstractCore extends AbstractThread {
 
         // Tries to lock the context queue
         while (!contextQueue.tryLock()) {
-            this.advanceBarriers();
+            this.advanceIdleBarriers();
         }
 
         this.setNextContext(contextQueue.getNextContext());
@@ -263,7 +486,7 @@ public abstract class AbstractCore extends AbstractThread {
 
     /**
      * Executes a LOAD instruction by first calculating the block number, offset and position and then mapping them
-     * to the respective DataCachePosition object. It then loops while the miss is not solved, locking the data
+     * to the respective data cache position. It then loops while the miss is not solved, locking the data
      * cache position and then checking its tag and state. If its a different tag or the state is invalid, it handles
      * the miss, if not, it is a hit and it loads the data from the respective position and offset in the cache.
      * @param instruction
@@ -272,27 +495,48 @@ public abstract class AbstractCore extends AbstractThread {
 
         int blockNumber = this.calculateDataBlockNumber(instruction);
         int dataCachePositionOffset = this.calculateDataOffset(instruction);
-        int dataCachePositionNumber = this.calculateCachePosition(blockNumber, this.coreNumber);
-        DataCachePosition dataCachePosition = this.dataCache.getDataCachePosition(dataCachePositionNumber);
+        int dataCachePositionNumber = -1;
 
         boolean solvedMiss = false;
+        boolean accessCounted = false;
         while (!solvedMiss) {
-            this.lockDataCachePosition(dataCachePositionNumber);
+            dataCachePositionNumber = this.lockDataBlockPosition(blockNumber);
+            if (dataCachePositionNumber == -1) {
+                return; // The context changed while waiting for the position.
+            }
+            boolean hit = this.dataCache.getTag(dataCachePositionNumber) == blockNumber &&
+                    this.dataCache.getState(dataCachePositionNumber) != CachePositionState.INVALID;
+            if (!accessCounted) { // Only the first lookup counts, the rest are retries of the same access.
+                this.countDataAccess(blockNumber, hit);
+                accessCounted = true;
+            }
+            if (!hit && this.takeFromVictimCache(blockNumber, dataCachePositionNumber)) {
+                if (this.contextChanged) {
+                    this.dataCache.unlock(dataCachePositionNumber);
+                    return; // The instruction is repeated when the context comes back, and it finds the block.
+                }
+                hit = true;
+            }
 
-            if (dataCachePosition.getTag() != blockNumber || dataCachePosition.getState() == CachePositionState.INVALID) {
-                solvedMiss = this.handleLoadMiss(blockNumber, dataCachePosition, dataCachePositionOffset, dataCachePositionNumber, instruction.getField(2));
+            if (!hit) {
+                solvedMiss = this.handleLoadMiss(blockNumber, dataCachePositionOffset, dataCachePositionNumber, instruction.getSecondField());
+                if (this.contextChanged) {
+                    return; // The context went to the miss handler.
+                }
 
             } else { // Hit
-                this.currentContext.getRegisters()[instruction.getField(2)] = dataCachePosition.getDataBlock().getWord(dataCachePositionOffset);
-                dataCachePosition.unlock();
+                this.currentContext.getRegisters()[instruction.getSecondField()] = this.dataCache.getWord(dataCachePositionNumber, dataCachePositionOffset);
+                this.dataCache.unlock(dataCachePositionNumber);
                 solvedMiss = true;
             }
         }
+
+        this.dataCache.access(dataCachePositionNumber);
     }
 
     /**
      * Executes a STORE instruction by first calculating the block number, offset and position and then mapping them
-     * to the respective DataCachePosition object. It then loops while the miss is not solved, locking the data
+     * to the respective data cache position. It then loops while the miss is not solved, locking the data
      * cache position and then checking its tag and state. If its a different tag or the state is invalid, it handles
      * the miss, if not, it is a hit and it handles a store hit.
      * @param instruction
@@ -300,29 +544,124 @@ public abstract class AbstractCore extends AbstractThread {
     protected void executeSW(Instruction instruction) {
         int blockNumber = this.calculateDataBlockNumber(instruction);
         int dataCachePositionOffset = this.calculateDataOffset(instruction);
-        int dataCachePositionNumber = this.calculateCachePosition(blockNumber, this.coreNumber);
-        DataCachePosition dataCachePosition = this.dataCache.getDataCachePosition(dataCachePositionNumber);
-        int value = this.currentContext.getRegisters()[instruction.getField(2)];
+        int dataCachePositionNumber = -1;
+        int value = this.currentContext.getRegisters()[instruction.getSecondField()];
 
         boolean solvedMiss = false;
+        boolean accessCounted = false;
         while (!solvedMiss) {
-            this.lockDataCachePosition(dataCachePositionNumber);
+            dataCachePositionNumber = this.lockDataBlockPosition(blockNumber);
+            if (dataCachePositionNumber == -1) {
+                return; // The context changed while waiting for the position.
+            }
+            boolean hit = this.dataCache.getTag(dataCachePositionNumber) == blockNumber &&
+                    this.dataCache.getState(dataCachePositionNumber) != CachePositionState.INVALID;
+            if (!accessCounted) { // Only the first lookup counts, the rest are retries of the same access.
+                this.countDataAccess(blockNumber, hit);
+                accessCounted = true;
+            }
+            if (!hit && this.takeFromVictimCache(blockNumber, dataCachePositionNumber)) {
+                if (this.contextChanged) {
+                    this.dataCache.unlock(dataCachePositionNumber);
+                    return; // The instruction is repeated when the context comes back, and it finds the block.
+                }
+                hit = true; // The store hit takes the data bus again if the block can't be written yet.
+            }
 
-            if (dataCachePosition.getTag() != blockNumber || dataCachePosition.getState() == CachePositionState.INVALID) {
-                solvedMiss = this.handleStoreMiss(blockNumber, dataCachePosition, dataCachePositionOffset, value);
+            if (!hit) {
+                solvedMiss = this.handleStoreMiss(blockNumber, dataCachePositionOffset, dataCachePositionNumber, value);
             } else { // Hit
-                solvedMiss = this.handleStoreHit(blockNumber, dataCachePosition, dataCachePositionNumber, dataCachePositionOffset, value);
+                solvedMiss = this.handleStoreHit(blockNumber, dataCachePositionNumber, dataCachePositionOffset, value);
+            }
+
+            if (this.contextChanged) {
+                return; // The context went to the miss handler.
+            }
+        }
+
+        this.dataCache.access(dataCachePositionNumber);
+    }
+
+    /**
+     * Counts a load or store of the current context and trains the data prefetcher with it. After a hit the prefetcher
+     * brings the blocks it requested right away, and after a miss once the transaction of the miss brought the block,
+     * so it doesn't take the data bus before the miss.
+     *
+     * @param blockNumber the number of the block accessed.
+     * @param hit true if the block was in the data cache.
+     */
+    private void countDataAccess(int blockNumber, boolean hit) {
+        this.dataCache.countAccess(hit);
+        if (!hit) {
+            this.currentContext.incrementDataMisses();
+        }
+
+        if (this.dataPrefetcher != null) {
+            this.dataPrefetcher.train(this.getPC(), blockNumber, hit, this.currentContext);
+            if (hit) {
+                this.dataPrefetcher.prefetch();
             }
         }
     }
 
+    /**
+     * Brings a missed block from the victim cache without going through the miss handling of the core, if the victim
+     * cache has it and the data bus is free, so the miss costs the clock cycles of a hit in the victim cache. The caller
+     * holds the position, which keeps it.
+     *
+     * @param blockNumber the number of the block.
+     * @param dataCachePositionNumber the number of the data cache position of the block.
+     * @return true if the position got the block, false if the miss must be handled.
+     */
+    private boolean takeFromVictimCache(int blockNumber, int dataCachePositionNumber) {
+        VictimCache victimCache = this.dataCache.getVictimCache();
+        if (victimCache == null || victimCache.findBlock(blockNumber) == -1) {
+            return false;
+        }
+
+        DataBus dataBus = this.dataCache.getDataBus();
+        if (!dataBus.tryLock()) {
+            return false;
+        }
+        this.advanceClockCycle();
+
+        boolean swapped = this.dataCache.swapWithVictimCache(blockNumber, dataCachePositionNumber, this);
+        dataBus.unlock();
+        if (swapped) {
+            this.prefetchDataBlocks();
+        }
+        return swapped;
+    }
+
+    /**
+     * Finds and locks the data cache position of a block. The block may be brought to another way of its set while the
+     * core waits for the lock, so the position is looked up again until the locked one is still the position of the
+     * block.
+     *
+     * @param blockNumber the number of the block.
+     * @return the number of the locked position, or -1 if the context changed while waiting.
+     */
+    private int lockDataBlockPosition(int blockNumber) {
+        while (true) {
+            int dataCachePositionNumber = this.dataCache.findPosition(blockNumber);
+            if (!this.lockDataCachePosition(dataCachePositionNumber)) {
+                return -1;
+            }
+
+            if (this.dataCache.findPosition(blockNumber) == dataCachePositionNumber) {
+                return dataCachePositionNumber;
+            }
+            this.dataCache.unlock(dataCachePositionNumber);
+        }
+    }
+
     /**
      * Executes a DADDI instruction.
      * @param instruction
      */
     protected void executeDADDI(Instruction instruction) {
-        this.getRegisters()[instruction.getField(2)] = this.getRegisters()[instruction.getField(1)]
-                + instruction.getField(3);
+        this.getRegisters()[instruction.getSecondField()] = this.getRegisters()[instruction.getFirstField()]
+                + instruction.getThirdField();
     }
 
     /**
@@ -330,8 +669,8 @@ public abstract class AbstractCore extends AbstractThread {
      * @param instruction
      */
     protected void executeDADD(Instruction instruction) {
-        this.getRegisters()[instruction.getField(3)] = this.getRegisters()[instruction.getField(1)]
-                + this.getRegisters()[instruction.getField(2)];
+        this.getRegisters()[instruction.getThirdField()] = this.getRegisters()[instruction.getFirstField()]
+                + this.getRegisters()[instruction.getSecondField()];
     }
 
     /**
@@ -339,8 +678,8 @@ public abstract class AbstractCore extends AbstractThread {
      * @param instruction
      */
     protected void executeDSUB(Instruction instruction) {
-        this.getRegisters()[instruction.getField(3)] = this.getRegisters()[instruction.getField(1)]
-                - this.getRegisters()[instruction.getField(2)];
+        this.getRegisters()[instruction.getThirdField()] = this.getRegisters()[instruction.getFirstField()]
+                - this.getRegisters()[instruction.getSecondField()];
     }
 
     /**
@@ -348,8 +687,8 @@ public abstract class AbstractCore extends AbstractThread {
      * @param instruction
      */
     protected void executeDMUL(Instruction instruction) {
-        this.getRegisters()[instruction.getField(3)] = this.getRegisters()[instruction.getField(1)]
-                * this.getRegisters()[instruction.getField(2)];
+        this.getRegisters()[instruction.getThirdField()] = this.getRegisters()[instruction.getFirstField()]
+                * this.getRegisters()[instruction.getSecondField()];
     }
 
     /**
@@ -358,8 +697,8 @@ public abstract class AbstractCore extends AbstractThread {
      */
     protected void executeDDIV(Instruction instruction) {
         try {
-            this.getRegisters()[instruction.getField(3)] = this.getRegisters()[instruction.getField(1)]
-                    / this.getRegisters()[instruction.getField(2)];
+            this.getRegisters()[instruction.getThirdField()] = this.getRegisters()[instruction.getFirstField()]
+                    / this.getRegisters()[instruction.getSecondField()];
         } catch (ArithmeticException e) {
             System.err.println("Executing DDIV error: Division by zero.");
             System.exit(1);
@@ -371,8 +710,8 @@ public abstract class AbstractCore extends AbstractThread {
      * @param instruction
      */
     protected void executeBEQZ(Instruction instruction) {
-        if (this.getRegisters()[instruction.getField(1)] == 0) {
-            int newPC = this.getPC() + 4 * instruction.getField(3);
+        if (this.getRegisters()[instruction.getFirstField()] == 0) {
+            int newPC = this.getPC() + 4 * instruction.getThirdField();
             this.setPC(newPC);
         }
     }
@@ -382,8 +721,8 @@ public abstract class AbstractCore extends AbstractThread {
      * @param instruction
      */
     protected void executeBNEZ(Instruction instruction) {
-        if (this.getRegisters()[instruction.getField(1)] != 0) {
-            int newPC = this.getPC() + 4 * instruction.getField(3);
+        if (this.getRegisters()[instruction.getFirstField()] != 0) {
+            int newPC = this.getPC() + 4 * instruction.getThirdField();
             this.setPC(newPC);
         }
     }
@@ -394,7 +733,7 @@ public abstract class AbstractCore extends AbstractThread {
      */
     protected void executeJAL(Instruction instruction) {
         this.getRegisters()[31] = this.getPC();
-        int newPC = this.getPC() + instruction.getField(3);
+        int newPC = this.getPC() + instruction.getThirdField();
         this.setPC(newPC);
     }
 
@@ -403,7 +742,7 @@ public abstract class AbstractCore extends AbstractThread {
      * @param instruction
      */
     protected void executeJR(Instruction instruction) {
-        this.setPC(this.getRegisters()[instruction.getField(1)]);
+        this.setPC(this.getRegisters()[instruction.getFirstField()]);
     }
 
     /**
@@ -413,8 +752,8 @@ public abstract class AbstractCore extends AbstractThread {
      * @return
      */
     protected int calculateDataBlockNumber(Instruction instruction) {
-        int sourceRegister = this.currentContext.getRegisters()[instruction.getInstructionFields()[1]];
-        int immediate = instruction.getInstructionFields()[3];
+        int sourceRegister = this.currentContext.getRegisters()[instruction.getFirstField()];
+        int immediate = instruction.getThirdField();
         int blockNumber = (sourceRegister + immediate) / SimulationConstants.BLOCK_SIZE;
         return blockNumber;
     }
@@ -426,37 +765,285 @@ public abstract class AbstractCore extends AbstractThread {
      * @return
      */
     protected int calculateDataOffset(Instruction instruction) {
-        int sourceRegister = this.currentContext.getRegisters()[instruction.getInstructionFields()[1]];
-        int immediate = instruction.getInstructionFields()[3];
+        int sourceRegister = this.currentContext.getRegisters()[instruction.getFirstField()];
+        int immediate = instruction.getThirdField();
         int offset = ((sourceRegister + immediate) % SimulationConstants.BLOCK_SIZE) / SimulationConstants.WORDS_PER_DATA_BLOCK;
         return offset;
     }
 
     /**
-     * Calculates the data cache position for a data block.
+     * Brings a block to a data cache position for a load, from a cache the protocol makes give the block or else from
+     * memory, and changes the state of every copy. The caller holds the position and the data bus.
      *
-     * @param blockNumber
-     * @param coreNumber
-     * @return
+     * @param blockNumber the number of the block.
+     * @param dataCachePositionNumber the number of the data cache position that receives the block.
+     * @param callingThread the thread that advances the clock cycles of the transaction.
      */
-    protected int calculateCachePosition(int blockNumber, int coreNumber) {
-        if (coreNumber == 0) {
-            return blockNumber % SimulationConstants.TOTAL_CORE_ZERO_CACHE_POSITIONS;
+    protected void loadDataBlock(int blockNumber, int dataCachePositionNumber, AbstractThread callingThread) {
+        if (this.dataCache.swapWithVictimCache(blockNumber, dataCachePositionNumber, callingThread)) {
+            this.prefetchDataBlocks(); // The core kept the block, so no other copy changes.
+            return;
+        }
+
+        DataBus dataBus = this.dataCache.getDataBus();
+        this.replaceDataBlock(blockNumber, dataCachePositionNumber, callingThread);
+        if (this.dataCache.takeFromWriteBuffer(blockNumber, dataCachePositionNumber, callingThread)) {
+            this.prefetchDataBlocks();
+            return;
         }
-        return blockNumber % SimulationConstants.TOTAL_FIRST_CORE_CACHE_POSITIONS;
+
+        int sharers = this.lockSharerPositions(blockNumber, callingThread);
+        this.bringDataBlock(blockNumber, dataCachePositionNumber, sharers, callingThread);
+
+        boolean otherCopies = false;
+        for (int i = 0; i < sharers; i++) {
+            if (this.sharerStates[i] != CachePositionState.INVALID) {
+                this.sharerCaches[i].setState(this.sharerPositions[i],
+                        this.coherenceStateMachine.getSnoopedLoadState(this.sharerStates[i]));
+                otherCopies = true;
+            }
+        }
+        this.dataCache.setState(dataCachePositionNumber, this.coherenceStateMachine.getLoadedState(otherCopies));
+        dataBus.addSharer(blockNumber, this.coreNumber);
+
+        this.unlockSharerPositions(sharers);
+        dataBus.countTransaction();
+        this.prefetchDataBlocks();
     }
 
     /**
-     * Calculates the data cache position for a data block in the other core cache.
+     * Brings a block to a data cache position for a store, invalidating the copies of the other caches, and leaves it
+     * modified. The caller holds the position and the data bus, and stores the word afterwards.
      *
-     * @param blockNumber
-     * @return
+     * @param blockNumber the number of the block.
+     * @param dataCachePositionNumber the number of the data cache position that receives the block.
+     * @param callingThread the thread that advances the clock cycles of the transaction.
      */
-    protected int calculateOtherDataCachePosition(int blockNumber) {
-        if (this.coreNumber == 0) {
-            return blockNumber % SimulationConstants.TOTAL_FIRST_CORE_CACHE_POSITIONS;
+    protected void loadDataBlockForStore(int blockNumber, int dataCachePositionNumber, AbstractThread callingThread) {
+        if (this.dataCache.swapWithVictimCache(blockNumber, dataCachePositionNumber, callingThread)) {
+            this.makeKeptBlockWritable(blockNumber, dataCachePositionNumber, callingThread);
+            return;
+        }
+
+        DataBus dataBus = this.dataCache.getDataBus();
+        this.replaceDataBlock(blockNumber, dataCachePositionNumber, callingThread);
+        if (this.dataCache.takeFromWriteBuffer(blockNumber, dataCachePositionNumber, callingThread)) {
+            this.makeKeptBlockWritable(blockNumber, dataCachePositionNumber, callingThread);
+            return;
+        }
+
+        int sharers = this.lockSharerPositions(blockNumber, callingThread);
+        this.bringDataBlock(blockNumber, dataCachePositionNumber, sharers, callingThread);
+
+        this.invalidateSharerCopies(blockNumber, sharers);
+        this.dataCache.setState(dataCachePositionNumber, CachePositionState.MODIFIED);
+        dataBus.addSharer(blockNumber, this.coreNumber);
+
+        this.unlockSharerPositions(sharers);
+        dataBus.countTransaction();
+        this.prefetchDataBlocks();
+    }
+
+    /**
+     * Leaves modified a block the core brought back from its victim cache or its write buffer for a store, invalidating
+     * the copies of the other caches first if the state of the block doesn't allow the store.
+     *
+     * @param blockNumber the number of the block.
+     * @param dataCachePositionNumber the number of the data cache position that has the block.
+     * @param callingThread the thread that advances the clock cycles of the transaction.
+     */
+    private void makeKeptBlockWritable(int blockNumber, int dataCachePositionNumber, AbstractThread callingThread) {
+        if (this.coherenceStateMachine.isWritable(this.dataCache.getState(dataCachePositionNumber))) {
+            this.dataCache.setState(dataCachePositionNumber, CachePositionState.MODIFIED);
+        } else {
+            this.invalidateOtherCopies(blockNumber, dataCachePositionNumber, callingThread);
+        }
+        this.prefetchDataBlocks();
+    }
+
+    /**
+     * Makes the data prefetcher bring the blocks requested by the last access, once the access has its block.
+     */
+    private void prefetchDataBlocks() {
+        if (this.dataPrefetcher != null) {
+            this.dataPrefetcher.prefetch();
         }
-        return blockNumber % SimulationConstants.TOTAL_CORE_ZERO_CACHE_POSITIONS;
+    }
+
+    /**
+     * Invalidates the copies of the other caches of a block the core has but can't store to without the bus, and
+     * leaves the block of the core modified. The caller holds the position and the data bus, and stores the word
+     * afterwards.
+     *
+     * @param blockNumber the number of the block.
+     * @param dataCachePositionNumber the number of the data cache position that has the block.
+     * @param callingThread the thread that advances the clock cycles of the transaction.
+     */
+    protected void invalidateOtherCopies(int blockNumber, int dataCachePositionNumber, AbstractThread callingThread) {
+        int sharers = this.lockSharerPositions(blockNumber, callingThread);
+        this.invalidateSharerCopies(blockNumber, sharers);
+        this.dataCache.setState(dataCachePositionNumber, CachePositionState.MODIFIED);
+
+        this.unlockSharerPositions(sharers);
+        this.dataCache.getDataBus().countTransaction();
+    }
+
+    /**
+     * Prepares a data cache position to receive a different block: the block it has is written to memory if memory
+     * doesn't have its words, or given to the second level cache, and the core stops being one of its sharers. With a
+     * victim cache the block moves there instead, and the block the victim cache replaces is the one given up. With a
+     * write buffer, a dirty block given up waits there to be written.
+     *
+     * @param blockNumber the number of the block that will replace it.
+     * @param dataCachePositionNumber the number of the data cache position.
+     * @param callingThread the thread that advances the clock cycles of the write.
+     */
+    private void replaceDataBlock(int blockNumber, int dataCachePositionNumber, AbstractThread callingThread) {
+        int replacedBlockNumber = this.dataCache.getTag(dataCachePositionNumber);
+        CachePositionState replacedState = this.dataCache.getState(dataCachePositionNumber);
+        if (replacedBlockNumber == blockNumber || replacedState == CachePositionState.INVALID) {
+            return;
+        }
+        if (this.dataCache.getVictimCache() != null) {
+            this.keepInVictimCache(dataCachePositionNumber, callingThread);
+            return;
+        }
+
+        if (this.giveUpDataBlock(dataCachePositionNumber, callingThread)) {
+            this.dataCache.countEviction(); // The block left the position before the one that replaces it arrived.
+        }
+    }
+
+    /**
+     * Gives up a valid block that leaves the core. A dirty block waits in the write buffer if it has room, and the
+     * core stays one of its sharers until the buffer writes it. Otherwise the block is written to memory if memory
+     * doesn't have its words, or given to the second level cache, and the core stops being one of its sharers.
+     *
+     * @param dataCachePositionNumber the number of the position that has the block.
+     * @param callingThread the thread that advances the clock cycles of the write.
+     * @return true if the block went to the write buffer, which left the position invalid.
+     */
+    private boolean giveUpDataBlock(int dataCachePositionNumber, AbstractThread callingThread) {
+        int blockNumber = this.dataCache.getTag(dataCachePositionNumber);
+        boolean dirty = this.coherenceStateMachine.isDirty(this.dataCache.getState(dataCachePositionNumber));
+        if (dirty && this.dataCache.moveToWriteBuffer(dataCachePositionNumber)) {
+            return true;
+        }
+
+        this.dataCache.replaceBlock(dataCachePositionNumber, dirty, callingThread);
+        this.dataCache.getDataBus().removeSharer(blockNumber, this.coreNumber);
+        return false;
+    }
+
+    /**
+     * Moves the valid block of a data cache position to the victim cache. If the victim cache is full, its least
+     * recently used block is given up like a block replaced in the data cache.
+     *
+     * @param dataCachePositionNumber the number of the data cache position.
+     * @param callingThread the thread that advances the clock cycles of the write.
+     */
+    private void keepInVictimCache(int dataCachePositionNumber, AbstractThread callingThread) {
+        VictimCache victimCache = this.dataCache.getVictimCache();
+        int victimCachePositionNumber = victimCache.findReplacedPosition();
+        if (this.dataCache.getState(victimCachePositionNumber) != CachePositionState.INVALID) {
+            this.giveUpDataBlock(victimCachePositionNumber, callingThread);
+            this.dataCache.setState(victimCachePositionNumber, CachePositionState.INVALID);
+            victimCache.countEviction();
+        }
+
+        // Giving up the block may have made an inclusive second level cache invalidate the block of the position.
+        if (this.dataCache.getState(dataCachePositionNumber) != CachePositionState.INVALID) {
+            this.dataCache.moveToVictimCache(victimCachePositionNumber, dataCachePositionNumber);
+        }
+    }
+
+    /**
+     * Locks the positions of a block in the caches of the cores a transaction contacts, advancing the clock cycles it
+     * waits for each one, and keeps them with the state of their copies in the sharer arrays.
+     *
+     * @param blockNumber the number of the block.
+     * @param callingThread the thread that advances the clock cycles.
+     * @return the number of locked positions.
+     */
+    private int lockSharerPositions(int blockNumber, AbstractThread callingThread) {
+        DataBus dataBus = this.dataCache.getDataBus();
+        long sharerCores = dataBus.lookUpSharers(blockNumber, this.coreNumber);
+
+        int sharers = 0;
+        while (sharerCores != 0) {
+            int sharerCore = Long.numberOfTrailingZeros(sharerCores);
+            sharerCores &= sharerCores - 1;
+
+            DataCache sharerCache = dataBus.getDataCache(sharerCore);
+            int sharerPosition = sharerCache.findCopyPosition(blockNumber);
+            while (!sharerCache.tryLock(sharerPosition)) {
+                callingThread.advanceIdleClockCycle();
+            }
+            callingThread.advanceClockCycle();
+            dataBus.countMessage();
+
+            this.sharerCores[sharers] = sharerCore;
+            this.sharerCaches[sharers] = sharerCache;
+            this.sharerPositions[sharers] = sharerPosition;
+            this.sharerStates[sharers] = sharerCache.getTag(sharerPosition) == blockNumber ?
+                    sharerCache.getState(sharerPosition) : CachePositionState.INVALID;
+            sharers++;
+        }
+        return sharers;
+    }
+
+    /**
+     * Unlocks the positions locked by a transaction.
+     *
+     * @param sharers the number of locked positions.
+     */
+    private void unlockSharerPositions(int sharers) {
+        for (int i = 0; i < sharers; i++) {
+            this.sharerCaches[i].unlock(this.sharerPositions[i]);
+            this.sharerCaches[i] = null;
+        }
+    }
+
+    /**
+     * Invalidates the valid copies of a block in the locked positions of a transaction.
+     *
+     * @param blockNumber the number of the block.
+     * @param sharers the number of locked positions.
+     */
+    private void invalidateSharerCopies(int blockNumber, int sharers) {
+        DataBus dataBus = this.dataCache.getDataBus();
+        for (int i = 0; i < sharers; i++) {
+            if (this.sharerStates[i] != CachePositionState.INVALID) {
+                this.sharerCaches[i].setState(this.sharerPositions[i], CachePositionState.INVALID);
+                dataBus.removeSharer(blockNumber, this.sharerCores[i]);
+                dataBus.countInvalidation();
+            }
+        }
+    }
+
+    /**
+     * Copies a block to a data cache position from the first locked copy the protocol makes give it, or else from
+     * memory.
+     *
+     * @param blockNumber the number of the block.
+     * @param dataCachePositionNumber the number of the data cache position that receives the block.
+     * @param sharers the number of locked positions.
+     * @param callingThread the thread that advances the clock cycles of the copy.
+     */
+    private void bringDataBlock(int blockNumber, int dataCachePositionNumber, int sharers,
+                                AbstractThread callingThread) {
+        for (int i = 0; i < sharers; i++) {
+            CachePositionState sharerState = this.sharerStates[i];
+            if (this.coherenceStateMachine.suppliesBlock(sharerState)) {
+                if (this.coherenceStateMachine.writesBackSuppliedBlock(sharerState)) {
+                    this.dataCache.writeBlockToMemory(this.sharerCaches[i], this.sharerPositions[i], callingThread);
+                }
+                this.dataCache.setPositionFromAnother(dataCachePositionNumber, this.sharerCaches[i],
+                        this.sharerPositions[i], callingThread);
+                return;
+            }
+        }
+        this.dataCache.getBlockFromMemory(blockNumber, dataCachePositionNumber, callingThread);
     }
 
     /**
@@ -491,10 +1078,16 @@ public abstract class AbstractCore extends AbstractThread {
         }
 
         System.out.println("Cache de datos:");
-        DataCachePosition[] dataCachePositions = this.dataCache.getDataCachePositions();
-        for (int i = 0; i < dataCachePositions.length; i++) {
-            System.out.print("Posicion #" + i + ": ");
-            dataCachePositions[i].print();
+        this.dataCache.print();
+
+        VictimCache victimCache = this.dataCache.getVictimCache();
+        if (victimCache != null) {
+            System.out.println("Cache de victimas:");
+            victimCache.print();
+        }
+        if (this.writeBuffer != null) {
+            System.out.println("Buffer de escritura:");
+            this.writeBuffer.print();
         }
         System.out.println();
     }
@@ -503,6 +1096,10 @@ public abstract class AbstractCore extends AbstractThread {
      * Prints the context being executed.
      */
     public void printContext() {
+        if (this.currentContext == null) {
+            System.out.println("El Nucleo #" + this.coreNumber + " no tiene un contexto");
+            return;
+        }
         System.out.println("El Contexto #" + this.currentContext.getContextNumber() + " esta corriendo en el Nucleo #" +
                 this.coreNumber);
     }
@@ -512,6 +1109,14 @@ public abstract class AbstractCore extends AbstractThread {
     //----------------------------------------------------------------------------------------
 
 
+    public boolean isContextChanged() {
+        return contextChanged;
+    }
+
+    public void setContextChanged(boolean contextChanged) {
+        this.contextChanged = contextChanged;
+    }
+
     public int getCoreNumber() {
         return coreNumber;
     }
@@ -520,6 +1125,17 @@ public abstract class AbstractCore extends AbstractThread {
         this.coreNumber = coreNumber;
     }
 
+    /**
+     * @return the number of runs of register only instructions translated by the core.
+     */
+    public int getTranslatedBlocks() {
+        return this.blockTranslator == null ? 0 : this.blockTranslator.getTranslatedBlocks();
+    }
+
+    public int getTranslatedClockCycles() {
+        return translatedClockCycles;
+    }
+
     private int[] getRegisters() {
         return this.currentContext.getRegisters();
     }
@@ -1,21 +1,21 @@
 package cr.ac.ucr.ecci.ci1323.core;
 
+import cr.ac.ucr.ecci.ci1323.clock.SimulationClock;
 import cr.ac.ucr.ecci.ci1323.context.Context;
 
-import java.util.concurrent.Phaser;
-
 /**
  * Abstract class that represents an abstraction for cores and the miss handler, in order to advance clock cycles or barriers
- * and manipulating the context that they're currently executing. Extends a runnable thread of Java.
+ * and manipulating the context that they're currently executing. Its body runs in a Java thread of the backend selected
+ * for the simulation.
  *
  * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
  */
-public abstract class AbstractThread extends Thread {
+public abstract class AbstractThread implements Runnable {
 
     /**
      * The barriers for advancing clock cycles.
      */
-    protected volatile Phaser simulationBarrier;
+    protected volatile SimulationClock simulationBarrier;
 
     /**
      * The context that is currently executing the core or miss handler.
@@ -23,13 +23,27 @@ public abstract class AbstractThread extends Thread {
     protected volatile Context currentContext;
 
     /**
-     * Constructor that receives the barrier and context.
+     * The Java thread that runs this core or miss handler, which is the party registered in the simulation clock.
+     */
+    protected final Thread thread;
+
+    /**
+     * Constructor that receives the barrier and context, and creates the thread that will run the body.
      * @param simulationBarrier the simulation's barrier.
      * @param currentContext the context to execute.
+     * @param threadBackend the kind of thread that runs the body.
      */
-    AbstractThread(Phaser simulationBarrier, Context currentContext) {
+    AbstractThread(SimulationClock simulationBarrier, Context currentContext, ThreadBackend threadBackend) {
         this.simulationBarrier = simulationBarrier;
         this.currentContext = currentContext;
+        this.thread = threadBackend.newThread(this);
+    }
+
+    /**
+     * Starts the execution of the thread.
+     */
+    public void start() {
+        this.thread.start();
     }
 
     /**
@@ -37,10 +51,47 @@ public abstract class AbstractThread extends Thread {
      */
     public void advanceClockCycle() {
         this.simulationBarrier.arriveAndAwaitAdvance();
-        this.currentContext.incrementClockCycle();
+        this.chargeClockCycles(1);
+        this.simulationBarrier.arriveAndAwaitAdvance();
+    }
+
+    /**
+     * Advances a clock cycle in which the thread only waited for another party, like a failed attempt to take a lock.
+     * If the clock skips clock cycles because nobody could make progress, the context is charged for them too.
+     */
+    public void advanceIdleClockCycle() {
+        int skippedClockCycles = this.simulationBarrier.arriveIdleAndAwaitAdvance();
+        this.chargeClockCycles(1 + skippedClockCycles);
+        this.simulationBarrier.arriveAndAwaitAdvance();
+    }
+
+    /**
+     * Advances several clock cycles at once, for work with a fixed latency like a memory access. The thread sleeps
+     * until the last cycle instead of crossing the barriers of each one, and the context is charged for all of them.
+     * @param clockCycles the number of clock cycles to advance.
+     */
+    public void advanceClockCycles(int clockCycles) {
+        if (clockCycles <= 0) {
+            return;
+        }
+
+        this.simulationBarrier.arriveAndAwaitAdvance(2 * clockCycles - 1);
+        this.chargeClockCycles(clockCycles);
         this.simulationBarrier.arriveAndAwaitAdvance();
     }
 
+    /**
+     * Charges clock cycles to the current context. A thread that doesn't work for a context, like the instruction
+     * prefetcher, doesn't charge them to anyone.
+     * @param clockCycles the number of clock cycles.
+     */
+    private void chargeClockCycles(int clockCycles) {
+        Context currentContext = this.currentContext;
+        if (currentContext != null) {
+            currentContext.incrementClockCycles(clockCycles);
+        }
+    }
+
     /**
      * Advances only the barriers, and doesn't increment the clock cycle of the context.
      */
@@ -49,15 +100,27 @@ public abstract class AbstractThread extends Thread {
         this.simulationBarrier.arriveAndAwaitAdvance();
     }
 
+    /**
+     * Advances only the barriers, for a clock cycle in which the thread only waited for another party.
+     */
+    protected void advanceIdleBarriers() {
+        this.simulationBarrier.arriveIdleAndAwaitAdvance();
+        this.simulationBarrier.arriveAndAwaitAdvance();
+    }
+
     //----------------------------------------------------------------------------------------
     // Setters and Getters
     //----------------------------------------------------------------------------------------
 
-    public Phaser getSimulationBarrier() {
+    public Thread getThread() {
+        return thread;
+    }
+
+    public SimulationClock getSimulationBarrier() {
         return simulationBarrier;
     }
 
-    public void setSimulationBarrier(Phaser simulationBarrier) {
+    public void setSimulationBarrier(SimulationClock simulationBarrier) {
         this.simulationBarrier = simulationBarrier;
     }
 
@@ -0,0 +1,173 @@
+package cr.ac.ucr.ecci.ci1323.core;
+
+import cr.ac.ucr.ecci.ci1323.commons.SimulationConstants;
+import cr.ac.ucr.ecci.ci1323.memory.Instruction;
+import cr.ac.ucr.ecci.ci1323.memory.InstructionBlock;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Translates the hot runs of register only instructions of the instruction blocks executed by a core. A run starts in
+ * the instruction where a context enters the block and ends with the first conditional branch, or before the first
+ * load, store, jump, division or FIN, which are left to the interpreter of the core. The loops of the programs are
+ * mostly one or two register only instructions followed by a branch back, so ending the runs with the branch lets
+ * them run translated from their second iteration. Each core has its own translator, so it isn't thread safe.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+class BlockTranslator {
+
+    /**
+     * The number of times a context must enter a block in an instruction to translate the run that starts there.
+     */
+    private static final int HOT_THRESHOLD = 2;
+
+    /**
+     * The shortest run worth translating, which is a register only instruction and a branch.
+     */
+    private static final int MINIMUM_LENGTH = 2;
+
+    /**
+     * The entries counted and the runs translated for each instruction of a block.
+     */
+    private static class BlockTranslations {
+        private final int[] entries = new int[SimulationConstants.INSTRUCTIONS_PER_BLOCK];
+        private final TranslatedBlock[] translatedBlocks = new TranslatedBlock[SimulationConstants.INSTRUCTIONS_PER_BLOCK];
+    }
+
+    private final Map<InstructionBlock, BlockTranslations> blockTranslations;
+
+    private int translatedBlocks;
+
+    BlockTranslator() {
+        this.blockTranslations = new HashMap<>();
+        this.translatedBlocks = 0;
+    }
+
+    /**
+     * Counts an entry to the block in the given instruction, and returns the run of register only instructions that
+     * starts there if it is hot enough to be translated.
+     *
+     * @param instructionBlock the block the context is executing.
+     * @param offset the offset of the next instruction to execute in the block.
+     * @return the translated run, or null if the instruction must be interpreted.
+     */
+    TranslatedBlock getTranslatedBlock(InstructionBlock instructionBlock, int offset) {
+        BlockTranslations translations = this.blockTranslations.computeIfAbsent(instructionBlock,
+                block -> new BlockTranslations());
+
+        if (translations.entries[offset] < HOT_THRESHOLD) {
+            translations.entries[offset]++;
+            if (translations.entries[offset] == HOT_THRESHOLD) {
+                translations.translatedBlocks[offset] = this.translate(instructionBlock, offset);
+                if (translations.translatedBlocks[offset] != null) {
+                    this.translatedBlocks++;
+                }
+            }
+        }
+
+        return translations.translatedBlocks[offset];
+    }
+
+    /**
+     * Translates the run of register only instructions that starts in the given instruction, with the branch that
+     * ends it if there is one.
+     *
+     * @param instructionBlock the block that contains the run.
+     * @param offset the offset of the first instruction of the run.
+     * @return the translated run, or null if it is too short or it doesn't start with a register only instruction.
+     */
+    private TranslatedBlock translate(InstructionBlock instructionBlock, int offset) {
+        TranslatedBlock.RegisterOperation registerOperation = null;
+        TranslatedBlock.BranchCondition branchCondition = null;
+        Instruction lastInstruction = null;
+        int length = 0;
+
+        for (int i = offset; i < SimulationConstants.INSTRUCTIONS_PER_BLOCK && branchCondition == null; i++) {
+            Instruction instruction = instructionBlock.getInstruction(i);
+            if (instruction == null) {
+                break;
+            }
+
+            TranslatedBlock.RegisterOperation instructionOperation = this.translateInstruction(instruction);
+            if (instructionOperation != null) {
+                registerOperation = registerOperation == null ? instructionOperation :
+                        registerOperation.andThen(instructionOperation);
+            } else if (registerOperation != null) {
+                branchCondition = this.translateBranch(instruction);
+                if (branchCondition == null) {
+                    break;
+                }
+            } else {
+                break;
+            }
+
+            lastInstruction = instruction;
+            length++;
+        }
+
+        if (length < MINIMUM_LENGTH) {
+            return null;
+        }
+        return new TranslatedBlock(registerOperation, branchCondition,
+                branchCondition == null ? 0 : lastInstruction.getThirdField(), length, lastInstruction);
+    }
+
+    /**
+     * Translates a single instruction with its fields bound as constants.
+     *
+     * @param instruction the instruction to translate.
+     * @return the operation of the instruction, or null if it isn't a register only instruction.
+     */
+    private TranslatedBlock.RegisterOperation translateInstruction(Instruction instruction) {
+        int firstField = instruction.getFirstField();
+        int secondField = instruction.getSecondField();
+        int thirdField = instruction.getThirdField();
+
+        switch (instruction.getOperation()) {
+            case DADDI:
+                return registers -> registers[secondField] = registers[firstField] + thirdField;
+
+            case DADD:
+                return registers -> registers[thirdField] = registers[firstField] + registers[secondField];
+
+            case DSUB:
+                return registers -> registers[thirdField] = registers[firstField] - registers[secondField];
+
+            case DMUL:
+                return registers -> registers[thirdField] = registers[firstField] * registers[secondField];
+
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Translates the condition of a conditional branch with its register bound as a constant.
+     *
+     * @param instruction the instruction to translate.
+     * @return the condition of the branch, or null if it isn't a conditional branch.
+     */
+    private TranslatedBlock.BranchCondition translateBranch(Instruction instruction) {
+        int firstField = instruction.getFirstField();
+
+        switch (instruction.getOperation()) {
+            case BEQZ:
+                return registers -> registers[firstField] == 0;
+
+            case BNEZ:
+                return registers -> registers[firstField] != 0;
+
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return the number of runs translated.
+     */
+    int getTranslatedBlocks() {
+        return translatedBlocks;
+    }
+}
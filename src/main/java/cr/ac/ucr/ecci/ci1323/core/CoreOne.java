@@ -1,21 +1,17 @@
 package cr.ac.ucr.ecci.ci1323.core;
 
 import cr.ac.ucr.ecci.ci1323.cache.CachePositionState;
-import cr.ac.ucr.ecci.ci1323.cache.DataCachePosition;
 import cr.ac.ucr.ecci.ci1323.cache.InstructionCachePosition;
-import cr.ac.ucr.ecci.ci1323.commons.SimulationConstants;
+import cr.ac.ucr.ecci.ci1323.clock.SimulationClock;
 import cr.ac.ucr.ecci.ci1323.controller.SimulationController;
 import cr.ac.ucr.ecci.ci1323.context.Context;
-import cr.ac.ucr.ecci.ci1323.exceptions.ContextChangeException;
 import cr.ac.ucr.ecci.ci1323.memory.DataBus;
 import cr.ac.ucr.ecci.ci1323.memory.Instruction;
 import cr.ac.ucr.ecci.ci1323.memory.InstructionBlock;
 import cr.ac.ucr.ecci.ci1323.memory.InstructionBus;
 
-import java.util.concurrent.Phaser;
-
 /**
- * Core one of the simulated processor.
+ * Core one of the simulated processor, and any other core without a miss handler: it stalls on its misses.
  *
  * @author Josué León Sarkis, Elías Calderón, Daniel Montes de Oca
  */
@@ -25,17 +21,17 @@ public class CoreOne extends AbstractCore {
      * Class constructor
      * @param simulationBarrier the barrier that controls the simulation
      * @param maxQuantum the quantum that the user specified
-     * @param startingContext the first context of the core
+     * @param startingContext the first context of the core, null if it has nothing to execute
      * @param simulationController the controller of the simulation
      * @param instructionBus the instruction bus of the simulation
      * @param dataBus the data bus of the simulation
-     * @param coreNumber the number of the core, usually 1
+     * @param coreNumber the number of the core
      */
-    public CoreOne(Phaser simulationBarrier, int maxQuantum, Context startingContext,
+    public CoreOne(SimulationClock simulationBarrier, int maxQuantum, Context startingContext,
                    SimulationController simulationController, InstructionBus instructionBus,
                    DataBus dataBus, int coreNumber) {
         super(simulationBarrier, maxQuantum, startingContext, simulationController,
-                SimulationConstants.TOTAL_FIRST_CORE_CACHE_POSITIONS, instructionBus, dataBus, coreNumber);
+                simulationController.getConfiguration().getCachePositions(coreNumber), instructionBus, dataBus, coreNumber);
     }
 
     /**
@@ -66,7 +62,7 @@ public class CoreOne extends AbstractCore {
         this.simulationBarrier.arriveAndAwaitAdvance();
 
         if (oldContextChange != ContextChange.NONE)
-            throw new ContextChangeException();
+            this.setContextChanged(true);
 
     }
 
@@ -83,18 +79,21 @@ public class CoreOne extends AbstractCore {
     /**
      * Tries to lock a data cache position
      * @param dataCachePositionNumber the number of the position that will be locked
+     * @return true if locked, false if the context changed while waiting
      */
     @Override
-    protected void lockDataCachePosition(int dataCachePositionNumber) {
-        DataCachePosition cachePosition = this.dataCache.getDataCachePosition(dataCachePositionNumber);
-        while (!cachePosition.tryLock()) {
-            this.advanceClockCycle();
+    protected boolean lockDataCachePosition(int dataCachePositionNumber) {
+        while (!this.dataCache.tryLock(dataCachePositionNumber)) {
+            this.advanceIdleClockCycle();
+            if (this.contextChanged) {
+                return false;
+            }
         }
+        return true;
     }
 
     /**
      * @param blockNumber the block number of the data block that will be attempted to retrieve
-     * @param dataCachePosition the data cache position that will hold the retrieved data block
      * @param positionOffset the offset of the word that is being searched
      * @param dataCachePositionNumber the number of the data cache position that will get the block if the miss is
      *                                solved
@@ -102,91 +101,57 @@ public class CoreOne extends AbstractCore {
      * @return true if the miss was solved, false if not
      */
     @Override
-    protected boolean handleLoadMiss(int blockNumber, DataCachePosition dataCachePosition, int positionOffset, int dataCachePositionNumber, int finalRegister) {
+    protected boolean handleLoadMiss(int blockNumber, int positionOffset, int dataCachePositionNumber, int finalRegister) {
 
         DataBus dataBus = this.dataCache.getDataBus();
 
         if (!dataBus.tryLock()) {
-            dataCachePosition.unlock();
+            this.dataCache.unlock(dataCachePositionNumber);
             this.advanceClockCycle();
             return false;
         }
         this.advanceClockCycle();
 
-        if (dataCachePosition.getTag() != blockNumber && dataCachePosition.getState() == CachePositionState.MODIFIED) {
-            this.dataCache.writeBlockToMemory(dataCachePosition, this);
-        }
-
-        int otherDataCachePositionNumber = this.calculateOtherDataCachePosition(blockNumber);
-        DataCachePosition otherDataCachePosition = dataBus.getOtherCachePosition(this.coreNumber, otherDataCachePositionNumber);
-
-        while (!otherDataCachePosition.tryLock()) {
-            this.advanceClockCycle();
-        }
-        this.advanceClockCycle();
-
-        if (otherDataCachePosition.getTag() == blockNumber && otherDataCachePosition.getState() == CachePositionState.MODIFIED) {
-            this.dataCache.writeBlockToMemory(otherDataCachePosition, this);
-            this.dataCache.setPositionFromAnother(dataCachePosition, otherDataCachePosition);
-            otherDataCachePosition.setState(CachePositionState.SHARED);
-
-        } else {
-            this.dataCache.getBlockFromMemory(blockNumber, dataCachePositionNumber, this);
-        }
-
-        otherDataCachePosition.unlock();
-        this.currentContext.getRegisters()[finalRegister] = dataCachePosition.getDataBlock().getWord(positionOffset);
+        this.loadDataBlock(blockNumber, dataCachePositionNumber, this);
+        this.currentContext.getRegisters()[finalRegister] = this.dataCache.getWord(dataCachePositionNumber, positionOffset);
         dataBus.unlock();
-        dataCachePosition.unlock();
+        this.dataCache.unlock(dataCachePositionNumber);
         return true;
     }
 
     /**
      * Handles a store hit it can fail and return false if the position was shared
      * @param blockNumber the block number in which the value must be stored
-     * @param dataCachePosition the data cache position that may be modified
      * @param dataCachePositionNumber the number of the data cache position
      * @param positionOffset the offset that marks the word that may be modified
      * @param value the value that should be stored
      * @return true if the value could be stored, false if not
      */
     @Override
-    protected boolean handleStoreHit(int blockNumber, DataCachePosition dataCachePosition, int dataCachePositionNumber, int positionOffset, int value) {
-        if (dataCachePosition.getState() == CachePositionState.MODIFIED) {
-            dataCachePosition.getDataBlock().getWords()[positionOffset] = value;
-            dataCachePosition.unlock();
+    protected boolean handleStoreHit(int blockNumber, int dataCachePositionNumber, int positionOffset, int value) {
+        if (this.coherenceStateMachine.isWritable(this.dataCache.getState(dataCachePositionNumber))) {
+            this.dataCache.setState(dataCachePositionNumber, CachePositionState.MODIFIED);
+            this.dataCache.setWord(dataCachePositionNumber, positionOffset, value);
+            this.dataCache.unlock(dataCachePositionNumber);
             this.advanceClockCycle();
             return true;
         }
 
-        // Data Cache Position is shared
+        // Other caches may have the block
         DataBus dataBus = this.dataCache.getDataBus();
         if (!dataBus.tryLock()) {
-            dataCachePosition.unlock();
+            this.dataCache.unlock(dataCachePositionNumber);
             this.advanceClockCycle();
             return false;
         }
 
         this.advanceClockCycle();
 
-        int otherDataCachePositionNumber = this.calculateOtherDataCachePosition(dataCachePosition.getTag());
-        DataCachePosition otherCachePosition = dataBus.getOtherCachePosition(this.coreNumber, otherDataCachePositionNumber);
+        this.invalidateOtherCopies(blockNumber, dataCachePositionNumber, this);
+        this.dataCache.setWord(dataCachePositionNumber, positionOffset, value);
 
-        while (!otherCachePosition.tryLock()) {
-            this.advanceClockCycle();
-        }
-
-        this.advanceClockCycle();
-
-        if (otherCachePosition.getTag() == blockNumber && otherCachePosition.getState() != CachePositionState.SHARED)
-            otherCachePosition.setState(CachePositionState.INVALID);
-
-        dataCachePosition.setState(CachePositionState.MODIFIED);
-        dataCachePosition.getDataBlock().getWords()[positionOffset] = value;
-
-        otherCachePosition.unlock();
         dataBus.unlock();
-        dataCachePosition.unlock();
+        this.dataCache.unlock(dataCachePositionNumber);
 
         return true;
     }
@@ -194,62 +159,26 @@ public class CoreOne extends AbstractCore {
     /**
      * Called when a store miss is detected, tries to solve it
      * @param blockNumber the number of the block that caused the miss
-     * @param dataCachePosition the data cache position tha
      * @param positionOffset the offset that marks the word that may be modified
+     * @param dataCachePositionNumber the number of the data cache position
      * @param value the value that will be stored in the block
      * @return true if it could solve the miss, false if not
      */
     @Override
-    protected boolean handleStoreMiss(int blockNumber, DataCachePosition dataCachePosition, int positionOffset, int value) {
+    protected boolean handleStoreMiss(int blockNumber, int positionOffset, int dataCachePositionNumber, int value) {
         DataBus dataBus = this.dataCache.getDataBus();
 
         if (!dataBus.tryLock()) {
-            dataCachePosition.unlock();
+            this.dataCache.unlock(dataCachePositionNumber);
             this.advanceClockCycle();
             return false;
         }
         this.advanceClockCycle();
 
-        if (dataCachePosition.getTag() != blockNumber && dataCachePosition.getState() == CachePositionState.MODIFIED) {
-            this.dataCache.writeBlockToMemory(dataCachePosition, this);
-        }
-
-        int otherDataCachePositionNumber = this.calculateOtherDataCachePosition(blockNumber);
-        DataCachePosition otherDataCachePosition = dataBus
-                .getOtherCachePosition(this.coreNumber, otherDataCachePositionNumber);
-        while (!otherDataCachePosition.tryLock()) {
-            this.advanceClockCycle();
-        }
-        this.advanceClockCycle();
-
-        int dataCachePositionNumber = this.calculateCachePosition(blockNumber, this.coreNumber);
-        if (otherDataCachePosition.getTag() != blockNumber || otherDataCachePosition.getState() == CachePositionState.INVALID) {
-            this.dataCache.getBlockFromMemory(blockNumber, dataCachePositionNumber, this);
-            dataCachePosition.setState(CachePositionState.MODIFIED);
-
-        } else {
-            switch (otherDataCachePosition.getState()) {
-                case MODIFIED:
-                    this.dataCache.writeBlockToMemory(otherDataCachePosition, this);
-                    otherDataCachePosition.setState(CachePositionState.INVALID);
-
-                    this.dataCache.setPositionFromAnother(dataCachePosition, otherDataCachePosition);
-                    dataCachePosition.setState(CachePositionState.MODIFIED);
-                    break;
-
-                case SHARED:
-                    otherDataCachePosition.setState(CachePositionState.INVALID);
-
-                    this.dataCache.getBlockFromMemory(blockNumber, dataCachePositionNumber, this);
-                    dataCachePosition.setState(CachePositionState.MODIFIED);
-                    break;
-            }
-        }
-
-        otherDataCachePosition.unlock();
-        dataCachePosition.getDataBlock().getWords()[positionOffset] = value;
+        this.loadDataBlockForStore(blockNumber, dataCachePositionNumber, this);
+        this.dataCache.setWord(dataCachePositionNumber, positionOffset, value);
         dataBus.unlock();
-        dataCachePosition.unlock();
+        this.dataCache.unlock(dataCachePositionNumber);
 
         return true;
     }
@@ -1,43 +1,52 @@
 package cr.ac.ucr.ecci.ci1323.core;
 
 import cr.ac.ucr.ecci.ci1323.cache.CachePositionState;
-import cr.ac.ucr.ecci.ci1323.cache.DataCachePosition;
 import cr.ac.ucr.ecci.ci1323.cache.InstructionCachePosition;
+import cr.ac.ucr.ecci.ci1323.clock.SimulationClock;
 import cr.ac.ucr.ecci.ci1323.commons.SimulationConstants;
 import cr.ac.ucr.ecci.ci1323.context.ContextQueue;
 import cr.ac.ucr.ecci.ci1323.controller.SimulationController;
 import cr.ac.ucr.ecci.ci1323.context.Context;
-import cr.ac.ucr.ecci.ci1323.exceptions.ContextChangeException;
 import cr.ac.ucr.ecci.ci1323.memory.DataBus;
 import cr.ac.ucr.ecci.ci1323.memory.InstructionBlock;
 import cr.ac.ucr.ecci.ci1323.memory.InstructionBus;
 
-import java.util.concurrent.Phaser;
-
 /**
- * Core zero of the simulated processor.
+ * Core zero of the simulated processor, and any other core with a miss handler: it runs another context while the
+ * miss handler solves a miss.
  *
  * @author Josué León Sarkis, Elías Calderón, Daniel Montes de Oca
  */
 public class CoreZero extends AbstractCore {
 
     /**
-     *  The thread dedicated to solve misses.
+     *  The thread dedicated to solve misses, created when the core starts running.
      */
     private volatile MissHandler missHandler;
 
+    /**
+     * The miss the miss handler is solving, null if it isn't solving any.
+     */
+    private volatile MissRequest missRequest;
+
+    /**
+     * The request filled for every miss sent to the miss handler.
+     */
+    private final MissRequest missRequestSlot;
+
     /**
      * Context waiting to enter to execution.
      */
     private volatile Context waitingContext;
 
     /**
-     * An array for the data cache position reserved by another context.
+     * The data cache position reserved by another context, packed with the context that reserved it so both change
+     * at once without allocating.
      *
-     * reservedDataCachePosition[0] -> The reserved data cache position
-     * reservedDataCachePosition[1] -> The context that reserved the position.
+     * Lowest 32 bits -> The reserved data cache position
+     * Highest 32 bits -> The context that reserved the position.
      */
-    private volatile int[] reservedDataCachePosition;
+    private volatile long reservedDataCachePosition;
 
     /**
      * The instruction cache position reserved by another context.
@@ -59,21 +68,23 @@ public class CoreZero extends AbstractCore {
      *
      * @param simulationBarrier the simulation's barrier.
      * @param maxQuantum the maximum quantum of a context.
-     * @param startingContext the first context to execute.
+     * @param startingContext the first context to execute, null if it has nothing to execute.
      * @param simulationController the controller of the simulation.
      * @param instructionBus the instruction bus.
      * @param dataBus the data bus.
      * @param coreNumber the core's number.
      */
-    public CoreZero(Phaser simulationBarrier, int maxQuantum, Context startingContext,
+    public CoreZero(SimulationClock simulationBarrier, int maxQuantum, Context startingContext,
                     SimulationController simulationController, InstructionBus instructionBus,
                     DataBus dataBus, int coreNumber) {
 
         super(simulationBarrier, maxQuantum, startingContext, simulationController,
-                SimulationConstants.TOTAL_CORE_ZERO_CACHE_POSITIONS, instructionBus, dataBus, coreNumber);
+                simulationController.getConfiguration().getCachePositions(coreNumber), instructionBus, dataBus, coreNumber);
 
+        this.missRequest = null;
+        this.missRequestSlot = new MissRequest();
         this.waitingContext = null;
-        this.reservedDataCachePosition = new int[]{-1, -1};
+        this.reservedDataCachePosition = -1L; // Position -1 of context -1, nothing is reserved
         this.reservedInstructionCachePosition = -1;
     }
 
@@ -82,7 +93,22 @@ public class CoreZero extends AbstractCore {
      */
     @Override
     public void run() {
+        this.missHandler = new MissHandler(this, this.simulationBarrier,
+                this.simulationController.getConfiguration().getThreadBackend());
+        this.missHandler.start();
         super.executeCore();
+        this.missHandler.shutdown();
+    }
+
+    /**
+     * The miss handler can request a swap of contexts when it finishes, so the core only skips clock cycles while
+     * there is no miss handler running.
+     *
+     * @return true if the clock cycles can be skipped, false if not.
+     */
+    @Override
+    protected boolean canSkipClockCycles() {
+        return this.missRequest == null && super.canSkipClockCycles();
     }
 
     /**
@@ -133,8 +159,8 @@ public class CoreZero extends AbstractCore {
             this.setContextWaitingForReservation(false);
             this.setInstructionFinished(true);
 
-            // Indicate that there was a change of context with an exception.
-            throw new ContextChangeException();
+            // Indicate that there was a change of context.
+            this.setContextChanged(true);
         }
     }
 
@@ -152,20 +178,20 @@ public class CoreZero extends AbstractCore {
 
             // Tries to lock the context queue
             while (!contextQueue.tryLock()) {
-                this.advanceBarriers();
+                this.advanceIdleBarriers();
             }
 
             this.setNextContext(contextQueue.getNextContext());
 
             if (this.nextContext == null) { // There aren't any contexts left in the queue
 
-                if (this.waitingContext == null && this.missHandler == null) { // There is no other context in the core solving a miss
+                if (this.isMissHandlerIdle()) { // There is no other context in the core solving a miss
                     this.executionFinished = true;
 
                 } else { // There is a context solving the miss
 
                     while (this.waitingContext == null) { // Wait until it finishes the miss
-                        this.advanceBarriers();
+                        this.advanceIdleBarriers();
                     }
 
                     // When it finishes, bring the waiting context
@@ -203,7 +229,7 @@ public class CoreZero extends AbstractCore {
 
             // Tries to lock the context queue
             while (!contextQueue.tryLock()) {
-                this.advanceBarriers();
+                this.advanceIdleBarriers();
             }
 
             this.currentContext.setCurrentQuantum(SimulationConstants.INITIAL_QUANTUM); // Reset quantum
@@ -221,114 +247,167 @@ public class CoreZero extends AbstractCore {
      *
      * @param nextInstructionBlockNumber the number of the instruction block to get.
      * @param nextInstructionCachePosition the number of the instruction cache position to get.
-     * @return The instruction block from cache.
+     * @return The instruction block from cache, or null if the context changed before getting it.
      */
     @Override
     protected InstructionBlock getInstructionBlockFromCache(int nextInstructionBlockNumber, int nextInstructionCachePosition) {
         boolean solvedMiss = false;
-        InstructionCachePosition instructionCachePosition = this.instructionCache.getInstructionCachePosition(
-                nextInstructionCachePosition);
+        InstructionCachePosition instructionCachePosition = null;
 
         while (!solvedMiss) { // While the miss is not solved.
 
-            // While there is some else with the position reserved, advance a clock cycle.
+            // While there is some else with the position reserved, advance a clock cycle. The block may be brought to
+            // another way of its set in the meantime, so its position is looked up again.
+            nextInstructionCachePosition = this.instructionCache.findPosition(nextInstructionBlockNumber);
             while (this.reservedInstructionCachePosition == nextInstructionCachePosition) {
-                this.advanceClockCycle();
+                this.advanceIdleClockCycle();
+                if (this.contextChanged) {
+                    return null;
+                }
+                nextInstructionCachePosition = this.instructionCache.findPosition(nextInstructionBlockNumber);
             }
+            instructionCachePosition = this.instructionCache.getInstructionCachePosition(nextInstructionCachePosition);
+
+            if (instructionCachePosition.getTag() != nextInstructionBlockNumber &&
+                    this.isWaitingContextBlock(instructionCachePosition)) {
+                // Solving the miss would replace the block the waiting context needs to continue, and both contexts
+                // would take turns evicting each other's block forever. Let the waiting context execute first.
+                this.setChangeContext(ContextChange.SWAP_CONTEXTS);
+                this.advanceClockCycle();
 
-            if (instructionCachePosition.getTag() != nextInstructionBlockNumber) { // If the tag in the cache is different, there is a cache miss.
+            } else if (instructionCachePosition.getTag() != nextInstructionBlockNumber) { // If the tag in the cache is different, there is a cache miss.
                 solvedMiss = this.enterCacheMiss(MissType.INSTRUCTION, nextInstructionBlockNumber,
-                        nextInstructionCachePosition, null, -1, -1);
+                        nextInstructionCachePosition, -1, -1);
 
             } else { // If not, it was a hit.
                 solvedMiss = true;
             }
+
+            if (this.contextChanged) { // The context was swapped or went to the miss handler.
+                return null;
+            }
         }
 
         return instructionCachePosition.getInstructionBlock();
     }
 
+    /**
+     * Indicates if the waiting context's next instruction is in the given instruction cache position.
+     *
+     * @param instructionCachePosition the instruction cache position to check.
+     * @return true if the waiting context needs the block in the position, false if not.
+     */
+    private boolean isWaitingContextBlock(InstructionCachePosition instructionCachePosition) {
+        Context waitingContext = this.waitingContext;
+        if (waitingContext == null || this.missRequest != null) {
+            return false;
+        }
+
+        int waitingBlockNumber = waitingContext.getProgramCounter() / SimulationConstants.BLOCK_SIZE;
+        return instructionCachePosition.getTag() == waitingBlockNumber;
+    }
+
     /**
      * Reserves and locks a data cache position.
      *
      * @param dataCachePositionNumber the number of the data cache position to reserve and lock.
+     * @return true if locked, false if the context changed while waiting.
      */
     @Override
-    protected void lockDataCachePosition(int dataCachePositionNumber) {
+    protected boolean lockDataCachePosition(int dataCachePositionNumber) {
         int contextNumber = this.currentContext.getContextNumber();
-        int reservingContextNumber = this.getReservedDataCachePosition()[1];
+        int reservingContextNumber = this.getReservingContextNumber();
 
         // While the cache position is already reserved by another context, just advance clock cycles
         while (reservingContextNumber != -1 && reservingContextNumber != contextNumber &&
-                this.getReservedDataCachePosition()[0] == dataCachePositionNumber) {
-            this.advanceClockCycle();
+                this.getReservedDataCachePosition() == dataCachePositionNumber) {
+            this.advanceIdleClockCycle();
+            if (this.contextChanged) {
+                return false;
+            }
         }
 
-        DataCachePosition cachePosition = this.dataCache.getDataCachePosition(dataCachePositionNumber);
-        while (!cachePosition.tryLock()) {
-            this.advanceClockCycle();
+        while (!this.dataCache.tryLock(dataCachePositionNumber)) {
+            this.advanceIdleClockCycle();
+            if (this.contextChanged) {
+                return false;
+            }
         }
+        return true;
     }
 
     /**
      * Handles the data cache miss for a load of the core zero. It calls the enter cache miss method.
      *
      * @param blockNumber the block number needed by the load.
-     * @param dataCachePosition the data cache position needed by the load.
      * @param positionOffset the offset for the word needed from the cache.
      * @param dataCachePositionNumber the data cache position number needed by the load.
      * @param finalRegister the number of the register where the word should be loaded.
      * @return true if solved, false if not.
      */
     @Override
-    protected boolean handleLoadMiss(int blockNumber, DataCachePosition dataCachePosition, int positionOffset, int dataCachePositionNumber, int finalRegister) {
-        return this.enterCacheMiss(MissType.LOAD, blockNumber, dataCachePositionNumber, dataCachePosition, positionOffset, finalRegister);
+    protected boolean handleLoadMiss(int blockNumber, int positionOffset, int dataCachePositionNumber, int finalRegister) {
+        return this.enterCacheMiss(MissType.LOAD, blockNumber, dataCachePositionNumber, positionOffset, finalRegister);
     }
 
     private boolean enterCacheMiss(MissType missType, int nextBlockNumber, int nextCachePosition,
-                                   DataCachePosition dataCachePosition, int dataCachePositionOffset, int finalRegister) {
+                                   int dataCachePositionOffset, int finalRegister) {
         boolean solvedMiss = true;
 
-        if (this.waitingContext != null) { // there is a waiting context,
+        // Read both at once, the miss handler may finish in the meantime.
+        boolean waitingContextReady;
+        boolean missHandlerRunning;
+        synchronized (this) {
+            waitingContextReady = this.waitingContext != null;
+            missHandlerRunning = this.missRequest != null;
+        }
 
-            this.setMissHandler(new MissHandler(this, this.currentContext, missType, this.simulationBarrier,
-                    nextBlockNumber, nextCachePosition, dataCachePosition, dataCachePositionOffset, finalRegister));
+        if (waitingContextReady) { // there is a waiting context,
+
+            this.fillMissRequest(missType, nextBlockNumber, nextCachePosition, dataCachePositionOffset, finalRegister);
             this.setChangeContext(ContextChange.BRING_WAITING);
-            this.missHandler.start();
+            this.missHandler.handleMiss(this.missRequest);
 
-            if (dataCachePosition != null) {
-                dataCachePosition.unlock();
+            if (missType != MissType.INSTRUCTION) {
+                this.dataCache.unlock(nextCachePosition);
             }
 
-        } else if (this.missHandler != null) { // miss handler is running, must wait till it finishes
+        } else if (missHandlerRunning) { // miss handler is running, must wait till it finishes
             this.setContextWaitingForReservation(true);
             solvedMiss = false;
 
-            if (dataCachePosition != null) {
-                dataCachePosition.unlock();
+            if (missType != MissType.INSTRUCTION) {
+                this.dataCache.unlock(nextCachePosition);
             }
 
         } else { // miss handler is not running and there is no waiting context
 
             ContextQueue contextQueue = this.simulationController.getContextQueue();
-            while (!contextQueue.tryLock())
-                this.advanceBarriers();
+            while (!contextQueue.tryLock()) {
+                if (missType != MissType.INSTRUCTION) {
+                    // Another core with a miss handler may hold the queue while it waits for this position.
+                    this.dataCache.unlock(nextCachePosition);
+                    this.advanceClockCycle();
+                    return false;
+                }
+                this.advanceIdleBarriers();
+            }
 
             this.setNextContext(contextQueue.getNextContext());
             if (this.nextContext != null) {
 
-                this.setMissHandler(new MissHandler(this, this.currentContext, missType, this.simulationBarrier,
-                        nextBlockNumber, nextCachePosition, dataCachePosition, dataCachePositionOffset, finalRegister));
+                this.fillMissRequest(missType, nextBlockNumber, nextCachePosition, dataCachePositionOffset,
+                        finalRegister);
 
                 this.setChangeContext(ContextChange.NEXT_CONTEXT);
-                this.missHandler.start();
+                this.missHandler.handleMiss(this.missRequest);
 
-                if (dataCachePosition != null) {
-                    dataCachePosition.unlock();
+                if (missType != MissType.INSTRUCTION) {
+                    this.dataCache.unlock(nextCachePosition);
                 }
 
             } else {
-                solvedMiss = this.solveMissLocally(missType, nextBlockNumber, nextCachePosition, dataCachePosition,
+                solvedMiss = this.solveMissLocally(missType, nextBlockNumber, nextCachePosition,
                         dataCachePositionOffset, finalRegister);
             }
 
@@ -339,34 +418,50 @@ public class CoreZero extends AbstractCore {
         return solvedMiss;
     }
 
+    /**
+     * Fills the request of the miss handler with a miss of the current context, which the miss handler starts solving
+     * from then on.
+     *
+     * @param missType the type of miss.
+     * @param nextBlockNumber the number of the block of the miss.
+     * @param nextCachePosition the number of the cache position where the block should be loaded.
+     * @param dataCachePositionOffset the offset of the word needed by the miss.
+     * @param finalRegister the number of the register where the word should be loaded or stored, if it applies.
+     */
+    private void fillMissRequest(MissType missType, int nextBlockNumber, int nextCachePosition,
+                                 int dataCachePositionOffset, int finalRegister) {
+        this.missRequestSlot.set(this.currentContext, missType, nextBlockNumber, nextCachePosition,
+                dataCachePositionOffset, finalRegister);
+        this.setMissRequest(this.missRequestSlot);
+    }
+
     /**
      * A switch for solving a miss locally depending on the miss type.
      *
      * @param missType the type of miss.
      * @param nextBlockNumber the number of the instruction block to handle the miss.
      * @param nextCachePosition the number of the instruction cache position where the block should be loaded.
-     * @param dataCachePosition the data cache position needed by the miss.
      * @param dataCachePositionOffset the offset for the word needed to be loaded to cache.
      * @param finalRegister the number of the register where the word should be loaded or stored, if it applies.
      * @return true if solved, false if not.
      */
     private boolean solveMissLocally(MissType missType, int nextBlockNumber, int nextCachePosition,
-                                    DataCachePosition dataCachePosition, int dataCachePositionOffset, int finalRegister) {
+                                     int dataCachePositionOffset, int finalRegister) {
 
         switch (missType) {
             case INSTRUCTION:
                 return this.solveInstructionMiss(nextBlockNumber, nextCachePosition);
 
             case LOAD:
-                return this.solveDataLoadMiss(nextBlockNumber, dataCachePosition, dataCachePositionOffset, nextCachePosition,
+                return this.solveDataLoadMiss(nextBlockNumber, dataCachePositionOffset, nextCachePosition,
                         finalRegister, this);
 
             case STORE:
-                return this.solveDataStoreMiss(nextBlockNumber, dataCachePosition, dataCachePositionOffset, nextCachePosition,
+                return this.solveDataStoreMiss(nextBlockNumber, dataCachePositionOffset, nextCachePosition,
                         finalRegister, this);
 
             case STORE_HIT:
-                return this.solveDataStoreHit(nextBlockNumber, dataCachePosition, nextCachePosition, dataCachePositionOffset,
+                return this.solveDataStoreHit(nextBlockNumber, nextCachePosition, dataCachePositionOffset,
                         finalRegister, this);
 
             default:
@@ -395,22 +490,21 @@ public class CoreZero extends AbstractCore {
      * Solves the data cache miss for a load instruction.
      *
      * @param blockNumber the block number needed by the load.
-     * @param dataCachePosition the data cache position needed by the load.
      * @param positionOffset the offset for the word needed from the cache.
      * @param dataCachePositionNumber the data cache position number needed by the load.
      * @param finalRegister the number of the register where the word should be loaded.
      * @param callingThread the abstract thread calling to reserved the position.
      * @return true if solved, false if not.
      */
-    public boolean solveDataLoadMiss(int blockNumber, DataCachePosition dataCachePosition, int positionOffset,
-                                     int dataCachePositionNumber, int finalRegister, AbstractThread callingThread) {
+    public boolean solveDataLoadMiss(int blockNumber, int positionOffset, int dataCachePositionNumber,
+                                     int finalRegister, AbstractThread callingThread) {
 
-        int reservingContext = this.getReservedDataCachePosition()[1];
+        int reservingContext = this.getReservingContextNumber();
         int contextNumber = callingThread.currentContext.getContextNumber();
 
         // If there is another context with a reservation, release the locks, advance clock cycle and return false.
         if (reservingContext != -1 && reservingContext != contextNumber) {
-            dataCachePosition.unlock();
+            this.dataCache.unlock(dataCachePositionNumber);
             callingThread.advanceClockCycle();
             return false;
         }
@@ -421,41 +515,44 @@ public class CoreZero extends AbstractCore {
 
         // If the bus is already locked, release the locks, advance clock cycle and return false.
         if (!dataBus.tryLock()) {
-            dataCachePosition.unlock();
+            this.dataCache.unlock(dataCachePositionNumber);
             callingThread.advanceClockCycle();
             return false;
         }
         callingThread.advanceClockCycle();
 
-        // If there is a modified block in the position, write it to memory
-        if (dataCachePosition.getTag() != blockNumber && dataCachePosition.getState() == CachePositionState.MODIFIED) {
-            this.dataCache.writeBlockToMemory(dataCachePosition, callingThread);
+        // If the other context brought the block to another way of the set, release the locks and return false.
+        if (this.isBlockInOtherWay(blockNumber, dataCachePositionNumber)) {
+            dataBus.unlock();
+            return false;
         }
 
-        int otherDataCachePositionNumber = this.calculateOtherDataCachePosition(blockNumber);
-        DataCachePosition otherDataCachePosition = dataBus.getOtherCachePosition(this.coreNumber, otherDataCachePositionNumber);
+        // Bring the block from the other cache or from memory, as the coherence protocol says.
+        this.loadDataBlock(blockNumber, dataCachePositionNumber, callingThread);
 
-        // Try to lock the other cache position.
-        while (!otherDataCachePosition.tryLock()) {
-            callingThread.advanceClockCycle();
-        }
-        callingThread.advanceClockCycle();
+        callingThread.getCurrentContext().getRegisters()[finalRegister] = this.dataCache.getWord(dataCachePositionNumber, positionOffset);
 
-        // If the other cache position is modified, write it to memory and bring it to the cache.
-        if (otherDataCachePosition.getTag() == blockNumber && otherDataCachePosition.getState() == CachePositionState.MODIFIED) {
-            this.dataCache.writeBlockToMemory(otherDataCachePosition, callingThread);
-            this.dataCache.setPositionFromAnother(dataCachePosition, otherDataCachePosition);
-            otherDataCachePosition.setState(CachePositionState.SHARED);
+        // Release locks an reservations.
+        dataBus.unlock();
+        this.dataCache.unlock(dataCachePositionNumber);
+        this.setReservedDataCachePosition(-1, -1);
+        return true;
+    }
 
-        } else { // If it wasn't modified, bring it from memory.
-            this.dataCache.getBlockFromMemory(blockNumber, dataCachePositionNumber, callingThread);
+    /**
+     * Indicates if a block was brought to another way of its set while the position was looked up and locked, which
+     * only happens when both contexts miss the same block. If it was, the position and the reservation are released.
+     *
+     * @param blockNumber the block number needed.
+     * @param dataCachePositionNumber the number of the locked data cache position.
+     * @return true if the block is in another position, false if not.
+     */
+    private boolean isBlockInOtherWay(int blockNumber, int dataCachePositionNumber) {
+        if (this.dataCache.findPosition(blockNumber) == dataCachePositionNumber) {
+            return false;
         }
 
-        // Release locks an reservations.
-        otherDataCachePosition.unlock();
-        callingThread.getCurrentContext().getRegisters()[finalRegister] = dataCachePosition.getDataBlock().getWord(positionOffset);
-        dataBus.unlock();
-        dataCachePosition.unlock();
+        this.dataCache.unlock(dataCachePositionNumber);
         this.setReservedDataCachePosition(-1, -1);
         return true;
     }
@@ -468,7 +565,7 @@ public class CoreZero extends AbstractCore {
      * @return true if reserved, false if not.
      */
     private boolean canMakeReservation(int dataCachePositionNumber, AbstractThread callingThread) {
-        int reservingContext = this.getReservedDataCachePosition()[1];
+        int reservingContext = this.getReservingContextNumber();
         int contextNumber = callingThread.currentContext.getContextNumber();
 
         // If there is some other context that reserved a position
@@ -484,38 +581,35 @@ public class CoreZero extends AbstractCore {
      * Handles a store miss in the data cache for the core zero. It calls the enter cache miss method.
      *
      * @param blockNumber the block number needed by the store.
-     * @param dataCachePosition the data cache position needed by the store.
      * @param positionOffset the offset for the word needed from the cache.
+     * @param dataCachePositionNumber the data cache position number needed by the store.
      * @param value the value to store.
      * @return true if solved, false if not.
      */
     @Override
-    protected boolean handleStoreMiss(int blockNumber, DataCachePosition dataCachePosition, int positionOffset, int value) {
-        int dataCachePositionNumber = this.calculateCachePosition(blockNumber, this.coreNumber);
-
-        return this.enterCacheMiss(MissType.STORE, blockNumber, dataCachePositionNumber, dataCachePosition, positionOffset, value);
+    protected boolean handleStoreMiss(int blockNumber, int positionOffset, int dataCachePositionNumber, int value) {
+        return this.enterCacheMiss(MissType.STORE, blockNumber, dataCachePositionNumber, positionOffset, value);
     }
 
     /**
      * Solves a data cache miss for a store instruction.
      *
      * @param blockNumber the block number needed by the store.
-     * @param dataCachePosition the data cache position needed by the store.
      * @param positionOffset the offset for the word needed from the cache.
      * @param dataCachePositionNumber the data cache position number needed by the store.
      * @param value the value to store.
      * @param callingThread the abstract thread calling to perform the store miss.
      * @return true if solved, false if not.
      */
-    public boolean solveDataStoreMiss(int blockNumber, DataCachePosition dataCachePosition, int positionOffset,
-                                      int dataCachePositionNumber, int value, AbstractThread callingThread) {
+    public boolean solveDataStoreMiss(int blockNumber, int positionOffset, int dataCachePositionNumber, int value,
+                                      AbstractThread callingThread) {
 
-        int reservingContext = this.getReservedDataCachePosition()[1];
+        int reservingContext = this.getReservingContextNumber();
         int contextNumber = callingThread.currentContext.getContextNumber();
 
         // If there is another context with a reservation, release the locks, advance clock cycle and return false.
         if (reservingContext != -1 && reservingContext != contextNumber) {
-            dataCachePosition.unlock();
+            this.dataCache.unlock(dataCachePositionNumber);
             callingThread.advanceClockCycle();
             return false;
 
@@ -527,56 +621,26 @@ public class CoreZero extends AbstractCore {
 
         // If the bus is already locked, release the locks, advance clock cycle and return false.
         if (!dataBus.tryLock()) {
-            dataCachePosition.unlock();
+            this.dataCache.unlock(dataCachePositionNumber);
             callingThread.advanceClockCycle();
             return false;
         }
         callingThread.advanceClockCycle();
 
-        // If there is a modified block in the position, write it to memory
-        if (dataCachePosition.getTag() != blockNumber && dataCachePosition.getState() == CachePositionState.MODIFIED) {
-            this.dataCache.writeBlockToMemory(dataCachePosition, callingThread);
-        }
-
-        int otherDataCachePositionNumber = this.calculateOtherDataCachePosition(blockNumber);
-        DataCachePosition otherDataCachePosition = dataBus.getOtherCachePosition(this.coreNumber, otherDataCachePositionNumber);
-
-        // Try to lock the other cache position.
-        while (!otherDataCachePosition.tryLock()) {
-            callingThread.advanceClockCycle();
+        // If the other context brought the block to another way of the set, release the locks and return false.
+        if (this.isBlockInOtherWay(blockNumber, dataCachePositionNumber)) {
+            dataBus.unlock();
+            return false;
         }
-        callingThread.advanceClockCycle();
-
-        // If the other data cache position does not have block or it is invalid, just bring it from memory
-        if (otherDataCachePosition.getTag() != blockNumber || otherDataCachePosition.getState() == CachePositionState.INVALID) {
-            this.dataCache.getBlockFromMemory(blockNumber, dataCachePositionNumber, callingThread);
-            dataCachePosition.setState(CachePositionState.MODIFIED);
 
-        } else { // If the block is in the other position then...
+        // Bring the block from the other cache or from memory, invalidating the other copy, and set it to modified.
+        this.loadDataBlockForStore(blockNumber, dataCachePositionNumber, callingThread);
 
-            switch (otherDataCachePosition.getState()) {
-                case MODIFIED: // If it is modified, write it to memory, invalidate the other data cache position, bring it to local cache and set it to modified.
-                    this.dataCache.writeBlockToMemory(otherDataCachePosition, callingThread);
-                    otherDataCachePosition.setState(CachePositionState.INVALID);
-
-                    this.dataCache.setPositionFromAnother(dataCachePosition, otherDataCachePosition);
-                    dataCachePosition.setState(CachePositionState.MODIFIED);
-                    break;
-
-                case SHARED: // If it is shared, invalidate the other data cache position, bring it from memory and set it to modified
-                    otherDataCachePosition.setState(CachePositionState.INVALID);
-
-                    this.dataCache.getBlockFromMemory(blockNumber, dataCachePositionNumber, callingThread);
-                    dataCachePosition.setState(CachePositionState.MODIFIED);
-                    break;
-            }
-        }
+        this.dataCache.setWord(dataCachePositionNumber, positionOffset, value);
 
         // Release locks and reservations.
-        otherDataCachePosition.unlock();
-        dataCachePosition.getDataBlock().getWords()[positionOffset] = value;
         dataBus.unlock();
-        dataCachePosition.unlock();
+        this.dataCache.unlock(dataCachePositionNumber);
         this.setReservedDataCachePosition(-1, -1);
 
         return true;
@@ -586,41 +650,40 @@ public class CoreZero extends AbstractCore {
      * Handles a store hit in the data cache for the core zero. It calls the enter cache miss method.
      *
      * @param blockNumber the block number needed by the store.
-     * @param dataCachePosition the data cache position needed by the store.
      * @param positionOffset the offset for the word needed from the cache.
      * @param value the value to store.
      * @return true if stored, false if not.
      */
     @Override
-    protected boolean handleStoreHit(int blockNumber, DataCachePosition dataCachePosition, int dataCachePositionNumber, int positionOffset, int value) {
-        return this.enterCacheMiss(MissType.STORE_HIT, blockNumber, dataCachePositionNumber, dataCachePosition, positionOffset, value);
+    protected boolean handleStoreHit(int blockNumber, int dataCachePositionNumber, int positionOffset, int value) {
+        return this.enterCacheMiss(MissType.STORE_HIT, blockNumber, dataCachePositionNumber, positionOffset, value);
     }
 
     /**
      * Solves a data cache miss for a store instruction.
      *
      * @param blockNumber the block number needed by the store.
-     * @param dataCachePosition the data cache position needed by the store.
      * @param positionOffset the offset for the word needed from the cache.
      * @param dataCachePositionNumber the data cache position number needed by the store.
      * @param value the value to store.
      * @param callingThread the abstract thread calling to perform the store miss.
      * @return true if solved, false if not.
      */
-    public boolean solveDataStoreHit(int blockNumber, DataCachePosition dataCachePosition, int dataCachePositionNumber,
-                                     int positionOffset, int value, AbstractThread callingThread) {
-
-        // If the data cache position is modified, just store the word.
-        if (dataCachePosition.getState() == CachePositionState.MODIFIED) {
-            dataCachePosition.getDataBlock().getWords()[positionOffset] = value;
-            dataCachePosition.unlock();
+    public boolean solveDataStoreHit(int blockNumber, int dataCachePositionNumber, int positionOffset, int value,
+                                     AbstractThread callingThread) {
+
+        // If no other cache can have the block, just set it to modified and store the word.
+        if (this.coherenceStateMachine.isWritable(this.dataCache.getState(dataCachePositionNumber))) {
+            this.dataCache.setState(dataCachePositionNumber, CachePositionState.MODIFIED);
+            this.dataCache.setWord(dataCachePositionNumber, positionOffset, value);
+            this.dataCache.unlock(dataCachePositionNumber);
             callingThread.advanceClockCycle();
             return true;
         }
 
         // Try to make the reservation for the data cache position. If it was not possible, release the locks, advance a cycle and return false.
         if (!this.canMakeReservation(dataCachePositionNumber, callingThread)) {
-            dataCachePosition.unlock();
+            this.dataCache.unlock(dataCachePositionNumber);
             callingThread.advanceClockCycle();
             return false;
         }
@@ -628,37 +691,22 @@ public class CoreZero extends AbstractCore {
         DataBus dataBus = this.dataCache.getDataBus();
         // If the bus is already locked, release the locks, advance a clock cycle and return false.
         if (!dataBus.tryLock()) {
-            dataCachePosition.unlock();
+            this.dataCache.unlock(dataCachePositionNumber);
             callingThread.advanceClockCycle();
             return false;
         }
 
         callingThread.advanceClockCycle();
 
-        int otherDataCachePositionNumber = this.calculateOtherDataCachePosition(dataCachePosition.getTag());
-        DataCachePosition otherCachePosition = dataBus.getOtherCachePosition(this.coreNumber, otherDataCachePositionNumber);
-
-        // Try to lock the other data cache position.
-        while (!otherCachePosition.tryLock()) {
-            callingThread.advanceClockCycle();
-        }
-        callingThread.advanceClockCycle();
-
-        // Only if the other data cache position state is shared, set it to invalid. If not, don't touch it.
-        if (otherCachePosition.getTag() == blockNumber && otherCachePosition.getState() != CachePositionState.SHARED)
-            otherCachePosition.setState(CachePositionState.INVALID);
-
-        // Set the local data cache position to modified and store the value.
-        dataCachePosition.setState(CachePositionState.MODIFIED);
-        dataCachePosition.getDataBlock().getWords()[positionOffset] = value;
+        // Invalidate the copy of the other cache, set the local data cache position to modified and store the value.
+        this.invalidateOtherCopies(blockNumber, dataCachePositionNumber, callingThread);
+        this.dataCache.setWord(dataCachePositionNumber, positionOffset, value);
 
         // Release the locks and reservations.
-        otherCachePosition.unlock();
-
         this.setReservedDataCachePosition(-1, -1);
 
         dataBus.unlock();
-        dataCachePosition.unlock();
+        this.dataCache.unlock(dataCachePositionNumber);
 
         return true;
     }
@@ -680,11 +728,24 @@ public class CoreZero extends AbstractCore {
     }
 
     /**
-     * Logic for finishing the miss handler execution.
+     * Logic for finishing the miss handler execution. The solved context becomes the waiting context and the miss
+     * handler is removed at once, so the core never sees one change without the other.
+     *
+     * @param solvedContext the context whose miss was solved.
      */
-    public void finishMissHandlerExecution() {
+    public synchronized void finishMissHandlerExecution(Context solvedContext) {
+        this.setWaitingContext(solvedContext);
         this.solvedMiss();
-        this.setMissHandler(null);
+        this.setMissRequest(null);
+    }
+
+    /**
+     * Indicates if there is no context in the miss handler nor waiting to enter to execution.
+     *
+     * @return true if the miss handler and the waiting context are free, false if not.
+     */
+    private synchronized boolean isMissHandlerIdle() {
+        return this.waitingContext == null && this.missRequest == null;
     }
 
     /**
@@ -703,8 +764,8 @@ public class CoreZero extends AbstractCore {
         return missHandler;
     }
 
-    public synchronized void setMissHandler(MissHandler missHandler) {
-        this.missHandler = missHandler;
+    synchronized void setMissRequest(MissRequest missRequest) {
+        this.missRequest = missRequest;
     }
 
     public Context getWaitingContext() {
@@ -715,12 +776,16 @@ public class CoreZero extends AbstractCore {
         this.waitingContext = waitingContext;
     }
 
-    public int[] getReservedDataCachePosition() {
-        return reservedDataCachePosition;
+    public int getReservedDataCachePosition() {
+        return (int) this.reservedDataCachePosition;
+    }
+
+    public int getReservingContextNumber() {
+        return (int) (this.reservedDataCachePosition >> 32);
     }
 
     public synchronized void setReservedDataCachePosition(int reservedDataCachePosition, int contextNumber) {
-        this.reservedDataCachePosition = new int[]{reservedDataCachePosition, contextNumber};
+        this.reservedDataCachePosition = ((long) contextNumber << 32) | (reservedDataCachePosition & 0xFFFFFFFFL);
     }
 
     public int getReservedInstructionCachePosition() {
@@ -0,0 +1,236 @@
+package cr.ac.ucr.ecci.ci1323.core;
+
+import cr.ac.ucr.ecci.ci1323.cache.DataCache;
+import cr.ac.ucr.ecci.ci1323.cache.PrefetchPolicy;
+import cr.ac.ucr.ecci.ci1323.clock.SimulationClock;
+import cr.ac.ucr.ecci.ci1323.commons.SimulationConstants;
+import cr.ac.ucr.ecci.ci1323.context.Context;
+import cr.ac.ucr.ecci.ci1323.memory.DataBus;
+
+import java.nio.IntBuffer;
+
+/**
+ * Thread that prefetches the data blocks a core is about to need into stream buffers next to its data cache. It waits
+ * for the data bus like any other thread and holds it while it brings a block, and a block the core misses before the
+ * prefetcher starts bringing it is dropped, so the core brings it by itself.
+ *
+ * The stride policy keeps a table with the last block and the distance between the blocks of the last loads and stores
+ * that ran, indexed by their program counter, so a loop that walks memory at a fixed distance is followed by each of its
+ * instructions. The buffer has a position for each block of the prefetch degree of every instruction of the table.
+ *
+ * A prefetched block is a copy of memory that no data cache knows about, so it is brought and used while holding the
+ * data bus and the prefetcher drops it as soon as the block is written to memory. A core only uses it when no other
+ * data cache gives it the block.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+public class DataPrefetcher extends Prefetcher {
+
+    private final DataCache dataCache;
+
+    /**
+     * The words of the block of every position of the buffer, one block after the other, and the context whose access
+     * requested each block.
+     */
+    private final IntBuffer words;
+    private final Context[] requestingContexts;
+
+    /**
+     * The program counter of each instruction of the stride table, -1 if the entry is empty, with the last block it
+     * accessed, the distance from the block before it, if that distance repeated, and when the entry was last used.
+     */
+    private final int[] programCounters;
+    private final int[] lastBlockNumbers;
+    private final int[] strides;
+    private final boolean[] stridesConfirmed;
+    private final long[] lastUses;
+    private long nextUse;
+
+    /**
+     * Class constructor
+     * @param dataCache the data cache of the core
+     * @param prefetchPolicy the policy that chooses the blocks to prefetch
+     * @param degree the number of blocks prefetched after each access that triggers the prefetcher
+     * @param simulationBarrier the barrier of the simulation
+     * @param threadBackend the kind of thread that runs the prefetcher
+     */
+    DataPrefetcher(DataCache dataCache, PrefetchPolicy prefetchPolicy, int degree, SimulationClock simulationBarrier,
+                   ThreadBackend threadBackend) {
+        super(prefetchPolicy, degree, SimulationConstants.PREFETCH_STREAMS * degree, simulationBarrier,
+                threadBackend);
+        this.dataCache = dataCache;
+
+        int bufferSize = SimulationConstants.PREFETCH_STREAMS * degree;
+        this.words = IntBuffer.allocate(bufferSize * SimulationConstants.WORDS_PER_DATA_BLOCK);
+        this.requestingContexts = new Context[bufferSize];
+
+        this.programCounters = new int[SimulationConstants.PREFETCH_STREAMS];
+        this.lastBlockNumbers = new int[SimulationConstants.PREFETCH_STREAMS];
+        this.strides = new int[SimulationConstants.PREFETCH_STREAMS];
+        this.stridesConfirmed = new boolean[SimulationConstants.PREFETCH_STREAMS];
+        this.lastUses = new long[SimulationConstants.PREFETCH_STREAMS];
+        for (int i = 0; i < SimulationConstants.PREFETCH_STREAMS; i++) {
+            this.programCounters[i] = -1;
+        }
+    }
+
+    /**
+     * Learns from a load or store of the core and requests the blocks it is about to need: with the next line policy
+     * the blocks right after a block the core missed, and with the stride policy the blocks that follow the distance of
+     * the instruction once it repeats. The blocks are only requested here, so they don't take the data bus before the
+     * access that requested them; the core makes the prefetcher bring them once the access has its block.
+     * @param programCounter the program counter of the instruction
+     * @param blockNumber the number of the block it accesses
+     * @param hit true if the block was in the data cache
+     * @param context the context that runs the instruction
+     */
+    public synchronized void train(int programCounter, int blockNumber, boolean hit, Context context) {
+        if (this.isFinished()) {
+            return;
+        }
+
+        int stride;
+        if (this.prefetchPolicy == PrefetchPolicy.STRIDE) {
+            stride = this.trainStride(programCounter, blockNumber);
+        } else {
+            stride = hit ? 0 : 1;
+        }
+        if (stride == 0) {
+            return;
+        }
+
+        DataBus dataBus = this.dataCache.getDataBus();
+        int degree = this.nextDegree();
+        for (int i = 1; i <= degree; i++) {
+            int prefetchedBlockNumber = blockNumber + i * stride;
+            if (prefetchedBlockNumber < 0 || prefetchedBlockNumber >= dataBus.getTotalBlocks() ||
+                    this.findBlock(prefetchedBlockNumber) != -1 || this.dataCache.hasBlock(prefetchedBlockNumber)) {
+                continue;
+            }
+
+            int position = this.requestBlock(prefetchedBlockNumber);
+            if (position == -1) {
+                break;
+            }
+            this.requestingContexts[position] = context;
+            context.incrementDataPrefetches();
+        }
+    }
+
+    /**
+     * Makes the prefetcher bring the blocks requested by the last accesses of the core.
+     */
+    public void prefetch() {
+        this.bringRequestedBlocks();
+    }
+
+    /**
+     * Copies a block from the buffer to a data cache position for a miss of the core, if the block was already brought.
+     * A block that is still waiting to be brought is dropped, because the core brings it by itself. The caller holds
+     * the data bus, so no block is being brought.
+     * @param blockNumber the number of the block
+     * @param dataPositionNumber the number of the data cache position that receives the block
+     * @return true if the position got the block, false if the buffer didn't have it
+     */
+    public synchronized boolean takeBlock(int blockNumber, int dataPositionNumber) {
+        int position = this.findBlock(blockNumber);
+        if (position == -1) {
+            return false;
+        }
+        if (!this.isReady(position)) {
+            this.dropRequest(position);
+            this.requestingContexts[position] = null;
+            return false;
+        }
+
+        // Both sides of the prefetch go to the context that requested it, even if another context of the core missed.
+        this.dataCache.copyWordsFrom(dataPositionNumber, this.words, position * SimulationConstants.WORDS_PER_DATA_BLOCK);
+        Context requestingContext = this.requestingContexts[position];
+        requestingContext.incrementUsefulDataPrefetches();
+        requestingContext.incrementPrefetchedDataMisses();
+        this.requestingContexts[position] = null;
+        this.takePosition(position, false);
+        return true;
+    }
+
+    /**
+     * Drops the copy of a block written to memory or to the second level cache, so the core never uses old words. The
+     * caller holds the data bus, so no block is being brought.
+     * @param blockNumber the number of the block
+     */
+    public synchronized void invalidateBlock(int blockNumber) {
+        int position = this.findBlock(blockNumber);
+        if (position != -1 && this.isReady(position)) {
+            this.dropBlock(position);
+            this.requestingContexts[position] = null;
+        }
+    }
+
+    /**
+     * Brings a requested block while holding the data bus and puts its words in the buffer. The block is dropped if the
+     * core missed it while the prefetcher waited for the bus.
+     * @param blockNumber the number of the block
+     */
+    @Override
+    protected void bringBlock(int blockNumber) {
+        DataBus dataBus = this.dataCache.getDataBus();
+        while (!dataBus.tryLock()) {
+            this.advanceIdleClockCycle();
+        }
+        this.advanceClockCycle();
+
+        int position;
+        synchronized (this) {
+            position = this.findBlock(blockNumber);
+        }
+        if (position != -1) {
+            // Nobody else changes the position while it is being brought.
+            this.dataCache.prefetchDataBlock(blockNumber, this.words,
+                    position * SimulationConstants.WORDS_PER_DATA_BLOCK, this);
+            synchronized (this) {
+                this.setReady(position);
+            }
+        }
+
+        dataBus.unlock();
+    }
+
+    /**
+     * Gets the distance between the blocks to prefetch for an instruction, which is used once two accesses in a row of
+     * the instruction were at the same distance. An instruction that isn't in the table replaces the least recently
+     * used one.
+     * @param programCounter the program counter of the instruction
+     * @param blockNumber the number of the block it accesses
+     * @return the distance between the accessed block and the first block to prefetch, 0 if there is none
+     */
+    private int trainStride(int programCounter, int blockNumber) {
+        int entry = -1;
+        for (int i = 0; i < this.programCounters.length; i++) {
+            if (this.programCounters[i] == programCounter) {
+                entry = i;
+                break;
+            }
+            if (entry == -1 || this.lastUses[i] < this.lastUses[entry]) {
+                entry = i;
+            }
+        }
+        this.lastUses[entry] = this.nextUse++;
+
+        if (this.programCounters[entry] != programCounter) {
+            this.programCounters[entry] = programCounter;
+            this.lastBlockNumbers[entry] = blockNumber;
+            this.strides[entry] = 0;
+            this.stridesConfirmed[entry] = false;
+            return 0;
+        }
+
+        int stride = blockNumber - this.lastBlockNumbers[entry];
+        if (stride == 0) {
+            return 0; // The instruction is in the same block, or it runs again after a context change.
+        }
+        this.stridesConfirmed[entry] = stride == this.strides[entry];
+        this.strides[entry] = stride;
+        this.lastBlockNumbers[entry] = blockNumber;
+        return this.stridesConfirmed[entry] ? stride : 0;
+    }
+}
@@ -0,0 +1,171 @@
+package cr.ac.ucr.ecci.ci1323.core;
+
+import cr.ac.ucr.ecci.ci1323.cache.InstructionCache;
+import cr.ac.ucr.ecci.ci1323.cache.PrefetchPolicy;
+import cr.ac.ucr.ecci.ci1323.clock.SimulationClock;
+import cr.ac.ucr.ecci.ci1323.memory.InstructionBlock;
+import cr.ac.ucr.ecci.ci1323.memory.InstructionBus;
+
+/**
+ * Thread that prefetches the instruction blocks a core is about to need into a buffer next to its instruction cache,
+ * taking the instruction bus only while no fetch of a core waits for it and giving it up as soon as one does. A block
+ * the core misses while it still waits behind other requests is dropped, so the core fetches it by itself. The buffer
+ * has a position for each block of the prefetch degree.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+public class InstructionPrefetcher extends Prefetcher {
+
+    private final InstructionCache instructionCache;
+    private final InstructionBus instructionBus;
+
+    /**
+     * The instructions of each position of the buffer, null while its block is being brought.
+     */
+    private final InstructionBlock[] instructionBlocks;
+
+    /**
+     * The block of the last miss of the core and the distance from the miss before it, for the stride policy.
+     */
+    private int lastMissBlockNumber;
+    private int lastStride;
+    private boolean strideConfirmed;
+
+    /**
+     * Class constructor
+     * @param instructionCache the instruction cache of the core
+     * @param instructionBus the instruction bus of the simulation
+     * @param prefetchPolicy the policy that chooses the blocks to prefetch
+     * @param degree the number of blocks prefetched after each fetched block
+     * @param simulationBarrier the barrier of the simulation
+     * @param threadBackend the kind of thread that runs the prefetcher
+     */
+    InstructionPrefetcher(InstructionCache instructionCache, InstructionBus instructionBus,
+                          PrefetchPolicy prefetchPolicy, int degree, SimulationClock simulationBarrier,
+                          ThreadBackend threadBackend) {
+        super(prefetchPolicy, degree, degree, simulationBarrier, threadBackend);
+        this.instructionCache = instructionCache;
+        this.instructionBus = instructionBus;
+        this.instructionBlocks = new InstructionBlock[degree];
+        this.lastMissBlockNumber = -1;
+    }
+
+    /**
+     * Requests the blocks that follow a block the core fetched. It registers the prefetcher to the simulation clock on
+     * behalf of the calling thread if it wasn't running, so the prefetcher takes part of the current phase.
+     * @param blockNumber the number of the fetched block
+     * @param missed true if the core missed the block, false if it found it in the buffer
+     */
+    public void prefetch(int blockNumber, boolean missed) {
+        synchronized (this) {
+            if (this.isFinished()) {
+                return;
+            }
+
+            if (missed) {
+                this.cancelRequests();
+            }
+
+            int stride = this.trainStride(blockNumber, missed);
+            int degree = this.nextDegree();
+            for (int i = 1; i <= degree; i++) {
+                int prefetchedBlockNumber = blockNumber + i * stride;
+                if (!this.instructionBus.hasInstructionBlock(prefetchedBlockNumber) ||
+                        this.findBlock(prefetchedBlockNumber) != -1 ||
+                        this.instructionCache.hasBlock(prefetchedBlockNumber)) {
+                    continue;
+                }
+
+                if (this.requestBlock(prefetchedBlockNumber) == -1) {
+                    break;
+                }
+            }
+        }
+
+        this.bringRequestedBlocks();
+    }
+
+    /**
+     * Takes a block out of the buffer for a miss of the core. If the block is being brought, the calling thread waits
+     * for it, but a block still waiting behind other requests is dropped, because the fetch of the core gets the bus
+     * before the prefetcher.
+     * @param blockNumber the number of the block
+     * @param callingThread the thread that waits for the block
+     * @return the instructions of the block, null if the buffer doesn't have it
+     */
+    public InstructionBlock takeBlock(int blockNumber, AbstractThread callingThread) {
+        boolean waited = false;
+        while (true) {
+            synchronized (this) {
+                int position = this.findBlock(blockNumber);
+                if (position == -1) {
+                    return null;
+                }
+
+                if (this.isReady(position)) {
+                    InstructionBlock instructionBlock = this.instructionBlocks[position];
+                    this.instructionBlocks[position] = null;
+                    this.takePosition(position, waited);
+                    return instructionBlock;
+                }
+                if (this.isRequested(position)) {
+                    this.dropRequest(position);
+                    return null;
+                }
+                this.claim(position);
+            }
+
+            waited = true;
+            callingThread.advanceIdleClockCycle();
+        }
+    }
+
+    /**
+     * Brings a requested block through the instruction cache and puts its instructions in the buffer. The block is
+     * dropped if the prefetcher gave up the instruction bus to a fetch of a core.
+     * @param blockNumber the number of the block
+     */
+    @Override
+    protected void bringBlock(int blockNumber) {
+        InstructionBlock instructionBlock = this.instructionCache.prefetchInstructionBlock(blockNumber, this);
+        synchronized (this) {
+            int position = this.findBlock(blockNumber);
+            if (instructionBlock == null) {
+                this.abandonBlock(position);
+                return;
+            }
+            this.instructionBlocks[position] = instructionBlock;
+            this.setReady(position);
+        }
+    }
+
+    /**
+     * Tells if the prefetcher must leave the instruction bus, because the fetches of the cores go first. Even a block
+     * its own core waits for is given up, since the core then fetches it by itself.
+     * @return true if a fetch of a core waits for the bus
+     */
+    public boolean mustGiveUpBus() {
+        return this.instructionBus.hasWaitingFetches();
+    }
+
+    /**
+     * Gets the distance between the blocks to prefetch. The stride policy learns it from the misses of the core, and
+     * uses it once two misses in a row were at the same distance.
+     * @param blockNumber the number of the fetched block
+     * @param missed true if the core missed the block
+     * @return the distance between the fetched block and the first block to prefetch
+     */
+    private int trainStride(int blockNumber, boolean missed) {
+        if (this.prefetchPolicy != PrefetchPolicy.STRIDE) {
+            return 1;
+        }
+
+        if (missed) {
+            int stride = this.lastMissBlockNumber == -1 ? 0 : blockNumber - this.lastMissBlockNumber;
+            this.strideConfirmed = stride != 0 && stride == this.lastStride;
+            this.lastStride = stride;
+            this.lastMissBlockNumber = blockNumber;
+        }
+        return this.strideConfirmed ? this.lastStride : 1;
+    }
+}
@@ -1,58 +1,76 @@
 package cr.ac.ucr.ecci.ci1323.core;
 
 import cr.ac.ucr.ecci.ci1323.cache.CachePositionState;
-import cr.ac.ucr.ecci.ci1323.cache.DataCachePosition;
-import cr.ac.ucr.ecci.ci1323.context.Context;
-
-import java.util.concurrent.Phaser;
+import cr.ac.ucr.ecci.ci1323.cache.DataCache;
+import cr.ac.ucr.ecci.ci1323.clock.SimulationClock;
 
 /**
- * Thread for handling cache misses that occur in core zero
+ * Thread for handling cache misses that occur in core zero. A single thread is started with the core and solves every
+ * miss the core sends it, joining the simulation clock for each miss and leaving it when it is solved.
  */
-public class MissHandler extends AbstractThread {
+public class MissHandler extends OnDemandThread {
 
     private volatile CoreZero coreZero;
     private volatile MissType missType;
     private volatile int nextCachePosition;
     private volatile int nextBlockNumber;
-    private volatile DataCachePosition dataCachePosition;
     private volatile int dataCachePositionOffset;
     private volatile int finalRegister;
 
+    /**
+     * The miss sent by core zero, waiting to be solved, null if there is none.
+     */
+    private MissRequest pendingMissRequest;
+
     /**
      * Class constructor
      * @param coreZero the simulation's core zero
-     * @param context the context in which the miss happened
-     * @param missType the kind of miss
      * @param simulationBarrier the barrier of the simulation
-     * @param nextBlockNumber the block number that caused the miss
-     * @param nextCachePosition the number of the cache position in which the block that missed will be loaded
-     * @param dataCachePosition the data cache position in which the block that missed will be loaded
-     * @param dataCachePositionOffset the offset that marks the word relevant to the miss
-     * @param finalRegister the final register for a load, acts as the value to store value for the store
+     * @param threadBackend the kind of thread that runs the miss handler
      */
-    MissHandler(CoreZero coreZero, Context context, MissType missType, Phaser simulationBarrier, int nextBlockNumber,
-                int nextCachePosition, DataCachePosition dataCachePosition, int dataCachePositionOffset, int finalRegister) {
-        super(simulationBarrier, context);
+    MissHandler(CoreZero coreZero, SimulationClock simulationBarrier, ThreadBackend threadBackend) {
+        super(simulationBarrier, threadBackend);
         this.coreZero = coreZero;
-        this.missType = missType;
-        this.nextCachePosition = nextCachePosition;
-        this.nextBlockNumber = nextBlockNumber;
-        this.dataCachePosition = dataCachePosition;
-        this.dataCachePositionOffset = dataCachePositionOffset;
-        this.finalRegister = finalRegister;
     }
 
     /**
-     * Starts the execution of the miss handler thread
+     * Sends a miss to the miss handler. It registers the miss handler to the simulation clock on behalf of the calling
+     * core, so the miss handler takes part of the current phase.
+     * @param missRequest the miss to solve
      */
+    void handleMiss(MissRequest missRequest) {
+        synchronized (this) {
+            this.pendingMissRequest = missRequest;
+        }
+        this.wake();
+    }
+
     @Override
-    public void run() {
-        this.simulationBarrier.register();
+    protected boolean hasWork() {
+        return this.pendingMissRequest != null;
+    }
+
+    /**
+     * Solves the miss sent by core zero and gives its context back to the core.
+     */
+    @Override
+    protected void doWork() {
+        MissRequest missRequest;
+        synchronized (this) {
+            missRequest = this.pendingMissRequest;
+            this.pendingMissRequest = null;
+        }
+
+        this.setCurrentContext(missRequest.getContext());
+        this.missType = missRequest.getMissType();
+        this.nextBlockNumber = missRequest.getNextBlockNumber();
+        this.nextCachePosition = missRequest.getNextCachePosition();
+        this.dataCachePositionOffset = missRequest.getDataCachePositionOffset();
+        this.finalRegister = missRequest.getFinalRegister();
+
         this.solveMiss();
-        this.coreZero.setWaitingContext(this.currentContext);
-        this.coreZero.finishMissHandlerExecution();
-        this.simulationBarrier.arriveAndDeregister();
+        this.recordAccess();
+        this.coreZero.finishMissHandlerExecution(this.currentContext);
     }
 
     /**
@@ -81,6 +99,37 @@ public class MissHandler extends AbstractThread {
         }
     }
 
+    /**
+     * Looks up and locks the data cache position of the block of the miss. The block may be brought to another way of
+     * its set while the miss handler waits for the lock, so the position is looked up again until the locked one is
+     * still the position of the block.
+     */
+    private void lockDataCachePosition() {
+        DataCache dataCache = this.coreZero.getDataCache();
+        while (true) {
+            this.nextCachePosition = dataCache.findPosition(this.nextBlockNumber);
+            while (!dataCache.tryLock(this.nextCachePosition)) {
+                this.advanceIdleClockCycle();
+            }
+
+            if (dataCache.findPosition(this.nextBlockNumber) == this.nextCachePosition) {
+                return;
+            }
+            dataCache.unlock(this.nextCachePosition);
+        }
+    }
+
+    /**
+     * Records the access of the solved miss in the replacement policy of its cache.
+     */
+    private void recordAccess() {
+        if (this.missType == MissType.INSTRUCTION) {
+            this.coreZero.getInstructionCache().access(this.nextCachePosition);
+        } else {
+            this.coreZero.getDataCache().access(this.nextCachePosition);
+        }
+    }
+
     /**
      * Solves an instruction miss
      */
@@ -99,12 +148,10 @@ public class MissHandler extends AbstractThread {
         boolean solvedMiss = false;
         while (!solvedMiss) {
 
-            while (!this.dataCachePosition.tryLock()) {
-                this.advanceClockCycle();
-            }
+            this.lockDataCachePosition();
 
-            solvedMiss = this.coreZero.solveDataLoadMiss(this.nextBlockNumber, this.dataCachePosition,
-                        this.dataCachePositionOffset, this.nextCachePosition, this.finalRegister, this);
+            solvedMiss = this.coreZero.solveDataLoadMiss(this.nextBlockNumber, this.dataCachePositionOffset,
+                        this.nextCachePosition, this.finalRegister, this);
 
         }
     }
@@ -116,11 +163,9 @@ public class MissHandler extends AbstractThread {
         boolean solvedMiss = false;
         while (!solvedMiss) {
 
-            while (!this.dataCachePosition.tryLock()) {
-                this.advanceClockCycle();
-            }
+            this.lockDataCachePosition();
 
-            solvedMiss = this.coreZero.solveDataStoreMiss(this.nextBlockNumber, this.dataCachePosition, this.dataCachePositionOffset, this.nextCachePosition, this.finalRegister, this);
+            solvedMiss = this.coreZero.solveDataStoreMiss(this.nextBlockNumber, this.dataCachePositionOffset, this.nextCachePosition, this.finalRegister, this);
         }
     }
 
@@ -132,26 +177,12 @@ public class MissHandler extends AbstractThread {
         boolean solvedMiss = false;
         while (!solvedMiss) {
 
-            while (!this.dataCachePosition.tryLock()) {
-                this.advanceClockCycle();
-            }
+            this.lockDataCachePosition();
 
-            solvedMiss = this.coreZero.solveDataStoreHit(this.nextBlockNumber, this.dataCachePosition, this.nextCachePosition, this.dataCachePositionOffset, this.finalRegister, this);
+            solvedMiss = this.coreZero.solveDataStoreHit(this.nextBlockNumber, this.nextCachePosition, this.dataCachePositionOffset, this.finalRegister, this);
         }
     }
     
-    public void setCoreZero(CoreZero coreZero) {
-        this.coreZero = coreZero;
-    }
-
-    public void setMissType(MissType missType) {
-        this.missType = missType;
-    }
-
-    public void setSimulationBarrier(Phaser simulationBarrier) {
-        this.simulationBarrier = simulationBarrier;
-    }
-
     public int getNextCachePosition() {
         return nextCachePosition;
     }
@@ -0,0 +1,62 @@
+package cr.ac.ucr.ecci.ci1323.core;
+
+import cr.ac.ucr.ecci.ci1323.context.Context;
+
+/**
+ * A cache miss of core zero sent to the miss handler, with everything needed to solve it. Each core zero has a single
+ * request that it fills again for every miss, because the miss handler copies it before the core can send another one.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+class MissRequest {
+
+    private Context context;
+    private MissType missType;
+    private int nextBlockNumber;
+    private int nextCachePosition;
+    private int dataCachePositionOffset;
+    private int finalRegister;
+
+    /**
+     * Fills the request with a new miss.
+     * @param context the context in which the miss happened
+     * @param missType the kind of miss
+     * @param nextBlockNumber the block number that caused the miss
+     * @param nextCachePosition the number of the cache position in which the block that missed will be loaded
+     * @param dataCachePositionOffset the offset that marks the word relevant to the miss
+     * @param finalRegister the final register for a load, acts as the value to store value for the store
+     */
+    void set(Context context, MissType missType, int nextBlockNumber, int nextCachePosition,
+             int dataCachePositionOffset, int finalRegister) {
+        this.context = context;
+        this.missType = missType;
+        this.nextBlockNumber = nextBlockNumber;
+        this.nextCachePosition = nextCachePosition;
+        this.dataCachePositionOffset = dataCachePositionOffset;
+        this.finalRegister = finalRegister;
+    }
+
+    Context getContext() {
+        return context;
+    }
+
+    MissType getMissType() {
+        return missType;
+    }
+
+    int getNextBlockNumber() {
+        return nextBlockNumber;
+    }
+
+    int getNextCachePosition() {
+        return nextCachePosition;
+    }
+
+    int getDataCachePositionOffset() {
+        return dataCachePositionOffset;
+    }
+
+    int getFinalRegister() {
+        return finalRegister;
+    }
+}
@@ -0,0 +1,157 @@
+package cr.ac.ucr.ecci.ci1323.core;
+
+import cr.ac.ucr.ecci.ci1323.clock.SimulationClock;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Base of the helper threads of a core that only take part of the simulation clock while they have work to do, like
+ * the miss handler, the prefetchers and the write buffer. The thread that gives a helper thread work wakes it up,
+ * registering it to the simulation clock on its behalf so it takes part of the current phase, and the helper thread
+ * leaves the clock by itself once it has done all of its work.
+ *
+ * The work of a helper thread is guarded by its monitor, which is never held while the clock advances.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+public abstract class OnDemandThread extends AbstractThread {
+
+    /**
+     * True while the thread is in the simulation clock, and if its core has finished.
+     */
+    private boolean running;
+    private boolean finished;
+
+    /**
+     * True from the moment the thread is registered to the simulation clock until it leaves it, and from the moment
+     * it is woken up until it starts working. The threads wait on them parking instead of with a blocking queue or a
+     * semaphore, so handing work to the thread allocates nothing.
+     */
+    private volatile boolean inClock;
+    private volatile boolean awake;
+
+    /**
+     * The thread waiting for this thread to leave the clock before registering it again, if any.
+     */
+    private volatile Thread wakingThread;
+
+    /**
+     * Class constructor
+     * @param simulationBarrier the barrier of the simulation
+     * @param threadBackend the kind of thread that runs the helper thread
+     */
+    OnDemandThread(SimulationClock simulationBarrier, ThreadBackend threadBackend) {
+        super(simulationBarrier, null, threadBackend);
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * @return true if the thread has work to do. The caller holds the monitor of the thread.
+     */
+    protected abstract boolean hasWork();
+
+    /**
+     * Does the next piece of work of the thread, advancing the clock cycles it takes. It is called without holding
+     * the monitor, so the work it found may be gone.
+     */
+    protected abstract void doWork();
+
+    /**
+     * Makes the thread do the work it was given. It registers the thread to the simulation clock on behalf of the
+     * calling thread if it wasn't running, so the thread takes part of the current phase. The caller doesn't hold the
+     * monitor of the thread.
+     */
+    protected void wake() {
+        synchronized (this) {
+            if (this.running || !this.hasWork()) {
+                return;
+            }
+            this.running = true;
+        }
+
+        // Wait until the thread left the clock after its previous work, it doesn't wait for the clock to do it.
+        this.wakingThread = Thread.currentThread();
+        while (this.inClock) {
+            LockSupport.park(this);
+        }
+        this.wakingThread = null;
+
+        this.inClock = true;
+        this.simulationBarrier.register(this.thread);
+        this.awake = true;
+        LockSupport.unpark(this.thread);
+    }
+
+    /**
+     * Stops the thread once its core has finished. If it is still working, it stops by itself after leaving the clock.
+     */
+    void shutdown() {
+        synchronized (this) {
+            this.finished = true;
+            if (this.running) {
+                return;
+            }
+        }
+        this.thread.interrupt();
+    }
+
+    /**
+     * Starts the execution of the thread, which does the work it is given until it is shut down.
+     */
+    @Override
+    public void run() {
+        while (this.awaitWakeUp()) {
+            this.simulationBarrier.awaitTurn();
+
+            this.drain();
+            this.simulationBarrier.arriveAndDeregister();
+            this.inClock = false;
+            LockSupport.unpark(this.wakingThread);
+
+            synchronized (this) {
+                if (this.finished) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits until the thread is woken up to do some work.
+     * @return false if it was interrupted instead, because the core finished and there is no more work to do
+     */
+    private boolean awaitWakeUp() {
+        while (!this.awake) {
+            if (this.thread.isInterrupted()) {
+                return false;
+            }
+            LockSupport.park(this);
+        }
+        this.awake = false;
+        return true;
+    }
+
+    /**
+     * Does the work of the thread until there is none left, and marks it as out of the clock in the same step as it
+     * finds that, so a thread that gives it work afterwards registers it again.
+     */
+    private void drain() {
+        while (true) {
+            synchronized (this) {
+                if (!this.hasWork()) {
+                    this.running = false;
+                    return;
+                }
+            }
+
+            this.doWork();
+        }
+    }
+
+    /**
+     * @return true if the core has finished, so the thread gets no more work. The caller holds the monitor.
+     */
+    protected boolean isFinished() {
+        return this.finished;
+    }
+}
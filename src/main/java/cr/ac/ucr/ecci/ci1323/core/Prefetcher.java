@@ -0,0 +1,383 @@
+package cr.ac.ucr.ecci.ci1323.core;
+
+import cr.ac.ucr.ecci.ci1323.cache.PrefetchPolicy;
+import cr.ac.ucr.ecci.ci1323.clock.SimulationClock;
+import cr.ac.ucr.ecci.ci1323.commons.SimulationConstants;
+
+/**
+ * Base of the threads that prefetch the blocks a core is about to need into a buffer next to one of its caches. Like
+ * the miss handler, a prefetcher joins the simulation clock when it gets blocks to bring and leaves it when it has
+ * brought all of them. It holds a bus for the whole time it takes to bring a block, so each subclass decides how it
+ * leaves the bus to the misses of the cores, and the prefetcher lowers the number of blocks it brings while most of
+ * them are useless.
+ *
+ * A prefetched block moves to the cache the first time the core misses it, so the blocks that are never used don't
+ * replace any block of the cache. Each position of the buffer has a block that is waiting to be brought, that is being
+ * brought or that is ready. The buffer is guarded by the monitor of the prefetcher, which is never held while the clock
+ * advances.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+public abstract class Prefetcher extends OnDemandThread {
+
+    protected final PrefetchPolicy prefetchPolicy;
+
+    /**
+     * The most blocks prefetched after each block that triggers the prefetcher.
+     */
+    protected final int degree;
+
+    /**
+     * The blocks prefetched after each trigger right now. It is halved when most of the prefetches of the last window
+     * were useless, and doubled back up to the degree when nearly all of them were used. At 0 the prefetcher only
+     * prefetches one block every few triggers, so it finds out when its prefetches become useful again.
+     */
+    private int activeDegree;
+    private int skippedTriggers;
+
+    /**
+     * The prefetches that ended since the active degree was last adjusted, and how many of them the core used,
+     * including the late ones.
+     */
+    private int windowPrefetches;
+    private int windowUsedPrefetches;
+
+    /**
+     * The block of each position of the buffer, -1 if it is empty, and if it was already brought. A claimed block is
+     * one the core is waiting for, so it can't be replaced.
+     */
+    private final int[] blockNumbers;
+    private final boolean[] ready;
+    private final boolean[] claimed;
+
+    /**
+     * The order in which the blocks of the buffer were requested, to replace the oldest one.
+     */
+    private final long[] requestOrder;
+    private long nextRequest;
+
+    /**
+     * The blocks waiting to be brought, in the order they were requested, as a ring that starts at the first request.
+     * Each of them has a position of the buffer, so the ring never has more requests than the buffer has positions.
+     */
+    private final int[] requests;
+    private int firstRequest;
+    private int requestCount;
+
+    private volatile int usefulPrefetches;
+    private volatile int latePrefetches;
+    private volatile int uselessPrefetches;
+
+    /**
+     * Class constructor
+     * @param prefetchPolicy the policy that chooses the blocks to prefetch
+     * @param degree the number of blocks prefetched after each block that triggers the prefetcher
+     * @param bufferSize the number of positions of the buffer
+     * @param simulationBarrier the barrier of the simulation
+     * @param threadBackend the kind of thread that runs the prefetcher
+     */
+    Prefetcher(PrefetchPolicy prefetchPolicy, int degree, int bufferSize, SimulationClock simulationBarrier,
+               ThreadBackend threadBackend) {
+        super(simulationBarrier, threadBackend);
+        this.prefetchPolicy = prefetchPolicy;
+        this.degree = degree;
+        this.activeDegree = degree;
+
+        this.blockNumbers = new int[bufferSize];
+        this.ready = new boolean[bufferSize];
+        this.claimed = new boolean[bufferSize];
+        this.requestOrder = new long[bufferSize];
+        for (int i = 0; i < bufferSize; i++) {
+            this.blockNumbers[i] = -1;
+        }
+        this.requests = new int[bufferSize];
+    }
+
+    /**
+     * Brings a requested block and puts it in its position of the buffer, advancing the clock cycles it takes.
+     * @param blockNumber the number of the block
+     */
+    protected abstract void bringBlock(int blockNumber);
+
+    /**
+     * Gets the number of blocks to prefetch for a trigger, throttled by how many of the last prefetches were useless.
+     * The caller holds the monitor of the prefetcher.
+     * @return the number of blocks, 0 if the prefetcher must skip the trigger
+     */
+    protected int nextDegree() {
+        if (this.activeDegree > 0) {
+            return this.activeDegree;
+        }
+
+        if (++this.skippedTriggers < SimulationConstants.PREFETCH_PROBE_INTERVAL) {
+            return 0;
+        }
+        this.skippedTriggers = 0;
+        return 1;
+    }
+
+    /**
+     * Counts the end of a prefetch and adjusts the active degree once a window of prefetches ended.
+     * @param used true if the core used the block, even if it needed it before it was brought
+     */
+    private void countPrefetch(boolean used) {
+        this.windowPrefetches++;
+        if (used) {
+            this.windowUsedPrefetches++;
+        }
+        if (this.windowPrefetches < SimulationConstants.PREFETCH_THROTTLE_WINDOW) {
+            return;
+        }
+
+        int uselessPrefetches = this.windowPrefetches - this.windowUsedPrefetches;
+        if (uselessPrefetches > this.windowUsedPrefetches) {
+            this.activeDegree /= 2;
+        } else if (this.windowUsedPrefetches >= 3 * uselessPrefetches) {
+            this.activeDegree = Math.min(this.degree, Math.max(1, 2 * this.activeDegree));
+        }
+        this.windowPrefetches = 0;
+        this.windowUsedPrefetches = 0;
+    }
+
+    /**
+     * Requests a block that the buffer doesn't have. The caller holds the monitor of the prefetcher.
+     * @param blockNumber the number of the block
+     * @return the position of the buffer that will have the block, -1 if the buffer already has it or if every block
+     * of the buffer is still being brought or claimed
+     */
+    protected int requestBlock(int blockNumber) {
+        if (this.findBlock(blockNumber) != -1) {
+            return -1;
+        }
+
+        int position = this.findFreePosition();
+        if (position != -1) {
+            this.blockNumbers[position] = blockNumber;
+            this.ready[position] = false;
+            this.requestOrder[position] = this.nextRequest++;
+            this.requests[(this.firstRequest + this.requestCount++) % this.requests.length] = blockNumber;
+        }
+        return position;
+    }
+
+    /**
+     * Makes the prefetcher bring the requested blocks. It registers the prefetcher to the simulation clock on behalf
+     * of the calling thread if it wasn't running, so the prefetcher takes part of the current phase. The caller
+     * doesn't hold the monitor of the prefetcher.
+     */
+    protected void bringRequestedBlocks() {
+        this.wake();
+    }
+
+    @Override
+    protected boolean hasWork() {
+        return this.requestCount > 0;
+    }
+
+    /**
+     * Brings the oldest requested block, unless the core canceled the requests in the meantime.
+     */
+    @Override
+    protected void doWork() {
+        int blockNumber;
+        synchronized (this) {
+            if (this.requestCount == 0) {
+                return;
+            }
+            blockNumber = this.requests[this.firstRequest];
+            this.firstRequest = (this.firstRequest + 1) % this.requests.length;
+            this.requestCount--;
+        }
+
+        this.bringBlock(blockNumber);
+    }
+
+    /**
+     * Drops the requested blocks that aren't being brought yet, except the ones the core is waiting for. The core
+     * missed a block the buffer didn't have, so it left the blocks that were requested and they would only keep the
+     * bus busy. The caller holds the monitor of the prefetcher.
+     */
+    protected void cancelRequests() {
+        int keptRequests = 0;
+        for (int i = 0; i < this.requestCount; i++) {
+            int blockNumber = this.requests[(this.firstRequest + i) % this.requests.length];
+            int position = this.findBlock(blockNumber);
+            if (this.claimed[position]) {
+                this.requests[(this.firstRequest + keptRequests++) % this.requests.length] = blockNumber;
+            } else {
+                this.blockNumbers[position] = -1;
+            }
+        }
+        this.requestCount = keptRequests;
+    }
+
+    /**
+     * Takes the block of a position out of the buffer for a miss of the core. The caller holds the monitor of the
+     * prefetcher.
+     * @param position the position of the block, which was already brought
+     * @param late true if the core missed the block while it was being brought
+     */
+    protected void takePosition(int position, boolean late) {
+        if (late) {
+            this.latePrefetches++;
+        } else {
+            this.usefulPrefetches++;
+        }
+        this.countPrefetch(true);
+        this.blockNumbers[position] = -1;
+        this.claimed[position] = false;
+    }
+
+    /**
+     * Drops a block the core missed before it was brought, so the core brings it by itself. The caller holds the
+     * monitor of the prefetcher.
+     * @param position the position of the block, which is waiting to be brought
+     */
+    protected void dropRequest(int position) {
+        this.removeRequest(this.blockNumbers[position]);
+        this.latePrefetches++;
+        this.countPrefetch(true);
+        this.blockNumbers[position] = -1;
+    }
+
+    /**
+     * Removes a block from the requested blocks, keeping the order of the rest.
+     * @param blockNumber the number of the block
+     */
+    private void removeRequest(int blockNumber) {
+        int keptRequests = 0;
+        for (int i = 0; i < this.requestCount; i++) {
+            int requestedBlock = this.requests[(this.firstRequest + i) % this.requests.length];
+            if (requestedBlock != blockNumber) {
+                this.requests[(this.firstRequest + keptRequests++) % this.requests.length] = requestedBlock;
+            }
+        }
+        this.requestCount = keptRequests;
+    }
+
+    /**
+     * Drops a block the prefetcher stopped bringing. If the core was waiting for it, it was needed too late, and the
+     * core brings it by itself. The caller holds the monitor of the prefetcher.
+     * @param position the position of the block, which is being brought
+     */
+    protected void abandonBlock(int position) {
+        if (this.claimed[position]) {
+            this.latePrefetches++;
+            this.countPrefetch(true);
+        }
+        this.blockNumbers[position] = -1;
+        this.claimed[position] = false;
+    }
+
+    /**
+     * Drops a brought block that can't be used anymore. The caller holds the monitor of the prefetcher.
+     * @param position the position of the block, which was already brought
+     */
+    protected void dropBlock(int position) {
+        this.uselessPrefetches++;
+        this.countPrefetch(false);
+        this.blockNumbers[position] = -1;
+    }
+
+    /**
+     * @param blockNumber the number of a block
+     * @return the position of the buffer that has the block or will have it, -1 if there is none
+     */
+    protected int findBlock(int blockNumber) {
+        for (int i = 0; i < this.blockNumbers.length; i++) {
+            if (this.blockNumbers[i] == blockNumber) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds a position of the buffer for a new block: an empty one, or else the one with the oldest block that was
+     * already brought and that the core isn't waiting for, which was prefetched for nothing.
+     * @return the number of the position, -1 if every block is still being brought or claimed
+     */
+    private int findFreePosition() {
+        int oldestPosition = -1;
+        for (int i = 0; i < this.blockNumbers.length; i++) {
+            if (this.blockNumbers[i] == -1) {
+                return i;
+            }
+            if (this.ready[i] && !this.claimed[i] &&
+                    (oldestPosition == -1 || this.requestOrder[i] < this.requestOrder[oldestPosition])) {
+                oldestPosition = i;
+            }
+        }
+
+        if (oldestPosition != -1) {
+            this.uselessPrefetches++;
+            this.countPrefetch(false);
+        }
+        return oldestPosition;
+    }
+
+    /**
+     * @param position the number of a position of the buffer
+     * @return true if its block was already brought, false if it is waiting to be brought or being brought
+     */
+    protected boolean isReady(int position) {
+        return this.ready[position];
+    }
+
+    /**
+     * @param position the number of a position of the buffer
+     * @return true if its block is waiting to be brought, false if it is being brought or was already brought
+     */
+    protected boolean isRequested(int position) {
+        int blockNumber = this.blockNumbers[position];
+        for (int i = 0; i < this.requestCount; i++) {
+            if (this.requests[(this.firstRequest + i) % this.requests.length] == blockNumber) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Marks the block of a position as brought. The caller holds the monitor of the prefetcher.
+     * @param position the number of the position
+     */
+    protected void setReady(int position) {
+        this.ready[position] = true;
+    }
+
+    /**
+     * Marks the block of a position as one the core is waiting for. The caller holds the monitor of the prefetcher.
+     * @param position the number of the position
+     */
+    protected void claim(int position) {
+        this.claimed[position] = true;
+    }
+
+    /**
+     * @return the prefetched blocks the core found in the buffer when it missed them.
+     */
+    public int getUsefulPrefetches() {
+        return usefulPrefetches;
+    }
+
+    /**
+     * @return the prefetched blocks the core missed before they were brought.
+     */
+    public int getLatePrefetches() {
+        return latePrefetches;
+    }
+
+    /**
+     * @return the prefetched blocks replaced or dropped from the buffer, or left in it, without being used.
+     */
+    public synchronized int getUselessPrefetches() {
+        int unusedBlocks = 0;
+        for (int blockNumber : this.blockNumbers) {
+            if (blockNumber != -1) {
+                unusedBlocks++;
+            }
+        }
+        return this.uselessPrefetches + unusedBlocks;
+    }
+}
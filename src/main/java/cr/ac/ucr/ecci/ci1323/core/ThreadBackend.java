@@ -0,0 +1,32 @@
+package cr.ac.ucr.ecci.ci1323.core;
+
+/**
+ * Kinds of Java threads that can run the cores and the miss handler of a simulation.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+public enum ThreadBackend {
+
+    /**
+     * Each party runs in its own operating system thread.
+     */
+    PLATFORM,
+
+    /**
+     * Each party runs in a virtual thread, which only takes a carrier thread while it isn't parked in the clock.
+     */
+    VIRTUAL;
+
+    /**
+     * Creates a new thread of this kind, which isn't started yet.
+     * @param body the code the thread runs.
+     * @return the new thread.
+     */
+    Thread newThread(Runnable body) {
+        if (this == PLATFORM) {
+            return new Thread(body);
+        }
+        return Thread.ofVirtual().unstarted(body);
+    }
+
+}
@@ -0,0 +1,100 @@
+package cr.ac.ucr.ecci.ci1323.core;
+
+import cr.ac.ucr.ecci.ci1323.memory.Instruction;
+
+/**
+ * A run of consecutive instructions of an instruction block that only read and write registers, translated to a
+ * single operation over the registers of a context. The run may end with a conditional branch, which is evaluated
+ * after the operation, so a loop that only works on registers runs one iteration per execution of the run.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+class TranslatedBlock {
+
+    /**
+     * An operation over the registers of a context.
+     */
+    @FunctionalInterface
+    interface RegisterOperation {
+
+        void apply(int[] registers);
+
+        /**
+         * Composes this operation with the one that follows it.
+         *
+         * @param nextOperation the operation to apply after this one.
+         * @return the composed operation.
+         */
+        default RegisterOperation andThen(RegisterOperation nextOperation) {
+            return registers -> {
+                this.apply(registers);
+                nextOperation.apply(registers);
+            };
+        }
+    }
+
+    /**
+     * The condition of the branch that ends a run, over the registers of a context.
+     */
+    @FunctionalInterface
+    interface BranchCondition {
+
+        boolean isTaken(int[] registers);
+    }
+
+    private final RegisterOperation registerOperation;
+
+    /**
+     * The condition of the branch that ends the run, null if it doesn't end with a branch.
+     */
+    private final BranchCondition branchCondition;
+
+    /**
+     * The instructions the branch that ends the run moves the PC when it is taken.
+     */
+    private final int branchDisplacement;
+
+    private final int length;
+
+    private final Instruction lastInstruction;
+
+    /**
+     * Class constructor
+     *
+     * @param registerOperation the operation that executes every register only instruction of the run.
+     * @param branchCondition the condition of the branch that ends the run, null if it doesn't end with one.
+     * @param branchDisplacement the instructions the branch moves the PC when it is taken.
+     * @param length the number of instructions in the run, including the branch.
+     * @param lastInstruction the last instruction of the run.
+     */
+    TranslatedBlock(RegisterOperation registerOperation, BranchCondition branchCondition, int branchDisplacement,
+                    int length, Instruction lastInstruction) {
+        this.registerOperation = registerOperation;
+        this.branchCondition = branchCondition;
+        this.branchDisplacement = branchDisplacement;
+        this.length = length;
+        this.lastInstruction = lastInstruction;
+    }
+
+    /**
+     * Executes every instruction of the run over the given registers.
+     *
+     * @param registers the registers of the context.
+     * @return the number of instructions the PC must move after the run, counting the branch if it was taken.
+     */
+    int execute(int[] registers) {
+        this.registerOperation.apply(registers);
+        if (this.branchCondition != null && this.branchCondition.isTaken(registers)) {
+            return this.length + this.branchDisplacement;
+        }
+        return this.length;
+    }
+
+    int getLength() {
+        return length;
+    }
+
+    Instruction getLastInstruction() {
+        return lastInstruction;
+    }
+}
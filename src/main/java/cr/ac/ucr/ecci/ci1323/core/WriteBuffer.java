@@ -0,0 +1,198 @@
+package cr.ac.ucr.ecci.ci1323.core;
+
+import cr.ac.ucr.ecci.ci1323.cache.CachePositionState;
+import cr.ac.ucr.ecci.ci1323.cache.DataCache;
+import cr.ac.ucr.ecci.ci1323.clock.SimulationClock;
+import cr.ac.ucr.ecci.ci1323.memory.DataBus;
+
+/**
+ * Thread that writes back the dirty blocks a data cache replaces, so a miss that replaces a modified block doesn't wait
+ * for its write before bringing the new block. Like the prefetchers, it joins the simulation clock when it gets blocks
+ * to write and leaves it when it has written all of them, and it writes each block while holding the data bus.
+ *
+ * A block waiting in the buffer is still a copy of the core: it keeps its coherence state, the core stays one of its
+ * sharers and the data bus transactions find it like the blocks of the data cache, so another core that misses it
+ * gets it from the buffer instead of reading old words from memory. A miss of the core takes it back to the data
+ * cache. The positions of the buffer are only changed while holding the data bus.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+public class WriteBuffer extends OnDemandThread {
+
+    private final DataCache dataCache;
+
+    private final int coreNumber;
+
+    /**
+     * The blocks waiting to be written, in positions of the data cache after its own and its victim cache ones, which
+     * are invalid when they are free, and the order in which they entered the buffer, to write the oldest one first.
+     */
+    private final int firstPosition;
+    private final int bufferSize;
+    private final long[] entryOrder;
+    private long nextEntry;
+
+    /**
+     * The blocks that entered the buffer, the most blocks it had at once, and the dirty blocks the core wrote by
+     * itself because the buffer was full.
+     */
+    private volatile int bufferedBlocks;
+    private volatile int peakOccupancy;
+    private volatile int fullBufferStalls;
+
+    /**
+     * Class constructor
+     * @param dataCache the data cache of the core
+     * @param coreNumber the number of the core
+     * @param bufferSize the number of blocks the buffer holds, which the data cache has positions for
+     * @param simulationBarrier the barrier of the simulation
+     * @param threadBackend the kind of thread that runs the buffer
+     */
+    WriteBuffer(DataCache dataCache, int coreNumber, int bufferSize, SimulationClock simulationBarrier,
+                ThreadBackend threadBackend) {
+        super(simulationBarrier, threadBackend);
+        this.dataCache = dataCache;
+        this.coreNumber = coreNumber;
+        this.firstPosition = dataCache.getFirstWriteBufferPosition();
+        this.bufferSize = bufferSize;
+        this.entryOrder = new long[bufferSize];
+    }
+
+    /**
+     * Takes the dirty block of a position that another block is about to replace and invalidates the position. The
+     * buffer writes it back later, registering itself to the simulation clock on behalf of the calling thread if it
+     * wasn't running. The caller holds the data bus.
+     * @param dataPositionNumber the number of the position that has the block
+     * @return true if the buffer took the block, false if it was full and the caller must write the block
+     */
+    public boolean keepBlock(int dataPositionNumber) {
+        int writeBufferPosition = -1;
+        int occupancy = 1;
+        for (int i = this.firstPosition; i < this.firstPosition + this.bufferSize; i++) {
+            if (this.dataCache.getState(i) != CachePositionState.INVALID) {
+                occupancy++;
+            } else if (writeBufferPosition == -1) {
+                writeBufferPosition = i;
+            }
+        }
+        if (writeBufferPosition == -1) {
+            this.fullBufferStalls++;
+            return false;
+        }
+
+        this.dataCache.moveBlock(dataPositionNumber, writeBufferPosition);
+        this.bufferedBlocks++;
+        this.peakOccupancy = Math.max(this.peakOccupancy, occupancy);
+
+        synchronized (this) {
+            this.entryOrder[writeBufferPosition - this.firstPosition] = this.nextEntry++;
+        }
+
+        this.wake();
+        return true;
+    }
+
+    /**
+     * Finds the copy of a block that is waiting to be written.
+     * @param blockNumber the number of the block
+     * @return the number of the position that has it, -1 if the buffer doesn't have a valid copy
+     */
+    public int findBlock(int blockNumber) {
+        for (int i = this.firstPosition; i < this.firstPosition + this.bufferSize; i++) {
+            if (this.dataCache.getTag(i) == blockNumber && this.dataCache.getState(i) != CachePositionState.INVALID) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    protected boolean hasWork() {
+        return !this.isEmpty();
+    }
+
+    /**
+     * Writes the oldest valid block of the buffer while holding the data bus, like the core writes a block it
+     * replaces, and the core stops being one of its sharers. A block the core took back or another core invalidated
+     * while it waited is already gone.
+     */
+    @Override
+    protected void doWork() {
+        DataBus dataBus = this.dataCache.getDataBus();
+        while (!dataBus.tryLock()) {
+            this.advanceIdleClockCycle();
+        }
+        this.advanceClockCycle();
+
+        int oldestPosition = -1;
+        synchronized (this) {
+            for (int i = 0; i < this.bufferSize; i++) {
+                if (this.dataCache.getState(this.firstPosition + i) != CachePositionState.INVALID &&
+                        (oldestPosition == -1 || this.entryOrder[i] < this.entryOrder[oldestPosition])) {
+                    oldestPosition = i;
+                }
+            }
+        }
+        if (oldestPosition != -1) {
+            int oldestPositionNumber = this.firstPosition + oldestPosition;
+            int blockNumber = this.dataCache.getTag(oldestPositionNumber);
+            boolean dirty = dataBus.getCoherenceStateMachine().isDirty(this.dataCache.getState(oldestPositionNumber));
+            this.dataCache.replaceBlock(oldestPositionNumber, dirty, this);
+            this.dataCache.setState(oldestPositionNumber, CachePositionState.INVALID);
+            dataBus.removeSharer(blockNumber, this.coreNumber);
+        }
+
+        dataBus.unlock();
+    }
+
+    /**
+     * @return true if no block is waiting to be written.
+     */
+    public boolean isEmpty() {
+        return this.getOccupancy() == 0;
+    }
+
+    /**
+     * @return the number of blocks waiting to be written.
+     */
+    public int getOccupancy() {
+        int occupancy = 0;
+        for (int i = this.firstPosition; i < this.firstPosition + this.bufferSize; i++) {
+            if (this.dataCache.getState(i) != CachePositionState.INVALID) {
+                occupancy++;
+            }
+        }
+        return occupancy;
+    }
+
+    /**
+     * Prints the blocks of the buffer.
+     */
+    public void print() {
+        for (int i = 0; i < this.bufferSize; i++) {
+            System.out.print("Posicion #" + i + ": ");
+            this.dataCache.printPosition(this.firstPosition + i);
+        }
+    }
+
+    /**
+     * @return the dirty blocks that entered the buffer instead of being written by the core.
+     */
+    public int getBufferedBlocks() {
+        return bufferedBlocks;
+    }
+
+    /**
+     * @return the most blocks the buffer had waiting at once.
+     */
+    public int getPeakOccupancy() {
+        return peakOccupancy;
+    }
+
+    /**
+     * @return the dirty blocks the core had to write by itself because the buffer was full.
+     */
+    public int getFullBufferStalls() {
+        return fullBufferStalls;
+    }
+}
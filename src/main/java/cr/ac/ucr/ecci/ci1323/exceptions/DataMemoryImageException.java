@@ -0,0 +1,28 @@
+package cr.ac.ucr.ecci.ci1323.exceptions;
+
+/**
+ * A runtime exception that is thrown when the image file of a mapped data memory can't be opened or mapped.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+public class DataMemoryImageException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates a new exception with the specified message
+     * @param message the message to display
+     */
+    public DataMemoryImageException(String message) {
+        super(message);
+    }
+
+    /**
+     * Creates a new exception with the specified message and wrapped exception
+     * @param message the message to display
+     * @param cause the cause of the exception
+     */
+    public DataMemoryImageException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
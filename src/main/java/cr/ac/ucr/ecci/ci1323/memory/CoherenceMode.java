@@ -0,0 +1,20 @@
+package cr.ac.ucr.ecci.ci1323.memory;
+
+/**
+ * Ways of finding the data caches that have a copy of a block when a core uses the data bus.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+public enum CoherenceMode {
+
+    /**
+     * Every transaction snoops the caches of all the other cores.
+     */
+    SNOOPING,
+
+    /**
+     * A directory keeps the cores whose caches have each block, and a transaction only contacts those cores.
+     */
+    DIRECTORY
+
+}
@@ -1,71 +1,280 @@
 package cr.ac.ucr.ecci.ci1323.memory;
 
+import cr.ac.ucr.ecci.ci1323.cache.CoherenceProtocol;
+import cr.ac.ucr.ecci.ci1323.cache.CoherenceStateMachine;
 import cr.ac.ucr.ecci.ci1323.cache.DataCache;
-import cr.ac.ucr.ecci.ci1323.cache.DataCachePosition;
 import cr.ac.ucr.ecci.ci1323.commons.SimulationConstants;
 
+import java.nio.IntBuffer;
+
 /**
  * References the shared data memory and manages its access, through the Bus class. It also references the data cache
  * for each core, in order to access them.
  *
+ * The data memory is a single buffer with the words of every block one after the other, so it can hold millions of
+ * blocks without an object for each one, and a block is moved between the memory and a cache position with one copy.
+ * The buffer is either an array on the heap or a file mapped to memory, depending on the storage of the simulation.
+ * Every word of the memory starts as 1, and the buffer keeps each word XORed with 1, so a new buffer is all zeros: the
+ * memory is never filled, and the pages of a mapped image are only written when the simulation writes to them.
+ *
+ * The cores that use the bus keep their data caches coherent with the state machine of the bus. A transaction
+ * contacts the caches that may have a copy of its block: with snooping every other cache, and with a directory only
+ * the caches the directory has for the block. The bus counts the transactions, the caches they contact and the copies
+ * they invalidate, all of them while the bus is held.
+ *
  * @author Josue Leon Sarkis, Elias Calderon, Daniel Montes de Oca
  */
 public class DataBus extends Bus {
 
-    private volatile DataCache coreZeroCache;
-    private volatile DataCache coreOneCache;
-    private volatile DataBlock dataMemory[];
+    /**
+     * The value every word of the memory starts with, which the buffer keeps each word XORed with.
+     */
+    public static final int INITIAL_WORD = 1;
+
+    private final DataCache[] dataCaches;
+    private volatile IntBuffer dataMemory;
+    private final CoherenceStateMachine coherenceStateMachine;
+
+    /**
+     * The sharers of each block, null when the caches are snooped.
+     */
+    private final Directory directory;
+
+    /**
+     * The cores a snooping transaction contacts, every core of the bus.
+     */
+    private final long allCores;
 
-    public DataBus(DataBlock[] dataMemory) {
+    private volatile int transactions;
+    private volatile int messages;
+    private volatile int invalidations;
+    private volatile int directoryLookups;
+
+    /**
+     * Constructor which sets the data memory to the one provided, for the two cores of the simulation with snooped
+     * caches kept coherent with MSI.
+     * @param dataMemory the words of every data block XORed with the initial word, its limit must be a multiple of the
+     * words of a block
+     */
+    public DataBus(IntBuffer dataMemory) {
+        this(dataMemory, SimulationConstants.TOTAL_CORES, CoherenceProtocol.MSI, CoherenceMode.SNOOPING);
+    }
+
+    /**
+     * Constructor which sets the data memory to the one provided.
+     * @param dataMemory the words of every data block XORed with the initial word, its limit must be a multiple of the
+     * words of a block
+     * @param cores the number of cores whose data caches use the bus
+     * @param coherenceProtocol the protocol that keeps the data caches coherent
+     * @param coherenceMode how a transaction finds the caches that have its block
+     */
+    public DataBus(IntBuffer dataMemory, int cores, CoherenceProtocol coherenceProtocol, CoherenceMode coherenceMode) {
         super();
+        if (dataMemory.limit() % SimulationConstants.WORDS_PER_DATA_BLOCK != 0)
+            throw new IllegalArgumentException("The data memory must have whole blocks of "
+                    + SimulationConstants.WORDS_PER_DATA_BLOCK + " words.");
+        if (cores < 1 || cores > Directory.MAXIMUM_CORES)
+            throw new IllegalArgumentException("The data bus supports from 1 to " + Directory.MAXIMUM_CORES
+                    + " cores: " + cores);
+
         this.dataMemory = dataMemory;
+        this.dataCaches = new DataCache[cores];
+        this.coherenceStateMachine = coherenceProtocol.createStateMachine();
+        int totalBlocks = dataMemory.limit() / SimulationConstants.WORDS_PER_DATA_BLOCK;
+        this.directory = coherenceMode == CoherenceMode.DIRECTORY ? new Directory(totalBlocks) : null;
+        this.allCores = cores == Long.SIZE ? -1L : (1L << cores) - 1;
     }
 
-    public DataCachePosition getOtherCachePosition(int coreNum, int position) {
-        if (coreNum == 1) {
-            return this.coreZeroCache.getDataCachePositions()[position];
-        } else if (coreNum == 0) {
-            return this.coreOneCache.getDataCachePositions()[position];
+    /**
+     * Finds the cores whose caches a transaction of a core must contact for a block, and counts the lookup if they are
+     * in the directory.
+     * @param blockNumber the number of the block
+     * @param coreNumber the number of the core that holds the bus
+     * @return a bit vector with bit i set if core i must be contacted, never with the given core
+     */
+    public long lookUpSharers(int blockNumber, int coreNumber) {
+        long sharers;
+        if (this.directory == null) {
+            sharers = this.allCores;
         } else {
-            throw new IllegalArgumentException("Invalid core number: " + coreNum);
+            this.directoryLookups++;
+            sharers = this.directory.getSharers(blockNumber);
+        }
+        return sharers & ~(1L << coreNumber);
+    }
+
+    /**
+     * Records that the cache of a core got a valid copy of a block.
+     * @param blockNumber the number of the block
+     * @param coreNumber the number of the core
+     */
+    public void addSharer(int blockNumber, int coreNumber) {
+        if (this.directory != null) {
+            this.directory.addSharer(blockNumber, coreNumber);
+        }
+    }
+
+    /**
+     * Records that the cache of a core no longer has a valid copy of a block.
+     * @param blockNumber the number of the block
+     * @param coreNumber the number of the core
+     */
+    public void removeSharer(int blockNumber, int coreNumber) {
+        if (this.directory != null) {
+            this.directory.removeSharer(blockNumber, coreNumber);
+        }
+    }
+
+    /**
+     * Counts a transaction: a miss or a store to a block that other caches may have.
+     */
+    public void countTransaction() {
+        this.transactions++;
+    }
+
+    /**
+     * Counts a message sent to the cache of another core by a transaction.
+     */
+    public void countMessage() {
+        this.messages++;
+    }
+
+    /**
+     * Counts a copy of a block invalidated by a transaction.
+     */
+    public void countInvalidation() {
+        this.invalidations++;
+    }
+
+    /**
+     * Copies a memory block to a data cache position.
+     * @param blockNumber the number of the memory block
+     * @param dataCache the data cache that receives the block
+     * @param dataPositionNumber the number of the data cache position that receives the block
+     */
+    public void readBlockFromMemory(int blockNumber, DataCache dataCache, int dataPositionNumber) {
+        int firstWord = blockNumber * SimulationConstants.WORDS_PER_DATA_BLOCK;
+        for (int i = 0; i < SimulationConstants.WORDS_PER_DATA_BLOCK; i++) {
+            dataCache.setWord(dataPositionNumber, i, this.dataMemory.get(firstWord + i) ^ INITIAL_WORD);
         }
     }
 
-    public DataBlock getMemoryBlock(int index) {
-        return this.dataMemory[index];
+    /**
+     * Writes the block in a data cache position to the memory block of its tag.
+     * @param dataCache the data cache that has the block
+     * @param dataPositionNumber the number of the data cache position that has the block
+     */
+    public void writeBlockToMemory(DataCache dataCache, int dataPositionNumber) {
+        int blockNumber = dataCache.getTag(dataPositionNumber);
+        int firstWord = blockNumber * SimulationConstants.WORDS_PER_DATA_BLOCK;
+        for (int i = 0; i < SimulationConstants.WORDS_PER_DATA_BLOCK; i++) {
+            this.dataMemory.put(firstWord + i, dataCache.getWord(dataPositionNumber, i) ^ INITIAL_WORD);
+        }
+        this.invalidatePrefetchedBlock(blockNumber);
     }
 
-    public void writeBlockToMemory(DataBlock newDataBlock, int tag) {
+    /**
+     * Copies a memory block to a buffer, without changing the position of the buffer.
+     * @param blockNumber the number of the memory block
+     * @param destination the buffer that receives the words
+     * @param destinationIndex the index where the first word is copied
+     */
+    public void readBlockFromMemory(int blockNumber, IntBuffer destination, int destinationIndex) {
+        int firstWord = blockNumber * SimulationConstants.WORDS_PER_DATA_BLOCK;
+        for (int i = 0; i < SimulationConstants.WORDS_PER_DATA_BLOCK; i++) {
+            destination.put(destinationIndex + i, this.dataMemory.get(firstWord + i) ^ INITIAL_WORD);
+        }
+    }
 
-        DataBlock dataBlock = this.dataMemory[tag];
+    /**
+     * Writes the words of a buffer to a memory block, without changing the position of the buffer.
+     * @param blockNumber the number of the memory block
+     * @param source the buffer that has the words
+     * @param sourceIndex the index of the first word
+     */
+    public void writeBlockToMemory(int blockNumber, IntBuffer source, int sourceIndex) {
+        int firstWord = blockNumber * SimulationConstants.WORDS_PER_DATA_BLOCK;
         for (int i = 0; i < SimulationConstants.WORDS_PER_DATA_BLOCK; i++) {
-            dataBlock.getWords()[i] = newDataBlock.getWords()[i];
+            this.dataMemory.put(firstWord + i, source.get(sourceIndex + i) ^ INITIAL_WORD);
         }
+        this.invalidatePrefetchedBlock(blockNumber);
+    }
 
+    /**
+     * Drops the copies of a written block that the prefetchers of the cores brought before it was written, so no core
+     * uses its old words. The caller holds the bus.
+     * @param blockNumber the number of the block
+     */
+    public void invalidatePrefetchedBlock(int blockNumber) {
+        for (DataCache dataCache : this.dataCaches) {
+            dataCache.invalidatePrefetchedBlock(blockNumber);
+        }
     }
 
+    /**
+     * Prints the data memory one word at a time, so a mapped memory is read from the mapping as it is printed.
+     */
     public void printMemory() {
         System.out.print("{ ");
-        for (DataBlock dataBlock : this.dataMemory) {
-            dataBlock.printBlockChangeLine();
+        for (int i = 0; i < this.dataMemory.limit(); i++) {
+            System.out.print((this.dataMemory.get(i) ^ INITIAL_WORD) + "\t");
+            if ((i + 1) % SimulationConstants.WORDS_PER_DATA_BLOCK == 0) {
+                System.out.println();
+            }
         }
         System.out.println(" }");
     }
 
     public int getMemoryBlockData(int blockNumber, int offset) {
-        return this.getMemoryBlock(blockNumber).getWord(offset);
+        return this.dataMemory.get(blockNumber * SimulationConstants.WORDS_PER_DATA_BLOCK + offset) ^ INITIAL_WORD;
+    }
+
+    /**
+     * @return the number of blocks of the data memory.
+     */
+    public int getTotalBlocks() {
+        return this.dataMemory.limit() / SimulationConstants.WORDS_PER_DATA_BLOCK;
     }
 
-    public void setCoreZeroCache(DataCache coreZeroCache) {
-        this.coreZeroCache = coreZeroCache;
+    public DataCache getDataCache(int coreNumber) {
+        return this.dataCaches[coreNumber];
     }
 
-    public void setCoreOneCache(DataCache coreOneCache) {
-        this.coreOneCache = coreOneCache;
+    public void setDataCache(int coreNumber, DataCache dataCache) {
+        this.dataCaches[coreNumber] = dataCache;
     }
 
-    public DataBlock[] getDataMemory() {
+    /**
+     * @return the number of cores whose data caches use the bus.
+     */
+    public int getCores() {
+        return this.dataCaches.length;
+    }
+
+    public int getTransactions() {
+        return transactions;
+    }
+
+    public int getMessages() {
+        return messages;
+    }
+
+    public int getInvalidations() {
+        return invalidations;
+    }
+
+    public int getDirectoryLookups() {
+        return directoryLookups;
+    }
+
+    /**
+     * @return the buffer of the memory, with each word XORed with the initial word.
+     */
+    public IntBuffer getDataMemory() {
         return dataMemory;
     }
 
+    public CoherenceStateMachine getCoherenceStateMachine() {
+        return coherenceStateMachine;
+    }
 }
@@ -0,0 +1,81 @@
+package cr.ac.ucr.ecci.ci1323.memory;
+
+import cr.ac.ucr.ecci.ci1323.commons.SimulationConstants;
+import cr.ac.ucr.ecci.ci1323.exceptions.DataMemoryImageException;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Ways of storing the shared data memory on the host. Both keep each word XORed with the initial word of the data bus,
+ * so a new memory is all zeros and is never filled.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+public enum DataMemoryStorage {
+
+    /**
+     * The memory is an array on the heap.
+     */
+    HEAP,
+
+    /**
+     * The memory is an image file mapped to memory, with the words one after the other as 32 bit little endian
+     * integers XORed with the initial word. The memory starts with the words of the image, and an image shorter than
+     * the memory is extended with zeros, which are words with the initial value, without writing them. Every write to
+     * the memory goes to the image, so it keeps the state of the memory if the simulator stops, and the host only loads
+     * and writes the pages of the image the simulation touches.
+     */
+    MAPPED;
+
+    /**
+     * The most blocks of a mapped memory, since a file is mapped in regions of at most Integer.MAX_VALUE bytes.
+     */
+    public static final int MAXIMUM_MAPPED_BLOCKS = Integer.MAX_VALUE / SimulationConstants.BLOCK_SIZE;
+
+    /**
+     * Creates the words of a data memory with this storage.
+     * @param dataBlocks the number of blocks of the memory
+     * @param imagePath the image file of a mapped memory, ignored by the other storages
+     * @return the words of the memory
+     */
+    public IntBuffer createDataMemory(int dataBlocks, String imagePath) {
+        switch (this) {
+            case MAPPED:
+                if (imagePath == null)
+                    throw new DataMemoryImageException("The mapped data memory needs an image file.");
+                if (dataBlocks < 1 || dataBlocks > MAXIMUM_MAPPED_BLOCKS)
+                    throw new DataMemoryImageException("The mapped data memory must have from 1 to "
+                            + MAXIMUM_MAPPED_BLOCKS + " blocks: " + dataBlocks);
+
+                return mapDataMemory(Paths.get(imagePath), dataBlocks * SimulationConstants.WORDS_PER_DATA_BLOCK);
+
+            default:
+                return IntBuffer.wrap(new int[dataBlocks * SimulationConstants.WORDS_PER_DATA_BLOCK]);
+        }
+    }
+
+    /**
+     * Maps an image file as the words of a data memory. The mapping extends an image shorter than the memory with
+     * zeros, which the file system keeps as holes until they are written.
+     * @param imagePath the image file
+     * @param words the number of words of the memory
+     * @return the mapped words
+     */
+    private static IntBuffer mapDataMemory(Path imagePath, int words) {
+        try (FileChannel channel = FileChannel.open(imagePath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed.
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) words * Integer.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        } catch (IOException e) {
+            throw new DataMemoryImageException("Unable to map the data memory image " + imagePath, e);
+        }
+    }
+
+}
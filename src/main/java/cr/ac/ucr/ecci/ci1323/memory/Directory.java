@@ -0,0 +1,40 @@
+package cr.ac.ucr.ecci.ci1323.memory;
+
+/**
+ * Keeps the cores whose data caches have a valid copy of each block of the data memory, as a vector with one bit per
+ * core for every block. It is only read and changed by the thread that holds the data bus.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+class Directory {
+
+    /**
+     * The most cores the bit vector of a block can have.
+     */
+    static final int MAXIMUM_CORES = Long.SIZE;
+
+    /**
+     * The sharers of each block, bit i is set if core i has the block.
+     */
+    private final long[] sharers;
+
+    /**
+     * Class constructor, no core has any block.
+     * @param blocks the number of blocks of the data memory
+     */
+    Directory(int blocks) {
+        this.sharers = new long[blocks];
+    }
+
+    long getSharers(int blockNumber) {
+        return this.sharers[blockNumber];
+    }
+
+    void addSharer(int blockNumber, int coreNumber) {
+        this.sharers[blockNumber] |= 1L << coreNumber;
+    }
+
+    void removeSharer(int blockNumber, int coreNumber) {
+        this.sharers[blockNumber] &= ~(1L << coreNumber);
+    }
+}
@@ -3,31 +3,54 @@ package cr.ac.ucr.ecci.ci1323.memory;
 import cr.ac.ucr.ecci.ci1323.commons.SimulationConstants;
 
 /**
- * Represents an instruction, which is composed of an array of integers.
+ * Represents an instruction, decoded once when it is parsed: the operation code is resolved to its operation and the
+ * other three fields are kept as they are, so executing it doesn't need to decode anything.
  *
  * @author Josue Leon Sarkis, Elias Calderon, Daniel Montes de Oca
  */
 public class Instruction {
 
-    private volatile int[] instructionFields;
+    private final Operation operation;
 
+    private final int firstField;
+
+    private final int secondField;
+
+    private final int thirdField;
+
+    /**
+     * Decodes the instruction from its fields.
+     *
+     * @param instructionFields the operation code followed by the three fields of the instruction.
+     */
     public Instruction(int[] instructionFields) {
-        this.instructionFields = instructionFields;
+        this.operation = Operation.fromOperationCode(instructionFields[SimulationConstants.OPCODE_FIELD_NUMBER]);
+        this.firstField = instructionFields[1];
+        this.secondField = instructionFields[2];
+        this.thirdField = instructionFields[3];
     }
 
-    public int getField(int fieldNumber) {
-        return this.instructionFields[fieldNumber];
+    public Operation getOperation() {
+        return operation;
     }
 
     public int getOperationCode() {
-        return this.instructionFields[SimulationConstants.OPCODE_FIELD_NUMBER];
+        return this.operation.getOperationCode();
+    }
+
+    public int getFirstField() {
+        return firstField;
+    }
+
+    public int getSecondField() {
+        return secondField;
     }
 
-    public int[] getInstructionFields() {
-        return this.instructionFields;
+    public int getThirdField() {
+        return thirdField;
     }
 
     public String toString() {
-        return instructionFields[0] + "\t" + instructionFields[1]+ "\t" + instructionFields[2]+ "\t" + instructionFields[3];
+        return this.getOperationCode() + "\t" + firstField + "\t" + secondField + "\t" + thirdField;
     }
 }
@@ -3,7 +3,8 @@ package cr.ac.ucr.ecci.ci1323.memory;
 import cr.ac.ucr.ecci.ci1323.commons.SimulationConstants;
 
 /**
- * References the instruction memory and manages its access, through the Bus class.
+ * References the instruction memory and manages its access, through the Bus class. The instruction memory starts
+ * right after the data memory, so the number of its first block is the number of blocks of the data memory.
  *
  * @author Josue Leon Sarkis, Elias Calderon, Daniel Montes de Oca
  */
@@ -11,18 +12,68 @@ public class InstructionBus extends Bus {
 
     private volatile InstructionBlock[] instructionMemory;
 
+    /**
+     * The number of the first block of the instruction memory.
+     */
+    private final int firstBlockNumber;
+
+    /**
+     * The fetches of the cores waiting for the bus, which it gives priority over the prefetches.
+     */
+    private volatile int waitingFetches;
+
     /**
      * Constructor which sets the instruction memory to the one provided, created by the parser.
      * @param instructionMemory
+     * @param firstBlockNumber the number of the first block of the instruction memory
      */
-    public InstructionBus(InstructionBlock[] instructionMemory) {
+    public InstructionBus(InstructionBlock[] instructionMemory, int firstBlockNumber) {
         super();
         this.instructionMemory = instructionMemory;
+        this.firstBlockNumber = firstBlockNumber;
+    }
+
+    /**
+     * Marks a fetch of a core as waiting for the bus, so the prefetchers leave it.
+     */
+    public synchronized void addWaitingFetch() {
+        this.waitingFetches++;
+    }
+
+    /**
+     * Marks a waiting fetch of a core as done waiting, once it has the bus.
+     */
+    public synchronized void removeWaitingFetch() {
+        this.waitingFetches--;
+    }
+
+    /**
+     * @return true if a fetch of a core is waiting for the bus, so a prefetch must not take it or must give it up.
+     */
+    public boolean hasWaitingFetches() {
+        return this.waitingFetches > 0;
     }
 
     public InstructionBlock getInstructionBlock(int index) {
-        // The total data blocks are subtracted for mapping purposes
-        return instructionMemory[index - SimulationConstants.TOTAL_DATA_BLOCKS];
+        // The data blocks are subtracted for mapping purposes
+        return instructionMemory[index - this.firstBlockNumber];
+    }
+
+    /**
+     * @param blockNumber the number of a block
+     * @return true if the block is in the instruction memory and the programs were loaded in it, false if not
+     */
+    public boolean hasInstructionBlock(int blockNumber) {
+        return blockNumber >= this.firstBlockNumber &&
+                blockNumber < this.firstBlockNumber + this.instructionMemory.length &&
+                this.getInstructionBlock(blockNumber) != null;
+    }
+
+    /**
+     * @return the address of the first instruction of the instruction memory.
+     */
+    public int getInstructionsStart() {
+        return this.firstBlockNumber * SimulationConstants.BLOCK_SIZE;
     }
 
     public void setInstructionBlock(int index, InstructionBlock instructionBlock) {
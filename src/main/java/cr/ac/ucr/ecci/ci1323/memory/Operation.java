@@ -0,0 +1,52 @@
+package cr.ac.ucr.ecci.ci1323.memory;
+
+import cr.ac.ucr.ecci.ci1323.exceptions.InvalidInstructionException;
+
+/**
+ * Enumeration of the operations supported by the simulated processor, each one with its operation code.
+ *
+ * @author Josue Leon Sarkis, Elias Calderon, Daniel Montes de Oca
+ */
+public enum Operation {
+
+    JR(2), JAL(3), BEQZ(4), BNEZ(5), DADDI(8), DMUL(12), DDIV(14), DADD(32), DSUB(34), LW(35), SW(43), FIN(63);
+
+    /**
+     * The operations indexed by their operation code, to decode an instruction without searching.
+     */
+    private static final Operation[] OPERATIONS_BY_CODE = new Operation[64];
+
+    static {
+        for (Operation operation : Operation.values()) {
+            OPERATIONS_BY_CODE[operation.operationCode] = operation;
+        }
+    }
+
+    private final int operationCode;
+
+    Operation(int operationCode) {
+        this.operationCode = operationCode;
+    }
+
+    /**
+     * Decodes an operation code.
+     *
+     * @param operationCode the operation code of an instruction.
+     * @return the operation with the given code.
+     */
+    public static Operation fromOperationCode(int operationCode) {
+        Operation operation = null;
+        if (operationCode >= 0 && operationCode < OPERATIONS_BY_CODE.length) {
+            operation = OPERATIONS_BY_CODE[operationCode];
+        }
+
+        if (operation == null)
+            throw new InvalidInstructionException("Invalid instruction operation code: " + operationCode);
+
+        return operation;
+    }
+
+    public int getOperationCode() {
+        return operationCode;
+    }
+}
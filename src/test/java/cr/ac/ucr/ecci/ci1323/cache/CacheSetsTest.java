@@ -0,0 +1,88 @@
+package cr.ac.ucr.ecci.ci1323.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the sets a block maps to and the position each replacement policy chooses to replace in a set.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+class CacheSetsTest {
+
+    /**
+     * Accesses the given ways of the set of a block, one after the other.
+     * @param cacheSets the sets of the cache
+     * @param blockNumber the number of the block
+     * @param ways the ways accessed
+     */
+    private static void accessWays(CacheSets cacheSets, int blockNumber, int... ways) {
+        int firstPosition = cacheSets.getFirstPosition(blockNumber);
+        for (int way : ways) {
+            cacheSets.access(firstPosition + way);
+        }
+    }
+
+    @Test
+    void directMappedCacheReplacesThePositionOfTheBlock() {
+        CacheSets cacheSets = new CacheSets(4, 1, ReplacementPolicy.LRU);
+        for (int blockNumber = 0; blockNumber < 12; blockNumber++) {
+            assertEquals(blockNumber % 4, cacheSets.getFirstPosition(blockNumber));
+            assertEquals(blockNumber % 4, cacheSets.getVictimPosition(blockNumber));
+        }
+    }
+
+    @Test
+    void lruReplacesTheLeastRecentlyUsedWay() {
+        CacheSets cacheSets = new CacheSets(8, 4, ReplacementPolicy.LRU);
+        assertEquals(4, cacheSets.getFirstPosition(5));
+
+        accessWays(cacheSets, 5, 0, 1, 2, 3);
+        assertEquals(4, cacheSets.getVictimPosition(5));
+        accessWays(cacheSets, 5, 0);
+        assertEquals(5, cacheSets.getVictimPosition(5));
+        accessWays(cacheSets, 5, 2, 1);
+        assertEquals(7, cacheSets.getVictimPosition(5));
+
+        // The other set wasn't accessed, so it still replaces its first way.
+        assertEquals(0, cacheSets.getVictimPosition(4));
+    }
+
+    @Test
+    void plruFollowsTheTreeAwayFromTheLastAccesses() {
+        CacheSets cacheSets = new CacheSets(8, 4, ReplacementPolicy.PLRU);
+
+        accessWays(cacheSets, 1, 0, 1, 2, 3);
+        assertEquals(4, cacheSets.getVictimPosition(1));
+        // LRU would replace way 1 now, but the tree only remembers that way 3 was used after way 2.
+        accessWays(cacheSets, 1, 0);
+        assertEquals(6, cacheSets.getVictimPosition(1));
+        accessWays(cacheSets, 1, 2);
+        assertEquals(5, cacheSets.getVictimPosition(1));
+    }
+
+    @Test
+    void plruNeedsAPowerOfTwoOfWays() {
+        assertThrows(IllegalArgumentException.class, () -> new CacheSets(6, 3, ReplacementPolicy.PLRU));
+        assertThrows(IllegalArgumentException.class, () -> new CacheSets(6, 4, ReplacementPolicy.LRU));
+    }
+
+    @Test
+    void randomReplacementRepeatsItsChoices() {
+        CacheSets firstCacheSets = new CacheSets(16, 4, ReplacementPolicy.RANDOM);
+        CacheSets secondCacheSets = new CacheSets(16, 4, ReplacementPolicy.RANDOM);
+        for (int i = 0; i < 64; i++) {
+            int blockNumber = i * 7;
+            int victimPosition = firstCacheSets.getVictimPosition(blockNumber);
+            int firstPosition = firstCacheSets.getFirstPosition(blockNumber);
+            assertTrue(victimPosition >= firstPosition && victimPosition < firstPosition + 4);
+            assertEquals(victimPosition, secondCacheSets.getVictimPosition(blockNumber));
+
+            firstCacheSets.access(victimPosition);
+            secondCacheSets.access(victimPosition);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package cr.ac.ucr.ecci.ci1323.cache;
+
+import cr.ac.ucr.ecci.ci1323.clock.ClockEngine;
+import cr.ac.ucr.ecci.ci1323.commons.SimulationConfiguration;
+import cr.ac.ucr.ecci.ci1323.context.Context;
+import cr.ac.ucr.ecci.ci1323.controller.SimulationController;
+import cr.ac.ucr.ecci.ci1323.controller.SimulationResult;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that MSI keeps the final state the simulator had before the coherence protocol was a state machine, that
+ * MESI stores to an exclusive block without a bus transaction and that MOESI keeps a supplied block owned.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+class CoherenceProtocolTest {
+
+    private static final int QUANTUM = 30;
+
+    /**
+     * Creates a simulation that runs on the deterministic engine.
+     * @param configuration the other options of the simulation
+     * @return the controller of the simulation
+     */
+    private static SimulationController createSimulation(SimulationConfiguration configuration) {
+        configuration.setClockEngine(ClockEngine.DETERMINISTIC);
+        configuration.setQuantum(QUANTUM);
+        return new SimulationController(configuration);
+    }
+
+    @Test
+    void msiMatchesTheBaselineDump() throws IOException {
+        SimulationConfiguration configuration = new SimulationConfiguration();
+        configuration.setCoherenceProtocol(CoherenceProtocol.MSI);
+        SimulationController simulationController = createSimulation(configuration);
+        SimulationResult simulationResult = simulationController.runBatchSimulation();
+
+        Context[] contexts = new Context[simulationController.getFinishedContexts().size()];
+        for (Context context : simulationController.getFinishedContexts()) {
+            contexts[context.getContextNumber()] = context;
+        }
+
+        int checkedContexts = 0;
+        try (BufferedReader baseline = new BufferedReader(new InputStreamReader(
+                CoherenceProtocolTest.class.getResourceAsStream("msi-baseline.txt"), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = baseline.readLine()) != null) {
+                String[] fields = line.split(" ");
+                switch (fields[0]) {
+                    case "context":
+                        Context context = contexts[Integer.parseInt(fields[1])];
+                        assertEquals(Integer.parseInt(fields[2]), context.getExecutionTics(), line);
+                        int[] registers = new int[fields.length - 3];
+                        for (int i = 0; i < registers.length; i++) {
+                            registers[i] = Integer.parseInt(fields[i + 3]);
+                        }
+                        assertArrayEquals(registers, context.getRegisters(), line);
+                        checkedContexts++;
+                        break;
+
+                    case "cycles":
+                        assertEquals(Integer.parseInt(fields[1]), simulationResult.getTotalClockCycles());
+                        break;
+
+                    case "core":
+                        int coreNumber = Integer.parseInt(fields[1]);
+                        assertEquals(Double.parseDouble(fields[2]), simulationResult.getDataHitRate(coreNumber), line);
+                        assertEquals(Integer.parseInt(fields[3]), simulationResult.getDataEvictions(coreNumber), line);
+                        break;
+
+                    default:
+                        break;
+                }
+            }
+        }
+        assertEquals(contexts.length, checkedContexts);
+    }
+
+    /**
+     * Runs a program that loads a word, increments it and stores it back, alone on a single core.
+     * @param coherenceProtocol the coherence protocol of the data caches
+     * @return the statistics of the simulation
+     */
+    private static SimulationResult runStoreAfterLoad(CoherenceProtocol coherenceProtocol) throws URISyntaxException {
+        SimulationConfiguration configuration = new SimulationConfiguration();
+        configuration.setCoherenceProtocol(coherenceProtocol);
+        configuration.setCores(1);
+        configuration.setProgramsDirectory(Paths.get(
+                CoherenceProtocolTest.class.getResource("/programs/store-after-load").toURI()).toString());
+        SimulationController simulationController = createSimulation(configuration);
+        SimulationResult simulationResult = simulationController.runBatchSimulation();
+
+        int[] registers = simulationController.getFinishedContexts().get(0).getRegisters();
+        assertEquals(2, registers[1]);
+        return simulationResult;
+    }
+
+    @Test
+    void mesiStoresToAnExclusiveBlockWithoutABusTransaction() throws URISyntaxException {
+        // MSI loads the block shared, so the store needs a transaction of its own to make it modified.
+        assertEquals(2, runStoreAfterLoad(CoherenceProtocol.MSI).getBusTransactions());
+        assertEquals(1, runStoreAfterLoad(CoherenceProtocol.MESI).getBusTransactions());
+        assertEquals(1, runStoreAfterLoad(CoherenceProtocol.MOESI).getBusTransactions());
+
+        CoherenceStateMachine mesiStateMachine = CoherenceProtocol.MESI.createStateMachine();
+        assertEquals(CachePositionState.EXCLUSIVE, mesiStateMachine.getLoadedState(false));
+        assertEquals(CachePositionState.SHARED, mesiStateMachine.getLoadedState(true));
+        assertTrue(mesiStateMachine.isWritable(CachePositionState.EXCLUSIVE));
+        assertFalse(mesiStateMachine.isDirty(CachePositionState.EXCLUSIVE));
+        assertFalse(mesiStateMachine.isWritable(CachePositionState.SHARED));
+    }
+
+    @Test
+    void moesiKeepsASuppliedBlockOwned() {
+        CoherenceStateMachine moesiStateMachine = CoherenceProtocol.MOESI.createStateMachine();
+        assertTrue(moesiStateMachine.suppliesBlock(CachePositionState.MODIFIED));
+        assertFalse(moesiStateMachine.writesBackSuppliedBlock(CachePositionState.MODIFIED));
+        assertEquals(CachePositionState.OWNED, moesiStateMachine.getSnoopedLoadState(CachePositionState.MODIFIED));
+        assertTrue(moesiStateMachine.suppliesBlock(CachePositionState.OWNED));
+        assertTrue(moesiStateMachine.isDirty(CachePositionState.OWNED));
+        assertEquals(CachePositionState.SHARED, moesiStateMachine.getSnoopedLoadState(CachePositionState.EXCLUSIVE));
+
+        CoherenceStateMachine msiStateMachine = CoherenceProtocol.MSI.createStateMachine();
+        assertTrue(msiStateMachine.writesBackSuppliedBlock(CachePositionState.MODIFIED));
+        assertEquals(CachePositionState.SHARED, msiStateMachine.getSnoopedLoadState(CachePositionState.MODIFIED));
+    }
+}
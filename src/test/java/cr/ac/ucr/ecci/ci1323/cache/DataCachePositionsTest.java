@@ -0,0 +1,160 @@
+package cr.ac.ucr.ecci.ci1323.cache;
+
+import cr.ac.ucr.ecci.ci1323.clock.ClockEngine;
+import cr.ac.ucr.ecci.ci1323.commons.SimulationConfiguration;
+import cr.ac.ucr.ecci.ci1323.commons.SimulationConstants;
+import cr.ac.ucr.ecci.ci1323.context.Context;
+import cr.ac.ucr.ecci.ci1323.controller.SimulationController;
+import cr.ac.ucr.ecci.ci1323.controller.SimulationResult;
+import cr.ac.ucr.ecci.ci1323.exceptions.TryLockException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.IntBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that both layouts of the data cache positions keep the lock, tag, state and words of each position apart,
+ * and that the programs of the simulation finish the same way with either of them.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+class DataCachePositionsTest {
+
+    private static final int CACHE_SIZE = 4;
+    private static final int QUANTUM = 30;
+
+    @ParameterizedTest
+    @EnumSource(DataCacheLayout.class)
+    void newPositionsAreInvalidAndUnlocked(DataCacheLayout dataCacheLayout) {
+        DataCachePositions dataCachePositions = dataCacheLayout.createPositions(CACHE_SIZE);
+        assertEquals(CACHE_SIZE, dataCachePositions.size());
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            assertEquals(-1, dataCachePositions.getTag(i));
+            assertEquals(CachePositionState.INVALID, dataCachePositions.getState(i));
+            assertFalse(dataCachePositions.isHeldByCurrentThread(i));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(DataCacheLayout.class)
+    void lockKeepsTheTagAndState(DataCacheLayout dataCacheLayout) {
+        DataCachePositions dataCachePositions = dataCacheLayout.createPositions(CACHE_SIZE);
+        dataCachePositions.setTag(2, 17);
+        dataCachePositions.setState(2, CachePositionState.MODIFIED);
+
+        assertTrue(dataCachePositions.tryLock(2));
+        assertTrue(dataCachePositions.isHeldByCurrentThread(2));
+        assertThrows(TryLockException.class, () -> dataCachePositions.tryLock(2));
+        assertEquals(17, dataCachePositions.getTag(2));
+        assertEquals(CachePositionState.MODIFIED, dataCachePositions.getState(2));
+
+        // Changing the tag and state of a locked position keeps it locked.
+        dataCachePositions.setTag(2, 21);
+        dataCachePositions.setState(2, CachePositionState.SHARED);
+        assertTrue(dataCachePositions.isHeldByCurrentThread(2));
+        assertFalse(dataCachePositions.isHeldByCurrentThread(1));
+
+        dataCachePositions.unlock(2);
+        assertFalse(dataCachePositions.isHeldByCurrentThread(2));
+        assertThrows(TryLockException.class, () -> dataCachePositions.unlock(2));
+        assertEquals(21, dataCachePositions.getTag(2));
+        assertEquals(CachePositionState.SHARED, dataCachePositions.getState(2));
+    }
+
+    @ParameterizedTest
+    @EnumSource(DataCacheLayout.class)
+    void wordsStayInTheirPosition(DataCacheLayout dataCacheLayout) {
+        DataCachePositions dataCachePositions = dataCacheLayout.createPositions(CACHE_SIZE);
+        int words = SimulationConstants.WORDS_PER_DATA_BLOCK;
+        IntBuffer source = IntBuffer.allocate(CACHE_SIZE * words);
+        for (int i = 0; i < CACHE_SIZE * words; i++) {
+            source.put(i, 100 + i);
+        }
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            dataCachePositions.copyWordsFrom(i, source, i * words);
+        }
+        dataCachePositions.setWord(1, 2, -5);
+
+        int[] destination = new int[words];
+        dataCachePositions.copyWordsTo(1, destination, 0);
+        for (int i = 0; i < words; i++) {
+            int expectedWord = i == 2 ? -5 : 100 + words + i;
+            assertEquals(expectedWord, destination[i]);
+            assertEquals(expectedWord, dataCachePositions.getWord(1, i));
+            assertEquals(100 + 2 * words + i, dataCachePositions.getWord(2, i));
+        }
+
+        IntBuffer written = IntBuffer.allocate(words);
+        dataCachePositions.copyWordsTo(3, written, 0);
+        for (int i = 0; i < words; i++) {
+            assertEquals(100 + 3 * words + i, written.get(i));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(DataCacheLayout.class)
+    void movesBlocksWithinAndAcrossLayouts(DataCacheLayout dataCacheLayout) {
+        DataCachePositions dataCachePositions = dataCacheLayout.createPositions(CACHE_SIZE);
+        dataCachePositions.setTag(0, 9);
+        dataCachePositions.setState(0, CachePositionState.MODIFIED);
+        for (int i = 0; i < SimulationConstants.WORDS_PER_DATA_BLOCK; i++) {
+            dataCachePositions.setWord(0, i, 90 + i);
+        }
+
+        dataCachePositions.moveBlock(0, 3);
+        assertEquals(CachePositionState.INVALID, dataCachePositions.getState(0));
+        assertEquals(9, dataCachePositions.getTag(3));
+        assertEquals(CachePositionState.MODIFIED, dataCachePositions.getState(3));
+
+        for (DataCacheLayout otherLayout : DataCacheLayout.values()) {
+            DataCachePositions otherPositions = otherLayout.createPositions(CACHE_SIZE);
+            otherPositions.copyWordsFrom(1, dataCachePositions, 3);
+            for (int i = 0; i < SimulationConstants.WORDS_PER_DATA_BLOCK; i++) {
+                assertEquals(90 + i, dataCachePositions.getWord(3, i));
+                assertEquals(90 + i, otherPositions.getWord(1, i), otherLayout.name());
+            }
+        }
+    }
+
+    /**
+     * Runs the programs of the simulation on the deterministic engine with a layout of the data caches.
+     * @param dataCacheLayout the layout of the data caches
+     * @return the controller of the simulation
+     */
+    private static SimulationController runSimulation(DataCacheLayout dataCacheLayout) {
+        SimulationConfiguration configuration = new SimulationConfiguration();
+        configuration.setClockEngine(ClockEngine.DETERMINISTIC);
+        configuration.setQuantum(QUANTUM);
+        configuration.setDataCacheLayout(dataCacheLayout);
+        return new SimulationController(configuration);
+    }
+
+    @Test
+    void layoutsReachTheSameFinalState() {
+        SimulationController objects = runSimulation(DataCacheLayout.OBJECTS);
+        SimulationResult objectsResult = objects.runBatchSimulation();
+        SimulationController arrays = runSimulation(DataCacheLayout.ARRAYS);
+        SimulationResult arraysResult = arrays.runBatchSimulation();
+
+        assertEquals(objectsResult.getTotalClockCycles(), arraysResult.getTotalClockCycles());
+        assertEquals(objectsResult.getBusTransactions(), arraysResult.getBusTransactions());
+        Context[] objectsContexts = new Context[objects.getFinishedContexts().size()];
+        for (Context context : objects.getFinishedContexts()) {
+            objectsContexts[context.getContextNumber()] = context;
+        }
+        assertEquals(objectsContexts.length, arrays.getFinishedContexts().size());
+        for (Context context : arrays.getFinishedContexts()) {
+            Context objectsContext = objectsContexts[context.getContextNumber()];
+            assertArrayEquals(objectsContext.getRegisters(), context.getRegisters(),
+                    "Registers of context " + context.getContextNumber());
+            assertEquals(objectsContext.getExecutionTics(), context.getExecutionTics());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package cr.ac.ucr.ecci.ci1323.cache;
+
+import cr.ac.ucr.ecci.ci1323.clock.ClockEngine;
+import cr.ac.ucr.ecci.ci1323.commons.SimulationConfiguration;
+import cr.ac.ucr.ecci.ci1323.context.Context;
+import cr.ac.ucr.ecci.ci1323.controller.SimulationController;
+import cr.ac.ucr.ecci.ci1323.controller.SimulationResult;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the programs of the simulation with a second level cache smaller than the data cache of the core, so it
+ * replaces blocks the data cache still has, and checks which inclusion policies invalidate those copies. The
+ * simulations run on a single core without a miss handler, so the contexts must finish with the registers they have
+ * without a second level cache.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+class SecondLevelCacheTest {
+
+    private static final int QUANTUM = 30;
+
+    /**
+     * The registers of every finished context of a simulation and its statistics.
+     */
+    private static class FinalState {
+
+        private final int[][] registers;
+        private final SimulationResult simulationResult;
+
+        FinalState(int[][] registers, SimulationResult simulationResult) {
+            this.registers = registers;
+            this.simulationResult = simulationResult;
+        }
+    }
+
+    /**
+     * Runs the simulation on a single core with a direct mapped second level cache of four positions.
+     * @param secondLevelCacheMode if there is a second level cache and for which cores
+     * @param inclusionPolicy the inclusion policy of the second level cache
+     * @return the final state of the simulation
+     */
+    private static FinalState runSimulation(SecondLevelCacheMode secondLevelCacheMode,
+                                            InclusionPolicy inclusionPolicy) {
+        SimulationConfiguration configuration = new SimulationConfiguration();
+        configuration.setClockEngine(ClockEngine.DETERMINISTIC);
+        configuration.setQuantum(QUANTUM);
+        configuration.setCores(1);
+        configuration.setMissHandler(0, false);
+        configuration.setSecondLevelCacheMode(secondLevelCacheMode);
+        configuration.setSecondLevelCachePositions(4);
+        configuration.setSecondLevelCacheWays(1);
+        configuration.setInclusionPolicy(inclusionPolicy);
+
+        SimulationController simulationController = new SimulationController(configuration);
+        SimulationResult simulationResult = simulationController.runBatchSimulation();
+        int[][] registers = new int[simulationController.getFinishedContexts().size()][];
+        for (Context context : simulationController.getFinishedContexts()) {
+            registers[context.getContextNumber()] = context.getRegisters();
+        }
+        return new FinalState(registers, simulationResult);
+    }
+
+    /**
+     * Checks that the contexts of a simulation finished with the registers they have without a second level cache.
+     * @param withoutSecondLevelCache the final state of the simulation without a second level cache
+     * @param finalState the final state of the simulation with one
+     */
+    private static void assertSameRegisters(FinalState withoutSecondLevelCache, FinalState finalState) {
+        assertEquals(withoutSecondLevelCache.registers.length, finalState.registers.length);
+        for (int i = 0; i < finalState.registers.length; i++) {
+            assertArrayEquals(withoutSecondLevelCache.registers[i], finalState.registers[i],
+                    "Registers of context " + i);
+        }
+    }
+
+    @Test
+    void inclusiveCacheBackInvalidatesTheFirstLevelCopies() {
+        FinalState withoutSecondLevelCache = runSimulation(SecondLevelCacheMode.NONE, InclusionPolicy.INCLUSIVE);
+        for (SecondLevelCacheMode secondLevelCacheMode : new SecondLevelCacheMode[]{SecondLevelCacheMode.SHARED,
+                SecondLevelCacheMode.PRIVATE}) {
+            FinalState finalState = runSimulation(secondLevelCacheMode, InclusionPolicy.INCLUSIVE);
+            assertTrue(finalState.simulationResult.getBackInvalidations() > 0);
+            // Every block the data cache gives up was already invalidated when the second level cache replaced it.
+            assertEquals(0, finalState.simulationResult.getDataEvictions(0));
+            assertSameRegisters(withoutSecondLevelCache, finalState);
+        }
+    }
+
+    @Test
+    void exclusiveAndNonInclusiveCachesKeepTheFirstLevelCopies() {
+        FinalState withoutSecondLevelCache = runSimulation(SecondLevelCacheMode.NONE, InclusionPolicy.INCLUSIVE);
+        for (InclusionPolicy inclusionPolicy : new InclusionPolicy[]{InclusionPolicy.EXCLUSIVE, InclusionPolicy.NINE}) {
+            FinalState finalState = runSimulation(SecondLevelCacheMode.SHARED, inclusionPolicy);
+            assertEquals(0, finalState.simulationResult.getBackInvalidations());
+            assertEquals(withoutSecondLevelCache.simulationResult.getDataEvictions(0),
+                    finalState.simulationResult.getDataEvictions(0));
+            assertSameRegisters(withoutSecondLevelCache, finalState);
+        }
+    }
+}
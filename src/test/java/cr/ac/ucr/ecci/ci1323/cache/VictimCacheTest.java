@@ -0,0 +1,155 @@
+package cr.ac.ucr.ecci.ci1323.cache;
+
+import cr.ac.ucr.ecci.ci1323.clock.ClockEngine;
+import cr.ac.ucr.ecci.ci1323.commons.SimulationConfiguration;
+import cr.ac.ucr.ecci.ci1323.commons.SimulationConstants;
+import cr.ac.ucr.ecci.ci1323.context.Context;
+import cr.ac.ucr.ecci.ci1323.controller.SimulationController;
+import cr.ac.ucr.ecci.ci1323.controller.SimulationResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the victim cache keeps the blocks its data cache replaces, gives them back in place of the blocks that
+ * replace them and replaces its least recently used block, and that it saves clock cycles without changing what the
+ * programs of the simulation compute.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+class VictimCacheTest {
+
+    private static final int DATA_CACHE_SIZE = 4;
+    private static final int VICTIM_CACHE_SIZE = 2;
+    private static final int QUANTUM = 30;
+
+    /**
+     * Puts a block in a position, with words made from the number of the block.
+     * @param dataCachePositions the positions of the data cache
+     * @param positionNumber the number of the position
+     * @param blockNumber the number of the block
+     * @param cachePositionState the state of the block
+     */
+    private static void putBlock(DataCachePositions dataCachePositions, int positionNumber, int blockNumber,
+                                 CachePositionState cachePositionState) {
+        dataCachePositions.setTag(positionNumber, blockNumber);
+        dataCachePositions.setState(positionNumber, cachePositionState);
+        for (int i = 0; i < SimulationConstants.WORDS_PER_DATA_BLOCK; i++) {
+            dataCachePositions.setWord(positionNumber, i, 10 * blockNumber + i);
+        }
+    }
+
+    /**
+     * Checks that a position has a block put by {@link #putBlock}.
+     * @param dataCachePositions the positions of the data cache
+     * @param positionNumber the number of the position
+     * @param blockNumber the number of the block
+     * @param cachePositionState the state of the block
+     */
+    private static void assertBlock(DataCachePositions dataCachePositions, int positionNumber, int blockNumber,
+                                    CachePositionState cachePositionState) {
+        assertEquals(blockNumber, dataCachePositions.getTag(positionNumber));
+        assertEquals(cachePositionState, dataCachePositions.getState(positionNumber));
+        for (int i = 0; i < SimulationConstants.WORDS_PER_DATA_BLOCK; i++) {
+            assertEquals(10 * blockNumber + i, dataCachePositions.getWord(positionNumber, i));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(DataCacheLayout.class)
+    void keepsAndSwapsTheReplacedBlocks(DataCacheLayout dataCacheLayout) {
+        DataCachePositions dataCachePositions = dataCacheLayout.createPositions(DATA_CACHE_SIZE + VICTIM_CACHE_SIZE);
+        VictimCache victimCache = new VictimCache(dataCachePositions, DATA_CACHE_SIZE, VICTIM_CACHE_SIZE);
+
+        putBlock(dataCachePositions, 1, 5, CachePositionState.MODIFIED);
+        int victimPositionNumber = victimCache.findReplacedPosition();
+        assertEquals(DATA_CACHE_SIZE, victimPositionNumber);
+        victimCache.keepBlock(victimPositionNumber, 1);
+        assertEquals(CachePositionState.INVALID, dataCachePositions.getState(1));
+        assertBlock(dataCachePositions, victimPositionNumber, 5, CachePositionState.MODIFIED);
+        assertEquals(victimPositionNumber, victimCache.findBlock(5));
+        assertEquals(-1, victimCache.findBlock(9));
+
+        // Block 9 replaced block 5 in the data cache, and block 5 is missed again.
+        putBlock(dataCachePositions, 1, 9, CachePositionState.SHARED);
+        victimCache.swapBlock(victimPositionNumber, 1);
+        assertBlock(dataCachePositions, 1, 5, CachePositionState.MODIFIED);
+        assertBlock(dataCachePositions, victimPositionNumber, 9, CachePositionState.SHARED);
+        assertEquals(victimPositionNumber, victimCache.findBlock(9));
+        assertEquals(-1, victimCache.findBlock(5));
+        assertEquals(1, victimCache.getHits());
+    }
+
+    @ParameterizedTest
+    @EnumSource(DataCacheLayout.class)
+    void replacesTheLeastRecentlyUsedBlock(DataCacheLayout dataCacheLayout) {
+        DataCachePositions dataCachePositions = dataCacheLayout.createPositions(DATA_CACHE_SIZE + VICTIM_CACHE_SIZE);
+        VictimCache victimCache = new VictimCache(dataCachePositions, DATA_CACHE_SIZE, VICTIM_CACHE_SIZE);
+
+        putBlock(dataCachePositions, 0, 4, CachePositionState.SHARED);
+        victimCache.keepBlock(victimCache.findReplacedPosition(), 0);
+        putBlock(dataCachePositions, 0, 8, CachePositionState.SHARED);
+        victimCache.keepBlock(victimCache.findReplacedPosition(), 0);
+        assertEquals(DATA_CACHE_SIZE, victimCache.findBlock(4));
+        assertEquals(DATA_CACHE_SIZE + 1, victimCache.findBlock(8));
+        assertEquals(DATA_CACHE_SIZE, victimCache.findReplacedPosition());
+
+        // Swapping block 4 back uses its position, so block 8 is the least recently used one.
+        putBlock(dataCachePositions, 0, 12, CachePositionState.SHARED);
+        victimCache.swapBlock(victimCache.findBlock(4), 0);
+        assertEquals(DATA_CACHE_SIZE + 1, victimCache.findReplacedPosition());
+
+        // An invalid position is used before any valid one.
+        dataCachePositions.setState(DATA_CACHE_SIZE, CachePositionState.INVALID);
+        assertEquals(DATA_CACHE_SIZE, victimCache.findReplacedPosition());
+    }
+
+    /**
+     * Runs the programs of the simulation on a single core without a miss handler, so the contexts always finish with
+     * the same registers.
+     * @param victimCachePositions the number of positions of the victim cache, 0 for none
+     * @return the controller of the simulation
+     */
+    private static SimulationController runSimulation(int victimCachePositions) {
+        SimulationConfiguration configuration = new SimulationConfiguration();
+        configuration.setClockEngine(ClockEngine.DETERMINISTIC);
+        configuration.setQuantum(QUANTUM);
+        configuration.setCores(1);
+        configuration.setMissHandler(0, false);
+        configuration.setVictimCachePositions(victimCachePositions);
+        return new SimulationController(configuration);
+    }
+
+    /**
+     * @param simulationController the controller of a finished simulation
+     * @return the registers of every finished context, indexed by context number
+     */
+    private static int[][] getRegisters(SimulationController simulationController) {
+        int[][] registers = new int[simulationController.getFinishedContexts().size()][];
+        for (Context context : simulationController.getFinishedContexts()) {
+            registers[context.getContextNumber()] = context.getRegisters();
+        }
+        return registers;
+    }
+
+    @Test
+    void victimCacheKeepsTheResultsOfThePrograms() {
+        SimulationController withoutVictimCache = runSimulation(0);
+        SimulationResult withoutVictimCacheResult = withoutVictimCache.runBatchSimulation();
+        SimulationController withVictimCache = runSimulation(VICTIM_CACHE_SIZE);
+        SimulationResult withVictimCacheResult = withVictimCache.runBatchSimulation();
+
+        assertEquals(0, withoutVictimCacheResult.getVictimCacheHits());
+        assertTrue(withVictimCacheResult.getVictimCacheHits() > 0);
+        assertTrue(withVictimCacheResult.getTotalClockCycles() < withoutVictimCacheResult.getTotalClockCycles());
+        int[][] expectedRegisters = getRegisters(withoutVictimCache);
+        int[][] registers = getRegisters(withVictimCache);
+        for (int i = 0; i < expectedRegisters.length; i++) {
+            assertArrayEquals(expectedRegisters[i], registers[i], "Registers of context " + i);
+        }
+    }
+}
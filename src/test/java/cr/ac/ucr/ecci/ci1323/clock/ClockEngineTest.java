@@ -0,0 +1,107 @@
+package cr.ac.ucr.ecci.ci1323.clock;
+
+import cr.ac.ucr.ecci.ci1323.commons.SimulationConfiguration;
+import cr.ac.ucr.ecci.ci1323.context.Context;
+import cr.ac.ucr.ecci.ci1323.controller.SimulationController;
+import cr.ac.ucr.ecci.ci1323.controller.SimulationResult;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the programs of the simulation with each clock engine and checks that they all reach the same final state. The
+ * programs share the data memory, so the simulations run on a single core without a miss handler, where the order of
+ * the accesses doesn't depend on how the host schedules the threads. Only the deterministic engine fixes that order
+ * with several cores, so it is also checked to repeat its final state with the default processor.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+class ClockEngineTest {
+
+    private static final int QUANTUM = 30;
+
+    /**
+     * The final state of a simulation: the registers of every finished context and the statistics of the simulation.
+     */
+    private static class FinalState {
+
+        private final int[][] registers;
+        private final SimulationResult simulationResult;
+
+        FinalState(int[][] registers, SimulationResult simulationResult) {
+            this.registers = registers;
+            this.simulationResult = simulationResult;
+        }
+    }
+
+    /**
+     * Runs the simulation with a clock engine on a single core without a miss handler.
+     * @param clockEngine the clock engine of the simulation
+     * @return the final state of the simulation
+     */
+    private static FinalState runSimulation(ClockEngine clockEngine) {
+        SimulationConfiguration configuration = new SimulationConfiguration();
+        configuration.setCores(1);
+        configuration.setMissHandler(0, false);
+        return runSimulation(clockEngine, configuration);
+    }
+
+    /**
+     * Runs the simulation with a clock engine.
+     * @param clockEngine the clock engine of the simulation
+     * @param configuration the other options of the simulation
+     * @return the final state of the simulation
+     */
+    private static FinalState runSimulation(ClockEngine clockEngine, SimulationConfiguration configuration) {
+        configuration.setClockEngine(clockEngine);
+        configuration.setQuantum(QUANTUM);
+
+        SimulationController simulationController = new SimulationController(configuration);
+        SimulationResult simulationResult = simulationController.runBatchSimulation();
+        int[][] registers = new int[simulationController.getFinishedContexts().size()][];
+        for (Context context : simulationController.getFinishedContexts()) {
+            registers[context.getContextNumber()] = context.getRegisters();
+        }
+        return new FinalState(registers, simulationResult);
+    }
+
+    /**
+     * Checks that the contexts of two simulations finished with the same registers, in the same clock cycles and with
+     * the same cache misses.
+     * @param expected the final state of the first simulation
+     * @param actual the final state of the second simulation
+     */
+    private static void assertSameFinalState(FinalState expected, FinalState actual) {
+        assertEquals(expected.registers.length, actual.registers.length);
+        for (int i = 0; i < expected.registers.length; i++) {
+            assertArrayEquals(expected.registers[i], actual.registers[i], "Registers of context " + i);
+            assertEquals(expected.simulationResult.getContextClockCycles(i),
+                    actual.simulationResult.getContextClockCycles(i), "Clock cycles of context " + i);
+        }
+        assertEquals(expected.simulationResult.getMisses(), actual.simulationResult.getMisses());
+    }
+
+    @Test
+    void eventsEngineReachesTheSameFinalStateAsThePhaser() {
+        assertSameFinalState(runSimulation(ClockEngine.PHASER), runSimulation(ClockEngine.EVENTS));
+    }
+
+    @Test
+    void deterministicEngineReachesTheSameFinalStateAsTheOtherEngines() {
+        FinalState deterministicState = runSimulation(ClockEngine.DETERMINISTIC);
+        assertSameFinalState(runSimulation(ClockEngine.PHASER), deterministicState);
+        assertSameFinalState(runSimulation(ClockEngine.EVENTS), deterministicState);
+    }
+
+    @Test
+    void deterministicEngineRepeatsItsFinalStateWithSeveralCores() {
+        FinalState firstState = runSimulation(ClockEngine.DETERMINISTIC, new SimulationConfiguration());
+        FinalState secondState = runSimulation(ClockEngine.DETERMINISTIC, new SimulationConfiguration());
+        assertSameFinalState(firstState, secondState);
+        assertEquals(firstState.simulationResult.getTotalClockCycles(),
+                secondState.simulationResult.getTotalClockCycles());
+        assertEquals(firstState.simulationResult.getBusTransactions(),
+                secondState.simulationResult.getBusTransactions());
+    }
+}
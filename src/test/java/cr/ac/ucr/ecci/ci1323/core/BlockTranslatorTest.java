@@ -0,0 +1,115 @@
+package cr.ac.ucr.ecci.ci1323.core;
+
+import cr.ac.ucr.ecci.ci1323.memory.Instruction;
+import cr.ac.ucr.ecci.ci1323.memory.InstructionBlock;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Checks which runs of instructions the block translator translates and that the translated runs change the registers
+ * and the PC like the interpreter of the cores.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+class BlockTranslatorTest {
+
+    /**
+     * Creates an instruction block from the fields of its instructions.
+     * @param instructionFields the operation code and the three fields of each instruction
+     * @return the instruction block, with no instructions after the given ones
+     */
+    private static InstructionBlock createInstructionBlock(int[]... instructionFields) {
+        Instruction[] instructions = new Instruction[4];
+        for (int i = 0; i < instructionFields.length; i++) {
+            instructions[i] = new Instruction(instructionFields[i]);
+        }
+        return new InstructionBlock(instructions);
+    }
+
+    /**
+     * Enters a block in an instruction until its run is translated.
+     * @param blockTranslator the translator of the core
+     * @param instructionBlock the block the context enters
+     * @param offset the offset of the instruction where the context enters it
+     * @return the translated run, or null if it isn't translated
+     */
+    private static TranslatedBlock enterUntilTranslated(BlockTranslator blockTranslator,
+                                                        InstructionBlock instructionBlock, int offset) {
+        blockTranslator.getTranslatedBlock(instructionBlock, offset);
+        return blockTranslator.getTranslatedBlock(instructionBlock, offset);
+    }
+
+    @Test
+    void translatesARunOnlyAfterItIsEnteredTwice() {
+        BlockTranslator blockTranslator = new BlockTranslator();
+        InstructionBlock instructionBlock = createInstructionBlock(
+                new int[]{8, 1, 1, -1},     // R1 = R1 - 1
+                new int[]{5, 1, 0, -2});    // if R1 != 0, branch to the DADDI
+
+        assertNull(blockTranslator.getTranslatedBlock(instructionBlock, 0));
+        TranslatedBlock translatedBlock = blockTranslator.getTranslatedBlock(instructionBlock, 0);
+        assertNotNull(translatedBlock);
+        assertSame(translatedBlock, blockTranslator.getTranslatedBlock(instructionBlock, 0));
+        assertEquals(1, blockTranslator.getTranslatedBlocks());
+    }
+
+    @Test
+    void runsALoopOneIterationPerExecution() {
+        InstructionBlock instructionBlock = createInstructionBlock(
+                new int[]{8, 1, 1, -1},     // R1 = R1 - 1
+                new int[]{5, 1, 0, -2});    // if R1 != 0, branch to the DADDI
+        TranslatedBlock translatedBlock = enterUntilTranslated(new BlockTranslator(), instructionBlock, 0);
+
+        int[] registers = new int[32];
+        registers[1] = 2;
+        assertEquals(0, translatedBlock.execute(registers)); // The branch is taken back to the start of the run.
+        assertEquals(1, registers[1]);
+        assertEquals(2, translatedBlock.execute(registers)); // The branch falls through after the run.
+        assertEquals(0, registers[1]);
+        assertEquals(2, translatedBlock.getLength());
+        assertSame(instructionBlock.getInstruction(1), translatedBlock.getLastInstruction());
+    }
+
+    @Test
+    void executesRegisterInstructionsLikeTheInterpreter() {
+        InstructionBlock instructionBlock = createInstructionBlock(
+                new int[]{32, 1, 2, 3},     // R3 = R1 + R2
+                new int[]{34, 3, 1, 4},     // R4 = R3 - R1
+                new int[]{12, 3, 4, 5},     // R5 = R3 * R4
+                new int[]{43, 0, 5, 0});    // M[R0 + 0] = R5
+        TranslatedBlock translatedBlock = enterUntilTranslated(new BlockTranslator(), instructionBlock, 0);
+
+        int[] registers = new int[32];
+        registers[1] = 7;
+        registers[2] = 5;
+        assertEquals(3, translatedBlock.execute(registers)); // The store is left to the interpreter.
+
+        int[] expectedRegisters = new int[32];
+        expectedRegisters[1] = 7;
+        expectedRegisters[2] = 5;
+        expectedRegisters[3] = 12;
+        expectedRegisters[4] = 5;
+        expectedRegisters[5] = 60;
+        assertArrayEquals(expectedRegisters, registers);
+    }
+
+    @Test
+    void leavesShortRunsAndMemoryInstructionsToTheInterpreter() {
+        BlockTranslator blockTranslator = new BlockTranslator();
+        InstructionBlock instructionBlock = createInstructionBlock(
+                new int[]{8, 0, 1, 4},      // R1 = R0 + 4
+                new int[]{35, 1, 2, 0},     // R2 = M[R1 + 0]
+                new int[]{5, 2, 0, -2},     // if R2 != 0, branch to the LW
+                new int[]{63, 0, 0, 0});    // FIN
+
+        assertNull(enterUntilTranslated(blockTranslator, instructionBlock, 0));
+        assertNull(enterUntilTranslated(blockTranslator, instructionBlock, 1));
+        assertNull(enterUntilTranslated(blockTranslator, instructionBlock, 2));
+        assertEquals(0, blockTranslator.getTranslatedBlocks());
+    }
+}
@@ -0,0 +1,95 @@
+package cr.ac.ucr.ecci.ci1323.core;
+
+import cr.ac.ucr.ecci.ci1323.cache.PrefetchPolicy;
+import cr.ac.ucr.ecci.ci1323.clock.ClockEngine;
+import cr.ac.ucr.ecci.ci1323.commons.SimulationConfiguration;
+import cr.ac.ucr.ecci.ci1323.context.Context;
+import cr.ac.ucr.ecci.ci1323.controller.SimulationController;
+import cr.ac.ucr.ecci.ci1323.controller.SimulationResult;
+import org.junit.jupiter.api.Test;
+
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs programs with each data prefetch policy and checks the misses the prefetched blocks cover without changing what
+ * the programs compute. The simulations run on a single core without a miss handler, so the contexts always finish
+ * with the same registers.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+class DataPrefetcherTest {
+
+    private static final int QUANTUM = 30;
+
+    /**
+     * Runs the simulation with a data prefetch policy.
+     * @param prefetchPolicy the policy of the data prefetchers
+     * @param programsDirectory the directory with the programs, or null for the bundled ones
+     * @return the controller of the finished simulation
+     */
+    private static SimulationController runSimulation(PrefetchPolicy prefetchPolicy, String programsDirectory) {
+        SimulationConfiguration configuration = new SimulationConfiguration();
+        configuration.setClockEngine(ClockEngine.DETERMINISTIC);
+        configuration.setQuantum(QUANTUM);
+        configuration.setCores(1);
+        configuration.setMissHandler(0, false);
+        configuration.setDataPrefetchPolicy(prefetchPolicy);
+        configuration.setProgramsDirectory(programsDirectory);
+        return new SimulationController(configuration);
+    }
+
+    /**
+     * @param simulationController the controller of a finished simulation
+     * @return the registers of every finished context, indexed by context number
+     */
+    private static int[][] getRegisters(SimulationController simulationController) {
+        int[][] registers = new int[simulationController.getFinishedContexts().size()][];
+        for (Context context : simulationController.getFinishedContexts()) {
+            registers[context.getContextNumber()] = context.getRegisters();
+        }
+        return registers;
+    }
+
+    @Test
+    void strideCoversTheMissesOfAStridedLoop() throws URISyntaxException {
+        // The loop loads one word every four blocks, too far apart for the next-line prefetcher.
+        String programsDirectory = Paths.get(
+                DataPrefetcherTest.class.getResource("/programs/strided-loads").toURI()).toString();
+
+        SimulationController nextLine = runSimulation(PrefetchPolicy.NEXT_LINE, programsDirectory);
+        SimulationResult nextLineResult = nextLine.runBatchSimulation();
+        assertEquals(0, nextLineResult.getDataPrefetchCoverage());
+        assertEquals(6, getRegisters(nextLine)[0][4]);
+
+        SimulationController stride = runSimulation(PrefetchPolicy.STRIDE, programsDirectory);
+        SimulationResult strideResult = stride.runBatchSimulation();
+        assertTrue(strideResult.getDataPrefetchCoverage() > 0);
+        assertEquals(1, strideResult.getDataPrefetchAccuracy());
+        assertEquals(6, getRegisters(stride)[0][4]);
+    }
+
+    @Test
+    void prefetchedDataBlocksKeepTheResultsOfThePrograms() {
+        SimulationController withoutPrefetcher = runSimulation(PrefetchPolicy.NONE, null);
+        SimulationResult withoutPrefetcherResult = withoutPrefetcher.runBatchSimulation();
+        assertEquals(0, withoutPrefetcherResult.getDataPrefetchCoverage());
+
+        for (PrefetchPolicy prefetchPolicy : new PrefetchPolicy[]{PrefetchPolicy.NEXT_LINE, PrefetchPolicy.STRIDE}) {
+            SimulationController simulationController = runSimulation(prefetchPolicy, null);
+            SimulationResult simulationResult = simulationController.runBatchSimulation();
+            assertTrue(simulationResult.getDataPrefetchCoverage() > 0, prefetchPolicy.name());
+            assertTrue(simulationResult.getDataPrefetchAccuracy() > 0, prefetchPolicy.name());
+
+            int[][] expectedRegisters = getRegisters(withoutPrefetcher);
+            int[][] registers = getRegisters(simulationController);
+            for (int i = 0; i < expectedRegisters.length; i++) {
+                assertArrayEquals(expectedRegisters[i], registers[i], prefetchPolicy + " context " + i);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package cr.ac.ucr.ecci.ci1323.core;
+
+import cr.ac.ucr.ecci.ci1323.cache.PrefetchPolicy;
+import cr.ac.ucr.ecci.ci1323.clock.ClockEngine;
+import cr.ac.ucr.ecci.ci1323.commons.SimulationConfiguration;
+import cr.ac.ucr.ecci.ci1323.context.Context;
+import cr.ac.ucr.ecci.ci1323.controller.SimulationController;
+import cr.ac.ucr.ecci.ci1323.controller.SimulationResult;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the programs of the simulation with each instruction prefetch policy and checks that the prefetched blocks are
+ * used and save clock cycles without changing what the programs compute. The simulations run on a single core without
+ * a miss handler, so the contexts always finish with the same registers.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+class InstructionPrefetcherTest {
+
+    private static final int QUANTUM = 30;
+
+    /**
+     * Runs the simulation with an instruction prefetch policy.
+     * @param prefetchPolicy the policy of the instruction prefetchers
+     * @return the controller of the finished simulation
+     */
+    private static SimulationController runSimulation(PrefetchPolicy prefetchPolicy) {
+        SimulationConfiguration configuration = new SimulationConfiguration();
+        configuration.setClockEngine(ClockEngine.DETERMINISTIC);
+        configuration.setQuantum(QUANTUM);
+        configuration.setCores(1);
+        configuration.setMissHandler(0, false);
+        configuration.setInstructionPrefetchPolicy(prefetchPolicy);
+        return new SimulationController(configuration);
+    }
+
+    /**
+     * @param simulationController the controller of a finished simulation
+     * @return the registers of every finished context, indexed by context number
+     */
+    private static int[][] getRegisters(SimulationController simulationController) {
+        int[][] registers = new int[simulationController.getFinishedContexts().size()][];
+        for (Context context : simulationController.getFinishedContexts()) {
+            registers[context.getContextNumber()] = context.getRegisters();
+        }
+        return registers;
+    }
+
+    @Test
+    void prefetchedInstructionBlocksAreUsed() {
+        SimulationController withoutPrefetcher = runSimulation(PrefetchPolicy.NONE);
+        SimulationResult withoutPrefetcherResult = withoutPrefetcher.runBatchSimulation();
+        assertEquals(0, withoutPrefetcherResult.getUsefulInstructionPrefetches());
+
+        for (PrefetchPolicy prefetchPolicy : new PrefetchPolicy[]{PrefetchPolicy.NEXT_LINE, PrefetchPolicy.STRIDE}) {
+            SimulationController simulationController = runSimulation(prefetchPolicy);
+            SimulationResult simulationResult = simulationController.runBatchSimulation();
+            assertTrue(simulationResult.getUsefulInstructionPrefetches() > 0, prefetchPolicy.name());
+            assertTrue(simulationResult.getTotalClockCycles() < withoutPrefetcherResult.getTotalClockCycles(),
+                    prefetchPolicy.name());
+
+            int[][] expectedRegisters = getRegisters(withoutPrefetcher);
+            int[][] registers = getRegisters(simulationController);
+            for (int i = 0; i < expectedRegisters.length; i++) {
+                assertArrayEquals(expectedRegisters[i], registers[i], prefetchPolicy + " context " + i);
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package cr.ac.ucr.ecci.ci1323.core;
+
+import cr.ac.ucr.ecci.ci1323.clock.ClockEngine;
+import cr.ac.ucr.ecci.ci1323.commons.SimulationConfiguration;
+import cr.ac.ucr.ecci.ci1323.context.Context;
+import cr.ac.ucr.ecci.ci1323.controller.SimulationController;
+import cr.ac.ucr.ecci.ci1323.controller.SimulationResult;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the programs of the simulation with a write buffer and checks that it takes the dirty blocks the data cache
+ * replaces off the miss path, saving clock cycles without changing what the programs compute. The simulations run on
+ * a single core without a miss handler, so the contexts always finish with the same registers.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+class WriteBufferTest {
+
+    private static final int WRITE_BUFFER_SIZE = 2;
+    private static final int VICTIM_CACHE_SIZE = 2;
+    private static final int QUANTUM = 30;
+
+    /**
+     * Runs the simulation with a write buffer and a victim cache.
+     * @param writeBufferPositions the number of positions of the write buffer, 0 for none
+     * @param victimCachePositions the number of positions of the victim cache, 0 for none
+     * @return the controller of the simulation
+     */
+    private static SimulationController runSimulation(int writeBufferPositions, int victimCachePositions) {
+        SimulationConfiguration configuration = new SimulationConfiguration();
+        configuration.setClockEngine(ClockEngine.DETERMINISTIC);
+        configuration.setQuantum(QUANTUM);
+        configuration.setCores(1);
+        configuration.setMissHandler(0, false);
+        configuration.setWriteBufferPositions(writeBufferPositions);
+        configuration.setVictimCachePositions(victimCachePositions);
+        return new SimulationController(configuration);
+    }
+
+    /**
+     * @param simulationController the controller of a finished simulation
+     * @return the registers of every finished context, indexed by context number
+     */
+    private static int[][] getRegisters(SimulationController simulationController) {
+        int[][] registers = new int[simulationController.getFinishedContexts().size()][];
+        for (Context context : simulationController.getFinishedContexts()) {
+            registers[context.getContextNumber()] = context.getRegisters();
+        }
+        return registers;
+    }
+
+    /**
+     * Checks that the contexts of two simulations finished with the same registers.
+     * @param expectedSimulation the controller of the simulation without a write buffer
+     * @param simulationController the controller of the simulation with one
+     */
+    private static void assertSameRegisters(SimulationController expectedSimulation,
+                                            SimulationController simulationController) {
+        int[][] expectedRegisters = getRegisters(expectedSimulation);
+        int[][] registers = getRegisters(simulationController);
+        assertEquals(expectedRegisters.length, registers.length);
+        for (int i = 0; i < expectedRegisters.length; i++) {
+            assertArrayEquals(expectedRegisters[i], registers[i], "Registers of context " + i);
+        }
+    }
+
+    @Test
+    void writeBufferTakesTheDirtyBlocksOffTheMissPath() {
+        SimulationController withoutWriteBuffer = runSimulation(0, 0);
+        SimulationResult withoutWriteBufferResult = withoutWriteBuffer.runBatchSimulation();
+        SimulationController withWriteBuffer = runSimulation(WRITE_BUFFER_SIZE, 0);
+        SimulationResult withWriteBufferResult = withWriteBuffer.runBatchSimulation();
+
+        assertEquals(0, withoutWriteBufferResult.getWriteBufferBlocks());
+        assertTrue(withWriteBufferResult.getWriteBufferBlocks() > 0);
+        assertTrue(withWriteBufferResult.getWriteBufferPeakOccupancy() >= 1);
+        assertTrue(withWriteBufferResult.getWriteBufferPeakOccupancy() <= WRITE_BUFFER_SIZE);
+        assertTrue(withWriteBufferResult.getTotalClockCycles() < withoutWriteBufferResult.getTotalClockCycles());
+        assertSameRegisters(withoutWriteBuffer, withWriteBuffer);
+    }
+
+    @Test
+    void writeBufferWorksBehindTheVictimCache() {
+        SimulationController withoutWriteBuffer = runSimulation(0, 0);
+        withoutWriteBuffer.runBatchSimulation();
+        SimulationController withBoth = runSimulation(WRITE_BUFFER_SIZE, VICTIM_CACHE_SIZE);
+        SimulationResult withBothResult = withBoth.runBatchSimulation();
+
+        assertTrue(withBothResult.getVictimCacheHits() > 0);
+        assertTrue(withBothResult.getWriteBufferPeakOccupancy() <= WRITE_BUFFER_SIZE);
+        assertSameRegisters(withoutWriteBuffer, withBoth);
+    }
+}
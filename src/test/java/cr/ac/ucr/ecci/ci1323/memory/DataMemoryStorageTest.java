@@ -0,0 +1,110 @@
+package cr.ac.ucr.ecci.ci1323.memory;
+
+import cr.ac.ucr.ecci.ci1323.cache.CachePositionState;
+import cr.ac.ucr.ecci.ci1323.cache.CoherenceProtocol;
+import cr.ac.ucr.ecci.ci1323.cache.DataCache;
+import cr.ac.ucr.ecci.ci1323.cache.DataCacheLayout;
+import cr.ac.ucr.ecci.ci1323.commons.SimulationConstants;
+import cr.ac.ucr.ecci.ci1323.exceptions.DataMemoryImageException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that a mapped data memory starts with the words of its image, keeps every word written to it in the image
+ * and reads the words past the end of the image with their initial value.
+ *
+ * @author Elias Calderon, Josue Leon, Daniel Montes de Oca
+ */
+class DataMemoryStorageTest {
+
+    private static final int DATA_BLOCKS = 8;
+
+    @TempDir
+    Path temporaryDirectory;
+
+    /**
+     * Creates a data bus for a single core over a mapped data memory.
+     * @param imagePath the image file of the memory
+     * @return the data bus, with the data cache of its core
+     */
+    private static DataBus createMappedDataBus(Path imagePath) {
+        DataBus dataBus = new DataBus(DataMemoryStorage.MAPPED.createDataMemory(DATA_BLOCKS, imagePath.toString()), 1,
+                CoherenceProtocol.MSI, CoherenceMode.SNOOPING);
+        dataBus.setDataCache(0, new DataCache(dataBus, 4, DataCacheLayout.ARRAYS));
+        return dataBus;
+    }
+
+    @Test
+    void newMappedMemoryHasTheInitialWord() {
+        DataBus dataBus = createMappedDataBus(this.temporaryDirectory.resolve("memory.img"));
+        assertEquals(DATA_BLOCKS, dataBus.getTotalBlocks());
+        for (int i = 0; i < DATA_BLOCKS; i++) {
+            for (int j = 0; j < SimulationConstants.WORDS_PER_DATA_BLOCK; j++) {
+                assertEquals(DataBus.INITIAL_WORD, dataBus.getMemoryBlockData(i, j));
+            }
+        }
+    }
+
+    @Test
+    void mappedMemoryRoundTripsItsImage() throws IOException {
+        Path imagePath = this.temporaryDirectory.resolve("memory.img");
+        DataBus dataBus = createMappedDataBus(imagePath);
+        DataCache dataCache = dataBus.getDataCache(0);
+        dataCache.setTag(0, 5);
+        dataCache.setState(0, CachePositionState.MODIFIED);
+        for (int i = 0; i < SimulationConstants.WORDS_PER_DATA_BLOCK; i++) {
+            dataCache.setWord(0, i, 100 + i);
+        }
+        dataBus.writeBlockToMemory(dataCache, 0);
+
+        // The image keeps the words XORed with the initial word, as little endian integers.
+        ByteBuffer image = ByteBuffer.wrap(Files.readAllBytes(imagePath)).order(ByteOrder.LITTLE_ENDIAN);
+        int firstWord = 5 * SimulationConstants.WORDS_PER_DATA_BLOCK;
+        for (int i = 0; i < SimulationConstants.WORDS_PER_DATA_BLOCK; i++) {
+            assertEquals((100 + i) ^ DataBus.INITIAL_WORD, image.getInt((firstWord + i) * Integer.BYTES));
+        }
+
+        DataBus mappedAgain = createMappedDataBus(imagePath);
+        for (int i = 0; i < SimulationConstants.WORDS_PER_DATA_BLOCK; i++) {
+            assertEquals(100 + i, mappedAgain.getMemoryBlockData(5, i));
+            assertEquals(DataBus.INITIAL_WORD, mappedAgain.getMemoryBlockData(4, i));
+        }
+
+        mappedAgain.readBlockFromMemory(5, dataCache, 1);
+        for (int i = 0; i < SimulationConstants.WORDS_PER_DATA_BLOCK; i++) {
+            assertEquals(100 + i, dataCache.getWord(1, i));
+        }
+    }
+
+    @Test
+    void shortImageIsExtendedWithTheInitialWord() throws IOException {
+        Path imagePath = this.temporaryDirectory.resolve("short.img");
+        ByteBuffer image = ByteBuffer.allocate(SimulationConstants.WORDS_PER_DATA_BLOCK * Integer.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < SimulationConstants.WORDS_PER_DATA_BLOCK; i++) {
+            image.putInt(7 ^ DataBus.INITIAL_WORD);
+        }
+        Files.write(imagePath, image.array());
+
+        DataBus dataBus = createMappedDataBus(imagePath);
+        for (int i = 0; i < SimulationConstants.WORDS_PER_DATA_BLOCK; i++) {
+            assertEquals(7, dataBus.getMemoryBlockData(0, i));
+            assertEquals(DataBus.INITIAL_WORD, dataBus.getMemoryBlockData(DATA_BLOCKS - 1, i));
+        }
+    }
+
+    @Test
+    void mappedMemoryNeedsAnImage() {
+        assertThrows(DataMemoryImageException.class,
+                () -> DataMemoryStorage.MAPPED.createDataMemory(DATA_BLOCKS, null));
+    }
+}